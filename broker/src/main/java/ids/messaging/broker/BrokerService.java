@@ -21,11 +21,30 @@ package ids.messaging.broker;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
+import de.fraunhofer.iais.eis.Message;
 import de.fraunhofer.iais.eis.QueryLanguage;
 import de.fraunhofer.iais.eis.QueryScope;
 import de.fraunhofer.iais.eis.QueryTarget;
+import de.fraunhofer.iais.eis.RejectionMessage;
+import de.fraunhofer.iais.eis.RejectionReason;
 import de.fraunhofer.iais.eis.Resource;
+import ids.messaging.broker.sync.BrokerSyncReport;
+import ids.messaging.broker.sync.ResourceSyncAction;
+import ids.messaging.broker.sync.ResourceSyncResult;
 import ids.messaging.common.DeserializeException;
 import ids.messaging.common.SerializeException;
 import ids.messaging.core.config.ConfigContainer;
@@ -36,6 +55,7 @@ import ids.messaging.protocol.MessageService;
 import ids.messaging.protocol.http.SendMessageException;
 import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.mapping.GenericMessageAndPayload;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.InfrastructureService;
 import ids.messaging.requests.MessageContainer;
@@ -43,10 +63,17 @@ import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.QueryService;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.builder.IdsRequestBuilderService;
+import ids.messaging.requests.cache.QueryResultCache;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.sparql.QueryResultRow;
+import ids.messaging.requests.sparql.QueryResultStream;
+import ids.messaging.requests.sparql.QueryTemplate;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -56,7 +83,8 @@ import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
-public class BrokerService extends InfrastructureService implements IDSBrokerService {
+public class BrokerService extends InfrastructureService
+        implements IDSBrokerService, DisposableBean {
 
     /**
      * Default item limit for the query.
@@ -68,6 +96,11 @@ public class BrokerService extends InfrastructureService implements IDSBrokerSer
      */
     private static final int DEFAULT_OFFSET = 0;
 
+    /**
+     * Maximum shift of the retry delay, limiting it to 2^10 times the configured delay.
+     */
+    private static final int MAX_RETRY_DELAY_SHIFT = 10;
+
     /**
      * The NotificationTemplateProvider.
      */
@@ -88,6 +121,29 @@ public class BrokerService extends InfrastructureService implements IDSBrokerSer
      */
     private final QueryService queryService;
 
+    /**
+     * Maximum number of messages sent in parallel by the bulk operations.
+     */
+    @Value("${messaging.broker.bulk.concurrency:4}")
+    private int bulkConcurrency;
+
+    /**
+     * Number of retries per resource of the bulk operations.
+     */
+    @Value("${messaging.broker.bulk.retries:2}")
+    private int bulkRetries;
+
+    /**
+     * Delay in milliseconds before the first retry, doubled for every later one.
+     */
+    @Value("${messaging.broker.bulk.retry.delay.ms:500}")
+    private long bulkRetryDelay;
+
+    /**
+     * Executor sending the messages of the bulk operations, created on first use.
+     */
+    private volatile ExecutorService bulkExecutor;
+
     /**
      * BrokerService constructor.
      *
@@ -116,6 +172,18 @@ public class BrokerService extends InfrastructureService implements IDSBrokerSer
                 idsRequestBuilderService);
     }
 
+    /**
+     * Set the cache for query results, also used for the broker queries.
+     *
+     * @param queryResultCache The QueryResultCache.
+     */
+    @Override
+    @Autowired(required = false)
+    public void setQueryResultCache(final QueryResultCache queryResultCache) {
+        super.setQueryResultCache(queryResultCache);
+        queryService.setQueryResultCache(queryResultCache);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -211,6 +279,7 @@ public class BrokerService extends InfrastructureService implements IDSBrokerSer
             RejectionException,
             UnexpectedPayloadException {
         logBuildingHeader();
+        //serialized fresh, the connector may have been changed in place since the last update
         return idsRequestBuilderService.newRequest()
                                        .withPayload(container.getConnector())
                                        .subjectConnector()
@@ -244,6 +313,55 @@ public class BrokerService extends InfrastructureService implements IDSBrokerSer
                 .query(brokerURI, query, queryLanguage, queryScope, queryTarget);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<String> queryBroker(@NonNull final URI brokerURI,
+                                                @NonNull final QueryTemplate template,
+                                                @NonNull final Map<String, ?> parameters,
+                                                @NonNull final QueryLanguage queryLanguage,
+                                                @NonNull final QueryScope queryScope,
+                                                @NonNull final QueryTarget queryTarget)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return queryService.query(brokerURI, template, parameters,
+                                  queryLanguage, queryScope, queryTarget);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryResultStream queryBrokerResults(@NonNull final URI brokerURI,
+                                                @NonNull final String query,
+                                                @NonNull final QueryLanguage queryLanguage,
+                                                @NonNull final QueryScope queryScope,
+                                                @NonNull final QueryTarget queryTarget)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException {
+        return queryService
+                .queryResults(brokerURI, query, queryLanguage, queryScope, queryTarget);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -298,4 +416,192 @@ public class BrokerService extends InfrastructureService implements IDSBrokerSer
                 .fullTextSearch(brokerURI, searchTerm, queryScope,
                                 queryTarget, limit, offset);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<QueryResultRow> fullTextSearchBrokerStream(final URI brokerURI,
+                                                             final String searchTerm,
+                                                             final QueryScope queryScope,
+                                                             final QueryTarget queryTarget,
+                                                             final int pageSize) {
+        return queryService.fullTextSearchStream(brokerURI, searchTerm, queryScope,
+                                                 queryTarget, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BrokerSyncReport updateResourcesAtBroker(
+            @NonNull final URI brokerURI,
+            @NonNull final Collection<? extends Resource> resources)
+            throws DapsTokenManagerException {
+        return sendBulk(brokerURI, resources, ResourceSyncAction.UPDATE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BrokerSyncReport removeResourcesFromBroker(
+            @NonNull final URI brokerURI,
+            @NonNull final Collection<? extends Resource> resources)
+            throws DapsTokenManagerException {
+        return sendBulk(brokerURI, resources, ResourceSyncAction.REMOVE);
+    }
+
+    private BrokerSyncReport sendBulk(final URI brokerURI,
+                                      final Collection<? extends Resource> resources,
+                                      final ResourceSyncAction action)
+            throws DapsTokenManagerException {
+        final var items = List.copyOf(resources);
+        final var results = new ArrayList<ResourceSyncResult>(items.size());
+
+        if (items.isEmpty()) {
+            return new BrokerSyncReport(brokerURI, results);
+        }
+
+        if (log.isInfoEnabled()) {
+            log.info("Sending resources to broker. [code=(IMSMEI0072), broker=({}),"
+                     + " action=({}), resources=({})]", brokerURI, action, items.size());
+        }
+
+        //fail fast if no DAT is available, the messages use the DAT cached by the provider
+        tokenProvider.getDAT();
+
+        final var executor = getBulkExecutor();
+        final var futures = new ArrayList<Future<ResourceSyncResult>>(items.size());
+        for (final var resource : items) {
+            futures.add(executor.submit(() -> sendWithRetry(brokerURI, resource, action)));
+        }
+
+        for (var i = 0; i < futures.size(); i++) {
+            final var id = items.get(i).getId();
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (var j = i; j < futures.size(); j++) {
+                    futures.get(j).cancel(true);
+                    results.add(new ResourceSyncResult(items.get(j).getId(), action, false,
+                                                       0, "Interrupted"));
+                }
+                break;
+            } catch (ExecutionException e) {
+                results.add(new ResourceSyncResult(id, action, false, 0,
+                                                   String.valueOf(e.getCause())));
+            }
+        }
+
+        return new BrokerSyncReport(brokerURI, results);
+    }
+
+    /**
+     * Stop the threads sending the messages of bulk operations and requesting query pages.
+     */
+    @Override
+    public void destroy() {
+        final var executor = bulkExecutor;
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        queryService.destroy();
+    }
+
+    private ExecutorService getBulkExecutor() {
+        var executor = bulkExecutor;
+
+        if (executor == null) {
+            synchronized (this) {
+                executor = bulkExecutor;
+                if (executor == null) {
+                    final var threads = Math.max(1, bulkConcurrency);
+                    final var threadCount = new AtomicInteger();
+                    final var pool = new ThreadPoolExecutor(
+                            threads, threads, 1L, TimeUnit.MINUTES,
+                            new LinkedBlockingQueue<>(),
+                            runnable -> {
+                                final var thread = new Thread(runnable,
+                                        "ids-broker-bulk-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                    bulkExecutor = executor;
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    private ResourceSyncResult sendWithRetry(final URI brokerURI,
+                                             final Resource resource,
+                                             final ResourceSyncAction action) {
+        final var id = resource.getId();
+        var attempt = 0;
+
+        while (true) {
+            attempt++;
+            String error;
+            boolean retryable;
+
+            try {
+                final Message message = action == ResourceSyncAction.UPDATE
+                        ? notificationTemplateProvider.resourceUpdateMessageTemplate(id)
+                                                      .buildMessage()
+                        : notificationTemplateProvider.resourceUnavailableMessageTemplate(id)
+                                                      .buildMessage();
+                final var payload = action == ResourceSyncAction.UPDATE ? resource : null;
+                final var response = messageService.sendIdsMessage(
+                        new GenericMessageAndPayload(message, payload), brokerURI);
+                final var header = response.getMessage();
+
+                if (!(header instanceof RejectionMessage)) {
+                    return new ResourceSyncResult(id, action, true, attempt, null);
+                }
+
+                final var reason = ((RejectionMessage) header).getRejectionReason();
+                error = "Rejected: " + reason;
+
+                //a NOT_AUTHENTICATED rejection is not retried, the token provider would send
+                //the same cached DAT again
+                retryable = RejectionReason.TEMPORARILY_NOT_AVAILABLE.equals(reason);
+            } catch (IOException | SendMessageException e) {
+                error = e.getMessage();
+                retryable = true;
+            } catch (Exception e) {
+                //e.g. the message could not be serialized or the response not be parsed
+                error = e.getMessage();
+                retryable = false;
+            }
+
+            if (!retryable || attempt > bulkRetries) {
+                if (log.isWarnEnabled()) {
+                    log.warn("Could not send resource to broker. [code=(IMSMEW0054),"
+                             + " resource=({}), attempts=({}), error=({})]", id, attempt, error);
+                }
+                return new ResourceSyncResult(id, action, false, attempt, error);
+            }
+
+            try {
+                Thread.sleep(retryDelay(attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ResourceSyncResult(id, action, false, attempt, "Interrupted");
+            }
+        }
+    }
+
+    private long retryDelay(final int attempt) {
+        //jittered exponential backoff, so parallel retries do not hit the broker at once
+        final var cap = Math.max(1, bulkRetryDelay)
+                        << Math.min(attempt - 1, MAX_RETRY_DELAY_SHIFT);
+        return ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+    }
 }
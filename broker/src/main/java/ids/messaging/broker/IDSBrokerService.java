@@ -21,11 +21,15 @@ package ids.messaging.broker;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import de.fraunhofer.iais.eis.QueryLanguage;
 import de.fraunhofer.iais.eis.QueryScope;
 import de.fraunhofer.iais.eis.QueryTarget;
 import de.fraunhofer.iais.eis.Resource;
+import ids.messaging.broker.sync.BrokerSyncReport;
 import ids.messaging.common.DeserializeException;
 import ids.messaging.common.SerializeException;
 import ids.messaging.core.daps.ClaimsException;
@@ -38,6 +42,9 @@ import ids.messaging.requests.MessageContainer;
 import ids.messaging.requests.exceptions.NoTemplateProvidedException;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.sparql.QueryResultRow;
+import ids.messaging.requests.sparql.QueryResultStream;
+import ids.messaging.requests.sparql.QueryTemplate;
 
 /**
  * Interface for Communication with IDS Brokers, implemented by {@link BrokerService}.
@@ -231,6 +238,83 @@ public interface IDSBrokerService {
             RejectionException,
             UnexpectedPayloadException;
 
+    /**
+     * Builds and sends a {@link de.fraunhofer.iais.eis.QueryMessage} to the broker with a query
+     * rendered from a compiled template, escaping every parameter value for its slot type.
+     *
+     * @param brokerURI The URI of the broker the message is sent to.
+     * @param template The compiled query template.
+     * @param parameters The values of the template parameters.
+     * @param queryLanguage The Language of the Query.
+     * @param queryScope The Scope of the Query.
+     * @param queryTarget The type of IDS Components that are queried.
+     * @return The brokers response to the query request.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws UnknownResponseException If the format of the answer is not known.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When a RejectionMessage arrives unexpectedly.
+     * @throws UnexpectedPayloadException When the payload cannot be used.
+     */
+    MessageContainer<String> queryBroker(URI brokerURI,
+                                         QueryTemplate template,
+                                         Map<String, ?> parameters,
+                                         QueryLanguage queryLanguage,
+                                         QueryScope queryScope,
+                                         QueryTarget queryTarget)
+            throws IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException;
+
+    /**
+     * Builds and sends a {@link de.fraunhofer.iais.eis.QueryMessage} to the broker and parses
+     * the SPARQL result row by row from the response body. The result must be closed after
+     * consuming the rows.
+     *
+     * @param brokerURI The URI of the broker the message is sent to.
+     * @param query The query as payload for the QueryMessage.
+     * @param queryLanguage The Language of the Query.
+     * @param queryScope The Scope of the Query.
+     * @param queryTarget The type of IDS Components that are queried.
+     * @return The result rows of the query.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When a RejectionMessage arrives.
+     */
+    QueryResultStream queryBrokerResults(URI brokerURI,
+                                         String query,
+                                         QueryLanguage queryLanguage,
+                                         QueryScope queryScope,
+                                         QueryTarget queryTarget)
+            throws IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException;
+
     /**
      * Do a FullText Query on the Broker with default limit and offset.
      *
@@ -312,4 +396,52 @@ public interface IDSBrokerService {
             DeserializeException,
             RejectionException,
             UnexpectedPayloadException;
+
+    /**
+     * Do a FullText Query on the Broker as lazy stream of result rows. Pages of the given
+     * size are requested while the stream is consumed, the next one in the background once
+     * half of the current page has been consumed. The stream ends after the first short page.
+     *
+     * @param brokerURI The URI of the Broker.
+     * @param searchTerm The searchterm used in the query.
+     * @param queryScope The Scope of the query.
+     * @param queryTarget The target of the query.
+     * @param pageSize The number of result rows requested per page.
+     * @return Stream of the result rows, closing it cancels outstanding page requests.
+     */
+    Stream<QueryResultRow> fullTextSearchBrokerStream(URI brokerURI,
+                                                      String searchTerm,
+                                                      QueryScope queryScope,
+                                                      QueryTarget queryTarget,
+                                                      int pageSize);
+
+    /**
+     * Sends a {@link de.fraunhofer.iais.eis.ResourceUpdateMessage} for each of the given
+     * resources to the broker, with a limited number of messages in parallel and a DAT
+     * shared by all messages. Failed messages are retried, the outcome is reported per
+     * resource instead of throwing.
+     *
+     * @param brokerURI URI of the broker the resources will be registered at.
+     * @param resources The resources that will be registered or updated at the broker.
+     * @return The outcome per resource, in the order of the given resources.
+     * @throws DapsTokenManagerException If no DAT for sending the messages could be received.
+     */
+    BrokerSyncReport updateResourcesAtBroker(URI brokerURI,
+                                             Collection<? extends Resource> resources)
+            throws DapsTokenManagerException;
+
+    /**
+     * Sends a {@link de.fraunhofer.iais.eis.ResourceUnavailableMessage} for each of the given
+     * resources to the broker, with a limited number of messages in parallel and a DAT
+     * shared by all messages. Failed messages are retried, the outcome is reported per
+     * resource instead of throwing.
+     *
+     * @param brokerURI URI of the broker the resources will be unregistered at.
+     * @param resources The resources that will be unregistered at the broker.
+     * @return The outcome per resource, in the order of the given resources.
+     * @throws DapsTokenManagerException If no DAT for sending the messages could be received.
+     */
+    BrokerSyncReport removeResourcesFromBroker(URI brokerURI,
+                                               Collection<? extends Resource> resources)
+            throws DapsTokenManagerException;
 }
@@ -0,0 +1,410 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.index;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.fraunhofer.iais.eis.QueryLanguage;
+import de.fraunhofer.iais.eis.QueryScope;
+import de.fraunhofer.iais.eis.QueryTarget;
+import ids.messaging.broker.IDSBrokerService;
+import ids.messaging.common.DeserializeException;
+import ids.messaging.common.SerializeException;
+import ids.messaging.core.daps.ClaimsException;
+import ids.messaging.core.daps.DapsTokenManagerException;
+import ids.messaging.protocol.http.SendMessageException;
+import ids.messaging.protocol.http.ShaclValidatorException;
+import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.parser.MultipartParseException;
+import ids.messaging.requests.exceptions.NoTemplateProvidedException;
+import ids.messaging.requests.exceptions.RejectionException;
+import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.sparql.QueryResultFormat;
+import ids.messaging.requests.sparql.QueryResultRow;
+import ids.messaging.util.FullTextQueryTemplate;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local mirror of broker catalogs for fulltext searches. The catalog of each tracked broker
+ * is pulled periodically with a paginated query into a {@link CatalogSnapshot}, and fulltext
+ * searches over all connectors of the broker are answered from it. Searches with another
+ * scope or target, on untracked brokers or while the mirror is stale are sent to the broker.
+ */
+@Slf4j
+@Component
+public class BrokerCatalogIndex implements DisposableBean {
+
+    /**
+     * The broker service used to pull the catalogs and for remote searches.
+     */
+    private final IDSBrokerService brokerService;
+
+    /**
+     * Used to switch the local catalog index on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.broker.index.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Interval of the catalog pulls in seconds.
+     */
+    @Value("${messaging.broker.index.refresh.seconds:300}")
+    private long refreshSeconds;
+
+    /**
+     * Age in seconds after which a catalog copy is no longer used for searches.
+     */
+    @Value("${messaging.broker.index.stale.seconds:900}")
+    private long staleSeconds;
+
+    /**
+     * Number of rows requested per page when pulling a catalog.
+     */
+    @Value("${messaging.broker.index.page.size:1000}")
+    private int pageSize;
+
+    /**
+     * Maximum number of pages pulled per catalog, larger catalogs are not indexed.
+     */
+    @Value("${messaging.broker.index.max.pages:1000}")
+    private int maxPages;
+
+    /**
+     * The current catalog copy per broker.
+     */
+    private final Map<URI, CatalogSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * The scheduled pulls per tracked broker.
+     */
+    private final Map<URI, ScheduledFuture<?>> refreshTasks = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the scheduled pulls.
+     */
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                final var thread = new Thread(r, "broker-catalog-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Number of searches answered locally.
+     */
+    private final LongAdder localSearchCount = new LongAdder();
+
+    /**
+     * Number of searches sent to the broker.
+     */
+    private final LongAdder remoteSearchCount = new LongAdder();
+
+    /**
+     * Create a BrokerCatalogIndex.
+     *
+     * @param brokerService The broker service used to pull the catalogs.
+     */
+    public BrokerCatalogIndex(final IDSBrokerService brokerService) {
+        this.brokerService = brokerService;
+    }
+
+    /**
+     * @return True if the local catalog index is switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Pull the catalog of the broker now and then periodically. Does nothing if the broker
+     * is already tracked or the index is switched off.
+     *
+     * @param brokerURI The broker.
+     */
+    public void track(@NonNull final URI brokerURI) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        refreshTasks.computeIfAbsent(brokerURI, uri -> scheduler.scheduleWithFixedDelay(
+                () -> refreshQuietly(uri), 0, refreshSeconds, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Stop pulling the catalog of the broker and drop its local copy.
+     *
+     * @param brokerURI The broker.
+     */
+    public void untrack(@NonNull final URI brokerURI) {
+        final var task = refreshTasks.remove(brokerURI);
+        if (task != null) {
+            task.cancel(false);
+        }
+        snapshots.remove(brokerURI);
+    }
+
+    /**
+     * Pull the catalog of the broker page by page and replace its local copy. The pull fails
+     * if the catalog has more than the configured maximum number of pages, the previous copy
+     * is kept then.
+     *
+     * @param brokerURI The broker.
+     * @return The new local copy.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException If the catalog has too many pages, or other errors, which were not
+     *                     categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When the broker rejects the query.
+     */
+    public CatalogSnapshot refresh(@NonNull final URI brokerURI)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException {
+        final var started = Instant.now();
+        final var rows = new ArrayList<QueryResultRow>();
+
+        final var rowsPerPage = Math.max(1, pageSize);
+        var offset = 0;
+        var pages = 0;
+        var pageRows = rowsPerPage;
+        while (pageRows >= rowsPerPage) {
+            if (pages++ >= maxPages) {
+                throw new IOException(String.format(
+                        "Broker catalog has more than %d pages of %d rows!",
+                        maxPages, rowsPerPage));
+            }
+
+            pageRows = 0;
+            try (var page = brokerService.queryBrokerResults(
+                    brokerURI,
+                    String.format(FullTextQueryTemplate.CATALOG_QUERY, rowsPerPage, offset),
+                    QueryLanguage.SPARQL, QueryScope.ALL, QueryTarget.BROKER)) {
+                final var iterator = page.iterator();
+                while (iterator.hasNext()) {
+                    rows.add(iterator.next());
+                    pageRows++;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            offset += rowsPerPage;
+        }
+
+        final var snapshot = CatalogSnapshot.build(rows, started);
+        snapshots.put(brokerURI, snapshot);
+
+        if (log.isInfoEnabled()) {
+            log.info("Pulled broker catalog into local index. [code=(IMSMEI0073), broker=({}),"
+                     + " rows=({}), words=({}), duration=({}ms)]", brokerURI, snapshot.size(),
+                     snapshot.getWordCount(),
+                     Duration.between(started, Instant.now()).toMillis());
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Do a fulltext search on the broker, answered from the local copy of its catalog if
+     * possible. Rows are returned with the variables of the fulltext query result.
+     *
+     * <p>Local and remote searches match differently. The broker matches the whole search
+     * term literally as case-insensitive substring of the literal or URI. Local searches
+     * match each word of the search term as the beginning of a word of the literal or URI,
+     * in any order and ignoring punctuation. For example, "data" matches "Database" either
+     * way, but "base" only matches it remotely, and "weather data" locally also matches
+     * "data on the weather". The result of a search can thus change when the local copy
+     * becomes stale and the search is sent to the broker.</p>
+     *
+     * @param brokerURI The broker.
+     * @param searchTerm The search term.
+     * @param queryScope The scope of the query, only {@link QueryScope#ALL} is answered locally.
+     * @param queryTarget The target of the query, only {@link QueryTarget#BROKER} is answered
+     *                    locally.
+     * @param limit Maximum number of rows returned.
+     * @param offset Number of matching rows skipped.
+     * @return The matching rows.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws UnknownResponseException If the format of the answer is not known.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When a RejectionMessage arrives unexpectedly.
+     * @throws UnexpectedPayloadException When the payload cannot be used.
+     * @throws NoTemplateProvidedException If no internal template can be found for the message.
+     */
+    public List<QueryResultRow> fullTextSearch(@NonNull final URI brokerURI,
+                                               @NonNull final String searchTerm,
+                                               @NonNull final QueryScope queryScope,
+                                               @NonNull final QueryTarget queryTarget,
+                                               final int limit,
+                                               final int offset)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            NoTemplateProvidedException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        if (isEnabled() && queryScope == QueryScope.ALL && queryTarget == QueryTarget.BROKER) {
+            track(brokerURI);
+
+            final var snapshot = getFreshSnapshot(brokerURI);
+            if (snapshot.isPresent()) {
+                localSearchCount.increment();
+                return snapshot.get().search(unquote(searchTerm), limit, offset);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Local broker catalog index is missing or stale, sending search to"
+                          + " broker. [code=(IMSMED0157), broker=({})]", brokerURI);
+            }
+        }
+
+        remoteSearchCount.increment();
+
+        final var response = brokerService.fullTextSearchBroker(brokerURI, searchTerm,
+                                                                queryScope, queryTarget,
+                                                                limit, offset);
+        final var rows = new ArrayList<QueryResultRow>();
+        final var payload = response.getReceivedPayload();
+
+        if (payload != null) {
+            try (var reader = QueryResultFormat.open(new StringReader(payload))) {
+                reader.forEachRemaining(rows::add);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * @param brokerURI The broker.
+     * @return Time the local copy of the broker catalog was pulled, empty if there is none.
+     */
+    public Optional<Instant> getLastRefresh(@NonNull final URI brokerURI) {
+        return Optional.ofNullable(snapshots.get(brokerURI)).map(CatalogSnapshot::getLoadedAt);
+    }
+
+    /**
+     * @param brokerURI The broker.
+     * @return Number of rows in the local copy of the broker catalog.
+     */
+    public int getIndexedRowCount(@NonNull final URI brokerURI) {
+        final var snapshot = snapshots.get(brokerURI);
+        return snapshot == null ? 0 : snapshot.size();
+    }
+
+    /**
+     * @return Number of searches answered locally.
+     */
+    public long getLocalSearchCount() {
+        return localSearchCount.sum();
+    }
+
+    /**
+     * @return Number of searches sent to the broker.
+     */
+    public long getRemoteSearchCount() {
+        return remoteSearchCount.sum();
+    }
+
+    /**
+     * Stop the scheduled catalog pulls.
+     */
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private Optional<CatalogSnapshot> getFreshSnapshot(final URI brokerURI) {
+        final var snapshot = snapshots.get(brokerURI);
+
+        if (snapshot == null
+            || snapshot.getLoadedAt().plusSeconds(staleSeconds).isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+
+        return Optional.of(snapshot);
+    }
+
+    private void refreshQuietly(final URI brokerURI) {
+        try {
+            refresh(brokerURI);
+        } catch (Exception e) {
+            //Keep the previous copy until it becomes stale, retry with the next pull.
+            if (log.isWarnEnabled()) {
+                log.warn("Could not pull broker catalog into local index. [code=(IMSMEW0055),"
+                         + " broker=({}), exception=({})]", brokerURI, e.getMessage());
+            }
+        }
+    }
+
+    private static String unquote(final String searchTerm) {
+        if (searchTerm.length() >= 2 && searchTerm.charAt(0) == '"'
+            && searchTerm.charAt(searchTerm.length() - 1) == '"') {
+            return searchTerm.substring(1, searchTerm.length() - 1);
+        }
+
+        return searchTerm;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.index;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import ids.messaging.requests.sparql.QueryResultRow;
+import lombok.Getter;
+
+/**
+ * Immutable in-memory copy of the catalog of a broker, as rows of the fulltext query result,
+ * with an inverted index from the lower case words of each row's literal and URI to the row.
+ */
+public final class CatalogSnapshot {
+
+    /**
+     * Splits literals into words.
+     */
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * The result variable of the matched literal.
+     */
+    private static final String TEXT_VARIABLE = "res";
+
+    /**
+     * The result variable of the URI of the matched element.
+     */
+    private static final String URI_VARIABLE = "resultUri";
+
+    /**
+     * The indexed rows.
+     */
+    private final QueryResultRow[] rows;
+
+    /**
+     * Sorted words and the rows containing them.
+     */
+    private final TreeMap<String, BitSet> postings;
+
+    /**
+     * Time the catalog was loaded from the broker.
+     */
+    @Getter
+    private final Instant loadedAt;
+
+    private CatalogSnapshot(final QueryResultRow[] rows,
+                            final TreeMap<String, BitSet> postings,
+                            final Instant loadedAt) {
+        this.rows = rows;
+        this.postings = postings;
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Build the index over the rows of a catalog query.
+     *
+     * @param catalogRows Rows with the variables of the fulltext query result.
+     * @param loadedAt Time the catalog was loaded from the broker.
+     * @return The CatalogSnapshot.
+     */
+    public static CatalogSnapshot build(final Collection<QueryResultRow> catalogRows,
+                                        final Instant loadedAt) {
+        final var rows = catalogRows.toArray(new QueryResultRow[0]);
+        final var postings = new TreeMap<String, BitSet>();
+
+        for (var i = 0; i < rows.length; i++) {
+            for (final var variable : List.of(TEXT_VARIABLE, URI_VARIABLE)) {
+                for (final var word : tokenize(rows[i].get(variable))) {
+                    postings.computeIfAbsent(word, w -> new BitSet()).set(i);
+                }
+            }
+        }
+
+        return new CatalogSnapshot(rows, postings, loadedAt);
+    }
+
+    /**
+     * Search the catalog. A row matches if every word of the search term is the beginning of
+     * a word of its literal or URI, ignoring case. A search term without words matches all
+     * rows.
+     *
+     * @param searchTerm The search term.
+     * @param limit Maximum number of rows returned.
+     * @param offset Number of matching rows skipped.
+     * @return The matching rows, in catalog order.
+     */
+    public List<QueryResultRow> search(final String searchTerm,
+                                       final int limit,
+                                       final int offset) {
+        final var matches = new BitSet(rows.length);
+        matches.set(0, rows.length);
+
+        for (final var word : tokenize(searchTerm)) {
+            final var wordMatches = new BitSet(rows.length);
+            for (final var posting : postings.subMap(word, word + Character.MAX_VALUE).values()) {
+                wordMatches.or(posting);
+            }
+            matches.and(wordMatches);
+        }
+
+        final var result = new ArrayList<QueryResultRow>(Math.min(limit, matches.cardinality()));
+        var skipped = 0;
+        for (var i = matches.nextSetBit(0); i >= 0 && result.size() < limit;
+             i = matches.nextSetBit(i + 1)) {
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(rows[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return Number of indexed rows.
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * @return Number of distinct indexed words.
+     */
+    public int getWordCount() {
+        return postings.size();
+    }
+
+    /**
+     * Split a text into lower case words.
+     *
+     * @param text The text, may be null.
+     * @return The distinct words of the text.
+     */
+    static List<String> tokenize(final String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        return Arrays.stream(WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                     .filter(word -> !word.isEmpty())
+                     .distinct()
+                     .collect(Collectors.toList());
+    }
+}
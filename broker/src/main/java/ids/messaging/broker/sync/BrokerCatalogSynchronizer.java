@@ -0,0 +1,188 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.sync;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceBuilder;
+import ids.messaging.broker.IDSBrokerService;
+import ids.messaging.core.config.ConfigContainer;
+import ids.messaging.core.daps.DapsTokenManagerException;
+import ids.messaging.util.DigestUtils;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Incrementally syncs the offered resources of the connector's catalog with a broker.
+ * The content hash of every resource the broker acknowledged is persisted per broker, so
+ * that a sync only sends ResourceUpdateMessages for new or changed resources and
+ * ResourceUnavailableMessages for removed ones, using the bulk operations of the broker
+ * service. Failed resources keep their last acknowledged state and are sent again by the
+ * next sync.
+ */
+@Slf4j
+@Component
+public class BrokerCatalogSynchronizer {
+
+    /**
+     * The broker service used to send the messages.
+     */
+    private final IDSBrokerService brokerService;
+
+    /**
+     * The ConfigContainer.
+     */
+    private final ConfigContainer container;
+
+    /**
+     * Directory of the persisted sync states.
+     */
+    @Value("${messaging.broker.sync.state.path:broker-sync}")
+    private String statePath;
+
+    /**
+     * The store of the acknowledged states, created on first use.
+     */
+    private SyncStateStore store;
+
+    /**
+     * Create a BrokerCatalogSynchronizer.
+     *
+     * @param brokerService The broker service used to send the messages.
+     * @param container The ConfigContainer.
+     */
+    public BrokerCatalogSynchronizer(final IDSBrokerService brokerService,
+                                     final ConfigContainer container) {
+        this.brokerService = brokerService;
+        this.container = container;
+    }
+
+    /**
+     * Sync the offered resources of the current configuration with the broker.
+     *
+     * @param brokerURI The broker.
+     * @return The outcome per resource.
+     * @throws IOException If the acknowledged state cannot be read or the self-description
+     * cannot be serialized.
+     * @throws DapsTokenManagerException If no DAT for sending the messages could be received.
+     */
+    public synchronized BrokerSyncReport synchronize(@NonNull final URI brokerURI)
+            throws IOException, DapsTokenManagerException {
+        final var previous = getStore().load(brokerURI);
+        final var current = currentHashes();
+        final var state = new HashMap<>(previous);
+
+        final var results = new ArrayList<ResourceSyncResult>();
+        final var updates = new ArrayList<Resource>();
+        final var removals = new ArrayList<Resource>();
+
+        for (final var entry : current.entrySet()) {
+            if (entry.getValue().getValue().equals(previous.get(entry.getKey()))) {
+                results.add(new ResourceSyncResult(entry.getKey(), ResourceSyncAction.UNCHANGED,
+                                                   true, 0, null));
+            } else {
+                updates.add(entry.getValue().getKey());
+            }
+        }
+
+        for (final var id : previous.keySet()) {
+            if (!current.containsKey(id)) {
+                removals.add(new ResourceBuilder(id).build());
+            }
+        }
+
+        if (log.isInfoEnabled()) {
+            log.info("Syncing catalog with broker. [code=(IMSMEI0071), broker=({}),"
+                     + " updated=({}), removed=({}), unchanged=({})]",
+                     brokerURI, updates.size(), removals.size(), results.size());
+        }
+
+        try {
+            for (final var result : brokerService.updateResourcesAtBroker(brokerURI, updates)
+                                                 .getResults()) {
+                if (result.isSuccess()) {
+                    state.put(result.getResourceId(),
+                              current.get(result.getResourceId()).getValue());
+                }
+                results.add(result);
+            }
+
+            for (final var result : brokerService.removeResourcesFromBroker(brokerURI, removals)
+                                                 .getResults()) {
+                if (result.isSuccess()) {
+                    state.remove(result.getResourceId());
+                }
+                results.add(result);
+            }
+        } finally {
+            getStore().save(brokerURI, state);
+        }
+
+        return new BrokerSyncReport(brokerURI, results);
+    }
+
+    /**
+     * Forget the acknowledged state of a broker, so that the next sync sends all resources.
+     *
+     * @param brokerURI The broker.
+     * @throws IOException If the state cannot be deleted.
+     */
+    public synchronized void reset(@NonNull final URI brokerURI) throws IOException {
+        getStore().reset(brokerURI);
+    }
+
+    private Map<URI, Map.Entry<Resource, String>> currentHashes() throws IOException {
+        final var selfDescription = container.getSelfDescription();
+        final var hashes = new LinkedHashMap<URI, Map.Entry<Resource, String>>();
+
+        for (final var catalog : nullSafe(container.getConnector().getResourceCatalog())) {
+            for (final var resource : nullSafe(catalog.getOfferedResource())) {
+                final var serialized = selfDescription.getElement(resource.getId())
+                                                      .orElseGet(resource::toRdf);
+                hashes.put(resource.getId(),
+                           Map.entry(resource, DigestUtils.sha256Hex(serialized)));
+            }
+        }
+
+        return hashes;
+    }
+
+    private synchronized SyncStateStore getStore() {
+        if (store == null) {
+            store = new SyncStateStore(Path.of(statePath));
+        }
+        return store;
+    }
+
+    private static <T> Collection<T> nullSafe(final Collection<T> collection) {
+        return collection == null ? List.of() : collection;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.sync;
+
+import java.net.URI;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of a broker catalog sync or bulk registration, with the outcome of every resource.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BrokerSyncReport {
+    /**
+     * The broker the resources were sent to.
+     */
+    private final URI brokerURI;
+
+    /**
+     * The outcome per resource.
+     */
+    private final List<ResourceSyncResult> results;
+
+    /**
+     * @return The number of resources sent to the broker successfully.
+     */
+    public long getSent() {
+        return results.stream()
+                      .filter(r -> r.isSuccess() && r.getAction() != ResourceSyncAction.UNCHANGED)
+                      .count();
+    }
+
+    /**
+     * @return The number of unchanged resources.
+     */
+    public long getUnchanged() {
+        return results.stream()
+                      .filter(r -> r.getAction() == ResourceSyncAction.UNCHANGED)
+                      .count();
+    }
+
+    /**
+     * @return The results of all resources that could not be synced.
+     */
+    public List<ResourceSyncResult> getFailed() {
+        return results.stream().filter(r -> !r.isSuccess()).collect(Collectors.toList());
+    }
+
+    /**
+     * @return True if all resources were synced.
+     */
+    public boolean isSuccessful() {
+        return results.stream().allMatch(ResourceSyncResult::isSuccess);
+    }
+}
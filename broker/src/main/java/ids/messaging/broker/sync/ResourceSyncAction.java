@@ -0,0 +1,40 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.sync;
+
+/**
+ * Action taken for a single resource during a broker catalog sync.
+ */
+public enum ResourceSyncAction {
+    /**
+     * The resource was new or changed and sent with a ResourceUpdateMessage.
+     */
+    UPDATE,
+
+    /**
+     * The resource was removed from the catalog and sent with a ResourceUnavailableMessage.
+     */
+    REMOVE,
+
+    /**
+     * The resource is unchanged since the last acknowledged sync, nothing was sent.
+     */
+    UNCHANGED
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.sync;
+
+import java.net.URI;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of the sync or bulk registration of a single resource.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ResourceSyncResult {
+    /**
+     * The id of the resource.
+     */
+    private final URI resourceId;
+
+    /**
+     * The action taken for the resource.
+     */
+    private final ResourceSyncAction action;
+
+    /**
+     * True if the broker acknowledged the message, or nothing had to be sent.
+     */
+    private final boolean success;
+
+    /**
+     * Number of messages sent for the resource, including retries.
+     */
+    private final int attempts;
+
+    /**
+     * Description of the failure, null if successful.
+     */
+    private final String error;
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.sync;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import ids.messaging.util.DigestUtils;
+
+/**
+ * Stores the content hashes of the resources last acknowledged by each broker as one
+ * properties file per broker in a local directory.
+ */
+public class SyncStateStore {
+
+    /**
+     * File extension of stored states.
+     */
+    private static final String EXTENSION = ".properties";
+
+    /**
+     * The directory of the stored states.
+     */
+    private final Path directory;
+
+    /**
+     * Create a SyncStateStore.
+     *
+     * @param directory The directory of the stored states, created on first save.
+     */
+    public SyncStateStore(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Load the last acknowledged state of a broker.
+     *
+     * @param brokerURI The broker.
+     * @return Content hash per resource id, empty if the broker was never synced.
+     * @throws IOException If the stored state cannot be read.
+     */
+    public synchronized Map<URI, String> load(final URI brokerURI) throws IOException {
+        final var file = fileOf(brokerURI);
+        final var state = new HashMap<URI, String>();
+
+        if (!Files.exists(file)) {
+            return state;
+        }
+
+        final var properties = new Properties();
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        for (final var name : properties.stringPropertyNames()) {
+            state.put(URI.create(name), properties.getProperty(name));
+        }
+
+        return state;
+    }
+
+    /**
+     * Replace the stored state of a broker.
+     *
+     * @param brokerURI The broker.
+     * @param state Content hash per resource id.
+     * @throws IOException If the state cannot be written.
+     */
+    public synchronized void save(final URI brokerURI, final Map<URI, String> state)
+            throws IOException {
+        Files.createDirectories(directory);
+
+        final var properties = new Properties();
+        for (final var entry : state.entrySet()) {
+            properties.setProperty(entry.getKey().toString(), entry.getValue());
+        }
+
+        final var temp = Files.createTempFile(directory, "sync", ".tmp");
+        try (var writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, brokerURI.toString());
+        }
+
+        Files.move(temp, fileOf(brokerURI), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Remove the stored state of a broker, so that the next sync sends all resources.
+     *
+     * @param brokerURI The broker.
+     * @throws IOException If the state cannot be deleted.
+     */
+    public synchronized void reset(final URI brokerURI) throws IOException {
+        Files.deleteIfExists(fileOf(brokerURI));
+    }
+
+    private Path fileOf(final URI brokerURI) {
+        return directory.resolve(DigestUtils.sha256Hex(brokerURI.toString()) + EXTENSION);
+    }
+}
@@ -25,7 +25,13 @@ package ids.messaging.broker.util;
 public final class FullTextQueryTemplate {
     /**
      * Refers to the template for the fulltext query search.
+     *
+     * @deprecated The search term is inserted without escaping, use
+     * {@link ids.messaging.util.FullTextQueryTemplate#FULL_TEXT_QUERY_TEMPLATE} with
+     * {@link ids.messaging.requests.sparql.QueryTemplate}.
      */
+    @Deprecated
+    @SuppressWarnings("deprecation")
     public static final String FULL_TEXT_QUERY =
             ids.messaging.util.FullTextQueryTemplate.FULL_TEXT_QUERY;
 
@@ -19,7 +19,9 @@
  */
 package ids.messaging.broker;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.List;
 
 import de.fraunhofer.iais.eis.BaseConnectorBuilder;
 import de.fraunhofer.iais.eis.ConfigurationModel;
@@ -40,6 +42,7 @@ import de.fraunhofer.iais.eis.SecurityProfile;
 import de.fraunhofer.iais.eis.TokenFormat;
 import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
 import de.fraunhofer.iais.eis.util.Util;
+import ids.messaging.common.DeserializeException;
 import ids.messaging.core.config.ConfigContainer;
 import ids.messaging.core.config.ssl.keystore.KeyStoreManager;
 import ids.messaging.core.daps.DapsPublicKeyProvider;
@@ -68,6 +71,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -227,6 +232,33 @@ class BrokerServiceTest {
     }
 
 
+    @Test
+    void testUpdateResourcesAtBroker() throws Exception {
+        final MessageAndPayload map = new MessageProcessedNotificationMAP(notificationMessage);
+        Mockito.when(messageService.sendIdsMessage(any(GenericMessageAndPayload.class), any(URI.class)))
+               .thenReturn(map);
+
+        final var resources = List.of(new ResourceBuilder().build(), new ResourceBuilder().build());
+        final var report = this.brokerService.updateResourcesAtBroker(URI.create("/"), resources);
+        assertTrue(report.isSuccessful(), "All resources should be registered");
+        assertEquals(2, report.getSent());
+        assertEquals(resources.get(1).getId(), report.getResults().get(1).getResourceId());
+
+        final var removal = this.brokerService.removeResourcesFromBroker(URI.create("/"), resources);
+        assertTrue(removal.isSuccessful(), "All resources should be unregistered");
+    }
+
+    @Test
+    void testPermanentBulkFailureIsNotRetried() throws Exception {
+        Mockito.when(messageService.sendIdsMessage(any(GenericMessageAndPayload.class), any(URI.class)))
+               .thenThrow(new DeserializeException(new IOException("unparsable response")));
+
+        final var report = this.brokerService.updateResourcesAtBroker(
+                URI.create("/"), List.of(new ResourceBuilder().build()));
+        assertEquals(1, report.getResults().get(0).getAttempts());
+        assertFalse(report.getResults().get(0).isSuccess());
+    }
+
     @Test
     void testRemoveResourceFromBroker() throws Exception{
         final MessageAndPayload map = new MessageProcessedNotificationMAP(notificationMessage);
@@ -0,0 +1,126 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.index;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.stream.Collectors;
+
+import de.fraunhofer.iais.eis.QueryScope;
+import de.fraunhofer.iais.eis.QueryTarget;
+import de.fraunhofer.iais.eis.ResultMessage;
+import ids.messaging.broker.IDSBrokerService;
+import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.sparql.QueryResultStream;
+import ids.messaging.requests.sparql.TsvResultReader;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+class BrokerCatalogIndexTest {
+
+    private static final URI BROKER = URI.create("https://broker.example.org/infrastructure");
+
+    private static final String CATALOG = "?resultUri\t?res\t?type\t?accessUrl\t?internalUri\n"
+            + "<https://example.org/resource/1>\t\"Weather data Berlin\"@en"
+            + "\t<https://w3id.org/idsa/core/Resource>\t<https://connector.example.org/api>"
+            + "\t<https://example.org/resource/1>\n"
+            + "<https://example.org/resource/2>\t\"Traffic data Hamburg\"@en"
+            + "\t<https://w3id.org/idsa/core/Resource>\t<https://connector.example.org/api>"
+            + "\t<https://example.org/resource/2>\n";
+
+    @Test
+    void testSearchIsAnsweredLocallyOnceCatalogIsPulled() throws Exception {
+        final var brokerService = Mockito.mock(IDSBrokerService.class);
+        Mockito.when(brokerService.queryBrokerResults(eq(BROKER), anyString(), any(), any(),
+                                                      any()))
+               .thenAnswer(call -> new QueryResultStream(
+                       Mockito.mock(ResultMessage.class),
+                       new TsvResultReader(new StringReader(CATALOG)), () -> { }));
+        Mockito.when(brokerService.fullTextSearchBroker(eq(BROKER), anyString(), any(), any(),
+                                                        anyInt(), anyInt()))
+               .thenReturn(new MessageContainer<>(Mockito.mock(ResultMessage.class), ""));
+
+        final var index = new BrokerCatalogIndex(brokerService);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "refreshSeconds", 3600L);
+        ReflectionTestUtils.setField(index, "staleSeconds", 3600L);
+        ReflectionTestUtils.setField(index, "pageSize", 10);
+        ReflectionTestUtils.setField(index, "maxPages", 10);
+
+        try {
+            index.fullTextSearch(BROKER, "weather", QueryScope.ALL, QueryTarget.BROKER, 50, 0);
+            assertEquals(1, index.getRemoteSearchCount());
+
+            index.refresh(BROKER);
+            final var rows = index.fullTextSearch(BROKER, "\"DATA berl\"", QueryScope.ALL,
+                                                  QueryTarget.BROKER, 50, 0);
+            assertEquals(1, index.getLocalSearchCount());
+            assertEquals("https://example.org/resource/1", rows.get(0).get("resultUri"));
+            assertEquals(1, rows.size());
+
+            final var all = index.fullTextSearch(BROKER, "data", QueryScope.ALL,
+                                                 QueryTarget.BROKER, 50, 1);
+            assertEquals("https://example.org/resource/2", all.stream()
+                    .map(row -> row.get("resultUri")).collect(Collectors.joining()));
+
+            index.fullTextSearch(BROKER, "data", QueryScope.ACTIVE, QueryTarget.BROKER, 50, 0);
+            assertEquals(2, index.getRemoteSearchCount());
+            assertTrue(index.getLastRefresh(BROKER).isPresent());
+        } finally {
+            index.destroy();
+        }
+    }
+
+    @Test
+    void testRefreshIsBoundedByMaxPages() throws Exception {
+        //the broker ignores the offset and returns full pages forever
+        final var brokerService = Mockito.mock(IDSBrokerService.class);
+        Mockito.when(brokerService.queryBrokerResults(eq(BROKER), anyString(), any(), any(),
+                                                      any()))
+               .thenAnswer(call -> new QueryResultStream(
+                       Mockito.mock(ResultMessage.class),
+                       new TsvResultReader(new StringReader(CATALOG)), () -> { }));
+
+        final var index = new BrokerCatalogIndex(brokerService);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "pageSize", 2);
+        ReflectionTestUtils.setField(index, "maxPages", 3);
+
+        try {
+            assertThrows(IOException.class, () -> index.refresh(BROKER));
+            assertFalse(index.getLastRefresh(BROKER).isPresent());
+            Mockito.verify(brokerService, Mockito.times(3))
+                   .queryBrokerResults(eq(BROKER), anyString(), any(), any(), any());
+        } finally {
+            index.destroy();
+        }
+    }
+}
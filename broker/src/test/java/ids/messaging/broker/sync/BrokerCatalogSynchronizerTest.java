@@ -0,0 +1,121 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.broker.sync;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import de.fraunhofer.iais.eis.BaseConnectorBuilder;
+import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.ConnectorEndpointBuilder;
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceBuilder;
+import de.fraunhofer.iais.eis.ResourceCatalogBuilder;
+import de.fraunhofer.iais.eis.SecurityProfile;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.broker.IDSBrokerService;
+import ids.messaging.core.config.ConfigContainer;
+import ids.messaging.core.config.SerializedSelfDescription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class BrokerCatalogSynchronizerTest {
+
+    private static final URI BROKER = URI.create("https://broker.example.org/infrastructure");
+
+    @TempDir
+    Path stateDirectory;
+
+    @Test
+    void testOnlyChangedResourcesAreSent() throws Exception {
+        final var first = resource("https://example.org/resource/1");
+        final var second = resource("https://example.org/resource/2");
+
+        final var brokerService = Mockito.mock(IDSBrokerService.class);
+        Mockito.when(brokerService.updateResourcesAtBroker(eq(BROKER), any()))
+               .thenAnswer(call -> acknowledge(call.getArgument(1), ResourceSyncAction.UPDATE));
+        Mockito.when(brokerService.removeResourcesFromBroker(eq(BROKER), any()))
+               .thenAnswer(call -> acknowledge(call.getArgument(1), ResourceSyncAction.REMOVE));
+        final var container = Mockito.mock(ConfigContainer.class);
+        useConnector(container, connector(first, second));
+
+        final var synchronizer = new BrokerCatalogSynchronizer(brokerService, container);
+        ReflectionTestUtils.setField(synchronizer, "statePath", stateDirectory.toString());
+
+        final var initial = synchronizer.synchronize(BROKER);
+        assertTrue(initial.isSuccessful());
+        assertEquals(2, initial.getSent());
+
+        final var unchanged = synchronizer.synchronize(BROKER);
+        assertEquals(0, unchanged.getSent());
+        assertEquals(2, unchanged.getUnchanged());
+
+        useConnector(container, connector(first));
+        final var removed = synchronizer.synchronize(BROKER);
+        assertEquals(1, removed.getSent());
+        assertEquals(1, removed.getUnchanged());
+        assertEquals(ResourceSyncAction.REMOVE, removed.getResults().get(1).getAction());
+        assertEquals(second.getId(), removed.getResults().get(1).getResourceId());
+    }
+
+    private static BrokerSyncReport acknowledge(final Collection<Resource> resources,
+                                                final ResourceSyncAction action) {
+        return new BrokerSyncReport(BROKER, resources.stream()
+                .map(r -> new ResourceSyncResult(r.getId(), action, true, 1, null))
+                .collect(Collectors.toList()));
+    }
+
+    private static Resource resource(final String id) {
+        return new ResourceBuilder(URI.create(id)).build();
+    }
+
+    private static Connector connector(final Resource... resources) {
+        return new BaseConnectorBuilder()
+                ._curator_(URI.create("http://curator"))
+                ._hasDefaultEndpoint_(new ConnectorEndpointBuilder()
+                                              ._accessURL_(URI.create("http://localhost"))
+                                              .build())
+                ._inboundModelVersion_(List.of("1.0.0"))
+                ._maintainer_(URI.create("http://maintainer"))
+                ._outboundModelVersion_("1.0.0")
+                ._securityProfile_(SecurityProfile.BASE_SECURITY_PROFILE)
+                ._resourceCatalog_(List.of(new ResourceCatalogBuilder()
+                                                   ._offeredResource_(List.of(resources))
+                                                   .build()))
+                .build();
+    }
+
+    private static void useConnector(final ConfigContainer container, final Connector connector)
+            throws Exception {
+        Mockito.when(container.getConnector()).thenReturn(connector);
+        Mockito.when(container.getSelfDescription())
+               .thenReturn(SerializedSelfDescription.create(connector, 0, new Serializer()));
+    }
+}
@@ -22,13 +22,26 @@ package ids.messaging.clearinghouse;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import de.fraunhofer.iais.eis.Message;
 import de.fraunhofer.iais.eis.QueryLanguage;
 import de.fraunhofer.iais.eis.QueryScope;
 import de.fraunhofer.iais.eis.QueryTarget;
 import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.clearinghouse.pid.PidRegistrationCache;
+import ids.messaging.clearinghouse.query.ClearingHouseQueryCache;
+import ids.messaging.clearinghouse.query.LogEntryIterator;
+import ids.messaging.clearinghouse.query.LogQueryKey;
 import ids.messaging.common.DeserializeException;
 import ids.messaging.common.SerializeException;
 import ids.messaging.core.config.ConfigContainer;
@@ -55,6 +68,8 @@ import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -64,7 +79,12 @@ import org.springframework.stereotype.Component;
 @Slf4j
 @Component
 public class ClearingHouseService extends InfrastructureService
-        implements IDSClearingHouseService {
+        implements IDSClearingHouseService, DisposableBean {
+
+    /**
+     * Time in seconds an idle pid registration thread is kept.
+     */
+    private static final long REGISTRATION_KEEP_ALIVE_SECONDS = 60L;
 
     /**
      * The infomodel serializer.
@@ -116,6 +136,22 @@ public class ClearingHouseService extends InfrastructureService
     @Value("${clearinghouse.process.endpoint:/process}")
     private String processEndpoint;
 
+    /**
+     * Cache of clearing house query results that do not change anymore, may be null.
+     */
+    private ClearingHouseQueryCache queryCache;
+
+    /**
+     * Cache of the registered pids, may be null.
+     */
+    private PidRegistrationCache pidRegistrationCache;
+
+    /**
+     * Sends background pid registrations if there is no PidRegistrationCache, created on
+     * first use.
+     */
+    private volatile ExecutorService registrationExecutor;
+
     /**
      * Constructor for the ClearingHouseService.
      *
@@ -140,6 +176,28 @@ public class ClearingHouseService extends InfrastructureService
         this.requestTemplateProvider = requestTemplateProvider;
     }
 
+    /**
+     * Set the cache for query results that do not change anymore. Queries are always sent
+     * if not set.
+     *
+     * @param queryCache The ClearingHouseQueryCache.
+     */
+    @Autowired(required = false)
+    public void setQueryCache(final ClearingHouseQueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * Set the cache of registered pids. Pids are always registered if not set, and not
+     * registered automatically before logging.
+     *
+     * @param pidRegistrationCache The PidRegistrationCache.
+     */
+    @Autowired(required = false)
+    public void setPidRegistrationCache(final PidRegistrationCache pidRegistrationCache) {
+        this.pidRegistrationCache = pidRegistrationCache;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -157,12 +215,39 @@ public class ClearingHouseService extends InfrastructureService
             ShaclValidatorException,
             SerializeException,
             UnexpectedResponseException {
+        return sendLogToClearingHouse(serializer.serialize(messageToLog), pid);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageProcessedNotificationMAP sendLogToClearingHouse(final String messageToLog,
+                                                                  final String pid)
+            throws
+            DapsTokenManagerException,
+            URISyntaxException,
+            IOException,
+            ClaimsException,
+            MultipartParseException,
+            UnknownResponseException,
+            DeserializeException,
+            ShaclValidatorException,
+            SerializeException,
+            UnexpectedResponseException {
+
+        //register unknown pids before their first log message
+        if (pidRegistrationCache != null && pidRegistrationCache.isEnabled()) {
+            final var connectorId = container.getConnector().getId().toString();
+            pidRegistrationCache.beforeLog(pid, Set.of(connectorId),
+                                           () -> registerPidAtClearingHouse(pid, connectorId));
+        }
 
         //Build IDS Multipart Message
         final var body = buildMultipartWithInternalHeaders(
                 notificationTemplateProvider
                     .logMessageTemplate(new URI(clearingHouseUrl)).buildMessage(),
-                serializer.serialize(messageToLog),
+                messageToLog,
                 MediaType.parse("application/json"));
 
         //set given id for message
@@ -195,15 +280,14 @@ public class ClearingHouseService extends InfrastructureService
             SerializeException,
             UnexpectedResponseException {
 
-        //Build IDS Multipart Message
-        final var body = buildMultipartWithInternalHeaders(
-                requestTemplateProvider
-                        .queryMessageTemplate(queryLanguage,
-                                              queryScope,
-                                              queryTarget).buildMessage(),
-                query,
-                MediaType.parse("text/plain")
-        );
+        //logged messages do not change, a single one can be cached by pid and message id
+        final var cacheKey = isQueryCacheEnabled() && pid != null && messageId != null
+                ? LogQueryKey.entry(pid, messageId)
+                : null;
+        final var cached = getCached(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
 
         //build targetURI of QueryMessage (if pid and messageid are given)
         final var targetURI = (pid == null)
@@ -217,10 +301,76 @@ public class ClearingHouseService extends InfrastructureService
                                             pid,
                                             messageId));
 
-        final var response = idsHttpService.sendAndCheckDat(body, targetURI);
-        final var map = multipartResponseConverter.convertResponse(response);
-        return expectMapOfTypeT(map, ResultMAP.class);
+        final var result = sendQuery(targetURI, queryLanguage, queryScope, queryTarget, query);
+        if (cacheKey != null && !entriesOf(result).isEmpty()) {
+            queryCache.put(cacheKey, result);
+        }
 
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultMAP queryClearingHouse(final String pid,
+                                        final QueryLanguage queryLanguage,
+                                        final QueryScope queryScope,
+                                        final QueryTarget queryTarget,
+                                        final String query,
+                                        final int page,
+                                        final int size)
+            throws
+            DapsTokenManagerException,
+            URISyntaxException,
+            ClaimsException,
+            MultipartParseException,
+            IOException,
+            UnknownResponseException,
+            DeserializeException,
+            ShaclValidatorException,
+            SerializeException,
+            UnexpectedResponseException {
+
+        //in ascending order, a completed page of a process does not change anymore
+        final var cacheKey = isQueryCacheEnabled() && pid != null
+                ? LogQueryKey.page(pid, query, page, size)
+                : null;
+        final var cached = getCached(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        final var base = (pid == null)
+            ? clearingHouseUrl + queryEndpoint
+            : String.format("%s/%s", clearingHouseUrl + queryEndpoint, pid);
+        final var targetURI = new URI(String.format("%s?page=%d&size=%d&sort=asc",
+                                                    base, page, size));
+
+        final var result = sendQuery(targetURI, queryLanguage, queryScope, queryTarget, query);
+        if (cacheKey != null && entriesOf(result).size() >= size) {
+            queryCache.put(cacheKey, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LogEntryIterator queryClearingHouseEntries(final String pid,
+                                                      final QueryLanguage queryLanguage,
+                                                      final QueryScope queryScope,
+                                                      final QueryTarget queryTarget,
+                                                      final String query,
+                                                      final int pageSize) {
+        return new LogEntryIterator(
+                (page, size) -> queryClearingHouse(pid, queryLanguage, queryScope, queryTarget,
+                                                   query, page, size)
+                        .getPayload()
+                        .orElse(null),
+                pageSize);
     }
 
     /**
@@ -258,6 +408,158 @@ public class ClearingHouseService extends InfrastructureService
         return expectMapOfTypeT(map, MessageProcessedNotificationMAP.class);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean ensurePidRegistered(final String pid, final String... connectorIDs)
+            throws DapsTokenManagerException,
+            URISyntaxException,
+            ClaimsException,
+            MultipartParseException,
+            IOException,
+            UnknownResponseException,
+            DeserializeException,
+            UnexpectedResponseException,
+            ShaclValidatorException,
+            SerializeException {
+        if (pidRegistrationCache == null) {
+            registerPidAtClearingHouse(pid, connectorIDs);
+            return true;
+        }
+
+        return pidRegistrationCache.register(pid, Set.copyOf(List.of(connectorIDs)),
+                                             () -> registerPidAtClearingHouse(pid, connectorIDs));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Boolean> registerPidInBackground(final String pid,
+                                                              final String... connectorIDs) {
+        if (pidRegistrationCache == null) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return ensurePidRegistered(pid, connectorIDs);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, getRegistrationExecutor());
+        }
+
+        return pidRegistrationCache.registerInBackground(
+                pid, Set.copyOf(List.of(connectorIDs)),
+                () -> registerPidAtClearingHouse(pid, connectorIDs));
+    }
+
+    /**
+     * Stop the threads sending background pid registrations.
+     */
+    @Override
+    public void destroy() {
+        final var current = registrationExecutor;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    private ExecutorService getRegistrationExecutor() {
+        var current = registrationExecutor;
+        if (current == null) {
+            synchronized (this) {
+                current = registrationExecutor;
+                if (current == null) {
+                    final var pool = new ThreadPoolExecutor(
+                            1, 1, REGISTRATION_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            r -> {
+                                final var thread =
+                                        new Thread(r, "clearinghouse-pid-registration");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    pool.allowCoreThreadTimeOut(true);
+                    current = pool;
+                    registrationExecutor = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Send a QueryMessage to the Clearing House.
+     *
+     * @param targetURI The query endpoint.
+     * @param queryLanguage Language of the Query.
+     * @param queryScope Scope of the Query.
+     * @param queryTarget Target of the Query.
+     * @param query QueryString.
+     * @return Response from ClearingHouse.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException If message could not be sent.
+     * @throws UnknownResponseException If no possible cast for the response is found.
+     * @throws DeserializeException If the response could not be deserialized.
+     * @throws ShaclValidatorException If the response does not pass the SHACL validation.
+     * @throws SerializeException If the message could not be serialized.
+     * @throws UnexpectedResponseException If the response is no ResultMessage.
+     */
+    private ResultMAP sendQuery(final URI targetURI,
+                                final QueryLanguage queryLanguage,
+                                final QueryScope queryScope,
+                                final QueryTarget queryTarget,
+                                final String query)
+            throws
+            DapsTokenManagerException,
+            ClaimsException,
+            MultipartParseException,
+            IOException,
+            UnknownResponseException,
+            DeserializeException,
+            ShaclValidatorException,
+            SerializeException,
+            UnexpectedResponseException {
+
+        //Build IDS Multipart Message
+        final var body = buildMultipartWithInternalHeaders(
+                requestTemplateProvider
+                        .queryMessageTemplate(queryLanguage,
+                                              queryScope,
+                                              queryTarget).buildMessage(),
+                query,
+                MediaType.parse("text/plain")
+        );
+
+        final var response = idsHttpService.sendAndCheckDat(body, targetURI);
+        final var map = multipartResponseConverter.convertResponse(response);
+        return expectMapOfTypeT(map, ResultMAP.class);
+    }
+
+    private boolean isQueryCacheEnabled() {
+        return queryCache != null && queryCache.isEnabled();
+    }
+
+    private Optional<ResultMAP> getCached(final LogQueryKey cacheKey) {
+        //the key is only created if the cache is enabled
+        if (cacheKey == null) {
+            return Optional.empty();
+        }
+
+        final var cached = queryCache.get(cacheKey);
+        if (cached.isPresent() && log.isDebugEnabled()) {
+            log.debug("Using cached clearing house query result. [code=(IMSMED0160),"
+                      + " key=({})]", cacheKey);
+        }
+        return cached;
+    }
+
+    private static List<String> entriesOf(final ResultMAP result) {
+        return LogEntryIterator.parseEntries(result.getPayload().orElse(null));
+    }
+
     /**
      * @param headerMessage  IDS Message used as Header
      * @param payloadContent Payload String
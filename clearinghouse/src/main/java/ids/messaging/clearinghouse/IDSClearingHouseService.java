@@ -21,11 +21,13 @@ package ids.messaging.clearinghouse;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
 
 import de.fraunhofer.iais.eis.Message;
 import de.fraunhofer.iais.eis.QueryLanguage;
 import de.fraunhofer.iais.eis.QueryScope;
 import de.fraunhofer.iais.eis.QueryTarget;
+import ids.messaging.clearinghouse.query.LogEntryIterator;
 import ids.messaging.common.DeserializeException;
 import ids.messaging.common.MessageBuilderException;
 import ids.messaging.common.SerializeException;
@@ -84,6 +86,46 @@ public interface IDSClearingHouseService {
             SerializeException,
             MessageBuilderException;
 
+    /**
+     * Send an already serialized message with given pid to ClearingHouse, as used by the
+     * {@link ids.messaging.clearinghouse.log.ClearingHouseLogShipper}.
+     *
+     * @param messageToLog Serialized Infomodel Message that should be Logged.
+     * @param pid Process id under which the message will be logged.
+     * @return Response from ClearingHouse.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws URISyntaxException If Clearing House URI can not be parsed from String.
+     * Check Application Properties!
+     * @throws IOException If message could not be sent.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws UnknownResponseException Thrown during converting IDS-Response into a corresponding
+     * Object if no possible cast found.
+     * @throws DeserializeException Exception that is thrown if deserializing a message threw
+     * an IOException.
+     * @throws UnexpectedResponseException Exception that is thrown if the received response-type
+     * is not expected as a response to the request send.
+     * @throws SerializeException Exception is thrown if serializing a message threw an IOException.
+     * @throws ShaclValidatorException SHACL-Validation, received message header does not conform
+     * to IDS-Infomodel and did not pass SHACL-Validation.
+     * @throws MessageBuilderException Exception that is thrown if building an IDS-Message
+     * with the given information threw a  RuntimeException.
+     */
+    MessageProcessedNotificationMAP sendLogToClearingHouse(String messageToLog,
+                                                           String pid)
+            throws
+            DapsTokenManagerException,
+            URISyntaxException,
+            IOException,
+            ClaimsException,
+            MultipartParseException,
+            UnknownResponseException,
+            DeserializeException,
+            UnexpectedResponseException,
+            ShaclValidatorException,
+            SerializeException,
+            MessageBuilderException;
+
     /**
      * Query the Clearing House.
      *
@@ -133,6 +175,78 @@ public interface IDSClearingHouseService {
             SerializeException,
             MessageBuilderException;
 
+    /**
+     * Query a single page of the log entries of a process (or of the whole clearingHouse),
+     * with the oldest entries first. Completed pages of a process are cached, if the
+     * {@link ids.messaging.clearinghouse.query.ClearingHouseQueryCache} is switched on.
+     *
+     * @param pid Process id to Query (or null when querying whole clearingHouse).
+     * @param queryLanguage Language of the Query.
+     * @param queryScope Scope of the Query.
+     * @param queryTarget Target of the Query.
+     * @param query QueryString.
+     * @param page Number of the page, starting with 1.
+     * @param size Number of log entries per page.
+     * @return Response from ClearingHouse, holding the log entries of the page.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws URISyntaxException If Clearing House URI can not be parsed from String.
+     * Check Application Properties!
+     * @throws IOException If message could not be sent or Serializer could not parse
+     * RDF to Java Object.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws UnknownResponseException Thrown during converting IDS-Response into a
+     * corresponding Object if no possible cast found.
+     * @throws DeserializeException Exception that is thrown if deserializing a message
+     * threw an IOException.
+     * @throws UnexpectedResponseException Exception that is thrown if the received
+     * response-type is not expected as a response to the request send.
+     * @throws SerializeException Exception is thrown if serializing a message threw an IOException.
+     * @throws ShaclValidatorException SHACL-Validation, received message header does not
+     * conform to IDS-Infomodel and did not pass SHACL-Validation.
+     * @throws MessageBuilderException Exception that is thrown if building an IDS-Message with
+     * the given information threw a RuntimeException.
+     */
+    ResultMAP queryClearingHouse(String pid,
+                                 QueryLanguage queryLanguage,
+                                 QueryScope queryScope,
+                                 QueryTarget queryTarget,
+                                 String query,
+                                 int page,
+                                 int size)
+            throws
+            DapsTokenManagerException,
+            URISyntaxException,
+            ClaimsException,
+            MultipartParseException,
+            IOException,
+            UnknownResponseException,
+            DeserializeException,
+            UnexpectedResponseException,
+            ShaclValidatorException,
+            SerializeException,
+            MessageBuilderException;
+
+    /**
+     * Iterate over the log entries of a process (or of the whole clearingHouse), oldest first,
+     * querying one page at a time while iterating. Errors while querying a page are thrown as
+     * {@link ids.messaging.requests.exceptions.QueryPageException}.
+     *
+     * @param pid Process id to Query (or null when querying whole clearingHouse).
+     * @param queryLanguage Language of the Query.
+     * @param queryScope Scope of the Query.
+     * @param queryTarget Target of the Query.
+     * @param query QueryString.
+     * @param pageSize Number of log entries per page.
+     * @return Iterator over the log entries.
+     */
+    LogEntryIterator queryClearingHouseEntries(String pid,
+                                               QueryLanguage queryLanguage,
+                                               QueryScope queryScope,
+                                               QueryTarget queryTarget,
+                                               String query,
+                                               int pageSize);
+
     /**
      * Register a pid at the clearinghouse for logging usage.
      *
@@ -173,4 +287,57 @@ public interface IDSClearingHouseService {
             ShaclValidatorException,
             SerializeException,
             MessageBuilderException;
+
+    /**
+     * Register a pid at the clearinghouse for logging usage, unless it is known to be
+     * registered with the same owners. Without the
+     * {@link ids.messaging.clearinghouse.pid.PidRegistrationCache} switched on, the pid is
+     * always registered.
+     *
+     * @param pid Pid to register.
+     * @param connectorIDs IDs the pid is registered for.
+     * @return True if the registration was sent, false if skipped.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws URISyntaxException If Clearing House URI can not be parsed from String.
+     * Check Application Properties!
+     * @throws IOException If message could not be sent or Serializer could not parse
+     * RDF to Java Object.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws ClaimsException Exception while validating the DAT from the Broker Response.
+     * @throws UnknownResponseException Thrown during converting IDS-Response into a
+     * corresponding Object if no possible cast found.
+     * @throws DeserializeException Exception that is thrown if deserializing a message
+     * threw an IOException.
+     * @throws UnexpectedResponseException Exception that is thrown if the received
+     * response-type is not expected as a response to the request send.
+     * @throws SerializeException Exception is thrown if serializing a message threw an IOException.
+     * @throws ShaclValidatorException SHACL-Validation, received message header does not
+     * conform to IDS-Infomodel and did not pass SHACL-Validation.
+     * @throws MessageBuilderException Exception that is thrown if building an IDS-Message with
+     * the given information threw a RuntimeException.
+     */
+    boolean ensurePidRegistered(String pid, String... connectorIDs)
+            throws
+            DapsTokenManagerException,
+            URISyntaxException,
+            ClaimsException,
+            MultipartParseException,
+            IOException,
+            UnknownResponseException,
+            DeserializeException,
+            UnexpectedResponseException,
+            ShaclValidatorException,
+            SerializeException,
+            MessageBuilderException;
+
+    /**
+     * Register a pid at the clearinghouse in the background, unless it is known to be
+     * registered with the same owners.
+     *
+     * @param pid Pid to register.
+     * @param connectorIDs IDs the pid is registered for.
+     * @return Completes with true if the registration was sent, false if skipped.
+     */
+    CompletableFuture<Boolean> registerPidInBackground(String pid, String... connectorIDs);
 }
@@ -0,0 +1,567 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.log;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.RejectionReason;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.clearinghouse.IDSClearingHouseService;
+import ids.messaging.common.DeserializeException;
+import ids.messaging.common.MessageBuilderException;
+import ids.messaging.common.SerializeException;
+import ids.messaging.core.daps.ClaimsException;
+import ids.messaging.protocol.UnexpectedResponseException;
+import ids.messaging.protocol.http.ShaclValidatorException;
+import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.parser.MultipartParseException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ships messages to the log endpoint of the clearing house in the background, so that logging
+ * does not block the data path. Entries are first appended to a local {@link LogSegmentStore}
+ * and then sent by a number of workers, entries of the same process id always by the same
+ * worker and in order. Failed sends are retried with exponential backoff up to a maximum
+ * number of attempts. Entries that cannot be sent, because the clearing house does not accept
+ * them or the failure is permanent, and entries that exhausted their attempts are moved to a
+ * dead letter log in the subdirectory {@code dead-letter}, so that they do not block the
+ * following entries of their worker. Delivery is at least once: after a restart, entries sent
+ * but not yet checkpointed are sent again.
+ */
+@Slf4j
+@Component
+public class ClearingHouseLogShipper implements DisposableBean {
+
+    /**
+     * Time in milliseconds the dispatcher waits for new entries when caught up.
+     */
+    private static final long IDLE_WAIT_MILLIS = 1000;
+
+    /**
+     * Maximum number of doublings of the retry delay.
+     */
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    /**
+     * Subdirectory of the dead letter log.
+     */
+    private static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+    /**
+     * Rejection reasons of a clearing house that is temporarily unable to log, the entry is
+     * sent again.
+     */
+    private static final Set<RejectionReason> TRANSIENT_REJECTIONS = Set.of(
+            RejectionReason.TEMPORARILY_NOT_AVAILABLE,
+            RejectionReason.NOT_AUTHENTICATED);
+
+    /**
+     * Failures that do not go away by sending the entry again, except rejections with one of
+     * the {@link #TRANSIENT_REJECTIONS}.
+     */
+    private static final Set<Class<? extends Exception>> PERMANENT_FAILURES = Set.of(
+            UnexpectedResponseException.class,
+            SerializeException.class,
+            URISyntaxException.class,
+            DeserializeException.class,
+            MultipartParseException.class,
+            ClaimsException.class,
+            ShaclValidatorException.class,
+            UnknownResponseException.class,
+            MessageBuilderException.class);
+
+    /**
+     * Sends the entries to the clearing house.
+     */
+    private final LogSender sender;
+
+    /**
+     * The infomodel serializer.
+     */
+    private final Serializer serializer = new Serializer();
+
+    /**
+     * Used to switch the log shipper on or off (default off).
+     */
+    @Value("#{new Boolean('${clearinghouse.log.shipper.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * The directory of the log segments.
+     */
+    @Value("${clearinghouse.log.shipper.directory:clearinghouse-log}")
+    private String directory;
+
+    /**
+     * Number of workers sending to the clearing house in parallel.
+     */
+    @Value("${clearinghouse.log.shipper.parallelism:2}")
+    private int parallelism;
+
+    /**
+     * Maximum number of entries a worker takes at once.
+     */
+    @Value("${clearinghouse.log.shipper.batch.size:100}")
+    private int batchSize;
+
+    /**
+     * Size in bytes after which a new log segment is started.
+     */
+    @Value("${clearinghouse.log.shipper.segment.bytes:16777216}")
+    private long segmentBytes;
+
+    /**
+     * Whether every append is forced to the storage device.
+     */
+    @Value("#{new Boolean('${clearinghouse.log.shipper.fsync:false}')}")
+    private Boolean fsync;
+
+    /**
+     * Delay in milliseconds before the first retry of a failed send.
+     */
+    @Value("${clearinghouse.log.shipper.retry.initial.millis:500}")
+    private long retryInitialMillis;
+
+    /**
+     * Maximum delay in milliseconds between retries.
+     */
+    @Value("${clearinghouse.log.shipper.retry.max.millis:60000}")
+    private long retryMaxMillis;
+
+    /**
+     * Maximum number of attempts per entry, including the first one.
+     */
+    @Value("${clearinghouse.log.shipper.retry.max.attempts:20}")
+    private int retryMaxAttempts;
+
+    /**
+     * The log segments, opened on first use.
+     */
+    private volatile LogSegmentStore store;
+
+    /**
+     * The dead letter log, opened together with the log segments.
+     */
+    private LogSegmentStore deadLetters;
+
+    /**
+     * Whether the dispatcher and workers are running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Dispatcher and worker threads.
+     */
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * Released on every append to wake up the dispatcher.
+     */
+    private final Semaphore appended = new Semaphore(0);
+
+    /**
+     * Append time of the entries handed to the workers and not yet shipped, by sequence.
+     */
+    private final TreeMap<Long, Long> inFlight = new TreeMap<>();
+
+    /**
+     * Sequence of the last entry handed to the workers.
+     */
+    private long lastDispatched;
+
+    /**
+     * Number of shipped entries.
+     */
+    private final LongAdder shippedCount = new LongAdder();
+
+    /**
+     * Number of retried sends.
+     */
+    private final LongAdder retryCount = new LongAdder();
+
+    /**
+     * Number of entries moved to the dead letter log.
+     */
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * Create a ClearingHouseLogShipper.
+     *
+     * @param clearingHouseService The clearing house service used to send the entries.
+     */
+    @Autowired
+    public ClearingHouseLogShipper(final IDSClearingHouseService clearingHouseService) {
+        this((pid, message) -> clearingHouseService.sendLogToClearingHouse(message, pid));
+    }
+
+    /**
+     * Create a ClearingHouseLogShipper.
+     *
+     * @param sender Sends the entries to the clearing house.
+     */
+    ClearingHouseLogShipper(final LogSender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * @return True if the log shipper is switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Append a message to the local log, it is sent to the clearing house in the background.
+     *
+     * @param messageToLog Infomodel Message that should be logged.
+     * @param pid Process id under which the message will be logged.
+     * @return The sequence of the log entry.
+     * @throws IOException If the message could not be serialized or appended.
+     * @throws IllegalStateException If the log shipper is switched off.
+     */
+    public long append(@NonNull final Message messageToLog, @NonNull final String pid)
+            throws IOException {
+        final var sequence = start().append(pid, serializer.serialize(messageToLog));
+        appended.release();
+        return sequence;
+    }
+
+    /**
+     * Open the local log and start sending the entries that have not been shipped yet.
+     * Called on the first append, may be called earlier to ship the entries left by a
+     * previous run.
+     *
+     * @return The local log.
+     * @throws IOException If the local log could not be opened.
+     * @throws IllegalStateException If the log shipper is switched off.
+     */
+    public LogSegmentStore start() throws IOException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("The clearing house log shipper is switched off!");
+        }
+
+        var current = store;
+        if (current == null) {
+            synchronized (this) {
+                current = store;
+                if (current == null) {
+                    current = LogSegmentStore.open(Path.of(directory), segmentBytes,
+                                                   Boolean.TRUE.equals(fsync));
+                    deadLetters = LogSegmentStore.open(
+                            Path.of(directory, DEAD_LETTER_DIRECTORY), segmentBytes,
+                            Boolean.TRUE.equals(fsync));
+                    startThreads(current);
+                    store = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @return Number of appended entries not yet shipped.
+     */
+    public long getBacklog() {
+        final var current = store;
+        return current == null
+                ? 0
+                : current.getLastSequence() - current.getCommittedSequence();
+    }
+
+    /**
+     * @return Age in milliseconds of the oldest entry being shipped, 0 if there is none.
+     */
+    public long getLagMillis() {
+        synchronized (inFlight) {
+            return inFlight.isEmpty()
+                    ? 0
+                    : Math.max(0, System.currentTimeMillis() - inFlight.firstEntry().getValue());
+        }
+    }
+
+    /**
+     * @return Number of segment files of the local log.
+     */
+    public int getSegmentCount() {
+        final var current = store;
+        return current == null ? 0 : current.getSegmentCount();
+    }
+
+    /**
+     * @return Size of the local log in bytes.
+     */
+    public long getSizeBytes() {
+        final var current = store;
+        return current == null ? 0 : current.getSizeBytes();
+    }
+
+    /**
+     * @return Number of shipped entries.
+     */
+    public long getShippedCount() {
+        return shippedCount.sum();
+    }
+
+    /**
+     * @return Number of retried sends.
+     */
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * @return Number of entries moved to the dead letter log.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Stop the workers and close the local log. Entries not yet shipped are sent after the
+     * next start.
+     *
+     * @throws Exception If the local log could not be closed.
+     */
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+
+        synchronized (this) {
+            for (final var thread : threads) {
+                thread.interrupt();
+            }
+            for (final var thread : threads) {
+                thread.join(IDLE_WAIT_MILLIS);
+            }
+            threads.clear();
+
+            if (store != null) {
+                store.close();
+            }
+            if (deadLetters != null) {
+                deadLetters.close();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void startThreads(final LogSegmentStore current) {
+        running = true;
+        lastDispatched = current.getCommittedSequence();
+
+        final var workers = Math.max(1, parallelism);
+        final var queues = new BlockingQueue[workers];
+        for (var i = 0; i < workers; i++) {
+            final var queue = new ArrayBlockingQueue<LogRecord>(Math.max(1, batchSize) * 2);
+            queues[i] = queue;
+            threads.add(newThread(() -> work(current, queue), "clearinghouse-log-" + i));
+        }
+        threads.add(newThread(() -> dispatch(current, queues), "clearinghouse-log-dispatch"));
+
+        threads.forEach(Thread::start);
+    }
+
+    private static Thread newThread(final Runnable runnable, final String name) {
+        final var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void dispatch(final LogSegmentStore current,
+                          final BlockingQueue<LogRecord>[] queues) {
+        try (var cursor = current.openCursor(current.getCommittedSequence())) {
+            while (running) {
+                final List<LogRecord> records;
+                try {
+                    records = current.read(cursor, Math.max(1, batchSize));
+                } catch (IOException e) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("Could not read clearing house log. [code=(IMSMEW0056),"
+                                 + " exception=({})]", e.getMessage());
+                    }
+                    TimeUnit.MILLISECONDS.sleep(backoff(0));
+                    continue;
+                }
+
+                if (records.isEmpty()) {
+                    appended.tryAcquire(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                    appended.drainPermits();
+                    continue;
+                }
+
+                for (final var record : records) {
+                    synchronized (inFlight) {
+                        inFlight.put(record.getSequence(), record.getAppendedAt());
+                        lastDispatched = record.getSequence();
+                    }
+                    queues[Math.floorMod(record.getPid().hashCode(), queues.length)].put(record);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Could not close clearing house log cursor. [code=(IMSMED0158),"
+                          + " exception=({})]", e.getMessage());
+            }
+        }
+    }
+
+    private void work(final LogSegmentStore current, final BlockingQueue<LogRecord> queue) {
+        final var batch = new ArrayList<LogRecord>();
+
+        try {
+            while (running) {
+                batch.add(queue.take());
+                queue.drainTo(batch, Math.max(1, batchSize) - 1);
+
+                for (final var record : batch) {
+                    ship(record);
+                    synchronized (inFlight) {
+                        inFlight.remove(record.getSequence());
+                    }
+                }
+                batch.clear();
+
+                commit(current);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ship(final LogRecord record) throws InterruptedException {
+        final var maxAttempts = Math.max(1, retryMaxAttempts);
+        var attempt = 0;
+
+        while (true) {
+            try {
+                sender.send(record.getPid(), record.getMessage());
+                shippedCount.increment();
+                return;
+            } catch (Exception e) {
+                if (isPermanent(e)) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("Log entry cannot be sent to clearing house, moving it to dead"
+                                 + " letter log. [code=(IMSMEW0057), pid=({}), sequence=({}),"
+                                 + " exception=({})]",
+                                 record.getPid(), record.getSequence(), e.getMessage());
+                    }
+                    deadLetter(record);
+                    return;
+                }
+
+                if (!running) {
+                    throw new InterruptedException();
+                }
+
+                if (++attempt >= maxAttempts) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("Log entry could not be sent to clearing house after {}"
+                                 + " attempts, moving it to dead letter log. [code=(IMSMEW0062),"
+                                 + " pid=({}), sequence=({}), exception=({})]",
+                                 attempt, record.getPid(), record.getSequence(), e.getMessage());
+                    }
+                    deadLetter(record);
+                    return;
+                }
+
+                retryCount.increment();
+                final var backoff = backoff(attempt - 1);
+                if (log.isDebugEnabled()) {
+                    log.debug("Could not send log entry to clearing house, retrying."
+                              + " [code=(IMSMED0159), pid=({}), sequence=({}), delay=({}),"
+                              + " exception=({})]",
+                              record.getPid(), record.getSequence(), backoff, e.getMessage());
+                }
+                TimeUnit.MILLISECONDS.sleep(backoff);
+            }
+        }
+    }
+
+    private static boolean isPermanent(final Exception e) {
+        if (e instanceof UnexpectedResponseException) {
+            final var reason = ((UnexpectedResponseException) e).getRejectionReason();
+            if (reason.isPresent() && TRANSIENT_REJECTIONS.contains(reason.get())) {
+                return false;
+            }
+        }
+
+        return PERMANENT_FAILURES.stream().anyMatch(type -> type.isInstance(e));
+    }
+
+    private void deadLetter(final LogRecord record) {
+        droppedCount.increment();
+
+        try {
+            deadLetters.append(record.getPid(), record.getMessage());
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Could not write dead letter log, log entry is lost."
+                         + " [code=(IMSMEW0063), pid=({}), sequence=({}), exception=({})]",
+                         record.getPid(), record.getSequence(), e.getMessage());
+            }
+        }
+    }
+
+    private long backoff(final int attempt) {
+        final var initial = Math.max(1, retryInitialMillis);
+        final var capped = Math.min(initial << Math.min(attempt, MAX_BACKOFF_SHIFT),
+                                    Math.max(initial, retryMaxMillis));
+
+        //full jitter in the upper half, so that workers do not retry in lockstep
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private void commit(final LogSegmentStore current) {
+        final long watermark;
+        synchronized (inFlight) {
+            watermark = inFlight.isEmpty() ? lastDispatched : inFlight.firstKey() - 1;
+        }
+
+        try {
+            current.commit(watermark);
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Could not write clearing house log checkpoint. [code=(IMSMEW0058),"
+                         + " exception=({})]", e.getMessage());
+            }
+        }
+    }
+}
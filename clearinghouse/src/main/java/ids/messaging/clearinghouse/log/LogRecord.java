@@ -0,0 +1,53 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.log;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An entry of the clearing house log, as written to the local log segments.
+ */
+@Getter
+@ToString(exclude = "message")
+@AllArgsConstructor
+public class LogRecord {
+
+    /**
+     * The sequence number of the entry, increasing with every append.
+     */
+    private final long sequence;
+
+    /**
+     * The time of the append in milliseconds since the epoch.
+     */
+    private final long appendedAt;
+
+    /**
+     * The process id the message is logged under.
+     */
+    private final String pid;
+
+    /**
+     * The serialized message to log.
+     */
+    private final String message;
+}
@@ -0,0 +1,540 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import lombok.NonNull;
+
+/**
+ * Append-only store of clearing house log entries, written to segment files in a directory.
+ * Every record carries a checksum, so a record torn by a crash is cut off on the next open.
+ * A checkpoint file holds the sequence up to which all entries have been shipped, segments
+ * below the checkpoint are deleted.
+ */
+public class LogSegmentStore implements Closeable {
+
+    /**
+     * Prefix of the segment file names, followed by the first sequence of the segment.
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /**
+     * Suffix of the segment file names.
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Name of the checkpoint file.
+     */
+    private static final String CHECKPOINT = "checkpoint";
+
+    /**
+     * Length of the record header: body length and checksum.
+     */
+    private static final int RECORD_HEADER = Integer.BYTES * 2;
+
+    /**
+     * Length of the fixed part of a record body: sequence, append time and pid length.
+     */
+    private static final int BODY_FIXED = Long.BYTES * 2 + Integer.BYTES;
+
+    /**
+     * The directory of the segment files.
+     */
+    private final Path directory;
+
+    /**
+     * Size in bytes after which a new segment is started.
+     */
+    private final long segmentBytes;
+
+    /**
+     * Whether every append is forced to the storage device.
+     */
+    private final boolean fsync;
+
+    /**
+     * The segment files by their first sequence.
+     */
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    /**
+     * The segment that is appended to.
+     */
+    private FileChannel active;
+
+    /**
+     * The first sequence of the segment that is appended to.
+     */
+    private long activeFirst;
+
+    /**
+     * Bytes written to the segment that is appended to.
+     */
+    private long activeSize;
+
+    /**
+     * The sequence of the last appended entry.
+     */
+    private long lastSequence;
+
+    /**
+     * The sequence up to which all entries have been shipped.
+     */
+    private volatile long committedSequence;
+
+    private LogSegmentStore(final Path directory, final long segmentBytes, final boolean fsync) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Open the store in the given directory, creating it if needed.
+     *
+     * @param directory The directory of the segment files.
+     * @param segmentBytes Size in bytes after which a new segment is started.
+     * @param fsync Whether every append is forced to the storage device.
+     * @return The opened store.
+     * @throws IOException If the directory or the segments could not be read.
+     */
+    public static LogSegmentStore open(@NonNull final Path directory,
+                                       final long segmentBytes,
+                                       final boolean fsync) throws IOException {
+        final var store = new LogSegmentStore(directory, segmentBytes, fsync);
+        store.recover();
+        return store;
+    }
+
+    /**
+     * Append an entry.
+     *
+     * @param pid The process id the message is logged under.
+     * @param message The serialized message.
+     * @return The sequence of the entry.
+     * @throws IOException If the entry could not be written.
+     */
+    public synchronized long append(@NonNull final String pid, @NonNull final String message)
+            throws IOException {
+        ensureOpen();
+
+        final var sequence = lastSequence + 1;
+        final var record = encode(new LogRecord(sequence, System.currentTimeMillis(),
+                                                pid, message));
+
+        if (activeSize > 0 && activeSize + record.remaining() > segmentBytes) {
+            roll(sequence);
+        }
+
+        final var length = record.remaining();
+        while (record.hasRemaining()) {
+            active.write(record, activeSize + length - record.remaining());
+        }
+        if (fsync) {
+            active.force(false);
+        }
+
+        activeSize += length;
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Open a cursor reading the entries following the given sequence.
+     *
+     * @param afterSequence The sequence after which reading starts.
+     * @return The cursor, to be closed after use.
+     */
+    public synchronized Cursor openCursor(final long afterSequence) {
+        final var first = segments.floorKey(afterSequence + 1);
+        return new Cursor(first == null ? segments.firstKey() : first, afterSequence);
+    }
+
+    /**
+     * Read the next entries of the cursor.
+     *
+     * @param cursor The cursor.
+     * @param max The maximum number of entries to read.
+     * @return The entries in order of their sequence, empty if there are no new entries.
+     * @throws IOException If a segment could not be read or is corrupt.
+     */
+    public List<LogRecord> read(@NonNull final Cursor cursor, final int max) throws IOException {
+        final var records = new ArrayList<LogRecord>();
+
+        while (records.size() < max) {
+            final var limit = readableBytes(cursor.segment);
+            if (limit < 0) {
+                //the segment was deleted after being shipped
+                if (!cursor.next()) {
+                    break;
+                }
+                continue;
+            }
+
+            final var completed = limit == Long.MAX_VALUE;
+            final var end = completed ? cursor.channel().size() : limit;
+            if (cursor.position >= end) {
+                if (!completed || !cursor.next()) {
+                    break;
+                }
+                continue;
+            }
+
+            final var decoded = decode(cursor.channel(), cursor.position, end);
+            if (decoded == null) {
+                throw new IOException("Corrupt clearing house log segment "
+                                      + segmentPath(cursor.segment) + " at position "
+                                      + cursor.position + "!");
+            }
+
+            cursor.position += decoded.length;
+            if (decoded.record.getSequence() > cursor.afterSequence) {
+                cursor.afterSequence = decoded.record.getSequence();
+                records.add(decoded.record);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Mark all entries up to the given sequence as shipped and delete the segments that only
+     * contain shipped entries.
+     *
+     * @param sequence The sequence up to which all entries have been shipped.
+     * @throws IOException If the checkpoint could not be written.
+     */
+    public synchronized void commit(final long sequence) throws IOException {
+        if (sequence <= committedSequence) {
+            return;
+        }
+
+        final var checkpoint = directory.resolve(CHECKPOINT);
+        final var temp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temp, Long.toString(sequence), StandardCharsets.US_ASCII);
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        committedSequence = sequence;
+
+        final var obsolete = segments.headMap(activeFirst).entrySet().stream()
+                .filter(entry -> segments.higherKey(entry.getKey()) - 1 <= sequence)
+                .collect(Collectors.toList());
+        for (final var entry : obsolete) {
+            Files.deleteIfExists(entry.getValue());
+            segments.remove(entry.getKey());
+        }
+    }
+
+    /**
+     * @return The sequence of the last appended entry.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return The sequence up to which all entries have been shipped.
+     */
+    public long getCommittedSequence() {
+        return committedSequence;
+    }
+
+    /**
+     * @return The number of segment files.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return The size of all segment files in bytes.
+     */
+    public synchronized long getSizeBytes() {
+        var size = activeSize;
+        for (final var path : segments.headMap(activeFirst).values()) {
+            try {
+                size += Files.size(path);
+            } catch (IOException e) {
+                //deleted concurrently
+            }
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.close();
+            active = null;
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+
+        final var checkpoint = directory.resolve(CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            committedSequence = Long.parseLong(
+                    Files.readString(checkpoint, StandardCharsets.US_ASCII).trim());
+        }
+
+        try (var files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                 .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                 .forEach(name -> segments.put(
+                         Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                                       name.length() - SEGMENT_SUFFIX.length())),
+                         directory.resolve(name)));
+        }
+
+        lastSequence = committedSequence;
+        if (segments.isEmpty()) {
+            roll(committedSequence + 1);
+            return;
+        }
+
+        //cut off a record torn by a crash at the end of the last segment
+        activeFirst = segments.lastKey();
+        active = FileChannel.open(segments.lastEntry().getValue(),
+                                  StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lastSequence = Math.max(lastSequence, activeFirst - 1);
+
+        var position = 0L;
+        final var size = active.size();
+        Decoded decoded;
+        while ((decoded = decode(active, position, size)) != null) {
+            lastSequence = Math.max(lastSequence, decoded.record.getSequence());
+            position += decoded.length;
+        }
+        active.truncate(position);
+        activeSize = position;
+    }
+
+    private void roll(final long firstSequence) throws IOException {
+        if (active != null) {
+            active.force(false);
+            active.close();
+        }
+
+        final var path = segmentPath(firstSequence);
+        active = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                  StandardOpenOption.WRITE);
+        active.truncate(0);
+        activeFirst = firstSequence;
+        activeSize = 0;
+        segments.put(firstSequence, path);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (active == null) {
+            throw new IOException("Clearing house log store is closed!");
+        }
+    }
+
+    /**
+     * @param segment The first sequence of the segment.
+     * @return The bytes that can be read from the segment, Long.MAX_VALUE for a completed
+     * segment, or -1 if the segment does not exist anymore.
+     */
+    private synchronized long readableBytes(final long segment) {
+        if (segment == activeFirst) {
+            return activeSize;
+        }
+        return segments.containsKey(segment) ? Long.MAX_VALUE : -1;
+    }
+
+    private synchronized Long nextSegment(final long segment) {
+        return segments.higherKey(segment);
+    }
+
+    private Path segmentPath(final long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX,
+                                               firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static ByteBuffer encode(final LogRecord record) {
+        final var pid = record.getPid().getBytes(StandardCharsets.UTF_8);
+        final var message = record.getMessage().getBytes(StandardCharsets.UTF_8);
+        final var bodyLength = BODY_FIXED + pid.length + message.length;
+
+        final var buffer = ByteBuffer.allocate(RECORD_HEADER + bodyLength);
+        buffer.putInt(bodyLength).putInt(0)
+              .putLong(record.getSequence())
+              .putLong(record.getAppendedAt())
+              .putInt(pid.length)
+              .put(pid)
+              .put(message);
+
+        final var crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER, bodyLength);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+
+        return buffer.flip();
+    }
+
+    private static Decoded decode(final FileChannel channel,
+                                  final long position,
+                                  final long limit) throws IOException {
+        final var available = Math.min(limit, channel.size()) - position;
+        if (available < RECORD_HEADER) {
+            return null;
+        }
+
+        final var header = ByteBuffer.allocate(RECORD_HEADER);
+        readFully(channel, header, position);
+        final var bodyLength = header.getInt(0);
+        if (bodyLength < BODY_FIXED || bodyLength > available - RECORD_HEADER) {
+            return null;
+        }
+
+        final var body = ByteBuffer.allocate(bodyLength);
+        readFully(channel, body, position + RECORD_HEADER);
+
+        final var crc = new CRC32();
+        crc.update(body.array(), 0, bodyLength);
+        if ((int) crc.getValue() != header.getInt(Integer.BYTES)) {
+            return null;
+        }
+
+        final var sequence = body.getLong(0);
+        final var appendedAt = body.getLong(Long.BYTES);
+        final var pidLength = body.getInt(Long.BYTES * 2);
+        if (pidLength < 0 || pidLength > bodyLength - BODY_FIXED) {
+            return null;
+        }
+
+        final var pid = new String(body.array(), BODY_FIXED, pidLength, StandardCharsets.UTF_8);
+        final var message = new String(body.array(), BODY_FIXED + pidLength,
+                                       bodyLength - BODY_FIXED - pidLength,
+                                       StandardCharsets.UTF_8);
+
+        return new Decoded(new LogRecord(sequence, appendedAt, pid, message),
+                           RECORD_HEADER + bodyLength);
+    }
+
+    private static void readFully(final FileChannel channel,
+                                  final ByteBuffer buffer,
+                                  final long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of clearing house log segment!");
+            }
+        }
+    }
+
+    /**
+     * A decoded record and its length in bytes.
+     */
+    private static final class Decoded {
+
+        /**
+         * The record.
+         */
+        private final LogRecord record;
+
+        /**
+         * The length of the record in bytes.
+         */
+        private final int length;
+
+        private Decoded(final LogRecord record, final int length) {
+            this.record = record;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Reading position within the segments.
+     */
+    public final class Cursor implements Closeable {
+
+        /**
+         * The first sequence of the segment that is read.
+         */
+        private long segment;
+
+        /**
+         * The read channel of the segment, opened on first use.
+         */
+        private FileChannel channel;
+
+        /**
+         * The position within the segment.
+         */
+        private long position;
+
+        /**
+         * The sequence of the last entry returned.
+         */
+        private long afterSequence;
+
+        private Cursor(final long segment, final long afterSequence) {
+            this.segment = segment;
+            this.afterSequence = afterSequence;
+        }
+
+        private FileChannel channel() throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+            }
+            return channel;
+        }
+
+        private boolean next() throws IOException {
+            final var next = nextSegment(segment);
+            if (next == null) {
+                return false;
+            }
+
+            close();
+            segment = next;
+            position = 0;
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.log;
+
+/**
+ * Sends a serialized message to the log endpoint of the clearing house.
+ */
+@FunctionalInterface
+public interface LogSender {
+
+    /**
+     * Send the message.
+     *
+     * @param pid The process id the message is logged under.
+     * @param message The serialized message.
+     * @throws Exception If the message could not be logged.
+     */
+    void send(String pid, String message) throws Exception;
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.pid;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import ids.messaging.common.DeserializeException;
+import ids.messaging.common.SerializeException;
+import ids.messaging.core.daps.ClaimsException;
+import ids.messaging.core.daps.DapsTokenManagerException;
+import ids.messaging.protocol.UnexpectedResponseException;
+import ids.messaging.protocol.http.ShaclValidatorException;
+import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.parser.MultipartParseException;
+
+/**
+ * Registers a pid at the clearing house.
+ */
+@FunctionalInterface
+public interface PidRegistration {
+
+    /**
+     * Send the registration.
+     *
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws URISyntaxException If Clearing House URI can not be parsed from String.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException If message could not be sent.
+     * @throws UnknownResponseException If no possible cast for the response is found.
+     * @throws DeserializeException If the response could not be deserialized.
+     * @throws UnexpectedResponseException If the response is not the expected one.
+     * @throws ShaclValidatorException If the response does not pass the SHACL validation.
+     * @throws SerializeException If the message could not be serialized.
+     */
+    void register()
+            throws
+            DapsTokenManagerException,
+            URISyntaxException,
+            ClaimsException,
+            MultipartParseException,
+            IOException,
+            UnknownResponseException,
+            DeserializeException,
+            UnexpectedResponseException,
+            ShaclValidatorException,
+            SerializeException;
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.pid;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import ids.messaging.common.DeserializeException;
+import ids.messaging.common.SerializeException;
+import ids.messaging.core.daps.ClaimsException;
+import ids.messaging.core.daps.DapsTokenManagerException;
+import ids.messaging.protocol.UnexpectedResponseException;
+import ids.messaging.protocol.http.ShaclValidatorException;
+import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.parser.MultipartParseException;
+import ids.messaging.util.cache.SingleFlight;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the pids registered at the clearing house and their owners in a
+ * {@link RegisteredPidIndex}, so that registering a pid again with the same owners does not
+ * send a request. Concurrent registrations of the same pid and owners are sent only once.
+ * If switched off, every registration is sent. Pids whose registration before logging failed
+ * are not registered again before logging for a while, so that an unavailable clearing
+ * house does not delay every log message.
+ */
+@Slf4j
+@Component
+public class PidRegistrationCache implements DisposableBean {
+
+    /**
+     * Time in seconds an idle registration thread is kept.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Number of remembered failed pids above which expired ones are removed.
+     */
+    private static final int MAX_FAILED_PIDS = 1024;
+
+    /**
+     * Used to switch the registered pid cache on or off (default off).
+     */
+    @Value("#{new Boolean('${clearinghouse.pid.cache.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * The index file of the registered pids.
+     */
+    @Value("${clearinghouse.pid.cache.file:clearinghouse-pids.tsv}")
+    private String file;
+
+    /**
+     * Maximum number of threads sending background registrations.
+     */
+    @Value("${clearinghouse.pid.registration.threads:4}")
+    private int registrationThreads;
+
+    /**
+     * Maximum time in milliseconds logging waits for the registration of an unknown pid.
+     */
+    @Value("${clearinghouse.pid.registration.wait.millis:10000}")
+    private long registrationWaitMillis;
+
+    /**
+     * Time in seconds a pid whose registration before logging failed is not registered
+     * again before logging.
+     */
+    @Value("${clearinghouse.pid.registration.failure.seconds:60}")
+    private long failureSeconds;
+
+    /**
+     * The registered pids, opened on first use.
+     */
+    private volatile RegisteredPidIndex index;
+
+    /**
+     * Coalesces registrations in flight.
+     */
+    private final SingleFlight<String, Boolean> singleFlight = new SingleFlight<>();
+
+    /**
+     * Sends the background registrations, created on first use.
+     */
+    private volatile ExecutorService executor;
+
+    /**
+     * Time in nanoseconds until which a pid is not registered before logging, per pid whose
+     * registration failed.
+     */
+    private final Map<String, Long> failedUntil = new ConcurrentHashMap<>();
+
+    /**
+     * Number of registrations sent.
+     */
+    private final LongAdder sentCount = new LongAdder();
+
+    /**
+     * Number of registrations skipped because nothing changed.
+     */
+    private final LongAdder skippedCount = new LongAdder();
+
+    /**
+     * @return True if the cache is switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * @param pid The process id.
+     * @return True if the pid is known to be registered, false if unknown or switched off.
+     * @throws IOException If the index could not be opened.
+     */
+    public boolean isKnown(@NonNull final String pid) throws IOException {
+        return isEnabled() && getIndex().get(pid).isPresent();
+    }
+
+    /**
+     * Register a pid, unless it is known to be registered with the same owners.
+     *
+     * @param pid The process id.
+     * @param owners The connector ids of the owners.
+     * @param registration Sends the registration.
+     * @return True if the registration was sent, false if skipped.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws URISyntaxException If Clearing House URI can not be parsed from String.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException If message could not be sent or the index could not be written.
+     * @throws UnknownResponseException If no possible cast for the response is found.
+     * @throws DeserializeException If the response could not be deserialized.
+     * @throws UnexpectedResponseException If the response is not the expected one.
+     * @throws ShaclValidatorException If the response does not pass the SHACL validation.
+     * @throws SerializeException If the message could not be serialized.
+     */
+    public boolean register(@NonNull final String pid,
+                            @NonNull final Set<String> owners,
+                            @NonNull final PidRegistration registration)
+            throws
+            DapsTokenManagerException,
+            URISyntaxException,
+            ClaimsException,
+            MultipartParseException,
+            IOException,
+            UnknownResponseException,
+            DeserializeException,
+            UnexpectedResponseException,
+            ShaclValidatorException,
+            SerializeException {
+        if (!isEnabled()) {
+            registration.register();
+            sentCount.increment();
+            return true;
+        }
+
+        final var current = getIndex();
+        if (skip(current, pid, owners)) {
+            return false;
+        }
+
+        final var key = pid + '\n' + String.join(" ", new TreeSet<>(owners));
+        try {
+            return singleFlight.execute(key, () -> {
+                if (skip(current, pid, owners)) {
+                    return false;
+                }
+
+                registration.register();
+                sentCount.increment();
+                remember(current, pid, owners);
+                return true;
+            });
+        } catch (DapsTokenManagerException | URISyntaxException | ClaimsException
+                | MultipartParseException | IOException | UnknownResponseException
+                | DeserializeException | UnexpectedResponseException | ShaclValidatorException
+                | SerializeException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for pid registration!");
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Register a pid in the background, unless it is known to be registered with the same
+     * owners.
+     *
+     * @param pid The process id.
+     * @param owners The connector ids of the owners.
+     * @param registration Sends the registration.
+     * @return Completes with true if the registration was sent, false if skipped.
+     */
+    public CompletableFuture<Boolean> registerInBackground(@NonNull final String pid,
+                                                           @NonNull final Set<String> owners,
+                                                           @NonNull final PidRegistration
+                                                                   registration) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return register(pid, owners, registration);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, getExecutor());
+    }
+
+    /**
+     * Make sure an unknown pid is registered before the first message is logged to it. The
+     * registration is coalesced with other registrations of the pid in flight and waited
+     * for a bounded time, failures are only logged, as the clearing house decides on the
+     * log message. After a failure, the pid is not registered before logging for a while.
+     *
+     * @param pid The process id.
+     * @param owners The connector ids of the owners.
+     * @param registration Sends the registration.
+     */
+    public void beforeLog(@NonNull final String pid,
+                          @NonNull final Set<String> owners,
+                          @NonNull final PidRegistration registration) {
+        if (recentlyFailed(pid)) {
+            return;
+        }
+
+        try {
+            if (!isKnown(pid)) {
+                registerInBackground(pid, owners, registration)
+                        .whenComplete((sent, error) -> {
+                            if (error != null) {
+                                rememberFailure(pid);
+                            }
+                        })
+                        .get(registrationWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Pid registration still running, logging without waiting for it."
+                         + " [code=(IMSMEW0065), pid=({})]", pid);
+            }
+        } catch (IOException | ExecutionException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Could not register pid before logging. [code=(IMSMEW0059), pid=({}),"
+                         + " exception=({})]", pid, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Number of registrations sent.
+     */
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    /**
+     * @return Number of registrations skipped because nothing changed.
+     */
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    /**
+     * @return Number of registrations that waited for an identical registration in flight.
+     */
+    public long getCoalescedCount() {
+        return singleFlight.getSharedCount();
+    }
+
+    /**
+     * @return Number of known registered pids.
+     */
+    public int size() {
+        final var current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * Stop the background registrations and close the index.
+     *
+     * @throws Exception If the index could not be closed.
+     */
+    @Override
+    public void destroy() throws Exception {
+        final var currentExecutor = executor;
+        if (currentExecutor != null) {
+            currentExecutor.shutdownNow();
+        }
+
+        final var current = index;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private boolean recentlyFailed(final String pid) {
+        final var until = failedUntil.get(pid);
+        if (until == null) {
+            return false;
+        }
+
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+
+        failedUntil.remove(pid, until);
+        return false;
+    }
+
+    private void rememberFailure(final String pid) {
+        final var now = System.nanoTime();
+        if (failedUntil.size() >= MAX_FAILED_PIDS) {
+            failedUntil.values().removeIf(until -> until - now <= 0);
+        }
+        if (failedUntil.size() < MAX_FAILED_PIDS) {
+            failedUntil.put(pid, now + TimeUnit.SECONDS.toNanos(failureSeconds));
+        }
+    }
+
+    private boolean skip(final RegisteredPidIndex current,
+                         final String pid,
+                         final Set<String> owners) {
+        if (!current.isRegistered(pid, owners)) {
+            return false;
+        }
+
+        skippedCount.increment();
+        if (log.isDebugEnabled()) {
+            log.debug("Pid already registered with same owners, skipping registration."
+                      + " [code=(IMSMED0161), pid=({})]", pid);
+        }
+        return true;
+    }
+
+    private void remember(final RegisteredPidIndex current,
+                          final String pid,
+                          final Set<String> owners) throws IOException {
+        try {
+            current.put(pid, owners);
+        } catch (IllegalArgumentException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Could not remember registered pid. [code=(IMSMED0162), pid=({}),"
+                          + " exception=({})]", pid, e.getMessage());
+            }
+        }
+    }
+
+    private RegisteredPidIndex getIndex() throws IOException {
+        var current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = RegisteredPidIndex.open(Path.of(file));
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private ExecutorService getExecutor() {
+        var current = executor;
+        if (current == null) {
+            synchronized (this) {
+                current = executor;
+                if (current == null) {
+                    final var threads = Math.max(1, registrationThreads);
+                    final var pool = new ThreadPoolExecutor(
+                            threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            r -> {
+                                final var thread =
+                                        new Thread(r, "clearinghouse-pid-registration");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    pool.allowCoreThreadTimeOut(true);
+                    current = pool;
+                    executor = current;
+                }
+            }
+        }
+        return current;
+    }
+}
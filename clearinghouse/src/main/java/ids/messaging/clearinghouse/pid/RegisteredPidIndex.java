@@ -0,0 +1,197 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.pid;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.NonNull;
+
+/**
+ * Persistent index of the pids registered at the clearing house and their owners. Every
+ * registration is appended as a line to a file, a later line for the same pid replaces the
+ * earlier one. The file is compacted when it is opened.
+ */
+public class RegisteredPidIndex implements Closeable {
+
+    /**
+     * Separator between pid and owners.
+     */
+    private static final char PID_SEPARATOR = '\t';
+
+    /**
+     * Separator between the owners.
+     */
+    private static final String OWNER_SEPARATOR = " ";
+
+    /**
+     * The index file.
+     */
+    private final Path file;
+
+    /**
+     * The owners by pid.
+     */
+    private final Map<String, Set<String>> owners = new ConcurrentHashMap<>();
+
+    /**
+     * Appends to the index file.
+     */
+    private BufferedWriter writer;
+
+    private RegisteredPidIndex(final Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Open the index file, creating it if needed.
+     *
+     * @param file The index file.
+     * @return The opened index.
+     * @throws IOException If the file could not be read or written.
+     */
+    public static RegisteredPidIndex open(@NonNull final Path file) throws IOException {
+        final var index = new RegisteredPidIndex(file.toAbsolutePath());
+        index.load();
+        return index;
+    }
+
+    /**
+     * @param pid The process id.
+     * @return The registered owners of the pid, empty if not registered.
+     */
+    public Optional<Set<String>> get(@NonNull final String pid) {
+        return Optional.ofNullable(owners.get(pid));
+    }
+
+    /**
+     * @param pid The process id.
+     * @param ownerSet The owners.
+     * @return True if the pid is registered with exactly these owners.
+     */
+    public boolean isRegistered(@NonNull final String pid, @NonNull final Set<String> ownerSet) {
+        return ownerSet.equals(owners.get(pid));
+    }
+
+    /**
+     * Record the registration of a pid.
+     *
+     * @param pid The process id.
+     * @param ownerSet The owners.
+     * @throws IOException If the registration could not be written.
+     * @throws IllegalArgumentException If pid or owners contain whitespace.
+     */
+    public synchronized void put(@NonNull final String pid, @NonNull final Set<String> ownerSet)
+            throws IOException {
+        if (pid.isEmpty() || containsWhitespace(pid)
+            || ownerSet.stream().anyMatch(RegisteredPidIndex::containsWhitespace)) {
+            throw new IllegalArgumentException("Pid and owners must not contain whitespace!");
+        }
+        if (writer == null) {
+            throw new IOException("Registered pid index is closed!");
+        }
+
+        final var sorted = new TreeSet<>(ownerSet);
+        writer.write(line(pid, sorted));
+        writer.flush();
+        owners.put(pid, Set.copyOf(sorted));
+    }
+
+    /**
+     * @return Number of registered pids.
+     */
+    public int size() {
+        return owners.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void load() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        var lines = 0;
+        if (Files.exists(file)) {
+            for (final var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                final var separator = line.indexOf(PID_SEPARATOR);
+                if (separator <= 0) {
+                    //a line torn by a crash
+                    continue;
+                }
+
+                final var ownerSet = new TreeSet<String>();
+                for (final var owner : line.substring(separator + 1).split(OWNER_SEPARATOR)) {
+                    if (!owner.isEmpty()) {
+                        ownerSet.add(owner);
+                    }
+                }
+                owners.put(line.substring(0, separator), Set.copyOf(ownerSet));
+                lines++;
+            }
+        }
+
+        if (lines > owners.size()) {
+            compact();
+        }
+
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                                         StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void compact() throws IOException {
+        final var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (final var entry : owners.entrySet()) {
+                out.write(line(entry.getKey(), new TreeSet<>(entry.getValue())));
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String line(final String pid, final Set<String> ownerSet) {
+        return pid + PID_SEPARATOR + String.join(OWNER_SEPARATOR, ownerSet) + '\n';
+    }
+
+    private static boolean containsWhitespace(final String value) {
+        return value.chars().anyMatch(Character::isWhitespace);
+    }
+}
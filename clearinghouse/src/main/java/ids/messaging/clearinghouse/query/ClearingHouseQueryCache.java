@@ -0,0 +1,149 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.query;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import ids.messaging.protocol.multipart.mapping.ResultMAP;
+import ids.messaging.util.cache.ExpiringCache;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches clearing house query results that can not change anymore: single log entries by
+ * pid and message id, and completed pages of the log entries of a pid in ascending order.
+ * Entries do not expire, the least recently used entry is evicted once the cache is full.
+ */
+@Component
+public class ClearingHouseQueryCache {
+
+    /**
+     * Lifetime of the cached results, which never change.
+     */
+    private static final Duration IMMUTABLE = Duration.ofMillis(Long.MAX_VALUE / 2);
+
+    /**
+     * Used to switch the query cache on or off (default off).
+     */
+    @Value("#{new Boolean('${clearinghouse.query.cache.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Maximum number of cached results.
+     */
+    @Value("${clearinghouse.query.cache.max.entries:10000}")
+    private int maxEntries;
+
+    /**
+     * The cached results, created on first use.
+     */
+    private volatile ExpiringCache<LogQueryKey, ResultMAP> cache;
+
+    /**
+     * @return True if the cache is switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Get a cached result.
+     *
+     * @param key Identifies the result.
+     * @return The result, empty if not cached or the cache is switched off.
+     */
+    public Optional<ResultMAP> get(@NonNull final LogQueryKey key) {
+        return isEnabled() ? getCache().get(key) : Optional.empty();
+    }
+
+    /**
+     * Cache a result. Does nothing if the cache is switched off.
+     *
+     * @param key Identifies the result.
+     * @param result The result, which must not change anymore.
+     */
+    public void put(@NonNull final LogQueryKey key, @NonNull final ResultMAP result) {
+        if (isEnabled()) {
+            getCache().put(key, result);
+        }
+    }
+
+    /**
+     * Drop all cached results of a pid.
+     *
+     * @param pid The process id.
+     */
+    public void invalidate(@NonNull final String pid) {
+        final var current = cache;
+        if (current != null) {
+            current.invalidateIf(key -> pid.equals(key.getPid()));
+        }
+    }
+
+    /**
+     * Drop all cached results.
+     */
+    public void invalidateAll() {
+        final var current = cache;
+        if (current != null) {
+            current.invalidateAll();
+        }
+    }
+
+    /**
+     * @return Number of cached results.
+     */
+    public int size() {
+        final var current = cache;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * @return Number of results served from the cache.
+     */
+    public long getHitCount() {
+        final var current = cache;
+        return current == null ? 0 : current.getHitCount();
+    }
+
+    /**
+     * @return Number of results not found in the cache.
+     */
+    public long getMissCount() {
+        final var current = cache;
+        return current == null ? 0 : current.getMissCount();
+    }
+
+    private ExpiringCache<LogQueryKey, ResultMAP> getCache() {
+        var current = cache;
+        if (current == null) {
+            synchronized (this) {
+                current = cache;
+                if (current == null) {
+                    current = new ExpiringCache<>(maxEntries, IMMUTABLE);
+                    cache = current;
+                }
+            }
+        }
+        return current;
+    }
+}
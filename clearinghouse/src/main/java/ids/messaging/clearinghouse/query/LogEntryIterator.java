@@ -0,0 +1,162 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import ids.messaging.requests.exceptions.QueryPageException;
+import lombok.NonNull;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/**
+ * Iterates over the log entries of a clearing house query, requesting one page at a time
+ * when the previous one has been consumed. Iteration ends with the first page holding fewer
+ * entries than the page size. Errors while requesting a page are thrown as
+ * {@link QueryPageException}.
+ */
+public class LogEntryIterator implements Iterator<String> {
+
+    /**
+     * Requests a single page of log entries.
+     */
+    @FunctionalInterface
+    public interface PageFetcher {
+        /**
+         * Request a page.
+         *
+         * @param page The page number, starting with 1.
+         * @param size The page size.
+         * @return The page as returned by the clearing house.
+         * @throws Exception If the page could not be requested.
+         */
+        String fetch(int page, int size) throws Exception;
+    }
+
+    /**
+     * Requests the pages.
+     */
+    private final PageFetcher fetcher;
+
+    /**
+     * The page size.
+     */
+    private final int pageSize;
+
+    /**
+     * The entries of the current page.
+     */
+    private List<String> current = List.of();
+
+    /**
+     * Position within the current page.
+     */
+    private int position;
+
+    /**
+     * The number of the next page to request.
+     */
+    private int nextPage = 1;
+
+    /**
+     * Whether the last page has been requested.
+     */
+    private boolean lastPage;
+
+    /**
+     * Create a LogEntryIterator.
+     *
+     * @param fetcher Requests the pages.
+     * @param pageSize The page size.
+     */
+    public LogEntryIterator(@NonNull final PageFetcher fetcher, final int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive!");
+        }
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (position >= current.size() && !lastPage) {
+            final String payload;
+            try {
+                payload = fetcher.fetch(nextPage, pageSize);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new QueryPageException("Could not query page " + nextPage
+                                             + " of clearing house log!", e);
+            }
+
+            current = parseEntries(payload);
+            position = 0;
+            lastPage = current.size() < pageSize;
+            nextPage++;
+        }
+
+        return position < current.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.get(position++);
+    }
+
+    /**
+     * Split a clearing house query result into its log entries. A JSON array yields its
+     * elements (strings unquoted), anything else is a single entry.
+     *
+     * @param payload The query result.
+     * @return The log entries.
+     */
+    public static List<String> parseEntries(final String payload) {
+        if (payload == null || payload.isBlank()) {
+            return List.of();
+        }
+
+        final JSONArray array;
+        try {
+            array = new JSONArray(payload);
+        } catch (JSONException e) {
+            return List.of(payload);
+        }
+
+        final var entries = new ArrayList<String>(array.length());
+        for (var i = 0; i < array.length(); i++) {
+            final var entry = array.get(i);
+            entries.add(entry instanceof String ? (String) entry : entry.toString());
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.query;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Identifies a cached clearing house query result: a single log entry by pid and message id,
+ * or a completed page of the log entries of a pid.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class LogQueryKey {
+
+    /**
+     * Used as page and size of queries without pagination.
+     */
+    public static final int UNPAGED = -1;
+
+    /**
+     * The process id.
+     */
+    private final String pid;
+
+    /**
+     * The message id, null for pages.
+     */
+    private final String messageId;
+
+    /**
+     * The query text, null for single log entries.
+     */
+    private final String query;
+
+    /**
+     * The page number, {@link #UNPAGED} for single log entries.
+     */
+    private final int page;
+
+    /**
+     * The page size, {@link #UNPAGED} for single log entries.
+     */
+    private final int size;
+
+    /**
+     * @param pid The process id.
+     * @param messageId The message id.
+     * @return The key of a single log entry.
+     */
+    public static LogQueryKey entry(final String pid, final String messageId) {
+        return new LogQueryKey(pid, messageId, null, UNPAGED, UNPAGED);
+    }
+
+    /**
+     * @param pid The process id.
+     * @param query The query text.
+     * @param page The page number.
+     * @param size The page size.
+     * @return The key of a page of log entries.
+     */
+    public static LogQueryKey page(final String pid,
+                                   final String query,
+                                   final int page,
+                                   final int size) {
+        return new LogQueryKey(pid, null, query, page, size);
+    }
+}
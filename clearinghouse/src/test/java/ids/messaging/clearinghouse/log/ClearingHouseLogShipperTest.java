@@ -0,0 +1,133 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.log;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import de.fraunhofer.iais.eis.RejectionReason;
+import ids.messaging.protocol.UnexpectedResponseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClearingHouseLogShipperTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<String> shipped = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger busyRejections = new AtomicInteger();
+
+    private ClearingHouseLogShipper shipper;
+
+    @BeforeEach
+    void setUp() {
+        shipper = new ClearingHouseLogShipper((pid, message) -> {
+            if ("poison".equals(message)) {
+                throw new URISyntaxException(pid, "Illegal character");
+            }
+            if ("unreachable".equals(message)) {
+                throw new IOException("Connection refused");
+            }
+            if ("busy".equals(message) && busyRejections.getAndIncrement() == 0) {
+                throw new UnexpectedResponseException("Rejected",
+                                                      RejectionReason.TEMPORARILY_NOT_AVAILABLE);
+            }
+            if ("rejected".equals(message)) {
+                throw new UnexpectedResponseException("Rejected",
+                                                      RejectionReason.BAD_PARAMETERS);
+            }
+            shipped.add(message);
+        });
+        ReflectionTestUtils.setField(shipper, "enabled", true);
+        ReflectionTestUtils.setField(shipper, "directory", directory.toString());
+        ReflectionTestUtils.setField(shipper, "parallelism", 1);
+        ReflectionTestUtils.setField(shipper, "batchSize", 10);
+        ReflectionTestUtils.setField(shipper, "segmentBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(shipper, "fsync", false);
+        ReflectionTestUtils.setField(shipper, "retryInitialMillis", 1L);
+        ReflectionTestUtils.setField(shipper, "retryMaxMillis", 2L);
+        ReflectionTestUtils.setField(shipper, "retryMaxAttempts", 3);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        shipper.destroy();
+    }
+
+    @Test
+    void testFailedEntriesDoNotBlockFollowingEntries() throws Exception {
+        final var store = shipper.start();
+        store.append("pid", "first");
+        store.append("pid", "poison");
+        store.append("pid", "unreachable");
+        store.append("pid", "last");
+
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (shipper.getBacklog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of("first", "last"), shipped);
+        assertEquals(2, shipper.getDroppedCount());
+        assertEquals(2, shipper.getRetryCount());
+        assertEquals(0, shipper.getBacklog());
+
+        shipper.destroy();
+        try (var deadLetters = LogSegmentStore.open(directory.resolve("dead-letter"), 1024, false);
+             var cursor = deadLetters.openCursor(0)) {
+            final var messages = deadLetters.read(cursor, 10).stream()
+                                            .map(LogRecord::getMessage)
+                                            .collect(Collectors.toList());
+            assertEquals(List.of("poison", "unreachable"), messages);
+        }
+        assertTrue(shipper.getShippedCount() >= 2);
+    }
+
+    @Test
+    void testTemporaryRejectionIsRetried() throws Exception {
+        final var store = shipper.start();
+        store.append("pid", "busy");
+        store.append("pid", "rejected");
+        store.append("pid", "last");
+
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (shipper.getBacklog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of("busy", "last"), shipped);
+        assertEquals(1, shipper.getRetryCount());
+        assertEquals(1, shipper.getDroppedCount());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.log;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadsFromCursorAcrossSegments() throws IOException {
+        try (var store = LogSegmentStore.open(directory, 200, false)) {
+            for (var i = 0; i < 10; i++) {
+                store.append("pid" + i % 3, "message-" + i);
+            }
+            assertTrue(store.getSegmentCount() > 1);
+
+            try (var cursor = store.openCursor(3)) {
+                final var records = store.read(cursor, 100);
+                assertEquals(7, records.size());
+                assertEquals(4, records.get(0).getSequence());
+                assertEquals("pid0", records.get(5).getPid());
+                assertEquals("message-9", records.get(6).getMessage());
+                assertTrue(store.read(cursor, 100).isEmpty());
+
+                store.append("pid", "late");
+                assertEquals("late", store.read(cursor, 100).get(0).getMessage());
+            }
+        }
+    }
+
+    @Test
+    void testCommitDeletesShippedSegmentsAndSurvivesTornWrite() throws IOException {
+        try (var store = LogSegmentStore.open(directory, 200, false)) {
+            for (var i = 0; i < 10; i++) {
+                store.append("pid", "message-" + i);
+            }
+            final var segments = store.getSegmentCount();
+            store.commit(6);
+            assertTrue(store.getSegmentCount() < segments);
+        }
+
+        final var last = Files.list(directory)
+                              .filter(path -> path.toString().endsWith(".log"))
+                              .sorted()
+                              .collect(Collectors.toList());
+        Files.write(last.get(last.size() - 1), new byte[]{0, 0, 0, 50, 1, 2},
+                    StandardOpenOption.APPEND);
+
+        try (var store = LogSegmentStore.open(directory, 200, false);
+             var cursor = store.openCursor(store.getCommittedSequence())) {
+            assertEquals(6, store.getCommittedSequence());
+            assertEquals(10, store.getLastSequence());
+            assertEquals(4, store.read(cursor, 100).size());
+            assertEquals(11, store.append("pid", "after restart"));
+        }
+    }
+}
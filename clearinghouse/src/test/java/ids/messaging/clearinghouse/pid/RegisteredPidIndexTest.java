@@ -0,0 +1,71 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.pid;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegisteredPidIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRegistrationsSurviveReopenAndAreCompacted() throws IOException {
+        final var file = directory.resolve("pids.tsv");
+
+        try (var index = RegisteredPidIndex.open(file)) {
+            index.put("pid1", Set.of("https://a", "https://b"));
+            index.put("pid2", Set.of("https://a"));
+            index.put("pid1", Set.of("https://a"));
+
+            assertTrue(index.isRegistered("pid1", Set.of("https://a")));
+            assertFalse(index.isRegistered("pid1", Set.of("https://a", "https://b")));
+        }
+        assertEquals(3, Files.readAllLines(file).size());
+
+        try (var index = RegisteredPidIndex.open(file)) {
+            assertEquals(2, index.size());
+            assertTrue(index.isRegistered("pid1", Set.of("https://a")));
+            assertTrue(index.isRegistered("pid2", Set.of("https://a")));
+            assertFalse(index.get("pid3").isPresent());
+        }
+        assertEquals(2, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void testRejectsWhitespace() throws IOException {
+        try (var index = RegisteredPidIndex.open(directory.resolve("pids.tsv"))) {
+            assertThrows(IllegalArgumentException.class,
+                         () -> index.put("pid 1", Set.of("https://a")));
+            assertEquals(0, index.size());
+        }
+    }
+}
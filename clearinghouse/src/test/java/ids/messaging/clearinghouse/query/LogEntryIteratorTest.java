@@ -0,0 +1,76 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.clearinghouse.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ids.messaging.requests.exceptions.QueryPageException;
+import org.json.JSONArray;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogEntryIteratorTest {
+
+    private static String page(final int from, final int to) {
+        final var page = new JSONArray();
+        for (var i = from; i < to; i++) {
+            page.put("{\"@id\":\"https://example.com/" + i + "\"}");
+        }
+        return page.toString();
+    }
+
+    @Test
+    void testRequestsPagesUntilShortPage() {
+        final var pages = new ArrayList<Integer>();
+        final var iterator = new LogEntryIterator((page, size) -> {
+            pages.add(page);
+            final var from = (page - 1) * size;
+            return page(from, Math.min(from + size, 7));
+        }, 3);
+
+        final var entries = new ArrayList<String>();
+        iterator.forEachRemaining(entries::add);
+
+        assertEquals(7, entries.size());
+        assertEquals("{\"@id\":\"https://example.com/6\"}", entries.get(6));
+        assertEquals(List.of(1, 2, 3), pages);
+    }
+
+    @Test
+    void testParseEntries() {
+        assertEquals(List.of(), LogEntryIterator.parseEntries(""));
+        assertEquals(List.of("{\"a\":1}", "b"), LogEntryIterator.parseEntries("[{\"a\":1},\"b\"]"));
+        assertEquals(List.of("not json"), LogEntryIterator.parseEntries("not json"));
+    }
+
+    @Test
+    void testPageErrorIsThrownUnchecked() {
+        final var iterator = new LogEntryIterator((page, size) -> {
+            throw new IOException("down");
+        }, 3);
+
+        final var exception = assertThrows(QueryPageException.class, iterator::hasNext);
+        assertEquals("down", exception.getCause().getMessage());
+    }
+}
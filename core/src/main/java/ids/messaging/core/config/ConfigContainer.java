@@ -19,11 +19,14 @@
  */
 package ids.messaging.core.config;
 
+import java.io.IOException;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.fraunhofer.iais.eis.ConfigurationModel;
 import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
 import ids.messaging.core.config.ssl.keystore.KeyStoreManager;
 import ids.messaging.core.config.ssl.keystore.KeyStoreManagerInitializationException;
 import lombok.Getter;
@@ -36,6 +39,11 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class ConfigContainer {
+    /**
+     * Serializer used for the self-description.
+     */
+    private static final Serializer SERIALIZER = new Serializer();
+
     /**
      * The ConfigurationModel.
      */
@@ -54,6 +62,22 @@ public class ConfigContainer {
     @Setter
     private ClientProvider clientProvider;
 
+    /**
+     * Version of the configuration, incremented on every update.
+     */
+    private final AtomicLong configurationVersion = new AtomicLong();
+
+    /**
+     * The serialized self-description of the current configuration version, null if not
+     * built yet.
+     */
+    private volatile SerializedSelfDescription selfDescription;
+
+    /**
+     * Lock for building the self-description.
+     */
+    private final Object selfDescriptionLock = new Object();
+
     /**
      * Create a ConfigurationContainer with a ConfigurationModel and KeyStoreManager.
      *
@@ -75,6 +99,57 @@ public class ConfigContainer {
         return configurationModel.getConnectorDescription();
     }
 
+    /**
+     * @return The version of the current configuration, incremented on every update.
+     */
+    public long getConfigurationVersion() {
+        return configurationVersion.get();
+    }
+
+    /**
+     * Get the serialized self-description of the current configuration. It is serialized
+     * once per configuration version and shared by all callers.
+     *
+     * @return The serialized self-description.
+     * @throws IOException If the connector cannot be serialized.
+     */
+    public SerializedSelfDescription getSelfDescription() throws IOException {
+        final var current = selfDescription;
+
+        if (current != null && current.getVersion() == configurationVersion.get()) {
+            return current;
+        }
+
+        synchronized (selfDescriptionLock) {
+            final var version = configurationVersion.get();
+
+            if (selfDescription != null && selfDescription.getVersion() == version) {
+                return selfDescription;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Serializing self-description. [code=(IMSCOD0152), version=({})]",
+                          version);
+            }
+
+            final var built = SerializedSelfDescription.create(getConnector(), version,
+                                                               SERIALIZER);
+            selfDescription = built;
+
+            return built;
+        }
+    }
+
+    /**
+     * Invalidate the serialized self-description. Must be called if the current
+     * ConfigurationModel was changed in place instead of using
+     * {@link #updateConfiguration(ConfigurationModel)}.
+     */
+    public void invalidateSelfDescription() {
+        configurationVersion.incrementAndGet();
+        selfDescription = null;
+    }
+
     /**
      * Update the ConfigurationContainer with a new {@link ConfigurationModel},
      * rebuild the KeyStoreManager with new Configuration in the process.
@@ -98,6 +173,7 @@ public class ConfigContainer {
 
             this.configurationModel = configurationModel;
             this.keyStoreManager = manager;
+            invalidateSelfDescription();
 
             if (clientProvider != null) {
                 clientProvider.updateConfig();
@@ -0,0 +1,219 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.core.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.Representation;
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceCatalog;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import lombok.Getter;
+
+/**
+ * The serialized self-description of one configuration version, together with an index of
+ * the catalog elements it contains (resource catalogs, resources, representations,
+ * artifacts and contract offers) so that single elements can be served by their id.
+ * Elements are serialized on first request and kept for the lifetime of the version.
+ */
+public final class SerializedSelfDescription {
+
+    /**
+     * The configuration version this self-description was built for.
+     */
+    @Getter
+    private final long version;
+
+    /**
+     * The id of the described connector.
+     */
+    @Getter
+    private final URI connectorId;
+
+    /**
+     * The serialized connector.
+     */
+    @Getter
+    private final String json;
+
+    /**
+     * The serialized connector as UTF-8 bytes, created on first access.
+     */
+    private volatile byte[] bytes;
+
+    /**
+     * The catalog elements of the connector by id.
+     */
+    private final Map<URI, Object> elements;
+
+    /**
+     * The serialized catalog elements by id.
+     */
+    private final Map<URI, String> serializedElements = new ConcurrentHashMap<>();
+
+    /**
+     * The serializer used for single elements.
+     */
+    private final Serializer serializer;
+
+    private SerializedSelfDescription(final long version,
+                                      final URI connectorId,
+                                      final String json,
+                                      final Map<URI, Object> elements,
+                                      final Serializer serializer) {
+        this.version = version;
+        this.connectorId = connectorId;
+        this.json = json;
+        this.elements = elements;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Serialize a connector and index its catalog elements.
+     *
+     * @param connector The connector.
+     * @param version The configuration version the connector belongs to.
+     * @param serializer The infomodel serializer.
+     * @return The SerializedSelfDescription.
+     * @throws IOException If the connector cannot be serialized.
+     */
+    public static SerializedSelfDescription create(final Connector connector,
+                                                   final long version,
+                                                   final Serializer serializer)
+            throws IOException {
+        final var elements = new HashMap<URI, Object>();
+
+        for (final var catalog : nullSafe(connector.getResourceCatalog())) {
+            index(elements, catalog);
+        }
+
+        return new SerializedSelfDescription(version, connector.getId(),
+                                             serializer.serialize(connector),
+                                             Map.copyOf(elements), serializer);
+    }
+
+    /**
+     * @return The serialized connector as UTF-8 bytes.
+     */
+    public byte[] getBytes() {
+        var result = bytes;
+
+        if (result == null) {
+            result = json.getBytes(StandardCharsets.UTF_8);
+            bytes = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Check whether an element is part of the self-description.
+     *
+     * @param requestedElement The id of the element.
+     * @return True if the element is the connector or one of its catalog elements.
+     */
+    public boolean containsElement(final URI requestedElement) {
+        return requestedElement == null
+               || requestedElement.equals(connectorId)
+               || elements.containsKey(requestedElement);
+    }
+
+    /**
+     * Get a serialized element of the self-description.
+     *
+     * @param requestedElement The id of the element, null or the connector id for the
+     * complete self-description.
+     * @return The serialized element, empty if it is not part of the self-description.
+     * @throws IOException If the element cannot be serialized.
+     */
+    public Optional<String> getElement(final URI requestedElement) throws IOException {
+        if (requestedElement == null || requestedElement.equals(connectorId)) {
+            return Optional.of(json);
+        }
+
+        final var element = elements.get(requestedElement);
+
+        if (element == null) {
+            return Optional.empty();
+        }
+
+        var serialized = serializedElements.get(requestedElement);
+
+        if (serialized == null) {
+            serialized = serializer.serialize(element);
+            serializedElements.putIfAbsent(requestedElement, serialized);
+        }
+
+        return Optional.of(serialized);
+    }
+
+    /**
+     * @return The number of indexed catalog elements.
+     */
+    public int getElementCount() {
+        return elements.size();
+    }
+
+    private static void index(final Map<URI, Object> elements, final ResourceCatalog catalog) {
+        elements.put(catalog.getId(), catalog);
+
+        for (final var resource : nullSafe(catalog.getOfferedResource())) {
+            index(elements, resource);
+        }
+
+        for (final var resource : nullSafe(catalog.getRequestedResource())) {
+            index(elements, resource);
+        }
+    }
+
+    private static void index(final Map<URI, Object> elements, final Resource resource) {
+        elements.put(resource.getId(), resource);
+
+        for (final var offer : nullSafe(resource.getContractOffer())) {
+            elements.put(offer.getId(), offer);
+        }
+
+        for (final var representation : nullSafe(resource.getRepresentation())) {
+            index(elements, representation);
+        }
+    }
+
+    private static void index(final Map<URI, Object> elements,
+                              final Representation representation) {
+        elements.put(representation.getId(), representation);
+
+        for (final var instance : nullSafe(representation.getInstance())) {
+            elements.put(instance.getId(), instance);
+        }
+    }
+
+    private static <T> Collection<T> nullSafe(final Collection<T> collection) {
+        return collection == null ? List.of() : collection;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.core.config;
+
+import java.net.URI;
+import java.util.List;
+
+import de.fraunhofer.iais.eis.BaseConnectorBuilder;
+import de.fraunhofer.iais.eis.ConfigurationModelBuilder;
+import de.fraunhofer.iais.eis.ConnectorDeployMode;
+import de.fraunhofer.iais.eis.ConnectorEndpointBuilder;
+import de.fraunhofer.iais.eis.ConnectorStatus;
+import de.fraunhofer.iais.eis.LogLevel;
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceBuilder;
+import de.fraunhofer.iais.eis.ResourceCatalogBuilder;
+import de.fraunhofer.iais.eis.SecurityProfile;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SerializedSelfDescriptionTest {
+
+    @Test
+    void testSelfDescriptionIsCachedPerVersionAndIndexed() throws Exception {
+        final var resourceId = URI.create("https://example.org/resource/1");
+        final var connector = new BaseConnectorBuilder()
+                ._curator_(URI.create("http://curator"))
+                ._hasDefaultEndpoint_(new ConnectorEndpointBuilder()
+                                              ._accessURL_(URI.create("http://localhost"))
+                                              .build())
+                ._inboundModelVersion_(List.of("1.0.0"))
+                ._maintainer_(URI.create("http://maintainer"))
+                ._outboundModelVersion_("1.0.0")
+                ._securityProfile_(SecurityProfile.BASE_SECURITY_PROFILE)
+                ._resourceCatalog_(List.of(new ResourceCatalogBuilder()
+                        ._offeredResource_(List.of(new ResourceBuilder(resourceId).build()))
+                        .build()))
+                .build();
+        final var configurationModel = new ConfigurationModelBuilder()
+                ._configurationModelLogLevel_(LogLevel.DEBUG_LEVEL_LOGGING)
+                ._connectorDeployMode_(ConnectorDeployMode.TEST_DEPLOYMENT)
+                ._connectorStatus_(ConnectorStatus.CONNECTOR_OFFLINE)
+                ._connectorDescription_(connector)
+                .build();
+        final var container = new ConfigContainer(configurationModel, null);
+
+        final var first = container.getSelfDescription();
+        assertSame(first, container.getSelfDescription());
+        assertEquals(new Serializer().serialize(connector), first.getJson());
+        assertEquals(first.getJson(), first.getElement(null).orElseThrow());
+
+        final var resource = new Serializer().deserialize(
+                first.getElement(resourceId).orElseThrow(), Resource.class);
+        assertEquals(resourceId, resource.getId());
+        assertTrue(first.getElement(URI.create("https://example.org/unknown")).isEmpty());
+
+        container.invalidateSelfDescription();
+        final var second = container.getSelfDescription();
+        assertNotSame(first, second);
+        assertEquals(first.getVersion() + 1, second.getVersion());
+    }
+}
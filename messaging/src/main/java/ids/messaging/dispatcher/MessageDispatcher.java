@@ -20,29 +20,46 @@
 package ids.messaging.dispatcher;
 
 import java.io.InputStream;
-import java.util.LinkedList;
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.fraunhofer.iais.eis.ConnectorDeployMode;
+import de.fraunhofer.iais.eis.ConnectorUpdateMessage;
 import de.fraunhofer.iais.eis.Message;
 import de.fraunhofer.iais.eis.RejectionReason;
 import ids.messaging.core.config.ConfigContainer;
 import ids.messaging.core.daps.ClaimsException;
 import ids.messaging.core.daps.DapsValidator;
+import ids.messaging.dispatcher.filter.CompiledFilterChain;
+import ids.messaging.dispatcher.filter.FilterStatistics;
 import ids.messaging.dispatcher.filter.PreDispatchingFilter;
+import ids.messaging.dispatcher.filter.PreDispatchingFilterChain;
 import ids.messaging.dispatcher.filter.PreDispatchingFilterException;
+import ids.messaging.dispatcher.filter.ratelimit.IssuerRateLimitingFilter;
+import ids.messaging.dispatcher.idempotency.IdempotencyCache;
+import ids.messaging.dispatcher.lane.ExecutionLanes;
 import ids.messaging.handler.message.MessageAndClaimsHandler;
 import ids.messaging.handler.message.MessageHandler;
 import ids.messaging.handler.message.MessageHandlerException;
 import ids.messaging.handler.message.MessagePayloadInputstream;
 import ids.messaging.handler.request.RequestMessageHandler;
+import ids.messaging.requests.cache.SelfDescriptionCache;
 import ids.messaging.response.ErrorResponse;
 import ids.messaging.response.MessageResponse;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 /**
@@ -51,7 +68,12 @@ import org.springframework.beans.factory.annotation.Value;
  * on their type and returns the results returned by the MessageHandlers.
  */
 @Slf4j
-public class MessageDispatcher {
+public class MessageDispatcher implements DisposableBean {
+
+    /**
+     * Queued filter tasks per thread before filters run on the calling thread.
+     */
+    private static final int FILTER_QUEUE_PER_THREAD = 16;
 
     /**
      * Flag for checking referredConnector.
@@ -65,9 +87,27 @@ public class MessageDispatcher {
     private final ObjectMapper objectMapper;
 
     /**
-     * The PreDispatchingFilter.
+     * Used to switch running claims independent PreDispatchingFilters in parallel to the
+     * DAT verification on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.filter.parallel:false}')}")
+    private boolean parallelFilters;
+
+    /**
+     * Number of threads running claims independent PreDispatchingFilters.
+     */
+    @Value("${messaging.filter.parallel.threads:4}")
+    private int parallelFilterThreads;
+
+    /**
+     * The PreDispatchingFilter chain.
      */
-    private final List<PreDispatchingFilter> preDispatchingFilters;
+    private final PreDispatchingFilterChain preDispatchingFilters;
+
+    /**
+     * Executor for claims independent PreDispatchingFilters, created on first use.
+     */
+    private volatile ExecutorService filterExecutor;
 
     /**
      * The RequestMessageHandler.
@@ -84,6 +124,21 @@ public class MessageDispatcher {
      */
     private final DapsValidator dapsValidator;
 
+    /**
+     * The IdempotencyCache, optional.
+     */
+    private IdempotencyCache idempotencyCache;
+
+    /**
+     * The ExecutionLanes, optional.
+     */
+    private ExecutionLanes executionLanes;
+
+    /**
+     * The SelfDescriptionCache, optional.
+     */
+    private SelfDescriptionCache selfDescriptionCache;
+
     /**
      * Create a MessageDispatcher.
      *
@@ -101,7 +156,7 @@ public class MessageDispatcher {
         this.requestMessageHandler = requestMessageHandler;
         this.configContainer = configContainer;
         this.dapsValidator = dapsValidator;
-        this.preDispatchingFilters = new LinkedList<>();
+        this.preDispatchingFilters = new PreDispatchingFilterChain();
     }
 
     /**
@@ -113,7 +168,84 @@ public class MessageDispatcher {
      */
     public void registerPreDispatchingAction(
             final PreDispatchingFilter preDispatchingFilter) {
-        this.preDispatchingFilters.add(preDispatchingFilter);
+        this.preDispatchingFilters.register(preDispatchingFilter);
+    }
+
+    /**
+     * Register a new PreDispatchingFilter which will be used to filter incoming messages
+     * of the given types only.
+     *
+     * @param preDispatchingFilter A new {@link PreDispatchingFilter} that should be added to
+     *                             the list of filters.
+     * @param messageTypes The message types the filter applies to (including subtypes).
+     */
+    @SafeVarargs
+    public final void registerPreDispatchingAction(
+            final PreDispatchingFilter preDispatchingFilter,
+            final Class<? extends Message>... messageTypes) {
+        this.preDispatchingFilters.register(preDispatchingFilter, messageTypes);
+    }
+
+    /**
+     * Remove a registered PreDispatchingFilter.
+     *
+     * @param preDispatchingFilter The {@link PreDispatchingFilter} to remove.
+     * @return True if the filter was registered.
+     */
+    public boolean unregisterPreDispatchingAction(
+            final PreDispatchingFilter preDispatchingFilter) {
+        return this.preDispatchingFilters.unregister(preDispatchingFilter);
+    }
+
+    /**
+     * @return Latency and rejection counters of the registered PreDispatchingFilters.
+     */
+    public List<FilterStatistics> getPreDispatchingFilterStatistics() {
+        return this.preDispatchingFilters.getStatistics();
+    }
+
+    /**
+     * Set the IdempotencyCache used to answer retried messages.
+     *
+     * @param idempotencyCache The IdempotencyCache.
+     */
+    @Autowired(required = false)
+    public void setIdempotencyCache(final IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    /**
+     * Set the ExecutionLanes used to handle message types on separate executors.
+     *
+     * @param executionLanes The ExecutionLanes.
+     */
+    @Autowired(required = false)
+    public void setExecutionLanes(final ExecutionLanes executionLanes) {
+        this.executionLanes = executionLanes;
+    }
+
+    /**
+     * Set the SelfDescriptionCache, whose entries of a connector are removed when an
+     * accepted ConnectorUpdateMessage of it arrives.
+     *
+     * @param selfDescriptionCache The SelfDescriptionCache.
+     */
+    @Autowired(required = false)
+    public void setSelfDescriptionCache(final SelfDescriptionCache selfDescriptionCache) {
+        this.selfDescriptionCache = selfDescriptionCache;
+    }
+
+    /**
+     * Register the per-issuer rate limiting filter, if rate limiting is enabled. It is applied
+     * before all other PreDispatchingFilters.
+     *
+     * @param rateLimitingFilter The IssuerRateLimitingFilter.
+     */
+    @Autowired(required = false)
+    public void setIssuerRateLimitingFilter(final IssuerRateLimitingFilter rateLimitingFilter) {
+        if (rateLimitingFilter.isEnabled()) {
+            this.preDispatchingFilters.registerFirst(rateLimitingFilter);
+        }
     }
 
     /**
@@ -129,7 +261,6 @@ public class MessageDispatcher {
      * @throws PreDispatchingFilterException If an error occurs
      * in a PreDispatchingFilter.
      */
-    @SuppressWarnings("unchecked")
     public <R extends Message> MessageResponse process(final R header,
                                                final InputStream payload)
             throws PreDispatchingFilterException {
@@ -137,10 +268,19 @@ public class MessageDispatcher {
         final var modelVersion =
                 configContainer.getConnector().getOutboundModelVersion();
 
+        final var filterChain = preDispatchingFilters.chainFor(header.getClass());
+        final var productive = configContainer.getConfigurationModel().getConnectorDeployMode()
+                               == ConnectorDeployMode.PRODUCTIVE_DEPLOYMENT;
+
+        //start claims independent filters while the dat is checked
+        CompletableFuture<CompiledFilterChain.FilterOutcome> startedFilters = null;
+        if (parallelFilters && productive && filterChain.hasClaimsIndependentFilters()) {
+            startedFilters = filterChain.startClaimsIndependent(header, getFilterExecutor());
+        }
+
         //check dat and save token claims
         Optional<Jws<Claims>> optionalClaimsJws = Optional.empty();
-        if (configContainer.getConfigurationModel().getConnectorDeployMode()
-           == ConnectorDeployMode.PRODUCTIVE_DEPLOYMENT) {
+        if (productive) {
             try {
                 final var claims =
                         dapsValidator.getClaims(header.getSecurityToken());
@@ -175,37 +315,80 @@ public class MessageDispatcher {
             }
         }
 
-        //apply all preDispatchingFilters to the message
-        for (final var preDispatchingFilter : this.preDispatchingFilters) {
-            if (log.isDebugEnabled()) {
-                log.debug("Applying a preDispatchingFilter... [code=(IMSMED0115)]");
-            }
+        //apply the preDispatchingFilters of the message type to the message
+        final var filterResult = filterChain.process(header, optionalClaimsJws, startedFilters);
 
-            try {
-                final var result = preDispatchingFilter.process(header);
-                if (!result.isSuccess()) {
-                    if (log.isErrorEnabled()) {
-                        log.error("A preDispatchingFilter failed, sending"
-                              + " response RejectionReason.MALFORMED_MESSAGE! [code=(IMSMEE0019),"
-                              + " result=({})]", result.getMessage());
-                    }
+        if (filterResult.isPresent()) {
+            final var result = filterResult.get();
 
-                    return ErrorResponse.withDefaultHeader(
-                            RejectionReason.MALFORMED_MESSAGE,
-                            result.getMessage(),
-                            connectorId,
-                            modelVersion, header.getId());
-                }
-            } catch (Exception e) {
+            if (result.getResponse() != null) {
                 if (log.isDebugEnabled()) {
-                    log.debug("A preDispatchingFilter threw an exception! [code=(IMSMED0116),"
-                              + " exception=({})]", e.getMessage());
+                    log.debug("A preDispatchingFilter rejected the message with a custom"
+                              + " response. [code=(IMSMED0147), result=({})]",
+                              result.getMessage());
                 }
 
-                throw new PreDispatchingFilterException(e);
+                return result.getResponse();
             }
+
+            if (log.isErrorEnabled()) {
+                log.error("A preDispatchingFilter failed, sending"
+                          + " response RejectionReason.MALFORMED_MESSAGE! [code=(IMSMEE0019),"
+                          + " result=({})]", result.getMessage());
+            }
+
+            return ErrorResponse.withDefaultHeader(
+                    RejectionReason.MALFORMED_MESSAGE,
+                    result.getMessage(),
+                    connectorId,
+                    modelVersion, header.getId());
+        }
+
+        if (header instanceof ConnectorUpdateMessage
+            && selfDescriptionCache != null && selfDescriptionCache.isEnabled()) {
+            selfDescriptionCache.onConnectorUpdate((ConnectorUpdateMessage) header);
         }
 
+        final var claims = optionalClaimsJws;
+        final Supplier<MessageResponse> handler = () -> dispatchInLane(
+                header, () -> dispatchToHandler(header, payload, claims,
+                                                connectorId, modelVersion));
+
+        if (idempotencyCache != null && idempotencyCache.isEnabled() && header.getId() != null) {
+            return idempotencyCache.process(header, claims, handler);
+        }
+
+        return handler.get();
+    }
+
+    private MessageResponse dispatchInLane(final Message header,
+                                           final Supplier<MessageResponse> handler) {
+        if (executionLanes != null && executionLanes.isEnabled()) {
+            return executionLanes.execute(header, handler);
+        }
+
+        return handler.get();
+    }
+
+    /**
+     * Find the {@link MessageHandler} for the type of the message, let it handle the message
+     * and return its {@link MessageResponse}.
+     *
+     * @param header Header of the incoming Message.
+     * @param payload Payload of the incoming Message.
+     * @param optionalClaimsJws The verified DAT claims, if available.
+     * @param connectorId ID of the current connector.
+     * @param modelVersion Infomodel version of the current connector.
+     * @param <R> A subtype of RequestMessage.
+     * @return The response of the MessageHandler or a rejection.
+     */
+    @SuppressWarnings("unchecked")
+    private <R extends Message> MessageResponse dispatchToHandler(
+            final R header,
+            final InputStream payload,
+            final Optional<Jws<Claims>> optionalClaimsJws,
+            final URI connectorId,
+            final String modelVersion) {
         // Returns the MessageHandler of a given MessageType of the header-part.
         // The MessageType is a subtype of RequestMessage.class from Infomodel.
         final var resolvedHandler =
@@ -255,6 +438,45 @@ public class MessageDispatcher {
         }
     }
 
+    /**
+     * Stop the threads running claims independent PreDispatchingFilters.
+     */
+    @Override
+    public void destroy() {
+        final var executor = filterExecutor;
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService getFilterExecutor() {
+        var executor = filterExecutor;
+
+        if (executor == null) {
+            synchronized (this) {
+                executor = filterExecutor;
+                if (executor == null) {
+                    final var threads = Math.max(1, parallelFilterThreads);
+                    final var threadCount = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(
+                            threads, threads, 0L, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(threads * FILTER_QUEUE_PER_THREAD),
+                            runnable -> {
+                                final var thread = new Thread(runnable,
+                                        "ids-filter-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            },
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                    filterExecutor = executor;
+                }
+            }
+        }
+
+        return executor;
+    }
+
     private <R extends Message> boolean isReferringConnector(final R header,
                                                              final Jws<Claims> claims) {
         final var datClaim = claims.getBody().get("referringConnector").toString().strip();
@@ -0,0 +1,199 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.admission;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control in front of the MessageDispatcher. Limits the number of concurrently
+ * processed incoming messages and the time a message may wait for a free slot. Messages
+ * that are not admitted within the queue-time budget are shed.
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    /**
+     * Used to switch admission control on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.admission.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Maximum number of incoming messages processed concurrently.
+     */
+    @Value("${messaging.admission.max.concurrent:64}")
+    private int maxConcurrent;
+
+    /**
+     * Maximum number of incoming messages waiting for a free slot.
+     */
+    @Value("${messaging.admission.max.queued:128}")
+    private int maxQueued;
+
+    /**
+     * Maximum time in milliseconds a message may wait for a free slot.
+     */
+    @Value("${messaging.admission.queue.timeout.ms:200}")
+    private long queueTimeout;
+
+    /**
+     * Seconds sent as Retry-After hint when shedding load.
+     */
+    @Value("${messaging.admission.retry.after.seconds:1}")
+    private long retryAfter;
+
+    /**
+     * The permits for concurrently processed messages, created on first use.
+     */
+    private volatile Semaphore permits;
+
+    /**
+     * Number of messages currently waiting for a free slot.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Number of admitted messages.
+     */
+    private final LongAdder admittedCount = new LongAdder();
+
+    /**
+     * Number of shed messages.
+     */
+    private final LongAdder shedCount = new LongAdder();
+
+    /**
+     * @return True if admission control is enabled.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Try to admit an incoming message. Waits at most the configured queue-time budget
+     * for a free slot. Every successful call must be followed by {@link #release()}.
+     *
+     * @return True if the message is admitted, false if it has to be shed.
+     */
+    public boolean tryAdmit() {
+        final var semaphore = getPermits();
+
+        if (semaphore.tryAcquire()) {
+            admittedCount.increment();
+            return true;
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return shed();
+        }
+
+        try {
+            if (semaphore.tryAcquire(queueTimeout, TimeUnit.MILLISECONDS)) {
+                admittedCount.increment();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        return shed();
+    }
+
+    /**
+     * Release the slot of an admitted message.
+     */
+    public void release() {
+        getPermits().release();
+    }
+
+    /**
+     * @return Seconds a client should wait before retrying a shed message.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfter;
+    }
+
+    /**
+     * @return Number of messages currently being processed.
+     */
+    public int getInFlight() {
+        return maxConcurrent - getPermits().availablePermits();
+    }
+
+    /**
+     * @return Number of messages currently waiting for a free slot.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return Total number of admitted messages.
+     */
+    public long getAdmittedCount() {
+        return admittedCount.sum();
+    }
+
+    /**
+     * @return Total number of shed messages.
+     */
+    public long getShedCount() {
+        return shedCount.sum();
+    }
+
+    private boolean shed() {
+        shedCount.increment();
+
+        if (log.isDebugEnabled()) {
+            log.debug("Shedding incoming message, admission limit reached."
+                      + " [code=(IMSMED0144), inFlight=({}), queued=({})]",
+                      getInFlight(), queued.get());
+        }
+
+        return false;
+    }
+
+    private Semaphore getPermits() {
+        var semaphore = permits;
+
+        if (semaphore == null) {
+            synchronized (this) {
+                semaphore = permits;
+                if (semaphore == null) {
+                    semaphore = new Semaphore(maxConcurrent, true);
+                    permits = semaphore;
+                }
+            }
+        }
+
+        return semaphore;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import de.fraunhofer.iais.eis.Message;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The precomputed PreDispatchingFilter chain for a single message type. Immutable.
+ */
+@Slf4j
+public final class CompiledFilterChain {
+
+    /**
+     * The filters applying to the message type, in registration order.
+     */
+    private final List<FilterRegistration> filters;
+
+    /**
+     * True if any of the filters does not depend on the DAT claims.
+     */
+    private final boolean claimsIndependent;
+
+    /**
+     * Create a CompiledFilterChain.
+     *
+     * @param filters The filters applying to the message type, in registration order.
+     */
+    CompiledFilterChain(final List<FilterRegistration> filters) {
+        this.filters = List.copyOf(filters);
+        this.claimsIndependent = filters.stream()
+                                        .anyMatch(f -> !f.getFilter().dependsOnClaims());
+    }
+
+    /**
+     * @return True if no filter applies to the message type.
+     */
+    public boolean isEmpty() {
+        return filters.isEmpty();
+    }
+
+    /**
+     * @return True if any of the filters does not depend on the DAT claims.
+     */
+    public boolean hasClaimsIndependentFilters() {
+        return claimsIndependent;
+    }
+
+    /**
+     * Start the filters that do not depend on the DAT claims on the given executor, so they
+     * can run while the DAT is verified. Pass the returned future to
+     * {@link #process(Message, Optional, CompletableFuture)}.
+     *
+     * @param in The incoming message.
+     * @param executor The executor to run the filters on.
+     * @return The future outcome of the claims independent filters.
+     */
+    public CompletableFuture<FilterOutcome> startClaimsIndependent(final Message in,
+                                                                  final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            for (var i = 0; i < filters.size(); i++) {
+                final var registration = filters.get(i);
+
+                if (registration.getFilter().dependsOnClaims()) {
+                    continue;
+                }
+
+                final var outcome = run(i, registration, in, Optional.empty());
+                if (outcome != null) {
+                    return outcome;
+                }
+            }
+
+            return null;
+        }, executor);
+    }
+
+    /**
+     * Apply the chain to the message.
+     *
+     * @param in The incoming message.
+     * @param claims The verified DAT claims.
+     * @return The result of the first rejecting filter, empty if all filters passed.
+     * @throws PreDispatchingFilterException If a filter threw an exception.
+     */
+    public Optional<PreDispatchingFilterResult> process(final Message in,
+                                                        final Optional<Jws<Claims>> claims)
+            throws PreDispatchingFilterException {
+        return process(in, claims, null);
+    }
+
+    /**
+     * Apply the chain to the message. Filters that already ran via
+     * {@link #startClaimsIndependent(Message, Executor)} are not run again. The first failing
+     * filter in registration order determines the result.
+     *
+     * @param in The incoming message.
+     * @param claims The verified DAT claims.
+     * @param started Outcome of the already started claims independent filters, may be null.
+     * @return The result of the first rejecting filter, empty if all filters passed.
+     * @throws PreDispatchingFilterException If a filter threw an exception.
+     */
+    public Optional<PreDispatchingFilterResult> process(
+            final Message in,
+            final Optional<Jws<Claims>> claims,
+            final CompletableFuture<FilterOutcome> started)
+            throws PreDispatchingFilterException {
+        final var earlyOutcome = started == null ? null : join(started);
+        final var limit = earlyOutcome == null ? filters.size() : earlyOutcome.getIndex();
+
+        for (var i = 0; i < limit; i++) {
+            final var registration = filters.get(i);
+
+            if (started != null && !registration.getFilter().dependsOnClaims()) {
+                continue;
+            }
+
+            final var outcome = run(i, registration, in, claims);
+            if (outcome != null) {
+                return outcome.get();
+            }
+        }
+
+        return earlyOutcome == null ? Optional.empty() : earlyOutcome.get();
+    }
+
+    private FilterOutcome run(final int index,
+                              final FilterRegistration registration,
+                              final Message in,
+                              final Optional<Jws<Claims>> claims) {
+        if (log.isDebugEnabled()) {
+            log.debug("Applying a preDispatchingFilter... [code=(IMSMED0115)]");
+        }
+
+        try {
+            final var result = registration.process(in, claims);
+            return result.isSuccess() ? null : new FilterOutcome(index, result, null);
+        } catch (PreDispatchingFilterException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("A preDispatchingFilter threw an exception! [code=(IMSMED0116),"
+                          + " exception=({})]", e.getMessage());
+            }
+
+            return new FilterOutcome(index, null, e);
+        }
+    }
+
+    private static FilterOutcome join(final CompletableFuture<FilterOutcome> started)
+            throws PreDispatchingFilterException {
+        try {
+            return started.join();
+        } catch (CompletionException e) {
+            throw new PreDispatchingFilterException(e.getCause());
+        }
+    }
+
+    /**
+     * Outcome of a failed filter: its position in the chain and its result or exception.
+     */
+    public static final class FilterOutcome {
+        /**
+         * Position of the filter in the chain.
+         */
+        private final int index;
+
+        /**
+         * The rejecting result, null if the filter threw an exception.
+         */
+        private final PreDispatchingFilterResult result;
+
+        /**
+         * The thrown exception, null if the filter rejected the message.
+         */
+        private final PreDispatchingFilterException exception;
+
+        private FilterOutcome(final int index,
+                              final PreDispatchingFilterResult result,
+                              final PreDispatchingFilterException exception) {
+            this.index = index;
+            this.result = result;
+            this.exception = exception;
+        }
+
+        private int getIndex() {
+            return index;
+        }
+
+        private Optional<PreDispatchingFilterResult> get() throws PreDispatchingFilterException {
+            if (exception != null) {
+                throw exception;
+            }
+            return Optional.of(result);
+        }
+    }
+}
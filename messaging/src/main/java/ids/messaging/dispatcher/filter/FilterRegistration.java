@@ -0,0 +1,149 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.fraunhofer.iais.eis.Message;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+
+/**
+ * A registered PreDispatchingFilter with the message types it applies to and its counters.
+ */
+final class FilterRegistration {
+
+    /**
+     * The filter.
+     */
+    private final PreDispatchingFilter filter;
+
+    /**
+     * Message types the filter applies to, empty for all message types.
+     */
+    private final Set<Class<? extends Message>> messageTypes;
+
+    /**
+     * Number of processed messages.
+     */
+    private final LongAdder invocations = new LongAdder();
+
+    /**
+     * Number of rejected messages.
+     */
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Number of thrown exceptions.
+     */
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Total processing time in nanoseconds.
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Longest processing time in nanoseconds.
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Create a FilterRegistration.
+     *
+     * @param filter The filter.
+     * @param messageTypes Message types the filter applies to, empty for all.
+     */
+    FilterRegistration(final PreDispatchingFilter filter,
+                       final Set<Class<? extends Message>> messageTypes) {
+        this.filter = filter;
+        this.messageTypes = messageTypes;
+    }
+
+    /**
+     * @return The filter.
+     */
+    PreDispatchingFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @param messageType Type of an incoming message.
+     * @return True if the filter applies to the message type.
+     */
+    boolean appliesTo(final Class<?> messageType) {
+        if (messageTypes.isEmpty()) {
+            return true;
+        }
+
+        for (final var type : messageTypes) {
+            if (type.isAssignableFrom(messageType)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Run the filter and record its counters.
+     *
+     * @param in The incoming message.
+     * @param claims The verified DAT claims.
+     * @return The result of the filter.
+     * @throws PreDispatchingFilterException If the filter threw an exception.
+     */
+    PreDispatchingFilterResult process(final Message in, final Optional<Jws<Claims>> claims)
+            throws PreDispatchingFilterException {
+        final var start = System.nanoTime();
+
+        try {
+            final var result = filter.process(in, claims);
+
+            if (!result.isSuccess()) {
+                rejections.increment();
+            }
+
+            return result;
+        } catch (Exception e) {
+            errors.increment();
+            throw e instanceof PreDispatchingFilterException
+                    ? (PreDispatchingFilterException) e
+                    : new PreDispatchingFilterException(e);
+        } finally {
+            final var duration = System.nanoTime() - start;
+            invocations.increment();
+            totalNanos.add(duration);
+            maxNanos.accumulateAndGet(duration, Math::max);
+        }
+    }
+
+    /**
+     * @return Snapshot of the counters.
+     */
+    FilterStatistics getStatistics() {
+        return new FilterStatistics(filter.getClass().getName(), invocations.sum(),
+                                    rejections.sum(), errors.sum(), totalNanos.sum(),
+                                    maxNanos.get());
+    }
+}
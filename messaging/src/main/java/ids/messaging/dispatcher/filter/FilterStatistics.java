@@ -0,0 +1,69 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of the counters of a single registered PreDispatchingFilter.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class FilterStatistics {
+    /**
+     * Name of the filter (its class name).
+     */
+    private final String filter;
+
+    /**
+     * Number of processed messages.
+     */
+    private final long invocations;
+
+    /**
+     * Number of rejected messages.
+     */
+    private final long rejections;
+
+    /**
+     * Number of messages for which the filter threw an exception.
+     */
+    private final long errors;
+
+    /**
+     * Total processing time in nanoseconds.
+     */
+    private final long totalNanos;
+
+    /**
+     * Longest processing time in nanoseconds.
+     */
+    private final long maxNanos;
+
+    /**
+     * @return Mean processing time in nanoseconds, 0 if the filter was never invoked.
+     */
+    public long getMeanNanos() {
+        return invocations == 0 ? 0 : totalNanos / invocations;
+    }
+}
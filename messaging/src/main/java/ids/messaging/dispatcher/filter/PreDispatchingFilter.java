@@ -19,7 +19,11 @@
  */
 package ids.messaging.dispatcher.filter;
 
+import java.util.Optional;
+
 import de.fraunhofer.iais.eis.Message;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
 
 /**
  * A filter that can be used for processing the message before it gets to the
@@ -36,4 +40,29 @@ public interface PreDispatchingFilter {
      * @throws PreDispatchingFilterException If an error occurs while processing the message.
      */
     PreDispatchingFilterResult process(Message in) throws PreDispatchingFilterException;
+
+    /**
+     * Execute the PreDispatchingFilter with the verified DAT claims of the message and
+     * return the result. Defaults to {@link #process(Message)}.
+     *
+     * @param in The RequestMessage to be filtered.
+     * @param claims The verified DAT claims, empty if not available (e.g. test deployment).
+     * @return Result of the processing.
+     * @throws PreDispatchingFilterException If an error occurs while processing the message.
+     */
+    default PreDispatchingFilterResult process(final Message in,
+                                               final Optional<Jws<Claims>> claims)
+            throws PreDispatchingFilterException {
+        return process(in);
+    }
+
+    /**
+     * Whether the filter uses the DAT claims. Filters that do not can be run in parallel to
+     * the DAT verification, if enabled.
+     *
+     * @return True if the filter depends on the DAT claims (default).
+     */
+    default boolean dependsOnClaims() {
+        return true;
+    }
 }
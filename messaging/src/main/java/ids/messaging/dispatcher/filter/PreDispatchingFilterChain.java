@@ -0,0 +1,162 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import de.fraunhofer.iais.eis.Message;
+import ids.messaging.handler.message.SupportedMessageType;
+
+/**
+ * The registered PreDispatchingFilters of the MessageDispatcher. Filters can declare the
+ * message types they apply to, either on registration or by annotating the filter class with
+ * {@link SupportedMessageType}; filters without declared types apply to all messages.
+ * Registration is copy-on-write and can safely happen at runtime, the chain for each message
+ * type is computed once and reused until the registered filters change.
+ */
+public class PreDispatchingFilterChain {
+
+    /**
+     * The current registrations and compiled chains.
+     */
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    /**
+     * Register a filter at the end of the chain.
+     *
+     * @param filter The filter.
+     * @param messageTypes Message types the filter applies to, if empty the types declared by
+     *                     {@link SupportedMessageType} annotations or else all types.
+     */
+    @SafeVarargs
+    public final void register(final PreDispatchingFilter filter,
+                               final Class<? extends Message>... messageTypes) {
+        register(filter, false, messageTypes);
+    }
+
+    /**
+     * Register a filter at the start of the chain.
+     *
+     * @param filter The filter.
+     * @param messageTypes Message types the filter applies to, if empty the types declared by
+     *                     {@link SupportedMessageType} annotations or else all types.
+     */
+    @SafeVarargs
+    public final void registerFirst(final PreDispatchingFilter filter,
+                                    final Class<? extends Message>... messageTypes) {
+        register(filter, true, messageTypes);
+    }
+
+    /**
+     * Remove a filter from the chain.
+     *
+     * @param filter The filter.
+     * @return True if the filter was registered.
+     */
+    public synchronized boolean unregister(final PreDispatchingFilter filter) {
+        final var registrations = new ArrayList<>(snapshot.registrations);
+        final var removed = registrations.removeIf(r -> r.getFilter() == filter);
+
+        if (removed) {
+            snapshot = new Snapshot(registrations);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Get the precomputed chain for a message type.
+     *
+     * @param messageType Type of the incoming message.
+     * @return The chain of filters applying to the message type.
+     */
+    public CompiledFilterChain chainFor(final Class<?> messageType) {
+        final var current = snapshot;
+        return current.chains.computeIfAbsent(messageType, current::compile);
+    }
+
+    /**
+     * @return Snapshot of the counters of all registered filters, in registration order.
+     */
+    public List<FilterStatistics> getStatistics() {
+        return snapshot.registrations.stream()
+                                     .map(FilterRegistration::getStatistics)
+                                     .collect(Collectors.toList());
+    }
+
+    private synchronized void register(final PreDispatchingFilter filter,
+                                       final boolean first,
+                                       final Class<? extends Message>[] messageTypes) {
+        final var registration = new FilterRegistration(filter, declaredTypes(filter,
+                                                                              messageTypes));
+        final var registrations = new ArrayList<>(snapshot.registrations);
+
+        if (first) {
+            registrations.add(0, registration);
+        } else {
+            registrations.add(registration);
+        }
+
+        snapshot = new Snapshot(registrations);
+    }
+
+    private static Set<Class<? extends Message>> declaredTypes(
+            final PreDispatchingFilter filter,
+            final Class<? extends Message>[] messageTypes) {
+        if (messageTypes.length > 0) {
+            return Set.copyOf(List.of(messageTypes));
+        }
+
+        return Arrays.stream(filter.getClass().getAnnotationsByType(SupportedMessageType.class))
+                     .map(SupportedMessageType::value)
+                     .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Immutable list of registrations with the chains compiled from it.
+     */
+    private static final class Snapshot {
+        /**
+         * The registrations in order.
+         */
+        private final List<FilterRegistration> registrations;
+
+        /**
+         * The compiled chains per message type.
+         */
+        private final Map<Class<?>, CompiledFilterChain> chains = new ConcurrentHashMap<>();
+
+        private Snapshot(final List<FilterRegistration> registrations) {
+            this.registrations = List.copyOf(registrations);
+        }
+
+        private CompiledFilterChain compile(final Class<?> messageType) {
+            return new CompiledFilterChain(registrations.stream()
+                                                        .filter(r -> r.appliesTo(messageType))
+                                                        .collect(Collectors.toList()));
+        }
+    }
+}
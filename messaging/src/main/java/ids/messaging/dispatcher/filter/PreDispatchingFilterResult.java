@@ -21,14 +21,13 @@ package ids.messaging.dispatcher.filter;
 
 import java.util.Objects;
 
-import lombok.AllArgsConstructor;
+import ids.messaging.response.MessageResponse;
 import lombok.Getter;
 
 /**
  * Result that is returned by a PreDispatchingFilter
  * (with information about why a message was accepted or rejected).
  */
-@AllArgsConstructor
 public class PreDispatchingFilterResult {
 
     /**
@@ -49,6 +48,44 @@ public class PreDispatchingFilterResult {
     @Getter
     private final String message;
 
+    /**
+     * Optional response to send instead of the default RejectionMessage if not successful.
+     */
+    @Getter
+    private final MessageResponse response;
+
+    /**
+     * Create a PreDispatchingFilterResult.
+     *
+     * @param error Possible error if not successful.
+     * @param success True if filter was successful.
+     * @param message The message.
+     */
+    public PreDispatchingFilterResult(final Throwable error,
+                                      final boolean success,
+                                      final String message) {
+        this(error, success, message, null);
+    }
+
+    /**
+     * Create a PreDispatchingFilterResult with a custom response, which is sent instead of
+     * the default RejectionMessage if not successful.
+     *
+     * @param error Possible error if not successful.
+     * @param success True if filter was successful.
+     * @param message The message.
+     * @param response The response to send if not successful, may be null.
+     */
+    public PreDispatchingFilterResult(final Throwable error,
+                                      final boolean success,
+                                      final String message,
+                                      final MessageResponse response) {
+        this.error = error;
+        this.success = success;
+        this.message = message;
+        this.response = response;
+    }
+
     /**
      * Static method returning a builder.
      *
@@ -94,7 +131,8 @@ public class PreDispatchingFilterResult {
 
         return isSuccess() == that.isSuccess()
                && Objects.equals(getError(), that.getError())
-               && Objects.equals(getMessage(), that.getMessage());
+               && Objects.equals(getMessage(), that.getMessage())
+               && Objects.equals(getResponse(), that.getResponse());
     }
 
     /**
@@ -102,6 +140,6 @@ public class PreDispatchingFilterResult {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(getError(), isSuccess(), getMessage());
+        return Objects.hash(getError(), isSuccess(), getMessage(), getResponse());
     }
 }
@@ -19,6 +19,7 @@
  */
 package ids.messaging.dispatcher.filter;
 
+import ids.messaging.response.MessageResponse;
 import lombok.NoArgsConstructor;
 
 /**
@@ -42,6 +43,11 @@ public class PreDispatchingFilterResultBuilder {
      */
     private String message;
 
+    /**
+     * The response to send if not successful.
+     */
+    private MessageResponse response;
+
     /**
      * Error message of the PreDispatchingFilter.
      *
@@ -75,12 +81,23 @@ public class PreDispatchingFilterResultBuilder {
         return this;
     }
 
+    /**
+     * Response to send instead of the default RejectionMessage if not successful.
+     *
+     * @param response The response.
+     * @return PreDispatchingFilterResultBuilder.
+     */
+    public PreDispatchingFilterResultBuilder withResponse(final MessageResponse response) {
+        this.response = response;
+        return this;
+    }
+
     /**
      * Build the PreDispatchingFilter-Result.
      *
      * @return The build PreDispatchingFilter-Res.ult
      */
     public PreDispatchingFilterResult build() {
-        return new PreDispatchingFilterResult(error, success, message);
+        return new PreDispatchingFilterResult(error, success, message, response);
     }
 }
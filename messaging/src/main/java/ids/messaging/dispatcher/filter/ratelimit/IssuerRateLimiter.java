@@ -0,0 +1,236 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter.ratelimit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket rate limiter keyed on the issuer connector. Buckets are kept in a bounded,
+ * lock-striped LRU store: each stripe is guarded by its own lock and evicts its least
+ * recently used issuer once full.
+ */
+public class IssuerRateLimiter {
+
+    /**
+     * Initial capacity of a stripe.
+     */
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    /**
+     * Load factor of a stripe.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The rate limit configuration.
+     */
+    private final RateLimitProperties properties;
+
+    /**
+     * The stripes of the bucket store.
+     */
+    private final List<Map<String, IssuerEntry>> stripes;
+
+    /**
+     * Total number of messages let through.
+     */
+    private final LongAdder allowedCount = new LongAdder();
+
+    /**
+     * Total number of rejected messages.
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Create an IssuerRateLimiter.
+     *
+     * @param properties The rate limit configuration.
+     */
+    public IssuerRateLimiter(final RateLimitProperties properties) {
+        this.properties = properties;
+
+        final var stripeCount = Math.max(1, properties.getStripes());
+        final var stripeCapacity = Math.max(1, properties.getMaxBuckets() / stripeCount);
+
+        this.stripes = new ArrayList<>(stripeCount);
+        for (var i = 0; i < stripeCount; i++) {
+            stripes.add(new LinkedHashMap<>(INITIAL_STRIPE_CAPACITY, LOAD_FACTOR, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, IssuerEntry> e) {
+                    return size() > stripeCapacity;
+                }
+            });
+        }
+    }
+
+    /**
+     * Try to take a token for a message of the given issuer and message type.
+     *
+     * @param issuer The issuer connector.
+     * @param messageType Simple name of the infomodel message type.
+     * @return True if the message may pass, false if the rate limit is exceeded.
+     */
+    public boolean tryAcquire(final String issuer, final String messageType) {
+        return tryAcquire(issuer, messageType, System.nanoTime());
+    }
+
+    /**
+     * Try to take a token for a message of the given issuer and message type.
+     *
+     * @param issuer The issuer connector.
+     * @param messageType Simple name of the infomodel message type.
+     * @param now The current time in nanoseconds.
+     * @return True if the message may pass, false if the rate limit is exceeded.
+     */
+    boolean tryAcquire(final String issuer, final String messageType, final long now) {
+        final var stripe = stripeFor(issuer);
+        final boolean allowed;
+
+        synchronized (stripe) {
+            final var entry = stripe.computeIfAbsent(issuer, key -> new IssuerEntry(
+                    new TokenBucket(properties.getPartners()
+                                              .getOrDefault(key, properties.getDefaults()),
+                                    now)));
+
+            final var typeLimit = properties.getMessageTypes().get(messageType);
+            final var typeBucket = typeLimit == null
+                    ? null
+                    : entry.typeBuckets.computeIfAbsent(messageType,
+                                                        key -> new TokenBucket(typeLimit, now));
+
+            //check both buckets before taking a token, a rejected message must not use up
+            //the token of the other bucket
+            allowed = (typeBucket == null || typeBucket.hasToken(now))
+                      && entry.bucket.hasToken(now);
+
+            if (allowed) {
+                if (typeBucket != null) {
+                    typeBucket.consume();
+                }
+                entry.bucket.consume();
+                entry.allowed++;
+            } else {
+                entry.rejected++;
+            }
+        }
+
+        if (allowed) {
+            allowedCount.increment();
+        } else {
+            rejectedCount.increment();
+        }
+
+        return allowed;
+    }
+
+    /**
+     * Get the counters of a single issuer connector.
+     *
+     * @param issuer The issuer connector.
+     * @return The counters, empty if the issuer is not tracked (anymore).
+     */
+    public Optional<IssuerStatistics> getStatistics(final String issuer) {
+        final var stripe = stripeFor(issuer);
+
+        synchronized (stripe) {
+            final var entry = stripe.get(issuer);
+            return entry == null
+                    ? Optional.empty()
+                    : Optional.of(new IssuerStatistics(issuer, entry.allowed, entry.rejected));
+        }
+    }
+
+    /**
+     * Get the counters of all currently tracked issuer connectors.
+     *
+     * @return Snapshot of the counters.
+     */
+    public List<IssuerStatistics> getStatistics() {
+        final var statistics = new ArrayList<IssuerStatistics>();
+
+        for (final var stripe : stripes) {
+            synchronized (stripe) {
+                for (final var entry : stripe.entrySet()) {
+                    statistics.add(new IssuerStatistics(entry.getKey(),
+                                                        entry.getValue().allowed,
+                                                        entry.getValue().rejected));
+                }
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * @return Total number of messages let through.
+     */
+    public long getAllowedCount() {
+        return allowedCount.sum();
+    }
+
+    /**
+     * @return Total number of rejected messages.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private Map<String, IssuerEntry> stripeFor(final String issuer) {
+        final var hash = issuer.hashCode();
+        return stripes.get(Math.floorMod(hash ^ (hash >>> 16), stripes.size()));
+    }
+
+    /**
+     * Buckets and counters of a single issuer, guarded by the lock of its stripe.
+     */
+    private static final class IssuerEntry {
+        /**
+         * The bucket of the issuer.
+         */
+        private final TokenBucket bucket;
+
+        /**
+         * Additional buckets per message type.
+         */
+        private final Map<String, TokenBucket> typeBuckets = new HashMap<>();
+
+        /**
+         * Number of messages let through.
+         */
+        private long allowed;
+
+        /**
+         * Number of rejected messages.
+         */
+        private long rejected;
+
+        private IssuerEntry(final TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
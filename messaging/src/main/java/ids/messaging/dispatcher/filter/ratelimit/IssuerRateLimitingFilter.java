@@ -0,0 +1,141 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter.ratelimit;
+
+import java.util.List;
+import java.util.Optional;
+
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.RejectionReason;
+import ids.messaging.dispatcher.filter.PreDispatchingFilter;
+import ids.messaging.dispatcher.filter.PreDispatchingFilterResult;
+import ids.messaging.response.RejectionTemplateProvider;
+import ids.messaging.util.IdsMessageUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * PreDispatchingFilter limiting the rate of incoming messages per issuer connector.
+ * The issuer is taken from the verified DAT claims (referringConnector, else sub), or from
+ * the ids:issuerConnector of the message if no claims are available (test deployment).
+ * Registered at the MessageDispatcher automatically if messaging.ratelimit.enabled is set.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class IssuerRateLimitingFilter implements PreDispatchingFilter {
+
+    /**
+     * The rate limit configuration.
+     */
+    private final RateLimitProperties properties;
+
+    /**
+     * The RejectionTemplateProvider for cheap rejections.
+     */
+    private final RejectionTemplateProvider rejectionTemplateProvider;
+
+    /**
+     * The rate limiter.
+     */
+    @Getter
+    private final IssuerRateLimiter rateLimiter;
+
+    /**
+     * Create an IssuerRateLimitingFilter.
+     *
+     * @param properties The rate limit configuration.
+     * @param rejectionTemplateProvider The RejectionTemplateProvider.
+     */
+    public IssuerRateLimitingFilter(final RateLimitProperties properties,
+                                    final RejectionTemplateProvider rejectionTemplateProvider) {
+        this.properties = properties;
+        this.rejectionTemplateProvider = rejectionTemplateProvider;
+        this.rateLimiter = new IssuerRateLimiter(properties);
+    }
+
+    /**
+     * @return True if rate limiting is enabled.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PreDispatchingFilterResult process(final Message in) {
+        return process(in, Optional.empty());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PreDispatchingFilterResult process(final Message in,
+                                              final Optional<Jws<Claims>> claims) {
+        final var issuer = resolveIssuer(in, claims);
+
+        if (rateLimiter.tryAcquire(issuer,
+                                   IdsMessageUtils.getMessageTypeName(in.getClass()))) {
+            return PreDispatchingFilterResult.successResult();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rate limit of issuer exceeded. [code=(IMSMED0146), issuer=({})]",
+                      issuer);
+        }
+
+        final var errorMessage = "Rate limit exceeded, retry later!";
+
+        return new PreDispatchingFilterResult(null, false, errorMessage,
+                rejectionTemplateProvider.createResponse(
+                        RejectionReason.TEMPORARILY_NOT_AVAILABLE, errorMessage, in.getId()));
+    }
+
+    /**
+     * @return Snapshot of the counters of all currently tracked issuer connectors.
+     */
+    public List<IssuerStatistics> getStatistics() {
+        return rateLimiter.getStatistics();
+    }
+
+    private String resolveIssuer(final Message in, final Optional<Jws<Claims>> claims) {
+        if (claims.isPresent()) {
+            final var body = claims.get().getBody();
+            final var referringConnector = body.get("referringConnector");
+
+            if (referringConnector != null) {
+                return referringConnector.toString().strip();
+            }
+
+            if (body.getSubject() != null) {
+                return body.getSubject();
+            }
+        }
+
+        return String.valueOf(in.getIssuerConnector()).strip();
+    }
+}
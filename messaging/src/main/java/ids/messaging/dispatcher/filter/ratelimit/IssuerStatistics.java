@@ -0,0 +1,47 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of the rate limiting counters of a single issuer connector.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class IssuerStatistics {
+    /**
+     * The issuer connector.
+     */
+    private final String issuer;
+
+    /**
+     * Number of messages let through.
+     */
+    private final long allowed;
+
+    /**
+     * Number of messages rejected because of the rate limit.
+     */
+    private final long rejected;
+}
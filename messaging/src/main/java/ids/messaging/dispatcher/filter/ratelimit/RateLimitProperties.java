@@ -0,0 +1,122 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Set of Properties to configure the per-issuer inbound rate limiting.
+ * Properties should be added to the application.properties file, e.g.
+ * {@code messaging.ratelimit.partners[https://connector.example].permits-per-second=5} or
+ * {@code messaging.ratelimit.message-types.ArtifactRequestMessage.burst=10}.
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.ratelimit")
+public class RateLimitProperties {
+
+    /**
+     * Default refill rate for connectors without a partner specific limit.
+     */
+    private static final double DEFAULT_PERMITS_PER_SECOND = 50;
+
+    /**
+     * Default bucket size for connectors without a partner specific limit.
+     */
+    private static final int DEFAULT_BURST = 100;
+
+    /**
+     * Default maximum number of tracked buckets.
+     */
+    private static final int DEFAULT_MAX_BUCKETS = 10_000;
+
+    /**
+     * Default number of lock stripes.
+     */
+    private static final int DEFAULT_STRIPES = 16;
+
+    /**
+     * Switch rate limiting on or off (default off).
+     */
+    private boolean enabled;
+
+    /**
+     * The default limit per issuer connector.
+     */
+    private Limit defaults = new Limit(DEFAULT_PERMITS_PER_SECOND, DEFAULT_BURST);
+
+    /**
+     * Limits per issuer connector, overriding the defaults.
+     */
+    private Map<String, Limit> partners = new HashMap<>();
+
+    /**
+     * Additional limits per issuer connector and message type, keyed by the simple name of
+     * the infomodel message interface (e.g. ArtifactRequestMessage).
+     */
+    private Map<String, Limit> messageTypes = new HashMap<>();
+
+    /**
+     * Maximum number of buckets kept in memory, least recently used buckets are evicted.
+     */
+    private int maxBuckets = DEFAULT_MAX_BUCKETS;
+
+    /**
+     * Number of lock stripes of the bucket store.
+     */
+    private int stripes = DEFAULT_STRIPES;
+
+    /**
+     * A token bucket limit.
+     */
+    @Data
+    public static class Limit {
+        /**
+         * Tokens refilled per second.
+         */
+        private double permitsPerSecond;
+
+        /**
+         * Maximum number of tokens in the bucket.
+         */
+        private int burst;
+
+        /**
+         * Create an empty Limit, used for binding.
+         */
+        public Limit() {
+            this(DEFAULT_PERMITS_PER_SECOND, DEFAULT_BURST);
+        }
+
+        /**
+         * Create a Limit.
+         *
+         * @param permitsPerSecond Tokens refilled per second.
+         * @param burst Maximum number of tokens in the bucket.
+         */
+        public Limit(final double permitsPerSecond, final int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+}
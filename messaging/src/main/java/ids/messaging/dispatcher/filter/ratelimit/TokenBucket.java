@@ -0,0 +1,83 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket. Not thread-safe, callers have to synchronize access.
+ */
+class TokenBucket {
+
+    /**
+     * Maximum number of tokens.
+     */
+    private final double capacity;
+
+    /**
+     * Tokens refilled per nanosecond.
+     */
+    private final double refillPerNano;
+
+    /**
+     * Currently available tokens.
+     */
+    private double tokens;
+
+    /**
+     * Time of the last refill in nanoseconds.
+     */
+    private long lastRefill;
+
+    /**
+     * Create a full token bucket.
+     *
+     * @param limit The limit of the bucket.
+     * @param now The current time in nanoseconds.
+     */
+    TokenBucket(final RateLimitProperties.Limit limit, final long now) {
+        this.capacity = Math.max(1, limit.getBurst());
+        this.refillPerNano = limit.getPermitsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Refill the bucket and check if a token is available, without taking it.
+     *
+     * @param now The current time in nanoseconds.
+     * @return True if a token is available.
+     */
+    boolean hasToken(final long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+
+        return tokens >= 1;
+    }
+
+    /**
+     * Take a token from the bucket, {@link #hasToken} must have returned true before.
+     */
+    void consume() {
+        tokens -= 1;
+    }
+}
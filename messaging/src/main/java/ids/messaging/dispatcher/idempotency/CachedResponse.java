@@ -0,0 +1,77 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.idempotency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.protocol.multipart.parser.MultipartDatapart;
+import ids.messaging.response.MessageResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A MessageResponse in its serialized form, as kept by an {@link IdempotencyStore}.
+ * The payload is either a String, a byte array or null.
+ */
+@Getter
+@AllArgsConstructor
+public class CachedResponse implements MessageResponse {
+    /**
+     * The serialized response header.
+     */
+    private final String header;
+
+    /**
+     * The response payload, String, byte[] or null.
+     */
+    private final Object payload;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> createMultipartMap(final Serializer serializer) {
+        final var multiMap = new LinkedHashMap<String, Object>();
+        multiMap.put(MultipartDatapart.HEADER.toString(), header);
+
+        if (payload != null) {
+            multiMap.put(MultipartDatapart.PAYLOAD.toString(), payload);
+        }
+
+        return multiMap;
+    }
+
+    /**
+     * @return Approximate size of the response in bytes.
+     */
+    public long size() {
+        var size = (long) header.length();
+
+        if (payload instanceof String) {
+            size += ((String) payload).length();
+        } else if (payload instanceof byte[]) {
+            size += ((byte[]) payload).length;
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.idempotency;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Optional;
+
+import ids.messaging.util.DigestUtils;
+import ids.messaging.util.cache.ExpiringCache;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * IdempotencyStore keeping the responses as files in a local directory, so they survive a
+ * restart of the connector. An in-memory index bounds the number of files and deletes
+ * files of evicted or expired responses.
+ */
+@Slf4j
+public class FileIdempotencyStore implements IdempotencyStore {
+
+    /**
+     * File extension of stored responses.
+     */
+    private static final String EXTENSION = ".response";
+
+    /**
+     * Marker for a missing payload.
+     */
+    private static final byte PAYLOAD_NONE = 0;
+
+    /**
+     * Marker for a String payload.
+     */
+    private static final byte PAYLOAD_STRING = 1;
+
+    /**
+     * Marker for a byte[] payload.
+     */
+    private static final byte PAYLOAD_BYTES = 2;
+
+    /**
+     * The directory of the stored responses.
+     */
+    private final Path directory;
+
+    /**
+     * Lifetime of a stored response.
+     */
+    private final Duration ttl;
+
+    /**
+     * Index of the stored response files.
+     */
+    private final ExpiringCache<String, Path> index;
+
+    /**
+     * Create a FileIdempotencyStore, responses already stored in the directory are reused.
+     *
+     * @param directory The directory of the stored responses, created if missing.
+     * @param maxEntries Maximum number of stored responses.
+     * @param ttl Lifetime of a stored response.
+     * @throws IOException If the directory cannot be created or read.
+     */
+    public FileIdempotencyStore(final Path directory,
+                                final int maxEntries,
+                                final Duration ttl) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.ttl = ttl;
+        this.index = new ExpiringCache<>(maxEntries, ttl, (key, path) -> delete(path));
+        loadIndex();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<CachedResponse> get(final String key) {
+        final var path = index.get(key);
+
+        if (path.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try (var in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path.get())))) {
+            final var expiresAt = in.readLong();
+            final var storedKey = readString(in);
+
+            if (expiresAt <= System.currentTimeMillis() || !storedKey.equals(key)) {
+                index.invalidate(key);
+                return Optional.empty();
+            }
+
+            final var header = readString(in);
+            final var type = in.readByte();
+            Object payload = null;
+
+            if (type == PAYLOAD_STRING) {
+                payload = readString(in);
+            } else if (type == PAYLOAD_BYTES) {
+                payload = readBytes(in);
+            }
+
+            return Optional.of(new CachedResponse(header, payload));
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Could not read stored response! [code=(IMSMEW0049),"
+                         + " exception=({})]", e.getMessage());
+            }
+            index.invalidate(key);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final String key, final CachedResponse response) {
+        final var path = directory.resolve(fileName(key));
+
+        try {
+            final var temp = Files.createTempFile(directory, "response", ".tmp");
+
+            try (var out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeLong(System.currentTimeMillis() + ttl.toMillis());
+                writeBytes(out, key.getBytes(StandardCharsets.UTF_8));
+                writeBytes(out, response.getHeader().getBytes(StandardCharsets.UTF_8));
+
+                final var payload = response.getPayload();
+                if (payload instanceof String) {
+                    out.writeByte(PAYLOAD_STRING);
+                    writeBytes(out, ((String) payload).getBytes(StandardCharsets.UTF_8));
+                } else if (payload instanceof byte[]) {
+                    out.writeByte(PAYLOAD_BYTES);
+                    writeBytes(out, (byte[]) payload);
+                } else {
+                    out.writeByte(PAYLOAD_NONE);
+                }
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            index.put(key, path);
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Could not store response! [code=(IMSMEW0050),"
+                         + " exception=({})]", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        index.invalidateAll();
+    }
+
+    private void loadIndex() throws IOException {
+        final var now = System.currentTimeMillis();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (final var file : files) {
+                try (var in = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(file)))) {
+                    final var expiresAt = in.readLong();
+                    final var key = readString(in);
+
+                    if (expiresAt > now) {
+                        index.put(key, file, Duration.ofMillis(expiresAt - now));
+                        continue;
+                    }
+                } catch (IOException e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Dropping unreadable stored response. [code=(IMSMED0148),"
+                                  + " file=({})]", file);
+                    }
+                }
+
+                delete(file);
+            }
+        }
+    }
+
+    private void delete(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Could not delete stored response. [code=(IMSMED0149),"
+                          + " file=({})]", path);
+            }
+        }
+    }
+
+    private static String fileName(final String key) {
+        return DigestUtils.sha256Hex(key) + EXTENSION;
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] bytes)
+            throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final var bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.idempotency;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.RejectionReason;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.common.SerializeException;
+import ids.messaging.protocol.multipart.parser.MultipartDatapart;
+import ids.messaging.response.ErrorResponse;
+import ids.messaging.response.MessageResponse;
+import ids.messaging.response.RejectionTemplateProvider;
+import ids.messaging.response.TemplatedRejectionResponse;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Idempotency layer of the MessageDispatcher. Keeps the serialized responses of processed
+ * incoming messages keyed by (sender, message id), so that retried messages are answered
+ * with the same response without running the MessageHandler again. The sender is the
+ * subject of the verified DAT, the unverified issuerConnector of the header is only used
+ * if no DAT is checked (test deployment). Duplicates arriving while the original message
+ * is still processed wait a bounded time for its response. Rejections are never stored.
+ */
+@Slf4j
+@Component
+public class IdempotencyCache {
+
+    /**
+     * Used to switch the idempotency cache on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.idempotency.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Maximum number of stored responses.
+     */
+    @Value("${messaging.idempotency.max.entries:1000}")
+    private int maxEntries;
+
+    /**
+     * Lifetime of a stored response in seconds.
+     */
+    @Value("${messaging.idempotency.ttl.seconds:300}")
+    private long ttlSeconds;
+
+    /**
+     * Maximum size of a stored response in bytes, larger responses are not stored.
+     */
+    @Value("${messaging.idempotency.max.response.bytes:1048576}")
+    private long maxResponseBytes;
+
+    /**
+     * Maximum time in milliseconds a duplicate waits for the response of the original
+     * message, before it is rejected with TEMPORARILY_NOT_AVAILABLE.
+     */
+    @Value("${messaging.idempotency.wait.timeout.millis:30000}")
+    private long waitTimeoutMillis;
+
+    /**
+     * Type of the default store, memory or file.
+     */
+    @Value("${messaging.idempotency.store:memory}")
+    private String storeType;
+
+    /**
+     * Directory of the file store.
+     */
+    @Value("${messaging.idempotency.file.path:idempotency}")
+    private String filePath;
+
+    /**
+     * The infomodel serializer.
+     */
+    private final Serializer serializer;
+
+    /**
+     * The RejectionTemplateProvider for duplicates that waited too long.
+     */
+    private final RejectionTemplateProvider rejectionTemplateProvider;
+
+    /**
+     * The store, either provided as bean or created on first use.
+     */
+    private volatile IdempotencyStore store;
+
+    /**
+     * Futures of the messages currently processed, per key.
+     */
+    private final Map<String, CompletableFuture<Optional<CachedResponse>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Number of duplicates answered from the store.
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * Number of duplicates that waited for the original message.
+     */
+    private final LongAdder coalescedCount = new LongAdder();
+
+    /**
+     * Number of stored responses.
+     */
+    private final LongAdder storedCount = new LongAdder();
+
+    /**
+     * Constructor for the IdempotencyCache.
+     *
+     * @param serializer The infomodel serializer.
+     * @param rejectionTemplateProvider The RejectionTemplateProvider.
+     */
+    @Autowired
+    public IdempotencyCache(final Serializer serializer,
+                            final RejectionTemplateProvider rejectionTemplateProvider) {
+        this.serializer = serializer;
+        this.rejectionTemplateProvider = rejectionTemplateProvider;
+    }
+
+    /**
+     * Use a custom IdempotencyStore instead of the configured default store.
+     *
+     * @param idempotencyStore The IdempotencyStore.
+     */
+    @Autowired(required = false)
+    public void setStore(final IdempotencyStore idempotencyStore) {
+        this.store = idempotencyStore;
+    }
+
+    /**
+     * @return True if the idempotency cache is enabled.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Answer the message from the store if it was already processed, else process it with
+     * the given handler and store the response.
+     *
+     * @param header Header of the incoming message.
+     * @param claims The verified DAT claims, empty if the DAT is not checked.
+     * @param handler Processes the message if it is no duplicate.
+     * @return The stored or newly created response.
+     */
+    public MessageResponse process(final Message header,
+                                   final Optional<Jws<Claims>> claims,
+                                   final Supplier<MessageResponse> handler) {
+        final var sender = claims.map(jws -> jws.getBody().getSubject())
+                                 .orElseGet(() -> String.valueOf(header.getIssuerConnector()));
+        final var key = sender + " " + header.getId();
+        final var currentStore = getStore();
+
+        final var stored = currentStore.get(key);
+        if (stored.isPresent()) {
+            hitCount.increment();
+
+            if (log.isDebugEnabled()) {
+                log.debug("Answering duplicate message from idempotency cache."
+                          + " [code=(IMSMED0150), id=({})]", header.getId());
+            }
+
+            return stored.get();
+        }
+
+        final var future = new CompletableFuture<Optional<CachedResponse>>();
+        final var running = inFlight.putIfAbsent(key, future);
+
+        if (running != null) {
+            coalescedCount.increment();
+
+            final var result = await(running, header);
+            if (result == null) {
+                return rejectionTemplateProvider.createResponse(
+                        RejectionReason.TEMPORARILY_NOT_AVAILABLE,
+                        "Message is still being processed, retry later!", header.getId());
+            }
+
+            return result.isPresent() ? result.get() : handler.get();
+        }
+
+        try {
+            final var response = handler.get();
+            final var cached = toCachedResponse(response);
+
+            cached.ifPresent(value -> {
+                currentStore.put(key, value);
+                storedCount.increment();
+            });
+            future.complete(cached);
+
+            return cached.isPresent() ? cached.get() : response;
+        } catch (RuntimeException e) {
+            future.complete(Optional.empty());
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Remove all stored responses.
+     */
+    public void clear() {
+        getStore().clear();
+    }
+
+    /**
+     * @return Number of duplicates answered from the store.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return Number of duplicates that waited for the original message.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * @return Number of stored responses.
+     */
+    public long getStoredCount() {
+        return storedCount.sum();
+    }
+
+    /**
+     * Wait for the response of the original message.
+     *
+     * @param running Future of the original message.
+     * @param header Header of the duplicate.
+     * @return The result of the original message, null if it took too long.
+     */
+    private Optional<CachedResponse> await(
+            final CompletableFuture<Optional<CachedResponse>> running,
+            final Message header) {
+        try {
+            return running.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Original message still processed, rejecting duplicate with"
+                         + " TEMPORARILY_NOT_AVAILABLE. [code=(IMSMEW0064), id=({})]",
+                         header.getId());
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<CachedResponse> toCachedResponse(final MessageResponse response) {
+        if (response == null
+            || response instanceof ErrorResponse
+            || response instanceof TemplatedRejectionResponse) {
+            return Optional.empty();
+        }
+
+        if (response instanceof CachedResponse) {
+            return Optional.of((CachedResponse) response);
+        }
+
+        try {
+            final var map = response.createMultipartMap(serializer);
+            final var header = map.get(MultipartDatapart.HEADER.toString());
+            final var payload = map.get(MultipartDatapart.PAYLOAD.toString());
+
+            if (!(header instanceof String)
+                || payload != null && !(payload instanceof String || payload instanceof byte[])) {
+                return Optional.empty();
+            }
+
+            final var cached = new CachedResponse((String) header, payload);
+            return cached.size() <= maxResponseBytes ? Optional.of(cached) : Optional.empty();
+        } catch (SerializeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Response could not be serialized for the idempotency cache."
+                          + " [code=(IMSMED0151), exception=({})]", e.getMessage());
+            }
+            return Optional.empty();
+        }
+    }
+
+    private IdempotencyStore getStore() {
+        var current = store;
+
+        if (current == null) {
+            synchronized (this) {
+                current = store;
+                if (current == null) {
+                    current = createStore();
+                    store = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    private IdempotencyStore createStore() {
+        final var ttl = Duration.ofSeconds(ttlSeconds);
+
+        if ("file".equalsIgnoreCase(storeType)) {
+            try {
+                return new FileIdempotencyStore(Path.of(filePath), maxEntries, ttl);
+            } catch (IOException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("Could not create file based idempotency store, using in-memory"
+                             + " store instead! [code=(IMSMEW0051), exception=({})]",
+                             e.getMessage());
+                }
+            }
+        }
+
+        return new InMemoryIdempotencyStore(maxEntries, ttl);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.idempotency;
+
+import java.util.Optional;
+
+/**
+ * Store for the responses of already processed incoming messages. Implementations have to be
+ * thread-safe and are responsible for bounding their size and expiring entries.
+ * Provide a bean of this type to replace the default store.
+ */
+public interface IdempotencyStore {
+    /**
+     * Get the stored response for a key.
+     *
+     * @param key The key, built from issuer connector and message id.
+     * @return The stored response, empty if unknown or expired.
+     */
+    Optional<CachedResponse> get(String key);
+
+    /**
+     * Store the response for a key.
+     *
+     * @param key The key, built from issuer connector and message id.
+     * @param response The serialized response.
+     */
+    void put(String key, CachedResponse response);
+
+    /**
+     * Remove all stored responses.
+     */
+    void clear();
+}
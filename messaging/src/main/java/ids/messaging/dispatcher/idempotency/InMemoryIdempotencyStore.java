@@ -0,0 +1,70 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.idempotency;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import ids.messaging.util.cache.ExpiringCache;
+
+/**
+ * IdempotencyStore keeping the responses in memory.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    /**
+     * The cached responses.
+     */
+    private final ExpiringCache<String, CachedResponse> cache;
+
+    /**
+     * Create an InMemoryIdempotencyStore.
+     *
+     * @param maxEntries Maximum number of stored responses.
+     * @param ttl Lifetime of a stored response.
+     */
+    public InMemoryIdempotencyStore(final int maxEntries, final Duration ttl) {
+        this.cache = new ExpiringCache<>(maxEntries, ttl);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<CachedResponse> get(final String key) {
+        return cache.get(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final String key, final CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.lane;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import ids.messaging.response.MessageResponse;
+import lombok.Getter;
+import org.slf4j.MDC;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * A bounded executor handling the messages of some message types. The request attributes
+ * and the logging MDC of the submitting thread are available to the tasks of the lane.
+ */
+public class ExecutionLane {
+
+    /**
+     * The lane whose task the current thread is running, null outside of lanes.
+     */
+    private static final ThreadLocal<ExecutionLane> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Name of the lane.
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * The executor of the lane.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Number of handled messages.
+     */
+    private final LongAdder completedCount = new LongAdder();
+
+    /**
+     * Number of rejected messages.
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Total time in nanoseconds messages waited for a thread.
+     */
+    private final LongAdder queueNanos = new LongAdder();
+
+    /**
+     * Create an ExecutionLane.
+     *
+     * @param name Name of the lane.
+     * @param lane Configuration of the lane.
+     */
+    public ExecutionLane(final String name, final LaneProperties.Lane lane) {
+        this.name = name;
+
+        final var threads = Math.max(1, lane.getThreads());
+        final var threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, lane.getQueueSize())),
+                runnable -> {
+                    final var thread = new Thread(runnable,
+                            "ids-lane-" + name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Handle a message on the lane and wait for the response.
+     *
+     * @param handler Handles the message.
+     * @return The response of the handler.
+     * @throws RejectedExecutionException If the queue of the lane is full.
+     * @throws InterruptedException If interrupted while waiting for the response.
+     */
+    public MessageResponse execute(final Supplier<MessageResponse> handler)
+            throws InterruptedException {
+        if (isCurrent()) {
+            return handler.get();
+        }
+
+        final Future<MessageResponse> future = enqueue(wrap(handler::get));
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Run a task on the lane without waiting for it.
+     *
+     * @param task The task.
+     * @throws RejectedExecutionException If the queue of the lane is full.
+     */
+    public void submit(final Runnable task) {
+        enqueue(wrap(() -> {
+            task.run();
+            return null;
+        }));
+    }
+
+    /**
+     * @return True if the current thread is running a task of this lane.
+     */
+    public boolean isCurrent() {
+        return CURRENT.get() == this;
+    }
+
+    /**
+     * @return Snapshot of the counters of the lane.
+     */
+    public LaneStatistics getStatistics() {
+        return new LaneStatistics(name, executor.getActiveCount(), executor.getQueue().size(),
+                                  completedCount.sum(), rejectedCount.sum(), queueNanos.sum());
+    }
+
+    /**
+     * Stop the threads of the lane.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> enqueue(final Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    private <T> Callable<T> wrap(final Callable<T> task) {
+        final var submitted = System.nanoTime();
+        final var attributes = RequestContextHolder.getRequestAttributes();
+        final var mdc = MDC.getCopyOfContextMap();
+
+        return () -> {
+            queueNanos.add(System.nanoTime() - submitted);
+            CURRENT.set(this);
+            RequestContextHolder.setRequestAttributes(attributes);
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+
+            try {
+                return task.call();
+            } finally {
+                completedCount.increment();
+                MDC.clear();
+                RequestContextHolder.resetRequestAttributes();
+                CURRENT.remove();
+            }
+        };
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.lane;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.RejectionReason;
+import ids.messaging.response.MessageResponse;
+import ids.messaging.response.RejectionTemplateProvider;
+import ids.messaging.util.IdsMessageUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Execution lanes of the MessageDispatcher. Message types can be mapped to lanes, each with
+ * its own bounded executor and queue, so that slow handlers (e.g. large artifact transfers)
+ * cannot block the handling of other message types. The MessageController hands messages
+ * of mapped types to their lane using asynchronous request processing, so that dispatching
+ * and writing the response do not occupy a servlet thread. Messages of unmapped types are
+ * handled on the calling thread. Messages arriving at a lane with a full queue are rejected
+ * with TEMPORARILY_NOT_AVAILABLE.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(LaneProperties.class)
+public class ExecutionLanes implements DisposableBean {
+
+    /**
+     * The lane configuration.
+     */
+    private final LaneProperties properties;
+
+    /**
+     * The RejectionTemplateProvider for cheap rejections.
+     */
+    private final RejectionTemplateProvider rejectionTemplateProvider;
+
+    /**
+     * The lanes by message type name.
+     */
+    private final Map<String, ExecutionLane> lanesByType = new HashMap<>();
+
+    /**
+     * All lanes.
+     */
+    private final List<ExecutionLane> lanes = new ArrayList<>();
+
+    /**
+     * The resolved lane per message class, empty if handled on the calling thread.
+     */
+    private final Map<Class<?>, Optional<ExecutionLane>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Create the ExecutionLanes, lanes are only started if enabled.
+     *
+     * @param properties The lane configuration.
+     * @param rejectionTemplateProvider The RejectionTemplateProvider.
+     */
+    public ExecutionLanes(final LaneProperties properties,
+                          final RejectionTemplateProvider rejectionTemplateProvider) {
+        this.properties = properties;
+        this.rejectionTemplateProvider = rejectionTemplateProvider;
+
+        if (properties.isEnabled()) {
+            for (final var definition : properties.getDefinitions().entrySet()) {
+                final var lane = new ExecutionLane(definition.getKey(), definition.getValue());
+                lanes.add(lane);
+
+                for (final var type : definition.getValue().getMessageTypes()) {
+                    lanesByType.put(type.strip(), lane);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if execution lanes are enabled.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Get the lane of a message type.
+     *
+     * @param messageClass The class of the message.
+     * @return The lane, empty if the message is handled on the calling thread.
+     */
+    public Optional<ExecutionLane> laneFor(final Class<?> messageClass) {
+        return resolved.computeIfAbsent(messageClass, type -> {
+            final var lane = lanesByType.get(IdsMessageUtils.getMessageTypeName(type));
+            return Optional.ofNullable(lane != null ? lane : lanesByType.get(type.getSimpleName()));
+        });
+    }
+
+    /**
+     * Handle the message on its lane, or on the calling thread if its type is not mapped.
+     *
+     * @param header Header of the incoming message.
+     * @param handler Handles the message.
+     * @return The response of the handler, or a rejection if the lane is overloaded.
+     */
+    public MessageResponse execute(final Message header,
+                                   final Supplier<MessageResponse> handler) {
+        final var lane = laneFor(header.getClass());
+
+        if (lane.isEmpty()) {
+            return handler.get();
+        }
+
+        try {
+            return lane.get().execute(handler);
+        } catch (RejectedExecutionException e) {
+            return rejectOverloaded(header, lane.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return rejectionTemplateProvider.createResponse(
+                    RejectionReason.INTERNAL_RECIPIENT_ERROR,
+                    "Interrupted while handling the request!", header.getId());
+        }
+    }
+
+    /**
+     * Create the rejection for a message arriving at a lane with a full queue.
+     *
+     * @param header Header of the incoming message.
+     * @param lane The lane of the message.
+     * @return A TEMPORARILY_NOT_AVAILABLE rejection.
+     */
+    public MessageResponse rejectOverloaded(final Message header, final ExecutionLane lane) {
+        if (log.isWarnEnabled()) {
+            log.warn("Execution lane is full, rejecting incoming message with"
+                     + " TEMPORARILY_NOT_AVAILABLE. [code=(IMSMEW0052), lane=({})]",
+                     lane.getName());
+        }
+
+        return rejectionTemplateProvider.createResponse(
+                RejectionReason.TEMPORARILY_NOT_AVAILABLE,
+                "Connector temporarily overloaded, retry later!", header.getId());
+    }
+
+    /**
+     * @return Snapshot of the counters of all lanes.
+     */
+    public List<LaneStatistics> getStatistics() {
+        final var statistics = new ArrayList<LaneStatistics>();
+        for (final var lane : lanes) {
+            statistics.add(lane.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Stop the threads of all lanes.
+     */
+    @Override
+    public void destroy() {
+        lanes.forEach(ExecutionLane::shutdown);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.lane;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Set of Properties to configure the execution lanes of the MessageDispatcher.
+ * Properties should be added to the application.properties file, e.g.
+ * {@code messaging.lanes.definitions.data.threads=8} and
+ * {@code messaging.lanes.definitions.data.message-types=ArtifactRequestMessage}.
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.lanes")
+public class LaneProperties {
+
+    /**
+     * Default number of threads of a lane.
+     */
+    private static final int DEFAULT_THREADS = 4;
+
+    /**
+     * Default number of queued messages of a lane.
+     */
+    private static final int DEFAULT_QUEUE_SIZE = 16;
+
+    /**
+     * Switch execution lanes on or off (default off).
+     */
+    private boolean enabled;
+
+    /**
+     * The lanes by name.
+     */
+    private Map<String, Lane> definitions = new LinkedHashMap<>();
+
+    /**
+     * Configuration of a single lane.
+     */
+    @Data
+    public static class Lane {
+        /**
+         * Number of threads handling messages of the lane.
+         */
+        private int threads = DEFAULT_THREADS;
+
+        /**
+         * Maximum number of messages waiting for a thread, further messages are rejected.
+         */
+        private int queueSize = DEFAULT_QUEUE_SIZE;
+
+        /**
+         * Message types handled by the lane, as simple names of the infomodel message
+         * interface (e.g. ArtifactRequestMessage) or of the message class.
+         */
+        private List<String> messageTypes = new ArrayList<>();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.lane;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of the counters of a single execution lane.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LaneStatistics {
+    /**
+     * Name of the lane.
+     */
+    private final String lane;
+
+    /**
+     * Number of messages currently handled.
+     */
+    private final int active;
+
+    /**
+     * Number of messages currently waiting for a thread.
+     */
+    private final int queued;
+
+    /**
+     * Number of handled messages.
+     */
+    private final long completed;
+
+    /**
+     * Number of messages rejected because the queue was full.
+     */
+    private final long rejected;
+
+    /**
+     * Total time in nanoseconds messages waited for a thread.
+     */
+    private final long totalQueueNanos;
+}
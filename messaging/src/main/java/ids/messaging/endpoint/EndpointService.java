@@ -20,6 +20,7 @@
 package ids.messaging.endpoint;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -79,10 +80,15 @@ public class EndpointService {
         final var requestMappingInfo = getRequestMappingInfo(url);
 
         try {
+            //with execution lanes, messages are processed asynchronously
+            final var handlerMethod = messageController.isAsyncProcessing()
+                    ? MessageController.class.getDeclaredMethod("handleIDSMessageAsync",
+                                                                HttpServletRequest.class,
+                                                                HttpServletResponse.class)
+                    : MessageController.class.getDeclaredMethod("handleIDSMessage",
+                                                                HttpServletRequest.class);
             requestMappingHandlerMapping
-                    .registerMapping(requestMappingInfo, messageController,
-                                     MessageController.class
-                    .getDeclaredMethod("handleIDSMessage", HttpServletRequest.class));
+                    .registerMapping(requestMappingInfo, messageController, handlerMethod);
         } catch (NoSuchMethodException e) {
             if (log.isErrorEnabled()) {
                 log.error("MessageController could not be found for mapping route!"
@@ -0,0 +1,57 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.endpoint;
+
+import java.util.Map;
+
+import org.springframework.util.LinkedMultiValueMap;
+
+/**
+ * Multipart body of a response to an incoming IDS message. Written directly to the response
+ * stream by the {@link IdsMultipartHttpMessageConverter} if registered, else by the default
+ * Spring form converter like any other MultiValueMap.
+ */
+public class IdsMultipartBody extends LinkedMultiValueMap<String, Object> {
+
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Create an empty IdsMultipartBody.
+     */
+    public IdsMultipartBody() {
+        super();
+    }
+
+    /**
+     * Create an IdsMultipartBody with one value per part, in the order of the given map.
+     *
+     * @param parts A map as provided by the MessageResponse.
+     */
+    public IdsMultipartBody(final Map<String, Object> parts) {
+        super();
+
+        for (final var entry : parts.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+}
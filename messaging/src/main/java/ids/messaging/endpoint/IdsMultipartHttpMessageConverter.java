@@ -0,0 +1,317 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.endpoint;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import ids.messaging.response.StreamingPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Writes {@link IdsMultipartBody} responses directly to the output stream: String parts are
+ * encoded to bytes once, byte arrays are written as they are, and file or stream payloads
+ * are streamed, using {@link StreamingPayload#writeTo} where possible. The boundary is
+ * generated once per converter and reused for all responses. If the length of all parts is
+ * known the response gets a Content-Length, else it is sent using chunked transfer encoding.
+ * Bodies containing other part types are delegated to Spring's FormHttpMessageConverter.
+ */
+@Slf4j
+public class IdsMultipartHttpMessageConverter implements HttpMessageConverter<IdsMultipartBody> {
+
+    /**
+     * Line break used in multipart bodies.
+     */
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Content type of String parts.
+     */
+    private static final MediaType TEXT_UTF8 =
+            new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    /**
+     * The multipart boundary, reused for all responses.
+     */
+    private final String boundary;
+
+    /**
+     * Content type of the written responses, including the boundary.
+     */
+    private final MediaType multipartType;
+
+    /**
+     * Delimiter preceding every part.
+     */
+    private final String delimiter;
+
+    /**
+     * Delimiter closing the body.
+     */
+    private final byte[] closeDelimiter;
+
+    /**
+     * Converter used for bodies with unsupported part types.
+     */
+    private final FormHttpMessageConverter fallback = new FormHttpMessageConverter();
+
+    /**
+     * Create an IdsMultipartHttpMessageConverter with a random boundary.
+     */
+    public IdsMultipartHttpMessageConverter() {
+        this(new String(MimeTypeUtils.generateMultipartBoundary(), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Create an IdsMultipartHttpMessageConverter with the given boundary.
+     *
+     * @param boundary The multipart boundary.
+     */
+    public IdsMultipartHttpMessageConverter(final String boundary) {
+        this.boundary = boundary;
+        this.multipartType = new MediaType(MediaType.MULTIPART_FORM_DATA,
+                                           Map.of("boundary", boundary));
+        this.delimiter = "--" + boundary + "\r\n";
+        this.closeDelimiter = ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return The boundary used for all responses.
+     */
+    public String getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean canRead(final Class<?> clazz, final MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean canWrite(final Class<?> clazz, final MediaType mediaType) {
+        return IdsMultipartBody.class.isAssignableFrom(clazz)
+               && (mediaType == null || mediaType.isCompatibleWith(MediaType.MULTIPART_FORM_DATA));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return List.of(MediaType.MULTIPART_FORM_DATA);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IdsMultipartBody read(final Class<? extends IdsMultipartBody> clazz,
+                                 final HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("IdsMultipartBody can only be written!",
+                                                  inputMessage);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final IdsMultipartBody body,
+                      final MediaType contentType,
+                      final HttpOutputMessage outputMessage) throws IOException {
+        final var parts = prepare(body);
+
+        if (parts == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Multipart body contains unsupported part types, using default"
+                          + " converter. [code=(IMSMED0152)]");
+            }
+            fallback.write(body, contentType, outputMessage);
+            return;
+        }
+
+        var length = (long) closeDelimiter.length;
+        for (final var part : parts) {
+            if (part.length < 0) {
+                length = -1;
+                break;
+            }
+            length += part.head.length + part.length + CRLF.length;
+        }
+
+        outputMessage.getHeaders().setContentType(multipartType);
+        if (length >= 0) {
+            outputMessage.getHeaders().setContentLength(length);
+        }
+
+        final var out = outputMessage.getBody();
+        for (final var part : parts) {
+            out.write(part.head);
+            part.writeContent(out);
+            out.write(CRLF);
+        }
+        out.write(closeDelimiter);
+        out.flush();
+    }
+
+    private List<Part> prepare(final IdsMultipartBody body) {
+        final var parts = new ArrayList<Part>();
+
+        for (final var entry : body.entrySet()) {
+            for (final var value : entry.getValue()) {
+                final var part = preparePart(entry.getKey(), value);
+
+                if (part == null) {
+                    return null;
+                }
+                parts.add(part);
+            }
+        }
+
+        return parts;
+    }
+
+    private Part preparePart(final String name, final Object value) {
+        var content = value;
+        MediaType type = null;
+
+        if (value instanceof HttpEntity) {
+            content = ((HttpEntity<?>) value).getBody();
+            type = ((HttpEntity<?>) value).getHeaders().getContentType();
+        }
+
+        if (content instanceof String) {
+            final var charset = type != null && type.getCharset() != null
+                    ? type.getCharset()
+                    : StandardCharsets.UTF_8;
+            final var partType = type == null
+                    ? TEXT_UTF8
+                    : new MediaType(type, charset);
+            final var bytes = ((String) content).getBytes(charset);
+            return new Part(head(name, null, partType, bytes.length), bytes, bytes.length);
+        }
+
+        if (content instanceof byte[]) {
+            final var bytes = (byte[]) content;
+            final var partType = type == null ? MediaType.APPLICATION_OCTET_STREAM : type;
+            return new Part(head(name, null, partType, bytes.length), bytes, bytes.length);
+        }
+
+        if (content instanceof Resource) {
+            final var resource = (Resource) content;
+            final var partType = type == null ? MediaType.APPLICATION_OCTET_STREAM : type;
+            final var partLength = resourceLength(resource);
+            return new Part(head(name, resource.getFilename(), partType, partLength),
+                            resource, partLength);
+        }
+
+        return null;
+    }
+
+    private long resourceLength(final Resource resource) {
+        if (resource instanceof InputStreamResource) {
+            return -1;
+        }
+
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private byte[] head(final String name,
+                        final String filename,
+                        final MediaType type,
+                        final long length) {
+        final var head = new StringBuilder(delimiter)
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+
+        if (filename != null) {
+            head.append("; filename=\"").append(filename).append('"');
+        }
+
+        head.append("\r\nContent-Type: ").append(type).append("\r\n");
+
+        if (length >= 0) {
+            head.append("Content-Length: ").append(length).append("\r\n");
+        }
+
+        return head.append("\r\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A part prepared for writing.
+     */
+    private static final class Part {
+
+        /**
+         * Delimiter and part headers.
+         */
+        private final byte[] head;
+
+        /**
+         * The content, either a byte array or a Resource.
+         */
+        private final Object content;
+
+        /**
+         * Length of the content, -1 if unknown.
+         */
+        private final long length;
+
+        private Part(final byte[] head, final Object content, final long length) {
+            this.head = head;
+            this.content = content;
+            this.length = length;
+        }
+
+        private void writeContent(final OutputStream out) throws IOException {
+            if (content instanceof byte[]) {
+                out.write((byte[]) content);
+            } else if (content instanceof StreamingPayload) {
+                ((StreamingPayload) content).writeTo(out);
+            } else {
+                try (var in = ((Resource) content).getInputStream()) {
+                    in.transferTo(out);
+                }
+            }
+        }
+    }
+}
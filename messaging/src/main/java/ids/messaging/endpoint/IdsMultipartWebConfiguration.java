@@ -0,0 +1,56 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.endpoint;
+
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the {@link IdsMultipartHttpMessageConverter} in front of the default converters,
+ * so that responses to incoming IDS messages are written directly to the response stream.
+ */
+@Slf4j
+@Configuration
+public class IdsMultipartWebConfiguration implements WebMvcConfigurer {
+
+    /**
+     * Used to switch the direct multipart writer off or on (default on).
+     */
+    @Value("#{new Boolean('${messaging.multipart.writer.enabled:true}')}")
+    private Boolean writerEnabled;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void extendMessageConverters(final List<HttpMessageConverter<?>> converters) {
+        if (Boolean.TRUE.equals(writerEnabled)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Registering IDS multipart writer. [code=(IMSMED0153)]");
+            }
+            converters.add(0, new IdsMultipartHttpMessageConverter());
+        }
+    }
+}
@@ -21,14 +21,16 @@ package ids.messaging.endpoint;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
@@ -40,19 +42,29 @@ import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
 import ids.messaging.common.SerializeException;
 import ids.messaging.core.config.ConfigContainer;
 import ids.messaging.dispatcher.MessageDispatcher;
+import ids.messaging.dispatcher.admission.AdmissionController;
 import ids.messaging.dispatcher.filter.PreDispatchingFilterException;
+import ids.messaging.dispatcher.lane.ExecutionLane;
+import ids.messaging.dispatcher.lane.ExecutionLanes;
 import ids.messaging.protocol.multipart.parser.MultipartDatapart;
+import ids.messaging.response.MessageResponse;
+import ids.messaging.response.RejectionTemplateProvider;
 import ids.messaging.util.IdsMessageUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.support.AllEncompassingFormHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.stereotype.Controller;
-import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
 
 /**
  * REST controller for handling all incoming IDS multipart Messages.
@@ -94,6 +106,41 @@ public class MessageController {
     @Value("#{new Boolean('${messaging.log.outgoing:false}')}")
     private Boolean logResponse;
 
+    /**
+     * The AdmissionController, optional.
+     */
+    private AdmissionController admissionController;
+
+    /**
+     * The RejectionTemplateProvider, optional.
+     */
+    private RejectionTemplateProvider rejectionTemplateProvider;
+
+    /**
+     * The ExecutionLanes, optional.
+     */
+    private ExecutionLanes executionLanes;
+
+    /**
+     * Used to switch the direct multipart writer off or on (default on), as in
+     * {@link IdsMultipartWebConfiguration}.
+     */
+    @Value("#{new Boolean('${messaging.multipart.writer.enabled:true}')}")
+    private Boolean multipartWriterEnabled;
+
+    /**
+     * Writes the responses of asynchronously processed requests.
+     */
+    private final IdsMultipartHttpMessageConverter multipartWriter =
+            new IdsMultipartHttpMessageConverter();
+
+    /**
+     * Writes the responses of asynchronously processed requests if the direct multipart
+     * writer is switched off, like Spring does for synchronously processed ones.
+     */
+    private final AllEncompassingFormHttpMessageConverter formWriter =
+            new AllEncompassingFormHttpMessageConverter();
+
     /**
      * Constructor for the MessageController.
      * @param messageDispatcher The MessageDispatcher.
@@ -109,16 +156,106 @@ public class MessageController {
         this.configContainer = configContainer;
     }
 
+    /**
+     * Set the AdmissionController used to shed load in front of the MessageDispatcher.
+     *
+     * @param admissionController The AdmissionController.
+     */
+    @Autowired(required = false)
+    public void setAdmissionController(final AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    /**
+     * Set the RejectionTemplateProvider used for cheap rejections.
+     *
+     * @param rejectionTemplateProvider The RejectionTemplateProvider.
+     */
+    @Autowired(required = false)
+    public void setRejectionTemplateProvider(
+            final RejectionTemplateProvider rejectionTemplateProvider) {
+        this.rejectionTemplateProvider = rejectionTemplateProvider;
+    }
+
+    /**
+     * Set the ExecutionLanes used to process messages of mapped types asynchronously.
+     *
+     * @param executionLanes The ExecutionLanes.
+     */
+    @Autowired(required = false)
+    public void setExecutionLanes(final ExecutionLanes executionLanes) {
+        this.executionLanes = executionLanes;
+    }
+
     /**
      * Generic method to handle all incoming ids messages. One Method to Rule them All.
      * Get header and payload from incoming message, let the MessageDispatcher and
      * MessageHandler process it and return the result as a Multipart response.
+     * If admission control is enabled and the connector is overloaded, the message is
+     * rejected with TEMPORARILY_NOT_AVAILABLE before it is parsed.
      *
      * @param request Incoming http request.
      * @return Multipart MultivalueMap containing ResponseMessage header and some payload.
      */
     public ResponseEntity<MultiValueMap<String, Object>> handleIDSMessage(
             final HttpServletRequest request) {
+        return admitAndProcess(request, null);
+    }
+
+    /**
+     * Handle an incoming ids message like {@link #handleIDSMessage(HttpServletRequest)},
+     * using asynchronous request processing. Mapped instead of the synchronous method if
+     * execution lanes are enabled: messages of types mapped to a lane are dispatched and
+     * their response is written on the lane, so that neither occupies a servlet thread.
+     * Other messages are dispatched on the calling thread.
+     *
+     * @param request Incoming http request.
+     * @param response The http response, written on the lane.
+     * @return The result, set to null once the response was written on a lane.
+     */
+    public DeferredResult<ResponseEntity<MultiValueMap<String, Object>>> handleIDSMessageAsync(
+            final HttpServletRequest request,
+            final HttpServletResponse response) {
+        //handlers and transfers may take long, as with synchronous processing
+        final var result = new DeferredResult<ResponseEntity<MultiValueMap<String, Object>>>(0L);
+        final var entity = admitAndProcess(request, (header, payloadPart, onComplete) ->
+                dispatchInLane(result, request, response, header, payloadPart, onComplete));
+
+        if (entity != null) {
+            result.setResult(entity);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return True if incoming messages should be handled by
+     * {@link #handleIDSMessageAsync}, as execution lanes are enabled.
+     */
+    public boolean isAsyncProcessing() {
+        return executionLanes != null && executionLanes.isEnabled();
+    }
+
+    private ResponseEntity<MultiValueMap<String, Object>> admitAndProcess(
+            final HttpServletRequest request,
+            final LaneDispatch laneDispatch) {
+        if (admissionController == null || !admissionController.isEnabled()) {
+            return processIDSMessage(request, laneDispatch, () -> { });
+        }
+
+        if (!admissionController.tryAdmit()) {
+            return createShedResponse();
+        }
+
+        return processIDSMessage(request, laneDispatch, admissionController::release);
+    }
+
+    private ResponseEntity<MultiValueMap<String, Object>> processIDSMessage(
+            final HttpServletRequest request,
+            final LaneDispatch laneDispatch,
+            final Runnable onComplete) {
+        var dispatchedInLane = false;
+
         try {
             if (log.isInfoEnabled()) {
                 log.info("Received incoming message. [code=(IMSMEI0059)]");
@@ -180,6 +317,55 @@ public class MessageController {
             // Deserialize JSON-LD headerPart to its RequestMessage.class
             final var requestHeader = serializer.deserialize(input, Message.class);
 
+            if (laneDispatch != null
+                && laneDispatch.dispatch(requestHeader, payloadPart, onComplete)) {
+                dispatchedInLane = true;
+                return null;
+            }
+
+            return dispatch(requestHeader, payloadPart);
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Incoming message could not be parsed, sending response BAD_REQUEST"
+                         + " with RejectionReason.MALFORMED_MESSAGE! [code=(IMSMEW0043),"
+                         + " exception=({})]", e.getMessage());
+            }
+
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body(createDefaultErrorMessage(
+                                         RejectionReason.MALFORMED_MESSAGE,
+                                         "Could not parse incoming message!"));
+        } catch (ServletException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Incoming request was not multipart!"
+                         + " Sending INTERNAL_SERVER_ERROR as response [code=(IMSMEW0044),"
+                         + " exception=({})]", e.getMessage());
+            }
+
+            return ResponseEntity
+                         .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                         .body(createDefaultErrorMessage(
+                             RejectionReason.INTERNAL_RECIPIENT_ERROR,
+                             String.format(
+                                 "Could not read incoming request! Error: %s", e.getMessage())));
+        } finally {
+            if (!dispatchedInLane) {
+                onComplete.run();
+            }
+        }
+    }
+
+    /**
+     * Let the MessageDispatcher and MessageHandler process the parsed message and create
+     * the Multipart response.
+     *
+     * @param requestHeader The parsed header of the incoming message.
+     * @param payloadPart The payload part of the incoming message, may be null.
+     * @return Multipart MultivalueMap containing ResponseMessage header and some payload.
+     */
+    private ResponseEntity<MultiValueMap<String, Object>> dispatch(final Message requestHeader,
+                                                                   final Part payloadPart) {
+        try {
             if (log.isDebugEnabled()) {
                 log.debug("Hand the incoming message to the message dispatcher!"
                           + " [code=(IMSMED0121)]");
@@ -191,41 +377,7 @@ public class MessageController {
                             ? null
                             : payloadPart.getInputStream());
 
-            if (response != null) {
-                //get Response as MultiValueMap
-                final var responseAsMap = createMultiValueMap(
-                        response.createMultipartMap(serializer));
-
-                // return the ResponseEntity as Multipart content
-                // with created MultiValueMap
-                if (log.isInfoEnabled()) {
-                    log.info("Sending response with status OK (200). [code=(IMSMEI0061)]");
-                }
-
-                logResponseHeader(responseAsMap);
-
-                return ResponseEntity
-                        .status(HttpStatus.OK)
-                        .contentType(MediaType.MULTIPART_FORM_DATA)
-                        .body(responseAsMap);
-            } else {
-                //if no response-body specified by the implemented handler
-                // of the connector (e.g. for received RequestInProcessMessage)
-
-                if (log.isDebugEnabled()) {
-                    log.debug("Implemented Message-Handler didn't return a response,"
-                              + " sending status OK instead as response! [code=(IMSMED0122)]");
-                }
-
-                if (log.isInfoEnabled()) {
-                    log.info("Sending response with status OK (200) without body."
-                            + " [code=(IMSMEI0062)]");
-                }
-
-                return ResponseEntity
-                        .status(HttpStatus.OK)
-                        .build();
-            }
+            return toResponseEntity(response);
         } catch (PreDispatchingFilterException e) {
             if (log.isErrorEnabled()) {
                 log.error("Error during pre-processing with a PreDispatchingFilter!"
@@ -248,22 +400,191 @@ public class MessageController {
                                  .body(createDefaultErrorMessage(
                                          RejectionReason.MALFORMED_MESSAGE,
                                          "Could not parse incoming message!"));
-        } catch (ServletException e) {
-            if (log.isWarnEnabled()) {
-                log.warn("Incoming request was not multipart!"
-                         + " Sending INTERNAL_SERVER_ERROR as response [code=(IMSMEW0044),"
-                         + " exception=({})]", e.getMessage());
+        }
+    }
+
+    private ResponseEntity<MultiValueMap<String, Object>> toResponseEntity(
+            final MessageResponse response) throws SerializeException {
+        if (response != null) {
+            //get Response as MultiValueMap
+            final var responseAsMap = createMultiValueMap(
+                    response.createMultipartMap(serializer));
+
+            // return the ResponseEntity as Multipart content
+            // with created MultiValueMap
+            if (log.isInfoEnabled()) {
+                log.info("Sending response with status OK (200). [code=(IMSMEI0061)]");
             }
 
+            logResponseHeader(responseAsMap);
+
             return ResponseEntity
-                         .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                         .body(createDefaultErrorMessage(
-                             RejectionReason.INTERNAL_RECIPIENT_ERROR,
-                             String.format(
-                                 "Could not read incoming request! Error: %s", e.getMessage())));
+                    .status(HttpStatus.OK)
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(responseAsMap);
+        } else {
+            //if no response-body specified by the implemented handler
+            // of the connector (e.g. for received RequestInProcessMessage)
+
+            if (log.isDebugEnabled()) {
+                log.debug("Implemented Message-Handler didn't return a response,"
+                          + " sending status OK instead as response! [code=(IMSMED0122)]");
+            }
+
+            if (log.isInfoEnabled()) {
+                log.info("Sending response with status OK (200) without body."
+                        + " [code=(IMSMEI0062)]");
+            }
+
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .build();
+        }
+    }
+
+    /**
+     * Dispatch the message and write the response on the lane of its type. If the lane is
+     * full, the result is set to the rejection.
+     *
+     * @param result The result of the asynchronously processed request.
+     * @param request The http request.
+     * @param response The http response.
+     * @param requestHeader The parsed header of the incoming message.
+     * @param payloadPart The payload part of the incoming message, may be null.
+     * @param onComplete Called once the message was handled.
+     * @return False if the message type is not mapped to a lane.
+     */
+    private boolean dispatchInLane(
+            final DeferredResult<ResponseEntity<MultiValueMap<String, Object>>> result,
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final Message requestHeader,
+            final Part payloadPart,
+            final Runnable onComplete) {
+        final var lane = isAsyncProcessing()
+                ? executionLanes.laneFor(requestHeader.getClass())
+                : Optional.<ExecutionLane>empty();
+
+        if (lane.isEmpty()) {
+            return false;
+        }
+
+        try {
+            lane.get().submit(() -> {
+                try {
+                    writeResponse(dispatchOnLane(request, requestHeader, payloadPart), response);
+                } finally {
+                    onComplete.run();
+                    result.setResult(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            onComplete.run();
+            result.setResult(overloaded(requestHeader, lane.get()));
+        }
+
+        return true;
+    }
+
+    private ResponseEntity<MultiValueMap<String, Object>> dispatchOnLane(
+            final HttpServletRequest request,
+            final Message requestHeader,
+            final Part payloadPart) {
+        //the request attributes of the servlet thread end when it returns
+        final var attributes = new ServletRequestAttributes(request);
+        RequestContextHolder.setRequestAttributes(attributes);
+
+        try {
+            return dispatch(requestHeader, payloadPart);
+        } catch (RuntimeException e) {
+            if (log.isErrorEnabled()) {
+                log.error("Error while handling message on execution lane! Sending"
+                          + " INTERNAL_SERVER_ERROR as response. [code=(IMSMEE0028),"
+                          + " exception=({})]", e.getMessage());
+            }
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                 .body(createDefaultErrorMessage(
+                                         RejectionReason.INTERNAL_RECIPIENT_ERROR,
+                                         "Could not handle incoming message!"));
+        } finally {
+            attributes.requestCompleted();
+        }
+    }
+
+    private ResponseEntity<MultiValueMap<String, Object>> overloaded(final Message requestHeader,
+                                                                     final ExecutionLane lane) {
+        try {
+            return toResponseEntity(executionLanes.rejectOverloaded(requestHeader, lane));
+        } catch (SerializeException e) {
+            return ResponseEntity.status(HttpStatus.OK)
+                                 .body(createDefaultErrorMessage(
+                                         RejectionReason.TEMPORARILY_NOT_AVAILABLE,
+                                         "Connector temporarily overloaded, retry later!"));
+        }
+    }
+
+    /**
+     * Write the response of a message handled on a lane.
+     *
+     * @param entity The response entity.
+     * @param response The http response.
+     */
+    private void writeResponse(final ResponseEntity<MultiValueMap<String, Object>> entity,
+                               final HttpServletResponse response) {
+        try (var output = new ServletServerHttpResponse(response)) {
+            output.setStatusCode(entity.getStatusCode());
+            output.getHeaders().putAll(entity.getHeaders());
+
+            if (Boolean.TRUE.equals(multipartWriterEnabled)
+                && entity.getBody() instanceof IdsMultipartBody) {
+                multipartWriter.write((IdsMultipartBody) entity.getBody(),
+                                      MediaType.MULTIPART_FORM_DATA, output);
+            } else if (entity.getBody() != null) {
+                formWriter.write(entity.getBody(), MediaType.MULTIPART_FORM_DATA, output);
+            }
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Could not write response to incoming message. [code=(IMSMED0170),"
+                          + " exception=({})]", e.getMessage());
+            }
         }
     }
 
+    private ResponseEntity<MultiValueMap<String, Object>> createShedResponse() {
+        if (log.isWarnEnabled()) {
+            log.warn("Connector overloaded, rejecting incoming message with"
+                     + " TEMPORARILY_NOT_AVAILABLE. [code=(IMSMEW0048)]");
+        }
+
+        final var errorMessage = "Connector temporarily overloaded, retry later!";
+        MultiValueMap<String, Object> body = null;
+
+        if (rejectionTemplateProvider != null) {
+            try {
+                body = createMultiValueMap(rejectionTemplateProvider
+                        .createResponse(RejectionReason.TEMPORARILY_NOT_AVAILABLE, errorMessage)
+                        .createMultipartMap(serializer));
+            } catch (SerializeException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Could not create templated rejection. [code=(IMSMED0145),"
+                              + " exception=({})]", e.getMessage());
+                }
+            }
+        }
+
+        if (body == null) {
+            body = createDefaultErrorMessage(RejectionReason.TEMPORARILY_NOT_AVAILABLE,
+                                             errorMessage);
+        }
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER,
+                                     String.valueOf(admissionController.getRetryAfterSeconds()))
+                             .contentType(MediaType.MULTIPART_FORM_DATA)
+                             .body(body);
+    }
+
     private void logIncomingMessage(final byte[] headerBytes) throws IOException {
         if (Boolean.TRUE.equals(logIncoming)) {
             final var headerInput = new ByteArrayInputStream(headerBytes);
@@ -311,13 +632,7 @@ public class MessageController {
             log.debug("Creating MultiValueMap for the response... [code=(IMSMED0124)]");
         }
 
-        final var multiMap = new LinkedMultiValueMap<String, Object>();
-
-        for (final var entry : map.entrySet()) {
-            multiMap.put(entry.getKey(), List.of(entry.getValue()));
-        }
-
-        return multiMap;
+        return new IdsMultipartBody(map);
     }
 
     /**
@@ -348,11 +663,10 @@ public class MessageController {
                     ._issued_(IdsMessageUtils.getGregorianNow())
                     .build();
 
-            final var multiMap = new LinkedMultiValueMap<String, Object>();
-            multiMap.put(MultipartDatapart.HEADER.toString(),
-                         List.of(serializer.serialize(rejectionMessage)));
-            multiMap.put(MultipartDatapart.PAYLOAD.toString(),
-                         List.of(errorMessage));
+            final var multiMap = new IdsMultipartBody();
+            multiMap.add(MultipartDatapart.HEADER.toString(),
+                         serializer.serialize(rejectionMessage));
+            multiMap.add(MultipartDatapart.PAYLOAD.toString(), errorMessage);
 
             return multiMap;
         } catch (IOException e) {
@@ -425,4 +739,19 @@ public class MessageController {
         }
         return true;
     }
+
+    /**
+     * Hands a parsed message to an execution lane.
+     */
+    @FunctionalInterface
+    private interface LaneDispatch {
+
+        /**
+         * @param header The parsed header of the incoming message.
+         * @param payloadPart The payload part of the incoming message, may be null.
+         * @param onComplete Called once the message was handled.
+         * @return False if the message is not handled on a lane.
+         */
+        boolean dispatch(Message header, Part payloadPart, Runnable onComplete);
+    }
 }
@@ -21,6 +21,8 @@ package ids.messaging.protocol;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import de.fraunhofer.iais.eis.QueryLanguage;
 import de.fraunhofer.iais.eis.QueryScope;
@@ -37,6 +39,10 @@ import ids.messaging.requests.IDSInfrastructureService;
 import ids.messaging.requests.MessageContainer;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.sparql.PagedQueryIterator;
+import ids.messaging.requests.sparql.QueryResultRow;
+import ids.messaging.requests.sparql.QueryResultStream;
+import ids.messaging.requests.sparql.QueryTemplate;
 import lombok.NonNull;
 
 /**
@@ -84,6 +90,86 @@ public interface IDSQueryService extends IDSInfrastructureService {
             DeserializeException,
             RejectionException,
             UnexpectedPayloadException;
+
+    /**
+     * Builds and sends a {@link de.fraunhofer.iais.eis.QueryMessage} with a query rendered
+     * from a compiled template, escaping every parameter value for its slot type.
+     *
+     * @param targetURI The URI of a Infrastructure Component.
+     * @param template The compiled query template.
+     * @param parameters The values of the template parameters.
+     * @param queryLanguage The Language of the Query.
+     * @param queryScope The Scope of the Query.
+     * @param queryTarget The type of IDS Components that are queried.
+     * @return The response to the query request.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws UnknownResponseException If the format of the answer is not known.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When a RejectionMessage arrives unexpectedly.
+     * @throws UnexpectedPayloadException When the payload cannot be used.
+     */
+    MessageContainer<String> query(@NonNull URI targetURI,
+                                   @NonNull QueryTemplate template,
+                                   @NonNull Map<String, ?> parameters,
+                                   @NonNull QueryLanguage queryLanguage,
+                                   @NonNull QueryScope queryScope,
+                                   @NonNull QueryTarget queryTarget)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException;
+
+    /**
+     * Builds and sends a {@link de.fraunhofer.iais.eis.QueryMessage} and parses the SPARQL
+     * result (TSV or JSON) row by row from the response body, without receiving it as one
+     * String. The returned result must be closed after consuming the rows.
+     *
+     * @param targetURI The URI of a Infrastructure Component.
+     * @param query The query as payload for the QueryMessage.
+     * @param queryLanguage The Language of the Query.
+     * @param queryScope The Scope of the Query.
+     * @param queryTarget The type of IDS Components that are queried.
+     * @return The result rows of the query.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When a RejectionMessage arrives.
+     */
+    QueryResultStream queryResults(@NonNull URI targetURI,
+                                   @NonNull String query,
+                                   @NonNull QueryLanguage queryLanguage,
+                                   @NonNull QueryScope queryScope,
+                                   @NonNull QueryTarget queryTarget)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException;
+
     /**
      * Do a FullText Query on the Infrastructure Component with default limit and offset.
      *
@@ -162,4 +248,41 @@ public interface IDSQueryService extends IDSInfrastructureService {
             DeserializeException,
             RejectionException,
             UnexpectedPayloadException;
+
+    /**
+     * Do a FullText Query on the Infrastructure Component, requesting the result page by
+     * page while it is consumed. The next page is requested in the background once half of
+     * the current page has been consumed, iteration stops after the first short page.
+     * Errors while requesting or parsing a page are thrown as
+     * {@link ids.messaging.requests.exceptions.QueryPageException}.
+     *
+     * @param targetURI The URI of a Infrastructure Component.
+     * @param searchTerm The searchterm used in the query.
+     * @param queryScope The Scope of the query.
+     * @param queryTarget The target of the query.
+     * @param pageSize The number of result rows requested per page.
+     * @return Iterator over the result rows, should be closed if not consumed completely.
+     */
+    PagedQueryIterator fullTextSearchIterator(URI targetURI,
+                                              String searchTerm,
+                                              QueryScope queryScope,
+                                              QueryTarget queryTarget,
+                                              int pageSize);
+
+    /**
+     * Do a FullText Query on the Infrastructure Component as lazy stream of result rows,
+     * see {@link #fullTextSearchIterator(URI, String, QueryScope, QueryTarget, int)}.
+     *
+     * @param targetURI The URI of a Infrastructure Component.
+     * @param searchTerm The searchterm used in the query.
+     * @param queryScope The Scope of the query.
+     * @param queryTarget The target of the query.
+     * @param pageSize The number of result rows requested per page.
+     * @return Stream of the result rows, closing it cancels outstanding page requests.
+     */
+    Stream<QueryResultRow> fullTextSearchStream(URI targetURI,
+                                                String searchTerm,
+                                                QueryScope queryScope,
+                                                QueryTarget queryTarget,
+                                                int pageSize);
 }
@@ -22,6 +22,7 @@ package ids.messaging.protocol;
 import java.io.IOException;
 import java.net.URI;
 
+import de.fraunhofer.iais.eis.Message;
 import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
 import ids.messaging.common.DeserializeException;
 import ids.messaging.common.SerializeException;
@@ -32,10 +33,13 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.MessageAndPayload;
 import ids.messaging.protocol.multipart.MultipartRequestBuilder;
 import ids.messaging.protocol.multipart.MultipartResponseConverter;
+import ids.messaging.protocol.multipart.StreamingResponse;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
+import ids.messaging.util.cache.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -67,6 +71,19 @@ public class MessageService {
      */
     private final Serializer serializer = new Serializer();
 
+    /**
+     * Identical idempotent requests currently in flight.
+     */
+    private final SingleFlight<RequestCoalescingKey, MessageAndPayload<?, ?>> inFlightRequests =
+            new SingleFlight<>();
+
+    /**
+     * Used to switch coalescing of identical concurrent description and query requests
+     * on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.coalescing.enabled:false}')}")
+    private boolean coalescingEnabled;
+
     /**
      * Constructor of MessageService class.
      *
@@ -109,37 +126,23 @@ public class MessageService {
             SendMessageException,
             ShaclValidatorException {
 
-        final var payloadOptional = messageAndPayload.getPayload();
-        var payloadString = "";
-
-        if (payloadOptional.isPresent()) {
-            final var payload = payloadOptional.get();
-
-            if (!(payload instanceof String)) {
-                try {
-                    payloadString = serializer.serialize(payload);
-                } catch (IOException ioException) {
-                    //Map Serializer-IOException to SerializeException
-                    throw new SerializeException(ioException);
-                }
-            } else {
-                payloadString = (String) payload;
-            }
-
-        }
+        final var payloadString = serializePayload(messageAndPayload);
 
         switch (protocolType) {
             case REST:
                 return null;
             case MULTIPART:
-                final var request = multipartRequestBuilder
-                        .build(messageAndPayload.getMessage(),
-                               target,
-                               payloadString);
+                final var key = coalescingEnabled
+                        ? RequestCoalescingKey.of(messageAndPayload.getMessage(),
+                                                  payloadString,
+                                                  target)
+                        : null;
 
-                final var responseMap = httpService.sendAndCheckDat(request);
+                if (key == null) {
+                    return sendMultipart(messageAndPayload.getMessage(), target, payloadString);
+                }
 
-                return multipartResponseConverter.convertResponse(responseMap);
+                return sendCoalesced(key, messageAndPayload.getMessage(), target, payloadString);
             default:
                 return sendIdsMessage(messageAndPayload, target, ProtocolType.MULTIPART);
         }
@@ -179,4 +182,127 @@ public class MessageService {
                               target,
                               ProtocolType.MULTIPART);
     }
+
+    /**
+     * Send a message using Multipart and receive the response without reading its payload,
+     * so that large payloads can be consumed as stream. The returned response must be closed.
+     *
+     * @param messageAndPayload The IDS Infomodel Message containing the Metadata, and the
+     *                          Payload to be sent.
+     * @param target The target of the message.
+     * @return The response with unread payload.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     */
+    public StreamingResponse sendIdsMessageStreaming(
+            final MessageAndPayload<?, ?> messageAndPayload, final URI target)
+            throws
+            MultipartParseException,
+            ClaimsException,
+            IOException,
+            DeserializeException,
+            SerializeException,
+            ShaclValidatorException,
+            SendMessageException {
+        final var request = multipartRequestBuilder
+                .build(messageAndPayload.getMessage(),
+                       target,
+                       serializePayload(messageAndPayload));
+
+        final var multipart = httpService.sendAndCheckDatStreaming(request);
+
+        try {
+            return new StreamingResponse(
+                    serializer.deserialize(multipart.getHeader(), Message.class), multipart);
+        } catch (IOException ioException) {
+            multipart.close();
+            throw new DeserializeException(ioException);
+        }
+    }
+
+    /**
+     * @return Number of requests that shared the response of an identical request in flight.
+     */
+    public long getCoalescedRequestCount() {
+        return inFlightRequests.getSharedCount();
+    }
+
+    private MessageAndPayload<?, ?> sendMultipart(final Message message,
+                                                  final URI target,
+                                                  final String payloadString)
+            throws
+            MultipartParseException,
+            ClaimsException,
+            UnknownResponseException,
+            DeserializeException,
+            IOException,
+            SendMessageException,
+            ShaclValidatorException {
+        final var request = multipartRequestBuilder.build(message, target, payloadString);
+
+        final var responseMap = httpService.sendAndCheckDat(request);
+
+        return multipartResponseConverter.convertResponse(responseMap);
+    }
+
+    private MessageAndPayload<?, ?> sendCoalesced(final RequestCoalescingKey key,
+                                                  final Message message,
+                                                  final URI target,
+                                                  final String payloadString)
+            throws
+            MultipartParseException,
+            ClaimsException,
+            UnknownResponseException,
+            DeserializeException,
+            IOException,
+            SendMessageException,
+            ShaclValidatorException {
+        try {
+            //callers sharing a response receive the answer to the first caller's message
+            return inFlightRequests.execute(key,
+                                            () -> sendMultipart(message, target, payloadString));
+        } catch (MultipartParseException
+                | ClaimsException
+                | UnknownResponseException
+                | DeserializeException
+                | IOException
+                | SendMessageException
+                | ShaclValidatorException
+                | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SendMessageException(e);
+        } catch (Exception e) {
+            throw new SendMessageException(e);
+        }
+    }
+
+    private String serializePayload(final MessageAndPayload<?, ?> messageAndPayload)
+            throws SerializeException {
+        final var payloadOptional = messageAndPayload.getPayload();
+        var payloadString = "";
+
+        if (payloadOptional.isPresent()) {
+            final var payload = payloadOptional.get();
+
+            if (!(payload instanceof String)) {
+                try {
+                    payloadString = serializer.serialize(payload);
+                } catch (IOException ioException) {
+                    //Map Serializer-IOException to SerializeException
+                    throw new SerializeException(ioException);
+                }
+            } else {
+                payloadString = (String) payload;
+            }
+        }
+
+        return payloadString;
+    }
 }
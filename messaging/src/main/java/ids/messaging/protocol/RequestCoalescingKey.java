@@ -0,0 +1,105 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol;
+
+import java.net.URI;
+
+import de.fraunhofer.iais.eis.DescriptionRequestMessage;
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.QueryLanguage;
+import de.fraunhofer.iais.eis.QueryMessage;
+import de.fraunhofer.iais.eis.QueryScope;
+import de.fraunhofer.iais.eis.QueryTarget;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Identifies outgoing idempotent requests that are answered identically, so that concurrent
+ * identical requests can share one response.
+ */
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class RequestCoalescingKey {
+
+    /**
+     * The target of the request.
+     */
+    private final URI target;
+
+    /**
+     * The type of the request message.
+     */
+    private final Class<?> messageType;
+
+    /**
+     * The requested element of description requests.
+     */
+    private final URI requestedElement;
+
+    /**
+     * The language of queries.
+     */
+    private final QueryLanguage queryLanguage;
+
+    /**
+     * The scope of queries.
+     */
+    private final QueryScope queryScope;
+
+    /**
+     * The target of queries.
+     */
+    private final QueryTarget queryTarget;
+
+    /**
+     * The serialized payload, the query text for queries.
+     */
+    private final String payload;
+
+    /**
+     * Create the key of an outgoing request.
+     *
+     * @param message The request message.
+     * @param payload The serialized payload.
+     * @param target The target of the request.
+     * @return The key, null if the request is not idempotent and must not be coalesced.
+     */
+    static RequestCoalescingKey of(final Message message,
+                                   final String payload,
+                                   final URI target) {
+        if (message instanceof DescriptionRequestMessage) {
+            return new RequestCoalescingKey(
+                    target, DescriptionRequestMessage.class,
+                    ((DescriptionRequestMessage) message).getRequestedElement(),
+                    null, null, null, payload);
+        }
+        if (message instanceof QueryMessage) {
+            final var query = (QueryMessage) message;
+            return new RequestCoalescingKey(
+                    target, QueryMessage.class, null,
+                    query.getQueryLanguage(), query.getQueryScope(), query.getRecipientScope(),
+                    payload);
+        }
+        return null;
+    }
+}
@@ -19,6 +19,10 @@
  */
 package ids.messaging.protocol;
 
+import java.util.Optional;
+
+import de.fraunhofer.iais.eis.RejectionReason;
+
 /**
  * An exception that is thrown after converting a Response into the corresponding
  * MessageAndPayload object if the received response-type is not expected as
@@ -26,6 +30,12 @@ package ids.messaging.protocol;
  */
 public class UnexpectedResponseException extends Exception {
     private static final long serialVersionUID = 42L;
+
+    /**
+     * The reason if the response was a RejectionMessage, else null.
+     */
+    private final RejectionReason rejectionReason;
+
     /**
      *  An exception that is thrown after converting a Response into the corresponding
      *  MessageAndPayload object if the received response-type is not expected as a response
@@ -34,6 +44,25 @@ public class UnexpectedResponseException extends Exception {
      * @param message Message of the Exception to be thrown.
      */
     public UnexpectedResponseException(final String message) {
+        this(message, null);
+    }
+
+    /**
+     * An exception that is thrown if the response was a RejectionMessage.
+     *
+     * @param message Message of the Exception to be thrown.
+     * @param rejectionReason The reason of the rejection.
+     */
+    public UnexpectedResponseException(final String message,
+                                       final RejectionReason rejectionReason) {
         super(message);
+        this.rejectionReason = rejectionReason;
+    }
+
+    /**
+     * @return The reason if the response was a RejectionMessage.
+     */
+    public Optional<RejectionReason> getRejectionReason() {
+        return Optional.ofNullable(rejectionReason);
     }
 }
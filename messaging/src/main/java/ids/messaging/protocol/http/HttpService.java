@@ -27,6 +27,7 @@ import java.util.Map;
 import ids.messaging.common.DeserializeException;
 import ids.messaging.core.daps.ClaimsException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
+import ids.messaging.protocol.multipart.parser.StreamingMultipart;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
@@ -146,6 +147,32 @@ public interface HttpService {
             ShaclValidatorException,
             DeserializeException;
 
+    /**
+     * Sends a request and validates the DAT of the response, without reading the payload.
+     * The payload of the returned response can be consumed as stream, the response must be
+     * closed afterwards. The security profile of the sender is not validated, as it would
+     * require reading the payload.
+     *
+     * @param request To be sent.
+     * @return The response with parsed header and unread payload.
+     * @throws IOException If the response cannot be read.
+     * @throws ClaimsException If DAT of response is invalid or cannot be parsed.
+     * @throws MultipartParseException If response cannot be parsed as multipart.
+     * @throws DeserializeException Exception that is thrown if deserializing a message threw
+     * an IOException.
+     * @throws ShaclValidatorException SHACL-Validation, received message header does not conform
+     * to IDS-Infomodel and did not pass SHACL-Validation.
+     * @throws SendMessageException Sending the IDS-Request returns an IOException.
+     */
+    StreamingMultipart sendAndCheckDatStreaming(Request request)
+            throws
+            IOException,
+            ClaimsException,
+            MultipartParseException,
+            SendMessageException,
+            ShaclValidatorException,
+            DeserializeException;
+
     /**
      * Sends a request to a given target and validates the DAT of the response.
      *
@@ -37,13 +37,19 @@ import ids.messaging.core.config.ClientProvider;
 import ids.messaging.core.config.ConfigContainer;
 import ids.messaging.core.daps.ClaimsException;
 import ids.messaging.core.daps.DapsValidator;
+import ids.messaging.protocol.http.resilience.CircuitBreakerRegistry;
+import ids.messaging.protocol.http.resilience.ConcurrencyLimitExceededException;
+import ids.messaging.protocol.http.resilience.ConcurrencyLimiter;
+import ids.messaging.protocol.http.resilience.RetryPolicy;
 import ids.messaging.protocol.multipart.parser.MultipartDatapart;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.protocol.multipart.parser.MultipartParser;
+import ids.messaging.protocol.multipart.parser.StreamingMultipart;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -54,6 +60,7 @@ import okhttp3.ResponseBody;
 import okio.Buffer;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -65,6 +72,21 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class IdsHttpService implements HttpService {
 
+    /**
+     * Lowest response code counted as failure by the circuit breaker.
+     */
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    /**
+     * Response code counted as overload by the concurrency limiter.
+     */
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Response code counted as overload by the concurrency limiter.
+     */
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
     /**
      * The ClientProvider.
      */
@@ -108,6 +130,51 @@ public class IdsHttpService implements HttpService {
     @Value("#{new Boolean('${messaging.log.outgoing:false}')}")
     private Boolean logRequests;
 
+    /**
+     * The RetryPolicy, optional.
+     */
+    private RetryPolicy retryPolicy;
+
+    /**
+     * Set the RetryPolicy used to retry and hedge idempotent requests.
+     *
+     * @param retryPolicy The RetryPolicy.
+     */
+    @Autowired(required = false)
+    public void setRetryPolicy(final RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * The CircuitBreakerRegistry, optional.
+     */
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    /**
+     * Set the CircuitBreakerRegistry used to fail fast on unavailable destinations.
+     *
+     * @param circuitBreakerRegistry The CircuitBreakerRegistry.
+     */
+    @Autowired(required = false)
+    public void setCircuitBreakerRegistry(final CircuitBreakerRegistry circuitBreakerRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
+    /**
+     * The ConcurrencyLimiter, optional.
+     */
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Set the ConcurrencyLimiter used to adapt concurrent requests to each destination.
+     *
+     * @param concurrencyLimiter The ConcurrencyLimiter.
+     */
+    @Autowired(required = false)
+    public void setConcurrencyLimiter(final ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
     /**
      * @param response {@link Response} from an IDS Http request.
      * @return Multipart Map with header and payload part of response.
@@ -121,11 +188,31 @@ public class IdsHttpService implements HttpService {
             ShaclValidatorException,
             DeserializeException,
             IOException {
-        //if connector is set to test deployment: ignore DAT Tokens
         final var responseString = Objects.requireNonNull(response.body()).string();
         final var multipartResponse = MultipartParser.stringToMultipart(responseString);
-        final var messageString = multipartResponse.get(MultipartDatapart.HEADER.toString());
 
+        checkDat(multipartResponse.get(MultipartDatapart.HEADER.toString()),
+                 multipartResponse.get(MultipartDatapart.PAYLOAD.toString()));
+
+        return multipartResponse;
+    }
+
+    /**
+     * Validates the header of a response and its DAT.
+     *
+     * @param messageString The serialized response header.
+     * @param payloadString The response payload, used to read the security profile of the
+     * sender if it contains a connector self-description, may be null.
+     * @throws ClaimsException If DAT of response is invalid or cannot be parsed.
+     * @throws ShaclValidatorException If the header does not pass the SHACL validation.
+     * @throws DeserializeException If the header cannot be deserialized.
+     */
+    private void checkDat(final String messageString, final String payloadString)
+            throws
+            ClaimsException,
+            ShaclValidatorException,
+            DeserializeException {
+        //if connector is set to test deployment: ignore DAT Tokens
         if (Boolean.TRUE.equals(shaclValidation)) {
             try {
                 //If the validation is not successful, then this throws an IOException
@@ -146,7 +233,6 @@ public class IdsHttpService implements HttpService {
 
         try {
             final var message = serializer.deserialize(messageString, Message.class);
-            final var payloadString = multipartResponse.get(MultipartDatapart.PAYLOAD.toString());
 
             if (isJsonSecProfile(payloadString)) {
                 try {
@@ -188,8 +274,6 @@ public class IdsHttpService implements HttpService {
 
                 throw new ClaimsException("DAT of incoming response is not valid!");
             }
-
-            return multipartResponse;
         } catch (IOException ioException) {
             //serializer.deserialize messageString threw IOException, mapping to
             //DeserializeException
@@ -412,7 +496,7 @@ public class IdsHttpService implements HttpService {
             log.info("Sending request to {} ... [code=(IMSMEI0065)]", request.url());
         }
 
-        var response = client.newCall(request).execute();
+        var response = execute(request, client);
         final var responseBody = response.body();
 
         if (Boolean.TRUE.equals(logResponses) && responseBody != null) {
@@ -436,6 +520,88 @@ public class IdsHttpService implements HttpService {
         return response;
     }
 
+    /**
+     * Execute the request guarded by the circuit breaker of its destination and retried by the
+     * RetryPolicy if configured. Every attempt runs within the concurrency limit of the
+     * destination.
+     *
+     * @param request The request.
+     * @param client {@link OkHttpClient} for sending Request.
+     * @return The response.
+     * @throws IOException If the request failed, the concurrency limit is exceeded or the
+     * circuit breaker is open.
+     */
+    private Response execute(final Request request,
+                             final OkHttpClient client) throws IOException {
+        if (circuitBreakerRegistry == null || !circuitBreakerRegistry.isEnabled()) {
+            return send(request, client);
+        }
+
+        final var permit = circuitBreakerRegistry.acquire(request.url());
+        var recorded = false;
+
+        try {
+            final var response = send(request, client);
+            recorded = true;
+            permit.complete(response.code() >= HTTP_SERVER_ERROR);
+            return response;
+        } catch (ConcurrencyLimitExceededException e) {
+            //rejected locally, says nothing about the destination
+            throw e;
+        } catch (IOException e) {
+            recorded = true;
+            permit.complete(true);
+            throw e;
+        } finally {
+            //return the permit, e.g. a half open probe, if the request ended otherwise
+            if (!recorded) {
+                permit.cancel();
+            }
+        }
+    }
+
+    private Response send(final Request request,
+                          final OkHttpClient client) throws IOException {
+        return retryPolicy == null
+                ? attempt(client.newCall(request))
+                : retryPolicy.execute(client, request, this::attempt);
+    }
+
+    /**
+     * Execute a single attempt within the concurrency limit of its destination. The slot is
+     * held from sending the request until the response headers arrived, reading the body and
+     * backoff delays between retries are not counted.
+     *
+     * @param call The call of the attempt.
+     * @return The response.
+     * @throws IOException If the attempt failed or the concurrency limit is exceeded.
+     */
+    private Response attempt(final Call call) throws IOException {
+        if (concurrencyLimiter == null || !concurrencyLimiter.isEnabled()) {
+            return call.execute();
+        }
+
+        final var permit = concurrencyLimiter.acquire(call.request().url());
+
+        try {
+            final var response = call.execute();
+            permit.complete(response.code() == HTTP_TOO_MANY_REQUESTS
+                            || response.code() == HTTP_SERVICE_UNAVAILABLE);
+            return response;
+        } catch (IOException e) {
+            //a cancelled attempt, e.g. the slower one of a hedged request, is not an overload
+            if (call.isCanceled()) {
+                permit.cancel();
+            } else {
+                permit.complete(true);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            permit.cancel();
+            throw e;
+        }
+    }
+
     /**
      * Logs the request message to be send in log.
      *
@@ -509,6 +675,44 @@ public class IdsHttpService implements HttpService {
         return checkDatFromResponse(response);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingMultipart sendAndCheckDatStreaming(final Request request)
+            throws
+            ClaimsException,
+            MultipartParseException,
+            SendMessageException,
+            ShaclValidatorException,
+            DeserializeException,
+            IOException {
+        Response response;
+
+        try {
+            response = send(request);
+        } catch (IOException ioException) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error during transmission of the message! [code=(IMSMED0155),"
+                          + " exception=({})]", ioException.getMessage());
+            }
+
+            throw new SendMessageException(ioException);
+        }
+
+        final var multipart =
+                StreamingMultipart.parse(Objects.requireNonNull(response.body()).byteStream());
+
+        try {
+            checkDat(multipart.getHeader(), null);
+        } catch (ClaimsException | ShaclValidatorException | DeserializeException e) {
+            multipart.close();
+            throw e;
+        }
+
+        return multipart;
+    }
+
     /**
      * {@inheritDoc}
      */
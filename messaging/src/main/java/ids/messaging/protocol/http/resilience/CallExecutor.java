@@ -0,0 +1,43 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.Response;
+
+/**
+ * Executes a single attempt of a request. Used by the {@link RetryPolicy} for every retry
+ * and hedged attempt, so that per-attempt logic like a concurrency limit covers the time a
+ * request is in flight, but not backoff delays between attempts.
+ */
+@FunctionalInterface
+public interface CallExecutor {
+
+    /**
+     * Execute the call synchronously.
+     *
+     * @param call The call of the attempt.
+     * @return The response, returned once its headers arrived.
+     * @throws IOException If the attempt failed.
+     */
+    Response execute(Call call) throws IOException;
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import lombok.Getter;
+
+/**
+ * Circuit breaker of a single destination. While closed, the outcomes of the most recent
+ * requests are kept in a sliding window; the breaker opens once the failure rate or the
+ * slow call rate in the window reaches its threshold. After the open duration, a limited
+ * number of probe requests is let through; the breaker closes if they succeed and reopens
+ * otherwise.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * Scale of the failure and slow call rates.
+     */
+    private static final int PERCENT = 100;
+
+    /**
+     * The destination.
+     */
+    @Getter
+    private final Destination destination;
+
+    /**
+     * The settings.
+     */
+    private final CircuitBreakerRegistry.Settings settings;
+
+    /**
+     * Outcomes of the most recent requests: true if failed.
+     */
+    private final boolean[] failed;
+
+    /**
+     * Outcomes of the most recent requests: true if slow.
+     */
+    private final boolean[] slow;
+
+    /**
+     * The current state, guarded by this.
+     */
+    private CircuitState state = CircuitState.CLOSED;
+
+    /**
+     * Incremented on every state change, outcomes of older requests are ignored.
+     */
+    private long generation;
+
+    /**
+     * Number of requests recorded in the window since the last state change.
+     */
+    private int recorded;
+
+    /**
+     * Number of failed requests in the window.
+     */
+    private int failures;
+
+    /**
+     * Number of slow requests in the window.
+     */
+    private int slowCalls;
+
+    /**
+     * Number of probe requests let through while half open.
+     */
+    private int probes;
+
+    /**
+     * Time in nanoseconds at which an open breaker becomes half open.
+     */
+    private long openUntil;
+
+    /**
+     * Time in nanoseconds of the last permitted request.
+     */
+    private long lastUsed;
+
+    /**
+     * Create a closed CircuitBreaker.
+     *
+     * @param destination The destination.
+     * @param settings The settings.
+     */
+    CircuitBreaker(final Destination destination, final CircuitBreakerRegistry.Settings settings) {
+        this.destination = destination;
+        this.settings = settings;
+        this.failed = new boolean[settings.getWindowSize()];
+        this.slow = new boolean[settings.getWindowSize()];
+    }
+
+    /**
+     * @return The current state.
+     */
+    public synchronized CircuitState getState() {
+        if (state == CircuitState.OPEN && System.nanoTime() - openUntil >= 0) {
+            return CircuitState.HALF_OPEN;
+        }
+
+        return state;
+    }
+
+    /**
+     * @return Percentage of failed requests in the current window.
+     */
+    public synchronized int getFailureRate() {
+        return recorded == 0 ? 0 : failures * PERCENT / recorded;
+    }
+
+    /**
+     * @return Percentage of slow requests in the current window.
+     */
+    public synchronized int getSlowCallRate() {
+        return recorded == 0 ? 0 : slowCalls * PERCENT / recorded;
+    }
+
+    /**
+     * Ask for permission to send a request.
+     *
+     * @param now The current time in nanoseconds.
+     * @return The generation to pass to {@link #onComplete}, or -1 if the request must not
+     * be sent.
+     */
+    synchronized long tryAcquire(final long now) {
+        lastUsed = now;
+
+        if (state == CircuitState.OPEN) {
+            if (now - openUntil < 0) {
+                return -1;
+            }
+
+            transition(CircuitState.HALF_OPEN);
+        }
+
+        if (state == CircuitState.HALF_OPEN) {
+            if (probes >= settings.getHalfOpenProbes()) {
+                return -1;
+            }
+
+            probes++;
+        }
+
+        return generation;
+    }
+
+    /**
+     * Record the outcome of a permitted request.
+     *
+     * @param requestGeneration The generation returned by {@link #tryAcquire}.
+     * @param durationNanos The duration of the request.
+     * @param failure True if the request failed.
+     * @return The new state, if the outcome changed it, else null.
+     */
+    synchronized CircuitState onComplete(final long requestGeneration,
+                                         final long durationNanos,
+                                         final boolean failure) {
+        if (requestGeneration != generation || state == CircuitState.OPEN) {
+            return null;
+        }
+
+        final var isSlow = durationNanos >= settings.getSlowCallNanos();
+        final var index = recorded % failed.length;
+
+        if (recorded >= failed.length) {
+            failures -= failed[index] ? 1 : 0;
+            slowCalls -= slow[index] ? 1 : 0;
+        }
+
+        failed[index] = failure;
+        slow[index] = isSlow;
+        failures += failure ? 1 : 0;
+        slowCalls += isSlow ? 1 : 0;
+        recorded++;
+
+        final var window = Math.min(recorded, failed.length);
+
+        if (state == CircuitState.HALF_OPEN) {
+            if (exceedsThreshold(window)) {
+                transition(CircuitState.OPEN);
+                return state;
+            }
+            if (recorded >= settings.getHalfOpenProbes()) {
+                transition(CircuitState.CLOSED);
+                return state;
+            }
+            return null;
+        }
+
+        if (window >= settings.getMinCalls() && exceedsThreshold(window)) {
+            transition(CircuitState.OPEN);
+            return state;
+        }
+
+        return null;
+    }
+
+    /**
+     * Return the permission of a request whose outcome is not recorded, so that a half open
+     * breaker lets another probe request pass.
+     *
+     * @param requestGeneration The generation returned by {@link #tryAcquire}.
+     */
+    synchronized void onCancel(final long requestGeneration) {
+        if (requestGeneration == generation && state == CircuitState.HALF_OPEN && probes > 0) {
+            probes--;
+        }
+    }
+
+    /**
+     * Time in nanoseconds until an open breaker lets probe requests pass.
+     *
+     * @param now The current time in nanoseconds.
+     * @return The remaining open time, 0 if not open.
+     */
+    synchronized long remainingOpenNanos(final long now) {
+        return state == CircuitState.OPEN ? Math.max(0, openUntil - now) : 0;
+    }
+
+    /**
+     * @param now The current time in nanoseconds.
+     * @return Nanoseconds since the last permitted request.
+     */
+    synchronized long idleNanos(final long now) {
+        return now - lastUsed;
+    }
+
+    private boolean exceedsThreshold(final int window) {
+        return failures * PERCENT >= settings.getFailureRateThreshold() * window
+               || slowCalls * PERCENT >= settings.getSlowCallRateThreshold() * window;
+    }
+
+    private void transition(final CircuitState target) {
+        state = target;
+        generation++;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+        probes = 0;
+
+        if (target == CircuitState.OPEN) {
+            openUntil = System.nanoTime() + settings.getOpenNanos();
+        }
+    }
+}
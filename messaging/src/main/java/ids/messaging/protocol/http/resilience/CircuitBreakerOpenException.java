@@ -0,0 +1,57 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import lombok.Getter;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker of its destination is open.
+ */
+@Getter
+public class CircuitBreakerOpenException extends IOException {
+    private static final long serialVersionUID = 42L;
+
+    /**
+     * The destination of the request.
+     */
+    private final transient Destination destination;
+
+    /**
+     * Time until the circuit breaker lets probe requests pass.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Create a CircuitBreakerOpenException.
+     *
+     * @param destination The destination of the request.
+     * @param retryAfter Time until the circuit breaker lets probe requests pass.
+     */
+    public CircuitBreakerOpenException(final Destination destination,
+                                       final Duration retryAfter) {
+        super(String.format("Circuit breaker for %s is open, retry after %d ms!",
+                            destination, retryAfter.toMillis()));
+        this.destination = destination;
+        this.retryAfter = retryAfter;
+    }
+}
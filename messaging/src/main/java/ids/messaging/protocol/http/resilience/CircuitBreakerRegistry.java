@@ -0,0 +1,309 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps one {@link CircuitBreaker} per destination (scheme, host and port) of outgoing
+ * requests, so that requests to a destination that is down fail fast with a
+ * {@link CircuitBreakerOpenException} instead of waiting for timeouts.
+ */
+@Slf4j
+@Component
+public class CircuitBreakerRegistry {
+
+    /**
+     * Number of breakers above which idle closed breakers are dropped.
+     */
+    private static final int MAX_DESTINATIONS = 1024;
+
+    /**
+     * Time after which an unused closed breaker may be dropped.
+     */
+    private static final long IDLE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    /**
+     * Used to switch the circuit breakers on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.circuitbreaker.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Number of most recent requests whose outcomes are evaluated.
+     */
+    @Value("${messaging.circuitbreaker.window.size:20}")
+    private int windowSize;
+
+    /**
+     * Number of requests needed before a breaker can open.
+     */
+    @Value("${messaging.circuitbreaker.min.calls:10}")
+    private int minCalls;
+
+    /**
+     * Percentage of failed requests at which a breaker opens.
+     */
+    @Value("${messaging.circuitbreaker.failure.rate.threshold:50}")
+    private int failureRateThreshold;
+
+    /**
+     * Percentage of slow requests at which a breaker opens.
+     */
+    @Value("${messaging.circuitbreaker.slow.call.rate.threshold:80}")
+    private int slowCallRateThreshold;
+
+    /**
+     * Duration in milliseconds from which a request counts as slow.
+     */
+    @Value("${messaging.circuitbreaker.slow.call.millis:5000}")
+    private long slowCallMillis;
+
+    /**
+     * Time in milliseconds a breaker stays open before letting probe requests pass.
+     */
+    @Value("${messaging.circuitbreaker.open.millis:30000}")
+    private long openMillis;
+
+    /**
+     * Number of probe requests let through while half open.
+     */
+    @Value("${messaging.circuitbreaker.half.open.probes:3}")
+    private int halfOpenProbes;
+
+    /**
+     * The breakers per destination.
+     */
+    private final ConcurrentHashMap<Destination, CircuitBreaker> breakers =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The settings, created on first use.
+     */
+    private volatile Settings settings;
+
+    /**
+     * @return True if the circuit breakers are switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Ask the breaker of the request's destination for permission to send a request.
+     *
+     * @param url The URL of the request.
+     * @return The permit, used to record the outcome of the request.
+     * @throws CircuitBreakerOpenException If the breaker is open.
+     */
+    public Permit acquire(final HttpUrl url) throws CircuitBreakerOpenException {
+        return acquire(url, System.nanoTime());
+    }
+
+    /**
+     * Ask the breaker of the request's destination for permission to send a request.
+     *
+     * @param url The URL of the request.
+     * @param now The current time in nanoseconds.
+     * @return The permit, used to record the outcome of the request.
+     * @throws CircuitBreakerOpenException If the breaker is open.
+     */
+    Permit acquire(final HttpUrl url, final long now) throws CircuitBreakerOpenException {
+        final var destination = Destination.of(url);
+
+        //evict outside of computeIfAbsent, the map must not be modified by a mapping function
+        if (breakers.size() >= MAX_DESTINATIONS && !breakers.containsKey(destination)) {
+            evictIdle(now);
+        }
+
+        final var settings = getSettings();
+        final var breaker = breakers.computeIfAbsent(destination,
+                                                     key -> new CircuitBreaker(key, settings));
+        final var generation = breaker.tryAcquire(now);
+
+        if (generation < 0) {
+            if (log.isDebugEnabled()) {
+                log.debug("Circuit breaker is open, request not sent. [code=(IMSMED0168),"
+                          + " destination=({})]", destination);
+            }
+
+            throw new CircuitBreakerOpenException(
+                    destination, Duration.ofNanos(breaker.remainingOpenNanos(now)));
+        }
+
+        return new Permit(breaker, generation, now);
+    }
+
+    /**
+     * Get the breaker of a destination.
+     *
+     * @param destination The destination.
+     * @return The breaker, empty if no request was sent to the destination yet.
+     */
+    public Optional<CircuitBreaker> getBreaker(final Destination destination) {
+        return Optional.ofNullable(breakers.get(destination));
+    }
+
+    /**
+     * @return The states of all breakers per destination.
+     */
+    public Map<Destination, CircuitState> getStates() {
+        return breakers.values().stream().collect(
+                Collectors.toUnmodifiableMap(CircuitBreaker::getDestination,
+                                             CircuitBreaker::getState));
+    }
+
+    private void evictIdle(final long now) {
+        breakers.values().removeIf(breaker -> breaker.getState() == CircuitState.CLOSED
+                                              && breaker.idleNanos(now) > IDLE_NANOS);
+    }
+
+    private Settings getSettings() {
+        var current = settings;
+
+        if (current == null) {
+            synchronized (this) {
+                current = settings;
+                if (current == null) {
+                    current = new Settings(Math.max(1, windowSize),
+                                           Math.max(1, minCalls),
+                                           failureRateThreshold,
+                                           slowCallRateThreshold,
+                                           TimeUnit.MILLISECONDS.toNanos(slowCallMillis),
+                                           TimeUnit.MILLISECONDS.toNanos(openMillis),
+                                           Math.max(1, halfOpenProbes));
+                    settings = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    private static void logTransition(final Destination destination, final CircuitState state) {
+        if (state == CircuitState.OPEN) {
+            if (log.isWarnEnabled()) {
+                log.warn("Circuit breaker opened, failing requests fast. [code=(IMSMEW0061),"
+                         + " destination=({})]", destination);
+            }
+        } else if (state == CircuitState.CLOSED && log.isInfoEnabled()) {
+            log.info("Circuit breaker closed. [code=(IMSMEI0074), destination=({})]",
+                     destination);
+        }
+    }
+
+    /**
+     * Permission to send a single request, used to record its outcome.
+     */
+    @AllArgsConstructor
+    public static final class Permit {
+
+        /**
+         * The breaker of the destination.
+         */
+        private final CircuitBreaker breaker;
+
+        /**
+         * The generation of the breaker when the permit was issued.
+         */
+        private final long generation;
+
+        /**
+         * Time in nanoseconds the request was sent.
+         */
+        private final long started;
+
+        /**
+         * Record the outcome of the request.
+         *
+         * @param failure True if the request failed.
+         */
+        public void complete(final boolean failure) {
+            final var state = breaker.onComplete(generation, System.nanoTime() - started, failure);
+
+            if (state != null) {
+                logTransition(breaker.getDestination(), state);
+            }
+        }
+
+        /**
+         * Return the permission without recording an outcome, e.g. if the request was not
+         * sent.
+         */
+        public void cancel() {
+            breaker.onCancel(generation);
+        }
+    }
+
+    /**
+     * Settings shared by all breakers.
+     */
+    @Getter
+    @AllArgsConstructor
+    static final class Settings {
+
+        /**
+         * Number of most recent requests whose outcomes are evaluated.
+         */
+        private final int windowSize;
+
+        /**
+         * Number of requests needed before a breaker can open.
+         */
+        private final int minCalls;
+
+        /**
+         * Percentage of failed requests at which a breaker opens.
+         */
+        private final int failureRateThreshold;
+
+        /**
+         * Percentage of slow requests at which a breaker opens.
+         */
+        private final int slowCallRateThreshold;
+
+        /**
+         * Duration in nanoseconds from which a request counts as slow.
+         */
+        private final long slowCallNanos;
+
+        /**
+         * Time in nanoseconds a breaker stays open.
+         */
+        private final long openNanos;
+
+        /**
+         * Number of probe requests let through while half open.
+         */
+        private final int halfOpenProbes;
+    }
+}
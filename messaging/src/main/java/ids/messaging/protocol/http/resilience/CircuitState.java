@@ -0,0 +1,41 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+/**
+ * States of a {@link CircuitBreaker}.
+ */
+public enum CircuitState {
+
+    /**
+     * Requests are sent, outcomes are recorded.
+     */
+    CLOSED,
+
+    /**
+     * Requests fail fast without being sent.
+     */
+    OPEN,
+
+    /**
+     * A limited number of probe requests is sent to decide whether to close or reopen.
+     */
+    HALF_OPEN
+}
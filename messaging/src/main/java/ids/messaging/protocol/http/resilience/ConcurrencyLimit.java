@@ -0,0 +1,256 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.Getter;
+
+/**
+ * Adaptive concurrency limit of a single destination (AIMD). The limit grows by one per
+ * round trip while the destination is utilized and answers within the tolerated latency, and
+ * is multiplied by the backoff ratio at most once per round trip if latency exceeds the
+ * tolerance or the destination signals overload. The latency baseline is the lowest observed
+ * round trip time, drifting slowly upwards so it follows lasting changes of the destination.
+ * Requests above the limit wait in a bounded queue.
+ */
+public final class ConcurrencyLimit {
+
+    /**
+     * Divisor of the upward drift of the latency baseline per sample.
+     */
+    private static final int BASELINE_DRIFT = 100;
+
+    /**
+     * Time after which an unused limit without requests counts as idle.
+     */
+    private static final long IDLE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    /**
+     * The destination.
+     */
+    @Getter
+    private final Destination destination;
+
+    /**
+     * The settings.
+     */
+    private final ConcurrencyLimiter.Settings settings;
+
+    /**
+     * Guards the state of this limit.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled whenever a request completes.
+     */
+    private final Condition released = lock.newCondition();
+
+    /**
+     * The current limit, fractional to allow additive increase per round trip.
+     */
+    private double limit;
+
+    /**
+     * Number of requests in flight.
+     */
+    private int inFlight;
+
+    /**
+     * Number of requests waiting in the queue.
+     */
+    private int queued;
+
+    /**
+     * Latency baseline in nanoseconds, 0 if no sample was recorded yet.
+     */
+    private long baselineNanos;
+
+    /**
+     * Time in nanoseconds of the last decrease of the limit.
+     */
+    private long lastDecrease;
+
+    /**
+     * Time in nanoseconds of the last request.
+     */
+    private long lastUsed;
+
+    /**
+     * Create a ConcurrencyLimit starting at the initial limit.
+     *
+     * @param destination The destination.
+     * @param settings The settings.
+     */
+    ConcurrencyLimit(final Destination destination, final ConcurrencyLimiter.Settings settings) {
+        this.destination = destination;
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+        this.lastDecrease = System.nanoTime();
+    }
+
+    /**
+     * @return The current limit.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of requests in flight.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of requests waiting in the queue.
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acquire a slot for a request, waiting in the queue if the limit is reached.
+     *
+     * @param now The current time in nanoseconds.
+     * @return True if a slot was acquired, false if the queue was full or the wait timed out.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    boolean acquire(final long now) throws InterruptedException {
+        lock.lock();
+        try {
+            lastUsed = now;
+
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+
+            if (queued >= settings.getQueueSize()) {
+                return false;
+            }
+
+            queued++;
+            try {
+                var remaining = settings.getQueueTimeoutNanos();
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release the slot of a completed request and adapt the limit.
+     *
+     * @param now The current time in nanoseconds.
+     * @param rttNanos The round trip time of the request.
+     * @param overload True if the request failed or the destination signalled overload.
+     */
+    void release(final long now, final long rttNanos, final boolean overload) {
+        lock.lock();
+        try {
+            if (overload || exceedsTolerance(rttNanos)) {
+                decrease(now, rttNanos);
+            } else if (inFlight * 2 >= limit) {
+                limit = Math.min(settings.getMaxLimit(), limit + 1 / limit);
+            }
+
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release the slot of a request without adapting the limit.
+     */
+    void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param now The current time in nanoseconds.
+     * @return True if no request is in flight or queued and the last one is unused for an hour.
+     */
+    boolean isIdle(final long now) {
+        lock.lock();
+        try {
+            return inFlight == 0 && queued == 0 && now - lastUsed > IDLE_NANOS;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean exceedsTolerance(final long rttNanos) {
+        if (baselineNanos == 0 || rttNanos < baselineNanos) {
+            baselineNanos = Math.max(1, rttNanos);
+            return false;
+        }
+
+        baselineNanos += (rttNanos - baselineNanos) / BASELINE_DRIFT;
+        return rttNanos > baselineNanos * settings.getLatencyTolerance();
+    }
+
+    private void decrease(final long now, final long rttNanos) {
+        if (now - lastDecrease < Math.max(baselineNanos, rttNanos)) {
+            return;
+        }
+
+        limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+        lastDecrease = now;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.io.IOException;
+
+import lombok.Getter;
+
+/**
+ * Thrown instead of sending a request if the concurrency limit of its destination is reached
+ * and the request could not be queued or waited too long in the queue.
+ */
+@Getter
+public class ConcurrencyLimitExceededException extends IOException {
+    private static final long serialVersionUID = 42L;
+
+    /**
+     * The destination of the request.
+     */
+    private final transient Destination destination;
+
+    /**
+     * The concurrency limit of the destination when the request was rejected.
+     */
+    private final int limit;
+
+    /**
+     * Create a ConcurrencyLimitExceededException.
+     *
+     * @param destination The destination of the request.
+     * @param limit The concurrency limit of the destination.
+     */
+    public ConcurrencyLimitExceededException(final Destination destination, final int limit) {
+        super(String.format("Concurrency limit %d for %s reached, request rejected!",
+                            limit, destination));
+        this.destination = destination;
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the number of concurrent outgoing requests per destination (scheme, host and port)
+ * with an adaptive {@link ConcurrencyLimit}, so that throughput follows the actual capacity
+ * of each destination instead of a fixed pool size.
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimiter {
+
+    /**
+     * Number of limits above which idle limits are dropped.
+     */
+    private static final int MAX_DESTINATIONS = 1024;
+
+    /**
+     * Used to switch the concurrency limits on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.concurrency.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Concurrency limit of a new destination.
+     */
+    @Value("${messaging.concurrency.initial.limit:20}")
+    private int initialLimit;
+
+    /**
+     * Lower bound of the concurrency limit.
+     */
+    @Value("${messaging.concurrency.min.limit:1}")
+    private int minLimit;
+
+    /**
+     * Upper bound of the concurrency limit.
+     */
+    @Value("${messaging.concurrency.max.limit:200}")
+    private int maxLimit;
+
+    /**
+     * Maximum number of requests waiting per destination.
+     */
+    @Value("${messaging.concurrency.queue.size:100}")
+    private int queueSize;
+
+    /**
+     * Maximum time in milliseconds a request waits in the queue.
+     */
+    @Value("${messaging.concurrency.queue.timeout.millis:10000}")
+    private long queueTimeoutMillis;
+
+    /**
+     * Factor of the latency baseline above which the limit is decreased.
+     */
+    @Value("${messaging.concurrency.latency.tolerance:2.0}")
+    private double latencyTolerance;
+
+    /**
+     * Factor applied to the limit on decrease.
+     */
+    @Value("${messaging.concurrency.backoff.ratio:0.9}")
+    private double backoffRatio;
+
+    /**
+     * The limits per destination.
+     */
+    private final ConcurrentHashMap<Destination, ConcurrencyLimit> limits =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The settings, created on first use.
+     */
+    private volatile Settings settings;
+
+    /**
+     * @return True if the concurrency limits are switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Acquire a slot for a request to the request's destination, waiting in the queue if the
+     * limit of the destination is reached.
+     *
+     * @param url The URL of the request.
+     * @return The permit, used to release the slot.
+     * @throws ConcurrencyLimitExceededException If the queue is full or the wait timed out.
+     * @throws InterruptedIOException If interrupted while waiting.
+     */
+    public Permit acquire(final HttpUrl url)
+            throws ConcurrencyLimitExceededException, InterruptedIOException {
+        return acquire(url, System.nanoTime());
+    }
+
+    /**
+     * Acquire a slot for a request to the request's destination, waiting in the queue if the
+     * limit of the destination is reached.
+     *
+     * @param url The URL of the request.
+     * @param now The current time in nanoseconds.
+     * @return The permit, used to release the slot.
+     * @throws ConcurrencyLimitExceededException If the queue is full or the wait timed out.
+     * @throws InterruptedIOException If interrupted while waiting.
+     */
+    Permit acquire(final HttpUrl url, final long now)
+            throws ConcurrencyLimitExceededException, InterruptedIOException {
+        final var destination = Destination.of(url);
+
+        //evict outside of computeIfAbsent, the map must not be modified by a mapping function
+        if (limits.size() >= MAX_DESTINATIONS && !limits.containsKey(destination)) {
+            limits.values().removeIf(limit -> limit.isIdle(now));
+        }
+
+        final var settings = getSettings();
+        final var limit = limits.computeIfAbsent(destination,
+                                                 key -> new ConcurrencyLimit(key, settings));
+
+        try {
+            if (!limit.acquire(now)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Concurrency limit reached, request not sent. [code=(IMSMED0169),"
+                              + " destination=({}), limit=({}), queue=({})]",
+                              destination, limit.getLimit(), limit.getQueueDepth());
+                }
+
+                throw new ConcurrencyLimitExceededException(destination, limit.getLimit());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request slot!");
+        }
+
+        return new Permit(limit, System.nanoTime(), new AtomicBoolean());
+    }
+
+    /**
+     * Get the limit of a destination.
+     *
+     * @param destination The destination.
+     * @return The limit, empty if no request was sent to the destination yet.
+     */
+    public Optional<ConcurrencyLimit> getLimit(final Destination destination) {
+        return Optional.ofNullable(limits.get(destination));
+    }
+
+    /**
+     * @return The limits of all destinations, for reading their limit and queue depth.
+     */
+    public Map<Destination, ConcurrencyLimit> getLimits() {
+        return limits.values().stream().collect(
+                Collectors.toUnmodifiableMap(ConcurrencyLimit::getDestination, limit -> limit));
+    }
+
+    private Settings getSettings() {
+        var current = settings;
+
+        if (current == null) {
+            synchronized (this) {
+                current = settings;
+                if (current == null) {
+                    final var min = Math.max(1, minLimit);
+                    final var max = Math.max(min, maxLimit);
+                    current = new Settings(Math.min(max, Math.max(min, initialLimit)),
+                                           min,
+                                           max,
+                                           Math.max(0, queueSize),
+                                           TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis),
+                                           Math.max(1.0, latencyTolerance),
+                                           Math.min(1.0, Math.max(0.0, backoffRatio)));
+                    settings = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * A slot for a single request, released once the request completed.
+     */
+    @AllArgsConstructor
+    public static final class Permit {
+
+        /**
+         * The limit of the destination.
+         */
+        private final ConcurrencyLimit limit;
+
+        /**
+         * Time in nanoseconds the request was sent.
+         */
+        private final long started;
+
+        /**
+         * Set once the slot is released.
+         */
+        private final AtomicBoolean released;
+
+        /**
+         * Release the slot and adapt the limit to the round trip time of the request.
+         *
+         * @param overload True if the request failed or the destination signalled overload.
+         */
+        public void complete(final boolean overload) {
+            if (released.compareAndSet(false, true)) {
+                final var now = System.nanoTime();
+                limit.release(now, now - started, overload);
+            }
+        }
+
+        /**
+         * Release the slot without adapting the limit, if the request was not sent.
+         */
+        public void cancel() {
+            if (released.compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+    }
+
+    /**
+     * Settings shared by all limits.
+     */
+    @Getter
+    @AllArgsConstructor
+    static final class Settings {
+
+        /**
+         * Concurrency limit of a new destination.
+         */
+        private final int initialLimit;
+
+        /**
+         * Lower bound of the concurrency limit.
+         */
+        private final int minLimit;
+
+        /**
+         * Upper bound of the concurrency limit.
+         */
+        private final int maxLimit;
+
+        /**
+         * Maximum number of requests waiting per destination.
+         */
+        private final int queueSize;
+
+        /**
+         * Maximum time in nanoseconds a request waits in the queue.
+         */
+        private final long queueTimeoutNanos;
+
+        /**
+         * Factor of the latency baseline above which the limit is decreased.
+         */
+        private final double latencyTolerance;
+
+        /**
+         * Factor applied to the limit on decrease.
+         */
+        private final double backoffRatio;
+    }
+}
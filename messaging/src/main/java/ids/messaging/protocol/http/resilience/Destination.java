@@ -0,0 +1,68 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import okhttp3.HttpUrl;
+
+/**
+ * Identifies the destination of outgoing requests by scheme, host and port.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Destination {
+
+    /**
+     * The scheme, http or https.
+     */
+    private final String scheme;
+
+    /**
+     * The host.
+     */
+    private final String host;
+
+    /**
+     * The port.
+     */
+    private final int port;
+
+    /**
+     * Get the destination of a request URL.
+     *
+     * @param url The request URL.
+     * @return The destination.
+     */
+    public static Destination of(final HttpUrl url) {
+        return new Destination(url.scheme(), url.host(), url.port());
+    }
+
+    /**
+     * @return The destination as scheme://host:port.
+     */
+    @Override
+    public String toString() {
+        return scheme + "://" + host + ":" + port;
+    }
+}
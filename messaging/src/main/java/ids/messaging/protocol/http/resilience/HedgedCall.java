@@ -0,0 +1,249 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * A request that is sent a second time if the first attempt did not answer within a delay.
+ * The first response wins, the other attempt is cancelled and its response closed.
+ * Attempts are executed synchronously on a bounded executor, not on the OkHttp dispatcher,
+ * so that its per-host limits neither cap hedged requests nor inflate their latencies.
+ * If the executor is saturated, the request is sent once on the calling thread.
+ */
+final class HedgedCall {
+
+    /**
+     * The client sending the attempts.
+     */
+    private final OkHttpClient client;
+
+    /**
+     * The request.
+     */
+    private final Request request;
+
+    /**
+     * The destination of the request.
+     */
+    private final Destination destination;
+
+    /**
+     * Records the latencies of successful attempts.
+     */
+    private final LatencyTracker latencies;
+
+    /**
+     * Runs the attempts, rejects them when saturated.
+     */
+    private final Executor executor;
+
+    /**
+     * Executes the call of a single attempt.
+     */
+    private final CallExecutor callExecutor;
+
+    /**
+     * Completed with the first response, or the last failure.
+     */
+    private final CompletableFuture<Response> result = new CompletableFuture<>();
+
+    /**
+     * The launched attempts, guarded by this.
+     */
+    private final List<Call> calls = new ArrayList<>();
+
+    /**
+     * Number of failed attempts, guarded by this.
+     */
+    private int failures;
+
+    /**
+     * The failure of the last failed attempt, guarded by this.
+     */
+    private IOException lastFailure;
+
+    /**
+     * Create a HedgedCall.
+     *
+     * @param client The client sending the attempts.
+     * @param request The request.
+     * @param destination The destination of the request.
+     * @param latencies Records the latencies of successful attempts.
+     * @param executor Runs the attempts, rejects them when saturated.
+     * @param callExecutor Executes the call of a single attempt.
+     */
+    HedgedCall(final OkHttpClient client,
+               final Request request,
+               final Destination destination,
+               final LatencyTracker latencies,
+               final Executor executor,
+               final CallExecutor callExecutor) {
+        this.client = client;
+        this.request = request;
+        this.destination = destination;
+        this.latencies = latencies;
+        this.executor = executor;
+        this.callExecutor = callExecutor;
+    }
+
+    /**
+     * Send the request, send it a second time if there is no response after the delay
+     * and hedging is allowed, and wait for the first response.
+     *
+     * @param hedgeAfter Delay after which the second attempt is sent.
+     * @param mayHedge Checked before the second attempt is sent.
+     * @return The first response.
+     * @throws IOException If all attempts failed or the thread was interrupted.
+     */
+    Response execute(final Duration hedgeAfter, final BooleanSupplier mayHedge)
+            throws IOException {
+        if (!launch()) {
+            return callExecutor.execute(client.newCall(request));
+        }
+
+        try {
+            try {
+                return result.get(hedgeAfter.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (mayHedge.getAsBoolean()) {
+                    launch();
+                }
+            }
+
+            return result.get();
+        } catch (InterruptedException e) {
+            final var interrupted =
+                    new InterruptedIOException("Interrupted while waiting for response!");
+
+            //close a response that arrived concurrently, later responses are closed on arrival
+            if (!result.completeExceptionally(interrupted) && !result.isCompletedExceptionally()) {
+                result.getNow(null).close();
+            }
+            cancelAll(null);
+            Thread.currentThread().interrupt();
+            throw interrupted;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private boolean launch() {
+        final Call call;
+
+        synchronized (this) {
+            if (result.isDone()) {
+                return true;
+            }
+
+            call = client.newCall(request);
+            calls.add(call);
+        }
+
+        try {
+            executor.execute(() -> run(call));
+            return true;
+        } catch (RejectedExecutionException e) {
+            final IOException failure;
+
+            synchronized (this) {
+                calls.remove(call);
+                failure = failures > 0 && failures == calls.size() ? lastFailure : null;
+            }
+
+            //the attempts launched before failed while this one was rejected
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            }
+
+            return false;
+        }
+    }
+
+    private void run(final Call call) {
+        final var started = System.nanoTime();
+        final Response response;
+
+        try {
+            response = callExecutor.execute(call);
+        } catch (IOException | RuntimeException e) {
+            onFailure(e instanceof IOException ? (IOException) e : new IOException(e));
+            return;
+        }
+
+        if (!result.complete(response)) {
+            response.close();
+            return;
+        }
+
+        if (response.isSuccessful()) {
+            latencies.record(destination, System.nanoTime() - started);
+        }
+        cancelAll(call);
+    }
+
+    private void onFailure(final IOException e) {
+        final boolean last;
+
+        synchronized (this) {
+            failures++;
+            lastFailure = e;
+            last = failures == calls.size();
+        }
+
+        if (last) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void cancelAll(final Call except) {
+        final List<Call> launched;
+
+        synchronized (this) {
+            launched = List.copyOf(calls);
+        }
+
+        for (final var call : launched) {
+            if (call != except) {
+                call.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+import ids.messaging.util.cache.ExpiringCache;
+
+/**
+ * Keeps the latencies of the most recent successful requests per destination, to derive
+ * latency percentiles.
+ */
+public final class LatencyTracker {
+
+    /**
+     * Number of latencies kept per destination.
+     */
+    private static final int WINDOW_SIZE = 128;
+
+    /**
+     * Maximum number of tracked destinations.
+     */
+    private static final int MAX_DESTINATIONS = 1024;
+
+    /**
+     * Time after which the latencies of an unused destination are dropped.
+     */
+    private static final Duration IDLE_TIMEOUT = Duration.ofHours(1);
+
+    /**
+     * Latency windows per destination.
+     */
+    private final ExpiringCache<Destination, Window> windows =
+            new ExpiringCache<>(MAX_DESTINATIONS, IDLE_TIMEOUT);
+
+    /**
+     * Minimum number of latencies needed for a percentile.
+     */
+    private final int minSamples;
+
+    /**
+     * Create a LatencyTracker.
+     *
+     * @param minSamples Minimum number of latencies of a destination needed for a percentile.
+     */
+    public LatencyTracker(final int minSamples) {
+        this.minSamples = Math.max(1, Math.min(minSamples, WINDOW_SIZE));
+    }
+
+    /**
+     * Record the latency of a successful request.
+     *
+     * @param destination The destination.
+     * @param latencyNanos The latency in nanoseconds.
+     */
+    public void record(final Destination destination, final long latencyNanos) {
+        var window = windows.get(destination).orElse(null);
+
+        if (window == null) {
+            synchronized (windows) {
+                window = windows.get(destination).orElse(null);
+                if (window == null) {
+                    window = new Window();
+                    windows.put(destination, window);
+                }
+            }
+        }
+
+        window.add(latencyNanos);
+    }
+
+    /**
+     * Get a latency percentile of a destination.
+     *
+     * @param destination The destination.
+     * @param quantile The quantile, e.g. 0.95.
+     * @return The percentile, empty if there are not enough latencies.
+     */
+    public Optional<Duration> percentile(final Destination destination, final double quantile) {
+        return windows.get(destination)
+                      .flatMap(window -> window.percentile(quantile, minSamples))
+                      .map(Duration::ofNanos);
+    }
+
+    /**
+     * Ring buffer of the most recent latencies.
+     */
+    private static final class Window {
+
+        /**
+         * The latencies, guarded by this.
+         */
+        private final long[] samples = new long[WINDOW_SIZE];
+
+        /**
+         * Number of latencies recorded, guarded by this.
+         */
+        private long count;
+
+        private synchronized void add(final long latencyNanos) {
+            samples[(int) (count % WINDOW_SIZE)] = latencyNanos;
+            count++;
+        }
+
+        private Optional<Long> percentile(final double quantile, final int minSamples) {
+            final long[] sorted;
+
+            synchronized (this) {
+                if (count < minSamples) {
+                    return Optional.empty();
+                }
+                sorted = Arrays.copyOf(samples, (int) Math.min(count, WINDOW_SIZE));
+            }
+
+            Arrays.sort(sorted);
+            final var index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return Optional.of(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+        }
+    }
+}
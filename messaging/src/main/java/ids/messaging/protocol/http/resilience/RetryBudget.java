@@ -0,0 +1,83 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+/**
+ * Limits retries to a fraction of the requests, so that retries cannot multiply the load on
+ * a failing destination. Every request deposits a fraction of a token, every retry
+ * withdraws a whole token.
+ */
+public final class RetryBudget {
+
+    /**
+     * Tokens deposited per request.
+     */
+    private final double ratio;
+
+    /**
+     * Maximum number of tokens, also the initial number.
+     */
+    private final double maxTokens;
+
+    /**
+     * Available tokens, guarded by this.
+     */
+    private double tokens;
+
+    /**
+     * Create a RetryBudget.
+     *
+     * @param ratio Retries allowed per request, e.g. 0.1 for one retry per ten requests.
+     * @param reserve Retries allowed without preceding requests, also the maximum balance.
+     */
+    public RetryBudget(final double ratio, final int reserve) {
+        this.ratio = Math.max(0, ratio);
+        this.maxTokens = Math.max(1, reserve);
+        this.tokens = maxTokens;
+    }
+
+    /**
+     * Record a request.
+     */
+    public synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * Withdraw a token for a retry.
+     *
+     * @return True if the retry is allowed.
+     */
+    public synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+
+        tokens--;
+        return true;
+    }
+
+    /**
+     * @return The number of retries currently allowed.
+     */
+    public synchronized int getAvailable() {
+        return (int) tokens;
+    }
+}
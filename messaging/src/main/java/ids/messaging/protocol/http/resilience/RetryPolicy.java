@@ -0,0 +1,481 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.fraunhofer.iais.eis.ArtifactRequestMessage;
+import de.fraunhofer.iais.eis.DescriptionRequestMessage;
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.ParticipantRequestMessage;
+import de.fraunhofer.iais.eis.QueryMessage;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retries outgoing idempotent requests (description requests, queries, artifact and
+ * participant requests) on failures to connect and 502, 503 and 504 responses, with
+ * jittered exponential backoff. Failures after the connection was established, like read
+ * timeouts, are not retried, as the request may have been processed at full cost already.
+ * A retry budget limits retries to a fraction of all requests. Optionally, a second attempt
+ * is sent if the first one did not answer within a latency percentile of the destination
+ * (hedging). Other requests are sent once.
+ */
+@Slf4j
+@Component
+public class RetryPolicy implements DisposableBean {
+
+    /**
+     * Message types that can be sent more than once.
+     */
+    private static final Set<Class<? extends Message>> IDEMPOTENT_TYPES = Set.of(
+            DescriptionRequestMessage.class,
+            QueryMessage.class,
+            ArtifactRequestMessage.class,
+            ParticipantRequestMessage.class);
+
+    /**
+     * Response codes signalling a temporary failure.
+     */
+    private static final Set<Integer> RETRYABLE_CODES = Set.of(
+            HttpURLConnection.HTTP_BAD_GATEWAY,
+            HttpURLConnection.HTTP_UNAVAILABLE,
+            HttpURLConnection.HTTP_GATEWAY_TIMEOUT);
+
+    /**
+     * Upper bound of the backoff exponent.
+     */
+    private static final int MAX_BACKOFF_SHIFT = 30;
+
+    /**
+     * Time in seconds an idle hedging thread is kept.
+     */
+    private static final long HEDGING_KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Used to switch retries on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.retry.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Maximum number of attempts per request, including the first one.
+     */
+    @Value("${messaging.retry.max.attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Backoff before the first retry in milliseconds.
+     */
+    @Value("${messaging.retry.backoff.initial.millis:100}")
+    private long initialBackoffMillis;
+
+    /**
+     * Maximum backoff in milliseconds.
+     */
+    @Value("${messaging.retry.backoff.max.millis:2000}")
+    private long maxBackoffMillis;
+
+    /**
+     * Retries allowed per request.
+     */
+    @Value("${messaging.retry.budget.ratio:0.1}")
+    private double budgetRatio;
+
+    /**
+     * Retries allowed without preceding requests.
+     */
+    @Value("${messaging.retry.budget.reserve:10}")
+    private int budgetReserve;
+
+    /**
+     * Used to switch hedging on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.retry.hedging.enabled:false}')}")
+    private Boolean hedgingEnabled;
+
+    /**
+     * Latency quantile of the destination after which a second attempt is sent.
+     */
+    @Value("${messaging.retry.hedging.quantile:0.95}")
+    private double hedgingQuantile;
+
+    /**
+     * Minimum delay before a second attempt in milliseconds.
+     */
+    @Value("${messaging.retry.hedging.min.delay.millis:20}")
+    private long hedgingMinDelayMillis;
+
+    /**
+     * Number of latencies of a destination needed before requests to it are hedged.
+     */
+    @Value("${messaging.retry.hedging.min.samples:20}")
+    private int hedgingMinSamples;
+
+    /**
+     * Maximum number of threads running hedged attempts.
+     */
+    @Value("${messaging.retry.hedging.max.threads:64}")
+    private int hedgingMaxThreads;
+
+    /**
+     * Runs hedged attempts, created on first use.
+     */
+    private volatile ExecutorService hedgingExecutor;
+
+    /**
+     * The retry budget, created on first use.
+     */
+    private volatile RetryBudget budget;
+
+    /**
+     * The latencies per destination, created on first use.
+     */
+    private volatile LatencyTracker latencies;
+
+    /**
+     * Number of retries.
+     */
+    private final LongAdder retryCount = new LongAdder();
+
+    /**
+     * Number of second attempts sent by hedging.
+     */
+    private final LongAdder hedgeCount = new LongAdder();
+
+    /**
+     * Number of retries or hedges refused by the retry budget.
+     */
+    private final LongAdder budgetExhaustedCount = new LongAdder();
+
+    /**
+     * @return True if retries are switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Check whether a request may be sent more than once.
+     *
+     * @param request The request.
+     * @return True if the request carries an idempotent IDS message.
+     */
+    public boolean isIdempotent(final Request request) {
+        final var message = request.tag(Message.class);
+        return message != null && IDEMPOTENT_TYPES.stream().anyMatch(t -> t.isInstance(message));
+    }
+
+    /**
+     * Send the request, retrying and hedging it if it is idempotent.
+     *
+     * @param client The client sending the request.
+     * @param request The request.
+     * @return The response of the last attempt.
+     * @throws IOException If the last attempt failed.
+     */
+    public Response execute(final OkHttpClient client, final Request request)
+            throws IOException {
+        return execute(client, request, Call::execute);
+    }
+
+    /**
+     * Send the request, retrying and hedging it if it is idempotent. Every attempt, including
+     * hedged ones, is executed by the given CallExecutor; backoff delays are not.
+     *
+     * @param client The client sending the request.
+     * @param request The request.
+     * @param callExecutor Executes the call of a single attempt.
+     * @return The response of the last attempt.
+     * @throws IOException If the last attempt failed.
+     */
+    public Response execute(final OkHttpClient client,
+                            final Request request,
+                            final CallExecutor callExecutor) throws IOException {
+        if (!isEnabled() || !isIdempotent(request)) {
+            return callExecutor.execute(client.newCall(request));
+        }
+
+        final var destination = Destination.of(request.url());
+        final var currentBudget = getBudget();
+        currentBudget.deposit();
+
+        for (var attempt = 1; ; attempt++) {
+            var retryAfterMillis = 0L;
+
+            try {
+                final var response = send(client, request, destination, callExecutor);
+
+                if (!RETRYABLE_CODES.contains(response.code())
+                    || !mayRetry(attempt, currentBudget)) {
+                    return response;
+                }
+
+                retryAfterMillis = retryAfterMillis(response);
+                response.close();
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Retrying request after temporary failure. [code=(IMSMED0165),"
+                              + " url=({}), attempt=({}), response-code=({})]",
+                              request.url(), attempt, response.code());
+                }
+            } catch (IOException e) {
+                if (!isRetryable(e) || !mayRetry(attempt, currentBudget)) {
+                    throw e;
+                }
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Retrying request after failed attempt. [code=(IMSMED0166),"
+                              + " url=({}), attempt=({}), exception=({})]",
+                              request.url(), attempt, e.getMessage());
+                }
+            }
+
+            retryCount.increment();
+            sleep(backoffMillis(attempt, retryAfterMillis));
+        }
+    }
+
+    /**
+     * @return Number of retries.
+     */
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * @return Number of second attempts sent by hedging.
+     */
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    /**
+     * @return Number of retries or hedges refused by the retry budget.
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.sum();
+    }
+
+    /**
+     * @return Number of retries currently allowed by the retry budget.
+     */
+    public int getAvailableRetries() {
+        return getBudget().getAvailable();
+    }
+
+    /**
+     * Get the latency percentile used as hedging delay for a destination.
+     *
+     * @param destination The destination.
+     * @return The latency percentile, empty if not enough requests were sent to it.
+     */
+    public Optional<Duration> getHedgingDelay(final Destination destination) {
+        return getLatencies().percentile(destination, hedgingQuantile)
+                             .map(delay -> delay.toMillis() < hedgingMinDelayMillis
+                                     ? Duration.ofMillis(hedgingMinDelayMillis)
+                                     : delay);
+    }
+
+    private Response send(final OkHttpClient client,
+                          final Request request,
+                          final Destination destination,
+                          final CallExecutor callExecutor) throws IOException {
+        if (Boolean.TRUE.equals(hedgingEnabled)) {
+            final var delay = getHedgingDelay(destination);
+
+            if (delay.isPresent()) {
+                return new HedgedCall(client, request, destination, getLatencies(),
+                                      getHedgingExecutor(), callExecutor)
+                        .execute(delay.get(), this::mayHedge);
+            }
+        }
+
+        final var started = System.nanoTime();
+        final var response = callExecutor.execute(client.newCall(request));
+
+        if (Boolean.TRUE.equals(hedgingEnabled) && response.isSuccessful()) {
+            getLatencies().record(destination, System.nanoTime() - started);
+        }
+
+        return response;
+    }
+
+    private boolean mayRetry(final int attempt, final RetryBudget currentBudget) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+
+        if (!currentBudget.tryWithdraw()) {
+            budgetExhaustedCount.increment();
+
+            if (log.isDebugEnabled()) {
+                log.debug("Retry budget exhausted, not retrying request. [code=(IMSMED0167)]");
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean mayHedge() {
+        if (!getBudget().tryWithdraw()) {
+            budgetExhaustedCount.increment();
+            return false;
+        }
+
+        hedgeCount.increment();
+        return true;
+    }
+
+    /**
+     * Stop the threads running hedged attempts.
+     */
+    @Override
+    public void destroy() {
+        final var current = hedgingExecutor;
+
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    private static boolean isRetryable(final IOException e) {
+        //only failures to connect, the request has not reached the destination
+        return !Thread.currentThread().isInterrupted()
+               && (e instanceof ConnectException
+                   || e instanceof NoRouteToHostException
+                   || e instanceof SocketTimeoutException
+                      && "connect timed out".equalsIgnoreCase(e.getMessage()));
+    }
+
+    private long backoffMillis(final int attempt, final long retryAfterMillis) {
+        final var cap = Math.min(maxBackoffMillis,
+                                 initialBackoffMillis << Math.min(attempt - 1, MAX_BACKOFF_SHIFT));
+        final var half = Math.max(1, cap / 2);
+        final var jittered = half + ThreadLocalRandom.current().nextLong(half + 1);
+
+        return Math.max(jittered, Math.min(retryAfterMillis, maxBackoffMillis));
+    }
+
+    private static long retryAfterMillis(final Response response) {
+        final var retryAfter = response.header("Retry-After");
+
+        if (retryAfter == null) {
+            return 0;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void sleep(final long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for retry!");
+        }
+    }
+
+    private RetryBudget getBudget() {
+        var current = budget;
+
+        if (current == null) {
+            synchronized (this) {
+                current = budget;
+                if (current == null) {
+                    current = new RetryBudget(budgetRatio, budgetReserve);
+                    budget = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    private ExecutorService getHedgingExecutor() {
+        var current = hedgingExecutor;
+
+        if (current == null) {
+            synchronized (this) {
+                current = hedgingExecutor;
+                if (current == null) {
+                    final var threadCount = new AtomicInteger();
+                    current = new ThreadPoolExecutor(
+                            0, Math.max(2, hedgingMaxThreads),
+                            HEDGING_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new SynchronousQueue<>(),
+                            runnable -> {
+                                final var thread = new Thread(runnable,
+                                        "ids-hedging-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            },
+                            new ThreadPoolExecutor.AbortPolicy());
+                    hedgingExecutor = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    private LatencyTracker getLatencies() {
+        var current = latencies;
+
+        if (current == null) {
+            synchronized (this) {
+                current = latencies;
+                if (current == null) {
+                    current = new LatencyTracker(hedgingMinSamples);
+                    latencies = current;
+                }
+            }
+        }
+
+        return current;
+    }
+}
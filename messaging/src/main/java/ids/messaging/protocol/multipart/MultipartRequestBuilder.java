@@ -59,6 +59,7 @@ public class MultipartRequestBuilder implements RequestBuilder {
         return new Request.Builder()
                 .url(target.toURL())
                 .post(body)
+                .tag(Message.class, message)
                 .build();
         } catch (MalformedURLException malformedURLException) {
             //taget.toUrl threw malformedURLException
@@ -88,6 +89,7 @@ public class MultipartRequestBuilder implements RequestBuilder {
             return new Request.Builder()
                     .url(target.toURL())
                     .post(body)
+                    .tag(Message.class, message)
                     .build();
         } catch (MalformedURLException malformedURLException) {
             //taget.toUrl threw malformedURLException
@@ -0,0 +1,73 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.multipart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import de.fraunhofer.iais.eis.Message;
+import ids.messaging.protocol.multipart.parser.StreamingMultipart;
+import lombok.Getter;
+
+/**
+ * A received response with deserialized message and a payload that has not been read yet.
+ * Must be closed to release the connection.
+ */
+public class StreamingResponse implements Closeable {
+
+    /**
+     * The message of the response.
+     */
+    @Getter
+    private final Message message;
+
+    /**
+     * The underlying multipart response.
+     */
+    private final StreamingMultipart multipart;
+
+    /**
+     * Create a StreamingResponse.
+     *
+     * @param message The deserialized message of the response.
+     * @param multipart The underlying multipart response.
+     */
+    public StreamingResponse(final Message message, final StreamingMultipart multipart) {
+        this.message = message;
+        this.multipart = multipart;
+    }
+
+    /**
+     * @return The unread payload of the response.
+     */
+    public Optional<InputStream> getPayload() {
+        return multipart.getPayload();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        multipart.close();
+    }
+}
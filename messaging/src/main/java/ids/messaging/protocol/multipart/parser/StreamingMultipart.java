@@ -0,0 +1,206 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.multipart.parser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import lombok.Getter;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.UploadContext;
+import org.apache.commons.fileupload.util.Streams;
+
+/**
+ * A multipart IDS message read from a stream: the header part is read completely, the
+ * payload part is left unread in the underlying stream, so that it can be consumed without
+ * holding it in memory. Closing the StreamingMultipart closes the underlying stream.
+ */
+public final class StreamingMultipart implements Closeable {
+
+    /**
+     * Maximum length of the first line, containing the boundary.
+     */
+    private static final int MAX_BOUNDARY_LINE = 1024;
+
+    /**
+     * The header part of the message.
+     */
+    @Getter
+    private final String header;
+
+    /**
+     * The payload part of the message, null if there is none.
+     */
+    private final InputStream payload;
+
+    /**
+     * The underlying stream.
+     */
+    private final InputStream body;
+
+    private StreamingMultipart(final String header,
+                               final InputStream payload,
+                               final InputStream body) {
+        this.header = header;
+        this.payload = payload;
+        this.body = body;
+    }
+
+    /**
+     * Read the header part of a multipart message from the stream. The payload part is
+     * usually sent after the header and is then not read. Otherwise it is buffered.
+     * The stream is closed if the message cannot be parsed.
+     *
+     * @param body The multipart message, the boundary is taken from its first line.
+     * @return The StreamingMultipart, positioned at the start of the payload.
+     * @throws MultipartParseException If no boundary or no header part can be found.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static StreamingMultipart parse(final InputStream body)
+            throws MultipartParseException, IOException {
+        final var buffered = new BufferedInputStream(body);
+
+        try {
+            final var boundary = readBoundary(buffered);
+            final var iterator = new FileUpload().getItemIterator(new Context(buffered, boundary));
+
+            String header = null;
+            InputStream payload = null;
+
+            while ((header == null || payload == null) && iterator.hasNext()) {
+                final var item = iterator.next();
+
+                if (!item.isFormField()) {
+                    continue;
+                }
+
+                if (MultipartDatapart.HEADER.toString().equals(item.getFieldName())) {
+                    header = Streams.asString(item.openStream(), StandardCharsets.UTF_8.name());
+                } else if (MultipartDatapart.PAYLOAD.toString().equals(item.getFieldName())) {
+                    payload = header == null
+                            ? new ByteArrayInputStream(item.openStream().readAllBytes())
+                            : item.openStream();
+                }
+            }
+
+            if (header == null) {
+                throw new MultipartParseException(
+                        "Could not parse Multipart! No header part found!");
+            }
+
+            return new StreamingMultipart(header, payload, buffered);
+        } catch (FileUploadException e) {
+            buffered.close();
+            throw new MultipartParseException("Could not parse Multipart stream!", e);
+        } catch (MultipartParseException | IOException | RuntimeException e) {
+            buffered.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The payload part of the message, must be consumed before closing.
+     */
+    public Optional<InputStream> getPayload() {
+        return Optional.ofNullable(payload);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+
+    private static String readBoundary(final BufferedInputStream body)
+            throws IOException, MultipartParseException {
+        body.mark(MAX_BOUNDARY_LINE);
+
+        final var line = new ByteArrayOutputStream();
+        var c = body.read();
+        while (c >= 0 && c != '\n' && line.size() < MAX_BOUNDARY_LINE - 1) {
+            line.write(c);
+            c = body.read();
+        }
+        body.reset();
+
+        final var first = line.toString(StandardCharsets.UTF_8);
+        if (c != '\n' || first.length() <= 2) {
+            throw new MultipartParseException(
+                    "Stream could not be parsed, could not find a boundary!");
+        }
+
+        return first.substring(2).trim();
+    }
+
+    /**
+     * UploadContext reading the multipart message from a stream of unknown length.
+     */
+    private static final class Context implements UploadContext {
+
+        /**
+         * The multipart message.
+         */
+        private final InputStream body;
+
+        /**
+         * The boundary of the parts.
+         */
+        private final String boundary;
+
+        private Context(final InputStream body, final String boundary) {
+            this.body = body;
+            this.boundary = boundary;
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return StandardCharsets.UTF_8.name();
+        }
+
+        @Override
+        public String getContentType() {
+            return "multipart/form-data, boundary=" + boundary;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return body;
+        }
+    }
+}
@@ -38,11 +38,16 @@ import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.mapping.RejectionMAP;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.builder.IdsRequestBuilderService;
+import ids.messaging.requests.cache.QueryCacheKey;
+import ids.messaging.requests.cache.QueryLoader;
+import ids.messaging.requests.cache.QueryResultCache;
+import ids.messaging.requests.cache.SelfDescriptionCache;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Abstract infrastructureservice to request self descriptions.
@@ -71,6 +76,37 @@ public abstract class InfrastructureService  {
      */
     protected final IdsRequestBuilderService requestBuilderService;
 
+    /**
+     * The QueryResultCache, may be null.
+     */
+    protected QueryResultCache queryResultCache;
+
+    /**
+     * The SelfDescriptionCache, may be null.
+     */
+    protected SelfDescriptionCache selfDescriptionCache;
+
+    /**
+     * Set the cache for query results. Queries are always sent if not set.
+     *
+     * @param queryResultCache The QueryResultCache.
+     */
+    @Autowired(required = false)
+    public void setQueryResultCache(final QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    /**
+     * Set the cache for remote self-descriptions. Self-descriptions are always requested
+     * if not set.
+     *
+     * @param selfDescriptionCache The SelfDescriptionCache.
+     */
+    @Autowired(required = false)
+    public void setSelfDescriptionCache(final SelfDescriptionCache selfDescriptionCache) {
+        this.selfDescriptionCache = selfDescriptionCache;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -86,13 +122,7 @@ public abstract class InfrastructureService  {
             DeserializeException,
             RejectionException,
             UnexpectedPayloadException {
-        logBuildingHeader();
-        return requestBuilderService.newRequest()
-                                    .subjectDescription()
-                                    .useMultipart()
-                                    .operationGet(null)
-                                    .execute(uri);
-
+        return requestSelfDescription(uri, null);
     }
 
     /**
@@ -112,13 +142,20 @@ public abstract class InfrastructureService  {
             DeserializeException,
             RejectionException,
             UnexpectedPayloadException {
-        logBuildingHeader();
-        return requestBuilderService.newRequest()
-                                    .subjectDescription()
-                                    .useMultipart()
-                                    .operationGet(requestedElement)
-                                    .execute(uri);
+        final QueryLoader<Object> loader = () -> {
+            logBuildingHeader();
+            return requestBuilderService.newRequest()
+                                        .subjectDescription()
+                                        .useMultipart()
+                                        .operationGet(requestedElement)
+                                        .execute(uri);
+        };
+
+        if (selfDescriptionCache == null) {
+            return loader.load();
+        }
 
+        return selfDescriptionCache.get(uri, requestedElement, loader);
     }
 
     /**
@@ -146,7 +183,8 @@ public abstract class InfrastructureService  {
                     String.format(
                             "Message rejected by target with following Reason: %s",
                             rejectionMessage.getRejectionReason()
-                    )
+                    ),
+                    rejectionMessage.getRejectionReason()
             );
         }
         throw new UnexpectedResponseException(
@@ -157,6 +195,42 @@ public abstract class InfrastructureService  {
         );
     }
 
+    /**
+     * Send a query through the query result cache, if there is one.
+     *
+     * @param key Identifies the query.
+     * @param loader Sends the query.
+     * @param <T> Type of the expected payload.
+     * @return The response to the query.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws UnknownResponseException If the format of the answer is not known.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When a RejectionMessage arrives unexpectedly.
+     * @throws UnexpectedPayloadException When the payload cannot be used.
+     */
+    protected <T> MessageContainer<T> cachedQuery(final QueryCacheKey key,
+                                                  final QueryLoader<T> loader)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return queryResultCache == null ? loader.load() : queryResultCache.get(key, loader);
+    }
+
     /**
      * Prints a log, that the message header is going to be build next.
      */
@@ -21,6 +21,16 @@ package ids.messaging.requests;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import de.fraunhofer.iais.eis.QueryLanguage;
 import de.fraunhofer.iais.eis.QueryScope;
@@ -39,15 +49,21 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.builder.IdsRequestBuilderService;
+import ids.messaging.requests.cache.QueryCacheKey;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.sparql.PagedQueryIterator;
+import ids.messaging.requests.sparql.QueryResultRow;
+import ids.messaging.requests.sparql.QueryResultStream;
+import ids.messaging.requests.sparql.QueryTemplate;
 import lombok.NonNull;
+import org.springframework.beans.factory.DisposableBean;
 
 /**
  * Service class to build Query-Messages (e.g. for Broker and Vocol).
  */
 public class QueryService extends InfrastructureService implements
-        IDSQueryService {
+        IDSQueryService, DisposableBean {
     /**
      * The default limit for the query.
      */
@@ -58,6 +74,28 @@ public class QueryService extends InfrastructureService implements
      */
     private static final int DEFAULT_OFFSET = 0;
 
+    /**
+     * The compiled fulltext query search.
+     */
+    private static final QueryTemplate FULL_TEXT_QUERY =
+            QueryTemplate.compile(FullTextQueryTemplate.FULL_TEXT_QUERY_TEMPLATE);
+
+    /**
+     * Maximum number of threads requesting result pages in the background, further pages are
+     * requested on the iterating thread.
+     */
+    private static final int MAX_PAGE_THREADS = 8;
+
+    /**
+     * Time in seconds an idle page thread is kept.
+     */
+    private static final long PAGE_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Executor requesting the next result page in the background, created on first use.
+     */
+    private volatile ExecutorService pageExecutor;
+
     /**
      * QueryService constructor.
      *
@@ -94,14 +132,71 @@ public class QueryService extends InfrastructureService implements
             DeserializeException,
             RejectionException,
             UnexpectedPayloadException {
+        return cachedQuery(
+                QueryCacheKey.of(targetURI, query, queryLanguage, queryScope, queryTarget),
+                () -> {
+                    super.logBuildingHeader();
+                    return requestBuilderService
+                            .newRequestExpectingType(String.class)
+                            .withPayload(query)
+                            .subjectQuery()
+                            .useMultipart()
+                            .operationSend(queryLanguage, queryScope, queryTarget)
+                            .execute(targetURI);
+                });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<String> query(@NonNull final URI targetURI,
+                                          @NonNull final QueryTemplate template,
+                                          @NonNull final Map<String, ?> parameters,
+                                          @NonNull final QueryLanguage queryLanguage,
+                                          @NonNull final QueryScope queryScope,
+                                          @NonNull final QueryTarget queryTarget)
+            throws IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return query(targetURI, template.render(parameters),
+                     queryLanguage, queryScope, queryTarget);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryResultStream queryResults(@NonNull final URI targetURI,
+                                          @NonNull final String query,
+                                          @NonNull final QueryLanguage queryLanguage,
+                                          @NonNull final QueryScope queryScope,
+                                          @NonNull final QueryTarget queryTarget)
+            throws IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException {
         super.logBuildingHeader();
         return requestBuilderService
-                .newRequestExpectingType(String.class)
+                .newRequest()
                 .withPayload(query)
                 .subjectQuery()
                 .useMultipart()
                 .operationSend(queryLanguage, queryScope, queryTarget)
-                .execute(targetURI);
+                .executeStreaming(targetURI);
     }
 
     /**
@@ -163,15 +258,89 @@ public class QueryService extends InfrastructureService implements
             }
         }
 
-        final var payload = String.format(
-                FullTextQueryTemplate.FULL_TEXT_QUERY,
-                serviceSearchTerm, limit, offset);
-        return requestBuilderService
-                .newRequestExpectingType(String.class)
-                .withPayload(payload)
-                .subjectQuery()
-                .useMultipart()
-                .operationSend(QueryLanguage.SPARQL, queryScope, queryTarget)
-                .execute(targetURI);
+        final var payload = FULL_TEXT_QUERY.render(Map.of(
+                "term", serviceSearchTerm, "limit", limit, "offset", offset));
+        return cachedQuery(
+                new QueryCacheKey(targetURI, payload, QueryLanguage.SPARQL, queryScope,
+                                  queryTarget, limit, offset),
+                () -> requestBuilderService
+                        .newRequestExpectingType(String.class)
+                        .withPayload(payload)
+                        .subjectQuery()
+                        .useMultipart()
+                        .operationSend(QueryLanguage.SPARQL, queryScope, queryTarget)
+                        .execute(targetURI));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PagedQueryIterator fullTextSearchIterator(@NonNull final URI targetURI,
+                                                     @NonNull final String searchTerm,
+                                                     @NonNull final QueryScope queryScope,
+                                                     @NonNull final QueryTarget queryTarget,
+                                                     final int pageSize) {
+        return new PagedQueryIterator(
+                (limit, offset) -> fullTextSearch(targetURI, searchTerm, queryScope,
+                                                  queryTarget, limit, offset)
+                        .getReceivedPayload(),
+                pageSize,
+                getPageExecutor());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<QueryResultRow> fullTextSearchStream(@NonNull final URI targetURI,
+                                                       @NonNull final String searchTerm,
+                                                       @NonNull final QueryScope queryScope,
+                                                       @NonNull final QueryTarget queryTarget,
+                                                       final int pageSize) {
+        final var iterator = fullTextSearchIterator(targetURI, searchTerm, queryScope,
+                                                    queryTarget, pageSize);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator,
+                                                    Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(iterator::close);
+    }
+
+    /**
+     * Stop the threads requesting result pages in the background.
+     */
+    @Override
+    public void destroy() {
+        final var executor = pageExecutor;
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService getPageExecutor() {
+        var executor = pageExecutor;
+
+        if (executor == null) {
+            synchronized (this) {
+                executor = pageExecutor;
+                if (executor == null) {
+                    final var threadCount = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(
+                            0, MAX_PAGE_THREADS,
+                            PAGE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new SynchronousQueue<>(),
+                            runnable -> {
+                                final var thread = new Thread(runnable,
+                                        "ids-query-page-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    pageExecutor = executor;
+                }
+            }
+        }
+
+        return executor;
     }
 }
@@ -33,12 +33,14 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
 
 /**
  * RequestBuilder for messages with subject 'access token'.
@@ -53,8 +55,10 @@ public class AccessTokenRequestBuilder<T> extends IdsRequestBuilder<T>
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
-        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider);
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
+        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider,
+              fanOutExecutors);
     }
 
     /**
@@ -90,18 +94,7 @@ public class AccessTokenRequestBuilder<T> extends IdsRequestBuilder<T>
      * {@inheritDoc}
      */
     @Override
-    public MessageContainer<T> execute(final URI target)
-            throws DapsTokenManagerException,
-            ShaclValidatorException,
-            SerializeException,
-            ClaimsException,
-            UnknownResponseException,
-            SendMessageException,
-            MultipartParseException,
-            IOException,
-            DeserializeException,
-            RejectionException,
-            UnexpectedPayloadException {
+    protected MessageTemplate<?> template() throws SendMessageException {
         if (protocolType == null || operation == null) {
             final var errorMessage = String.format(
                     "Could not send Message, needed Fields are null: %s%s",
@@ -119,11 +112,9 @@ public class AccessTokenRequestBuilder<T> extends IdsRequestBuilder<T>
             case MULTIPART:
                 switch (operation) {
                     case RECEIVE:
-                        //build and send artifact request message
-                        final var message = requestTemplateProvider
-                                .accessTokenRequestMessageTemplate()
-                                .buildMessage();
-                        return sendMultipart(target, message);
+                        //template of artifact request message
+                        return requestTemplateProvider
+                                .accessTokenRequestMessageTemplate();
                     default:
                         throw new UnsupportedOperationException("Unsupported Operation!");
                 }
@@ -132,6 +123,25 @@ public class AccessTokenRequestBuilder<T> extends IdsRequestBuilder<T>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<T> execute(final URI target)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return sendMultipart(target, template().buildMessage());
+    }
+
     /**
      * {@inheritDoc}
      */
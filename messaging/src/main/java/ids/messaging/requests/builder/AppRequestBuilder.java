@@ -33,12 +33,14 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
 
 /**
  * RequestBuilder for messages with subject 'app'.
@@ -58,8 +60,10 @@ public class AppRequestBuilder<T> extends IdsRequestBuilder<T> implements
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
-        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider);
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
+        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider,
+              fanOutExecutors);
     }
 
     /**
@@ -134,18 +138,7 @@ public class AppRequestBuilder<T> extends IdsRequestBuilder<T> implements
      * {@inheritDoc}
      */
     @Override
-    public MessageContainer<T> execute(final URI target)
-            throws DapsTokenManagerException,
-            ShaclValidatorException,
-            SerializeException,
-            ClaimsException,
-            UnknownResponseException,
-            SendMessageException,
-            MultipartParseException,
-            IOException,
-            DeserializeException,
-            RejectionException,
-            UnexpectedPayloadException {
+    protected MessageTemplate<?> template() throws SendMessageException {
         if (protocolType == null || operation == null) {
             final var errorMessage = String.format(
                     "Could not send Message, needed Fields are null: %s%s",
@@ -162,21 +155,17 @@ public class AppRequestBuilder<T> extends IdsRequestBuilder<T> implements
             case MULTIPART:
                 switch (operation) {
                     case UPDATE:
-                        final var updateMessage = notificationTemplateProvider
-                                .appAvailableMessageTemplate(affectedApp).buildMessage();
-                        return sendMultipart(target, updateMessage);
+                        return notificationTemplateProvider
+                                .appAvailableMessageTemplate(affectedApp);
                     case DELETE:
-                        final var deleteMessage = notificationTemplateProvider
-                                .appDeleteMessageTemplate(affectedApp).buildMessage();
-                        return sendMultipart(target, deleteMessage);
+                        return notificationTemplateProvider
+                                .appDeleteMessageTemplate(affectedApp);
                     case DISABLE:
-                        final var disableMessage = notificationTemplateProvider
-                                .appUnavailableMessageTemplate(affectedApp).buildMessage();
-                        return sendMultipart(target, disableMessage);
+                        return notificationTemplateProvider
+                                .appUnavailableMessageTemplate(affectedApp);
                     case REGISTER:
-                        final var registerMessage = requestTemplateProvider
-                                .appRegistrationRequestMessageTemplate(affectedApp).buildMessage();
-                        return sendMultipart(target, registerMessage);
+                        return requestTemplateProvider
+                                .appRegistrationRequestMessageTemplate(affectedApp);
                     default:
                         throw new UnsupportedOperationException("Unsupported Operation!");
                 }
@@ -185,6 +174,25 @@ public class AppRequestBuilder<T> extends IdsRequestBuilder<T> implements
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<T> execute(final URI target)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return sendMultipart(target, template().buildMessage());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -33,12 +33,14 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
 
 /**
  * RequestBuilder for messages with subject 'artifact'.
@@ -58,8 +60,10 @@ public class ArtifactRequestBuilder<T> extends IdsRequestBuilder<T> implements
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
-        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider);
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
+        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider,
+              fanOutExecutors);
     }
 
     /**
@@ -97,18 +101,7 @@ public class ArtifactRequestBuilder<T> extends IdsRequestBuilder<T> implements
      * {@inheritDoc}
      */
     @Override
-    public MessageContainer<T> execute(final URI target)
-            throws DapsTokenManagerException,
-            ShaclValidatorException,
-            SerializeException,
-            ClaimsException,
-            UnknownResponseException,
-            SendMessageException,
-            MultipartParseException,
-            IOException,
-            DeserializeException,
-            RejectionException,
-            UnexpectedPayloadException {
+    protected MessageTemplate<?> template() throws SendMessageException {
         //send ArtifactRequestMessage with settings:
         if (protocolType == null || operation == null) {
             final var errorMessage = String.format(
@@ -126,12 +119,10 @@ public class ArtifactRequestBuilder<T> extends IdsRequestBuilder<T> implements
             case MULTIPART:
                 switch (operation) {
                     case RECEIVE:
-                        //build and send artifact request message
-                        final var message = requestTemplateProvider
+                        //template of artifact request message
+                        return requestTemplateProvider
                             .artifactRequestMessageTemplate(
-                                    requestedArtifact)
-                            .buildMessage();
-                        return sendMultipart(target, message);
+                                    requestedArtifact);
                     default:
                         throw new UnsupportedOperationException("Unsupported Operation!");
                 }
@@ -140,6 +131,25 @@ public class ArtifactRequestBuilder<T> extends IdsRequestBuilder<T> implements
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<T> execute(final URI target)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return sendMultipart(target, template().buildMessage());
+    }
+
     /**
      * {@inheritDoc}
      */
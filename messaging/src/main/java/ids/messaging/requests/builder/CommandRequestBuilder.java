@@ -33,12 +33,14 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
 
 /**
  * RequestBuilder for messages with subject 'command'.
@@ -58,8 +60,10 @@ public class CommandRequestBuilder<T> extends IdsRequestBuilder<T> implements
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
-        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider);
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
+        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider,
+              fanOutExecutors);
     }
 
     /**
@@ -107,18 +111,7 @@ public class CommandRequestBuilder<T> extends IdsRequestBuilder<T> implements
      * {@inheritDoc}
      */
     @Override
-    public MessageContainer<T> execute(final URI target)
-            throws DapsTokenManagerException,
-            ShaclValidatorException,
-            SerializeException,
-            ClaimsException,
-            UnknownResponseException,
-            SendMessageException,
-            MultipartParseException,
-            IOException,
-            DeserializeException,
-            RejectionException,
-            UnexpectedPayloadException {
+    protected MessageTemplate<?> template() throws SendMessageException {
         if (protocolType == null || operation == null) {
             final var errorMessage = String.format(
                     "Could not send Message, needed Fields are null: %s%s",
@@ -135,15 +128,11 @@ public class CommandRequestBuilder<T> extends IdsRequestBuilder<T> implements
             case MULTIPART:
                 switch (operation) {
                     case UPDATE:
-                        final var updateMessage = requestTemplateProvider
-                            .uploadMessageTemplate()
-                            .buildMessage();
-                        return sendMultipart(target, updateMessage);
+                        return requestTemplateProvider
+                            .uploadMessageTemplate();
                     case COMMAND:
-                        final var commandMessage = requestTemplateProvider
-                            .invokeOperationMessageTemplate(operationReference)
-                            .buildMessage();
-                        return sendMultipart(target, commandMessage);
+                        return requestTemplateProvider
+                            .invokeOperationMessageTemplate(operationReference);
                     default:
                         throw new UnsupportedOperationException("Unsupported Operation!");
                 }
@@ -152,6 +141,25 @@ public class CommandRequestBuilder<T> extends IdsRequestBuilder<T> implements
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<T> execute(final URI target)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return sendMultipart(target, template().buildMessage());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -34,12 +34,14 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
 
 /**
  * RequestBuilder for messages with subject 'connector certificate'.
@@ -64,8 +66,10 @@ public class ConnectorCertificateRequestBuilder<T> extends IdsRequestBuilder<T>
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
-        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider);
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
+        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider,
+              fanOutExecutors);
     }
 
     /**
@@ -119,18 +123,7 @@ public class ConnectorCertificateRequestBuilder<T> extends IdsRequestBuilder<T>
      * {@inheritDoc}
      */
     @Override
-    public MessageContainer<T> execute(final URI target)
-            throws DapsTokenManagerException,
-            ShaclValidatorException,
-            SerializeException,
-            ClaimsException,
-            UnknownResponseException,
-            SendMessageException,
-            MultipartParseException,
-            IOException,
-            DeserializeException,
-            RejectionException,
-            UnexpectedPayloadException {
+    protected MessageTemplate<?> template() throws SendMessageException {
         if (protocolType == null || operation == null) {
             final var errorMessage = String.format(
                     "Could not send Message, needed Fields are null: %s%s",
@@ -147,17 +140,13 @@ public class ConnectorCertificateRequestBuilder<T> extends IdsRequestBuilder<T>
             case MULTIPART:
                 switch (operation) {
                     case UPDATE:
-                        final var updateMessage = notificationTemplateProvider
+                        return notificationTemplateProvider
                                 .connectorCertificateGrantedMessageTemplate(
-                                        affectedConnector)
-                                .buildMessage();
-                        return sendMultipart(target, updateMessage);
+                                        affectedConnector);
                     case DELETE:
-                        final var deleteMessage = notificationTemplateProvider
+                        return notificationTemplateProvider
                                 .connectorCertificateRevokedMessageTemplate(
-                                    affectedConnector, revocationReason)
-                                .buildMessage();
-                        return sendMultipart(target, deleteMessage);
+                                    affectedConnector, revocationReason);
                     default:
                         throw new UnsupportedOperationException("Unsupported Operation!");
                 }
@@ -166,6 +155,25 @@ public class ConnectorCertificateRequestBuilder<T> extends IdsRequestBuilder<T>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<T> execute(final URI target)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return sendMultipart(target, template().buildMessage());
+    }
+
     /**
      * {@inheritDoc}
      */
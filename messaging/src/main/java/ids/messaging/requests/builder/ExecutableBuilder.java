@@ -30,9 +30,12 @@ import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutOptions;
+import ids.messaging.requests.fanout.FanOutResult;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
 
 /**
  * A RequestBuilder that is able to execute a request will implement this class.
@@ -73,4 +76,39 @@ public interface ExecutableBuilder<T> {
             RejectionException,
             UnexpectedPayloadException;
 
+    /**
+     * Validate the current information of the builder once and get an immutable,
+     * thread-safe request, which can be executed many times.
+     *
+     * @return the prepared request
+     * @throws SendMessageException when needed fields of the builder are missing
+     */
+    PreparedIdsRequest<T> prepare() throws SendMessageException;
+
+    /**
+     * Send the same message to all targets concurrently and wait for all responses.
+     *
+     * @param targets targetURIs the message will be sent to
+     * @return FanOutResult providing the responses in completion order
+     * @throws DapsTokenManagerException when DAT cannot be received from DAPS
+     * @throws SendMessageException when needed fields of the builder are missing
+     */
+    FanOutResult<T> executeAll(Collection<URI> targets)
+            throws DapsTokenManagerException,
+            SendMessageException;
+
+    /**
+     * Send the same message to all targets concurrently, using the given completion mode,
+     * concurrency cap and per-target timeout.
+     *
+     * @param targets targetURIs the message will be sent to
+     * @param options the fan-out options
+     * @return FanOutResult providing the responses in completion order
+     * @throws DapsTokenManagerException when DAT cannot be received from DAPS
+     * @throws SendMessageException when needed fields of the builder are missing
+     */
+    FanOutResult<T> executeAll(Collection<URI> targets, FanOutOptions options)
+            throws DapsTokenManagerException,
+            SendMessageException;
+
 }
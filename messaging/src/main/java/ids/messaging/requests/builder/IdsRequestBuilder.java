@@ -21,26 +21,30 @@ package ids.messaging.requests.builder;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
 import java.util.Optional;
 
 import de.fraunhofer.iais.eis.Message;
-import de.fraunhofer.iais.eis.RejectionMessage;
 import ids.messaging.common.DeserializeException;
 import ids.messaging.common.SerializeException;
 import ids.messaging.core.daps.ClaimsException;
+import ids.messaging.core.daps.DapsTokenManagerException;
 import ids.messaging.protocol.MessageService;
 import ids.messaging.protocol.http.SendMessageException;
 import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
-import ids.messaging.protocol.multipart.mapping.GenericMessageAndPayload;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
+import ids.messaging.requests.fanout.FanOutOptions;
+import ids.messaging.requests.fanout.FanOutResult;
 
 /**
  * Builder class for configurable ids requests.
@@ -64,6 +68,11 @@ public class IdsRequestBuilder<T> {
      */
     protected NotificationTemplateProvider notificationTemplateProvider;
 
+    /**
+     * Threads of {@link #executeAll(Collection, FanOutOptions)}.
+     */
+    protected FanOutExecutors fanOutExecutors;
+
     /**
      * The chosen protocol type.
      */
@@ -96,17 +105,20 @@ public class IdsRequestBuilder<T> {
      * @param messageService The messageService.
      * @param notificationTemplateProvider The NotificationTemplateProvider.
      * @param requestTemplateProvider The RequestTemplateProvider.
+     * @param fanOutExecutors Threads of fan-out executions.
      */
     IdsRequestBuilder(
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
         this.expectedPayload = Optional.ofNullable(expected);
         this.optPayload = Optional.empty();
         this.messageService = messageService;
         this.requestTemplateProvider = requestTemplateProvider;
         this.notificationTemplateProvider = notificationTemplateProvider;
+        this.fanOutExecutors = fanOutExecutors;
     }
 
     /**
@@ -139,7 +151,8 @@ public class IdsRequestBuilder<T> {
         final var builder = new ArtifactRequestBuilder<>(expectedPayload.orElse(null),
                    messageService,
                    requestTemplateProvider,
-                   notificationTemplateProvider)
+                   notificationTemplateProvider,
+                   fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -154,7 +167,8 @@ public class IdsRequestBuilder<T> {
                 new ConnectorRequestBuilder<>(expectedPayload.orElse(null),
                   messageService,
                   requestTemplateProvider,
-                  notificationTemplateProvider)
+                  notificationTemplateProvider,
+                  fanOutExecutors)
             .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -168,7 +182,8 @@ public class IdsRequestBuilder<T> {
         final var builder = new ResourceRequestBuilder<>(expectedPayload.orElse(null),
                    messageService,
                    requestTemplateProvider,
-                   notificationTemplateProvider)
+                   notificationTemplateProvider,
+                   fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -182,7 +197,8 @@ public class IdsRequestBuilder<T> {
         final var builder = new QueryRequestBuilder<>(expectedPayload.orElse(null),
                     messageService,
                     requestTemplateProvider,
-                    notificationTemplateProvider)
+                    notificationTemplateProvider,
+                    fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -197,7 +213,8 @@ public class IdsRequestBuilder<T> {
                 new ParticipantRequestBuilder<>(expectedPayload.orElse(null),
                     messageService,
                     requestTemplateProvider,
-                    notificationTemplateProvider)
+                    notificationTemplateProvider,
+                    fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -211,7 +228,8 @@ public class IdsRequestBuilder<T> {
         final var builder = new AppRequestBuilder<>(expectedPayload.orElse(null),
                   messageService,
                   requestTemplateProvider,
-                  notificationTemplateProvider)
+                  notificationTemplateProvider,
+                  fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -226,7 +244,8 @@ public class IdsRequestBuilder<T> {
                 new DescriptionRequestBuilder<>(expectedPayload.orElse(null),
                     messageService,
                     requestTemplateProvider,
-                    notificationTemplateProvider)
+                    notificationTemplateProvider,
+                    fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -240,7 +259,8 @@ public class IdsRequestBuilder<T> {
         final var builder = new LogRequestBuilder<>(expectedPayload.orElse(null),
                   messageService,
                   requestTemplateProvider,
-                  notificationTemplateProvider)
+                  notificationTemplateProvider,
+                  fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -255,7 +275,8 @@ public class IdsRequestBuilder<T> {
                     expectedPayload.orElse(null),
                     messageService,
                     requestTemplateProvider,
-                    notificationTemplateProvider)
+                    notificationTemplateProvider,
+                    fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -270,7 +291,8 @@ public class IdsRequestBuilder<T> {
                    expectedPayload.orElse(null),
                    messageService,
                    requestTemplateProvider,
-                   notificationTemplateProvider)
+                   notificationTemplateProvider,
+                   fanOutExecutors)
                .withPayload(optPayload.orElse(null));
        return this.throwOnRejection ? builder.throwOnRejection() : builder;
    }
@@ -284,7 +306,8 @@ public class IdsRequestBuilder<T> {
        final var builder = new ContractRequestBuilder<>(expectedPayload.orElse(null),
                                                   messageService,
                                                   requestTemplateProvider,
-                                                  notificationTemplateProvider)
+                                                  notificationTemplateProvider,
+                                                  fanOutExecutors)
                .withPayload(optPayload.orElse(null));
        return this.throwOnRejection ? builder.throwOnRejection() : builder;
    }
@@ -298,7 +321,8 @@ public class IdsRequestBuilder<T> {
        final var builder = new CommandRequestBuilder<>(expectedPayload.orElse(null),
                                                  messageService,
                                                  requestTemplateProvider,
-                                                 notificationTemplateProvider)
+                                                 notificationTemplateProvider,
+                                                 fanOutExecutors)
                .withPayload(optPayload.orElse(null));
        return this.throwOnRejection ? builder.throwOnRejection() : builder;
    }
@@ -313,7 +337,8 @@ public class IdsRequestBuilder<T> {
                expectedPayload.orElse(null),
                messageService,
                requestTemplateProvider,
-               notificationTemplateProvider)
+               notificationTemplateProvider,
+               fanOutExecutors)
                .withPayload(optPayload.orElse(null));
        return this.throwOnRejection ? builder.throwOnRejection() : builder;
    }
@@ -328,7 +353,8 @@ public class IdsRequestBuilder<T> {
                 new ContractOfferRequestBuilder<>(expectedPayload.orElse(null),
                                                   messageService,
                                                   requestTemplateProvider,
-                                                  notificationTemplateProvider)
+                                                  notificationTemplateProvider,
+                                                  fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
@@ -343,11 +369,65 @@ public class IdsRequestBuilder<T> {
                 new AccessTokenRequestBuilder<>(expectedPayload.orElse(null),
                                                 messageService,
                                                 requestTemplateProvider,
-                                                notificationTemplateProvider)
+                                                notificationTemplateProvider,
+                                                fanOutExecutors)
                 .withPayload(optPayload.orElse(null));
         return this.throwOnRejection ? builder.throwOnRejection() : builder;
     }
 
+    /**
+     * Validate subject, operation and protocol of the request once and get an immutable,
+     * thread-safe request, which can be executed many times with different targets and
+     * payloads.
+     *
+     * @return The PreparedIdsRequest.
+     * @throws SendMessageException When needed fields of the builder are missing.
+     */
+    public PreparedIdsRequest<T> prepare() throws SendMessageException {
+        return prepared(template());
+    }
+
+    /**
+     * Send the same message to all targets concurrently and wait for the responses of all
+     * targets, see {@link #executeAll(Collection, FanOutOptions)}.
+     *
+     * @param targets Target URIs the message will be sent to.
+     * @return The running FanOutResult.
+     * @throws DapsTokenManagerException When DAT cannot be received from DAPS.
+     * @throws SendMessageException When needed fields of the builder are missing.
+     */
+    public FanOutResult<T> executeAll(final Collection<URI> targets)
+            throws DapsTokenManagerException, SendMessageException {
+        return executeAll(targets, FanOutOptions.all());
+    }
+
+    /**
+     * Send the same message to all targets concurrently. The message (and its DAT) is built
+     * once, at most {@link FanOutOptions#getMaxConcurrency()} targets are contacted at the
+     * same time and the results are available in completion order.
+     *
+     * @param targets Target URIs the message will be sent to.
+     * @param options Completion mode, concurrency cap and per-target timeout.
+     * @return The running FanOutResult.
+     * @throws DapsTokenManagerException When DAT cannot be received from DAPS.
+     * @throws SendMessageException When needed fields of the builder are missing.
+     */
+    public FanOutResult<T> executeAll(final Collection<URI> targets,
+                                      final FanOutOptions options)
+            throws DapsTokenManagerException, SendMessageException {
+        return prepare().executeAll(targets, optPayload.orElse(null), options);
+    }
+
+    /**
+     * Get the template of the message defined by the current information of the builder.
+     *
+     * @return The MessageTemplate.
+     * @throws SendMessageException When needed fields of the builder are missing.
+     */
+    protected MessageTemplate<?> template() throws SendMessageException {
+        throw new SendMessageException("No subject selected for the request!");
+    }
+
     /**
      * Send a multipart message to target using current information of the RequestBuilder.
      *
@@ -378,30 +458,14 @@ public class IdsRequestBuilder<T> {
             MultipartParseException,
             IOException,
             DeserializeException {
-        final var messageAndPayload =
-                new GenericMessageAndPayload(message, optPayload.orElse(null));
-        final var response = messageService.sendIdsMessage(messageAndPayload, target);
-        final var header = response.getMessage();
-        final var payload = response.getPayload().orElse(null);
-        if (throwOnRejection && header instanceof RejectionMessage) {
-            throw new RejectionException(
-                    String.format("Message was Rejected! Reason: %s", payload),
-                    ((RejectionMessage) header).getRejectionReason()
-            );
-        }
-        if (expectedPayload.isPresent()) {
-            if (payload == null || !expectedPayload.get().isAssignableFrom(payload.getClass())) {
-                throw new UnexpectedPayloadException(
-                        String.format(
-                                "Expected payload of type %s but received %s!",
-                                expectedPayload.get(),
-                                payload == null ? "null" : payload.getClass()
-                        ),
-                        new MessageContainer<>(header, payload));
-            } else {
-                return new MessageContainer<>(header, (T) payload);
-            }
-        }
-        return new MessageContainer<>(header, (T) payload);
+        return prepared(() -> message).send(target, message, optPayload.orElse(null));
+    }
+
+    private PreparedIdsRequest<T> prepared(final MessageTemplate<?> template) {
+        return new PreparedIdsRequest<>(messageService,
+                                        template,
+                                        expectedPayload.orElse(null),
+                                        throwOnRejection,
+                                        fanOutExecutors);
     }
 }
@@ -19,11 +19,22 @@
  */
 package ids.messaging.requests.builder;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import ids.messaging.protocol.MessageService;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
+import ids.messaging.requests.fanout.FanOutExecutors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -32,7 +43,12 @@ import org.springframework.stereotype.Service;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class IdsRequestBuilderService {
+public class IdsRequestBuilderService implements DisposableBean {
+
+    /**
+     * Time in seconds an idle fan-out thread is kept.
+     */
+    private static final long FAN_OUT_KEEP_ALIVE_SECONDS = 60L;
 
     /**
      * {@link MessageService} used for sending messages.
@@ -49,6 +65,28 @@ public class IdsRequestBuilderService {
      */
     private final NotificationTemplateProvider notificationTemplateProvider;
 
+    /**
+     * Maximum number of threads running the requests of fan-out executions, further
+     * requests wait for a thread.
+     */
+    @Value("${messaging.fanout.max.threads:64}")
+    private int fanOutMaxThreads;
+
+    /**
+     * Runs the requests of fan-out executions, created on first use.
+     */
+    private ExecutorService fanOutExecutor;
+
+    /**
+     * Enforces the per-target timeouts of fan-out executions, created on first use.
+     */
+    private ScheduledExecutorService fanOutTimer;
+
+    /**
+     * Threads of fan-out executions handed to the request builders, created on first use.
+     */
+    private volatile FanOutExecutors fanOutExecutors;
+
     /**
      * Get a requestbuilder, expecting no specific payload type.
      *
@@ -58,7 +96,8 @@ public class IdsRequestBuilderService {
         return new IdsRequestBuilder<>(null,
                                        messageService,
                                        requestTemplateProvider,
-                                       notificationTemplateProvider);
+                                       notificationTemplateProvider,
+                                       getFanOutExecutors());
     }
 
     /**
@@ -72,6 +111,62 @@ public class IdsRequestBuilderService {
         return new IdsRequestBuilder<>(expected,
                                        messageService,
                                        requestTemplateProvider,
-                                       notificationTemplateProvider);
+                                       notificationTemplateProvider,
+                                       getFanOutExecutors());
+    }
+
+    /**
+     * Stop the threads running and timing out the requests of fan-out executions.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+
+        if (fanOutTimer != null) {
+            fanOutTimer.shutdownNow();
+        }
+    }
+
+    private FanOutExecutors getFanOutExecutors() {
+        var current = fanOutExecutors;
+
+        if (current == null) {
+            synchronized (this) {
+                current = fanOutExecutors;
+                if (current == null) {
+                    final var threads = Math.max(1, fanOutMaxThreads);
+                    final var threadCount = new AtomicInteger();
+                    final var executor = new ThreadPoolExecutor(
+                            threads, threads,
+                            FAN_OUT_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            runnable -> {
+                                final var thread = new Thread(runnable,
+                                        "ids-fanout-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    executor.allowCoreThreadTimeOut(true);
+
+                    final var timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                        final var thread = new Thread(runnable, "ids-fanout-timer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    // Timeouts of targets answering in time are cancelled, drop them from the
+                    // queue instead of keeping them until their delay elapses.
+                    timer.setRemoveOnCancelPolicy(true);
+
+                    fanOutExecutor = executor;
+                    fanOutTimer = timer;
+                    current = new FanOutExecutors(executor, timer);
+                    fanOutExecutors = current;
+                }
+            }
+        }
+
+        return current;
     }
 }
@@ -34,12 +34,14 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
 
 /**
  * RequestBuilder for messages with subject 'participant certificate'.
@@ -65,11 +67,13 @@ public class ParticipantCertificateRequestBuilder<T>
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
         super(expected,
               messageService,
               requestTemplateProvider,
-              notificationTemplateProvider);
+              notificationTemplateProvider,
+              fanOutExecutors);
     }
 
     /**
@@ -126,19 +130,7 @@ public class ParticipantCertificateRequestBuilder<T>
      * {@inheritDoc}
      */
     @Override
-    public MessageContainer<T> execute(final URI target)
-            throws
-            DapsTokenManagerException,
-            ShaclValidatorException,
-            SerializeException,
-            ClaimsException,
-            UnknownResponseException,
-            SendMessageException,
-            MultipartParseException,
-            IOException,
-            DeserializeException,
-            RejectionException,
-            UnexpectedPayloadException {
+    protected MessageTemplate<?> template() throws SendMessageException {
         if (protocolType == null || operation == null) {
             final var errorMessage = String.format(
                     "Could not send Message, needed Fields are null: %s%s",
@@ -155,16 +147,13 @@ public class ParticipantCertificateRequestBuilder<T>
             case MULTIPART:
                 switch (operation) {
                     case UPDATE:
-                        final var updateMessage = notificationTemplateProvider
+                        return notificationTemplateProvider
                                 .participantCertificateGrantedMessageTemplate(
-                                        affectedParticipant).buildMessage();
-                        return sendMultipart(target, updateMessage);
+                                        affectedParticipant);
                     case DELETE:
-                        final var deleteMessage = notificationTemplateProvider
+                        return notificationTemplateProvider
                                 .participantCertificateRevokedMessageTemplate(
-                                        affectedParticipant, revocationReason)
-                                .buildMessage();
-                        return sendMultipart(target, deleteMessage);
+                                        affectedParticipant, revocationReason);
                     default:
                         throw new UnsupportedOperationException("Unsupported Operation!");
                 }
@@ -173,6 +162,26 @@ public class ParticipantCertificateRequestBuilder<T>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<T> execute(final URI target)
+            throws
+            DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return sendMultipart(target, template().buildMessage());
+    }
+
     /**
      * {@inheritDoc}
      */
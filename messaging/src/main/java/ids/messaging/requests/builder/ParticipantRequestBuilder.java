@@ -33,12 +33,14 @@ import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
 
 /**
  * RequestBuilder for messages with subject 'participant'.
@@ -57,11 +59,13 @@ public class ParticipantRequestBuilder<T> extends IdsRequestBuilder<T>
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
         super(expected,
               messageService,
               requestTemplateProvider,
-              notificationTemplateProvider);
+              notificationTemplateProvider,
+              fanOutExecutors);
     }
 
     /**
@@ -128,19 +132,7 @@ public class ParticipantRequestBuilder<T> extends IdsRequestBuilder<T>
      * {@inheritDoc}
      */
     @Override
-    public MessageContainer<T> execute(final URI target)
-            throws
-            DapsTokenManagerException,
-            ShaclValidatorException,
-            SerializeException,
-            ClaimsException,
-            UnknownResponseException,
-            SendMessageException,
-            MultipartParseException,
-            IOException,
-            DeserializeException,
-            RejectionException,
-            UnexpectedPayloadException {
+    protected MessageTemplate<?> template() throws SendMessageException {
         if (protocolType == null || operation == null) {
             final var errorMessage = String.format(
                     "Could not send Message, needed Fields are null: %s%s",
@@ -157,20 +149,17 @@ public class ParticipantRequestBuilder<T> extends IdsRequestBuilder<T>
             case MULTIPART:
                 switch (operation) {
                     case UPDATE:
-                        final var updateMessage = notificationTemplateProvider
+                        return notificationTemplateProvider
                                 .participantUpdateMessageTemplate(
-                                        affectedParticipant).buildMessage();
-                        return sendMultipart(target, updateMessage);
+                                        affectedParticipant);
                     case DELETE:
-                        final var deleteMessage = notificationTemplateProvider
+                        return notificationTemplateProvider
                                 .participantUnavailableMessageTemplate(
-                                        affectedParticipant).buildMessage();
-                        return sendMultipart(target, deleteMessage);
+                                        affectedParticipant);
                     case RECEIVE:
-                        final var receiveMessage = requestTemplateProvider
+                        return requestTemplateProvider
                                 .participantRequestMessageTemplate(
-                                        affectedParticipant).buildMessage();
-                        return sendMultipart(target, receiveMessage);
+                                        affectedParticipant);
                     default:
                         throw new UnsupportedOperationException("Unsupported Operation!");
                 }
@@ -179,6 +168,26 @@ public class ParticipantRequestBuilder<T> extends IdsRequestBuilder<T>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<T> execute(final URI target)
+            throws
+            DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return sendMultipart(target, template().buildMessage());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,243 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.builder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.RejectionMessage;
+import ids.messaging.common.DeserializeException;
+import ids.messaging.common.SerializeException;
+import ids.messaging.core.daps.ClaimsException;
+import ids.messaging.core.daps.DapsTokenManagerException;
+import ids.messaging.protocol.MessageService;
+import ids.messaging.protocol.http.SendMessageException;
+import ids.messaging.protocol.http.ShaclValidatorException;
+import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.mapping.GenericMessageAndPayload;
+import ids.messaging.protocol.multipart.parser.MultipartParseException;
+import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
+import ids.messaging.requests.exceptions.RejectionException;
+import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
+import ids.messaging.requests.fanout.FanOutOptions;
+import ids.messaging.requests.fanout.FanOutResult;
+
+/**
+ * A request whose subject, operation and protocol were validated once by
+ * {@link IdsRequestBuilder#prepare()}. Instances are immutable and can be executed
+ * concurrently; every execution builds a new message with fresh id, issued
+ * timestamp and DAT.
+ *
+ * @param <T> Type of expected payload.
+ */
+public final class PreparedIdsRequest<T> {
+
+    /**
+     * {@link MessageService} used for sending messages.
+     */
+    private final MessageService messageService;
+
+    /**
+     * The template building the request message.
+     */
+    private final MessageTemplate<?> template;
+
+    /**
+     * Expected class of the response payload, null if any payload is accepted.
+     */
+    private final Class<T> expectedPayload;
+
+    /**
+     * Whether a RejectionMessage response is thrown as {@link RejectionException}.
+     */
+    private final boolean throwOnRejection;
+
+    /**
+     * Threads of fan-out executions.
+     */
+    private final FanOutExecutors fanOutExecutors;
+
+    /**
+     * Create a new PreparedIdsRequest.
+     *
+     * @param messageService The messageService.
+     * @param template The template building the request message.
+     * @param expectedPayload Expected class of the response payload, may be null.
+     * @param throwOnRejection Whether RejectionMessage responses are thrown.
+     * @param fanOutExecutors Threads of fan-out executions.
+     */
+    PreparedIdsRequest(final MessageService messageService,
+                       final MessageTemplate<?> template,
+                       final Class<T> expectedPayload,
+                       final boolean throwOnRejection,
+                       final FanOutExecutors fanOutExecutors) {
+        this.messageService = messageService;
+        this.template = template;
+        this.expectedPayload = expectedPayload;
+        this.throwOnRejection = throwOnRejection;
+        this.fanOutExecutors = fanOutExecutors;
+    }
+
+    /**
+     * Send the request without payload.
+     *
+     * @param target Target URI message will be sent to.
+     * @return MessageContainer containing response.
+     * @throws DapsTokenManagerException When DAT cannot be received from DAPS.
+     * @throws ShaclValidatorException When Shacl Validation fails.
+     * @throws SerializeException When the payload cannot be serialized.
+     * @throws ClaimsException When DAT of response is not valid.
+     * @throws UnknownResponseException When type of response is not known.
+     * @throws SendMessageException When an error occurs in the underlying httpclient.
+     * @throws MultipartParseException When the response cannot be parsed as multipart.
+     * @throws IOException When some other error happens while sending the message.
+     * @throws DeserializeException When response cannot be deserialized.
+     * @throws RejectionException When response is a RejectionMessage (and 'throwOnRejection'
+     * was set in the builder).
+     * @throws UnexpectedPayloadException When payload is not of type T.
+     */
+    public MessageContainer<T> execute(final URI target)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return execute(target, null);
+    }
+
+    /**
+     * Send the request with the given payload.
+     *
+     * @param target Target URI message will be sent to.
+     * @param payload The payload of this call, may be null.
+     * @return MessageContainer containing response.
+     * @throws DapsTokenManagerException When DAT cannot be received from DAPS.
+     * @throws ShaclValidatorException When Shacl Validation fails.
+     * @throws SerializeException When the payload cannot be serialized.
+     * @throws ClaimsException When DAT of response is not valid.
+     * @throws UnknownResponseException When type of response is not known.
+     * @throws SendMessageException When an error occurs in the underlying httpclient.
+     * @throws MultipartParseException When the response cannot be parsed as multipart.
+     * @throws IOException When some other error happens while sending the message.
+     * @throws DeserializeException When response cannot be deserialized.
+     * @throws RejectionException When response is a RejectionMessage (and 'throwOnRejection'
+     * was set in the builder).
+     * @throws UnexpectedPayloadException When payload is not of type T.
+     */
+    public MessageContainer<T> execute(final URI target, final Object payload)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return send(target, template.buildMessage(), payload);
+    }
+
+    /**
+     * Send the request with the given payload to all targets concurrently, building the
+     * message once, see {@link IdsRequestBuilder#executeAll(Collection, FanOutOptions)}.
+     *
+     * @param targets Target URIs the message will be sent to.
+     * @param payload The payload of this call, may be null.
+     * @param options Completion mode, concurrency cap and per-target timeout.
+     * @return The running FanOutResult.
+     * @throws DapsTokenManagerException When DAT cannot be received from DAPS.
+     */
+    public FanOutResult<T> executeAll(final Collection<URI> targets,
+                                      final Object payload,
+                                      final FanOutOptions options)
+            throws DapsTokenManagerException {
+        final var message = template.buildMessage();
+        return FanOutResult.start(List.copyOf(targets), options,
+                                  target -> send(target, message, payload),
+                                  fanOutExecutors.getExecutor(), fanOutExecutors.getTimer());
+    }
+
+    /**
+     * Send a built multipart message and check the response against the expected payload.
+     *
+     * @param target Target URI message will be sent to.
+     * @param message Multipart header message.
+     * @param payload The payload, may be null.
+     * @return MessageContainer containing response.
+     * @throws RejectionException When response is a RejectionMessage (and 'throwOnRejection'
+     * is set).
+     * @throws UnexpectedPayloadException When payload is not of type T.
+     * @throws ShaclValidatorException When Shacl Validation fails.
+     * @throws SerializeException When the payload cannot be serialized.
+     * @throws ClaimsException When DAT of response is not valid.
+     * @throws UnknownResponseException When type of response is not known.
+     * @throws SendMessageException When an error occurs in the underlying httpclient.
+     * @throws MultipartParseException When the response cannot be parsed as multipart.
+     * @throws IOException When some other error happens while sending the message.
+     * @throws DeserializeException When response cannot be deserialized.
+     */
+    @SuppressWarnings("unchecked")
+    MessageContainer<T> send(final URI target, final Message message, final Object payload)
+            throws RejectionException,
+            UnexpectedPayloadException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException {
+        final var messageAndPayload = new GenericMessageAndPayload(message, payload);
+        final var response = messageService.sendIdsMessage(messageAndPayload, target);
+        final var header = response.getMessage();
+        final var responsePayload = response.getPayload().orElse(null);
+        if (throwOnRejection && header instanceof RejectionMessage) {
+            throw new RejectionException(
+                    String.format("Message was Rejected! Reason: %s", responsePayload),
+                    ((RejectionMessage) header).getRejectionReason()
+            );
+        }
+        if (expectedPayload != null && (responsePayload == null
+                || !expectedPayload.isAssignableFrom(responsePayload.getClass()))) {
+            throw new UnexpectedPayloadException(
+                    String.format(
+                            "Expected payload of type %s but received %s!",
+                            expectedPayload,
+                            responsePayload == null ? "null" : responsePayload.getClass()
+                    ),
+                    new MessageContainer<>(header, responsePayload));
+        }
+        return new MessageContainer<>(header, (T) responsePayload);
+    }
+}
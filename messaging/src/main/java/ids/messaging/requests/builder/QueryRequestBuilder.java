@@ -20,12 +20,16 @@
 package ids.messaging.requests.builder;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 import de.fraunhofer.iais.eis.QueryLanguage;
 import de.fraunhofer.iais.eis.QueryScope;
 import de.fraunhofer.iais.eis.QueryTarget;
+import de.fraunhofer.iais.eis.RejectionMessage;
 import ids.messaging.common.DeserializeException;
 import ids.messaging.common.SerializeException;
 import ids.messaging.core.daps.ClaimsException;
@@ -34,14 +38,19 @@ import ids.messaging.protocol.MessageService;
 import ids.messaging.protocol.http.SendMessageException;
 import ids.messaging.protocol.http.ShaclValidatorException;
 import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.mapping.GenericMessageAndPayload;
 import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.MessageTemplate;
 import ids.messaging.requests.NotificationTemplateProvider;
 import ids.messaging.requests.RequestTemplateProvider;
 import ids.messaging.requests.enums.Crud;
 import ids.messaging.requests.enums.ProtocolType;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.requests.fanout.FanOutExecutors;
+import ids.messaging.requests.sparql.QueryResultFormat;
+import ids.messaging.requests.sparql.QueryResultStream;
 
 /**
  * RequestBuilder for messages with subject 'query'.
@@ -70,8 +79,10 @@ public class QueryRequestBuilder<T> extends IdsRequestBuilder<T>
             final Class<T> expected,
             final MessageService messageService,
             final RequestTemplateProvider requestTemplateProvider,
-            final NotificationTemplateProvider notificationTemplateProvider) {
-        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider);
+            final NotificationTemplateProvider notificationTemplateProvider,
+            final FanOutExecutors fanOutExecutors) {
+        super(expected, messageService, requestTemplateProvider, notificationTemplateProvider,
+              fanOutExecutors);
     }
 
     /**
@@ -116,18 +127,7 @@ public class QueryRequestBuilder<T> extends IdsRequestBuilder<T>
      * {@inheritDoc}
      */
     @Override
-    public MessageContainer<T> execute(final URI target)
-            throws DapsTokenManagerException,
-            ShaclValidatorException,
-            SerializeException,
-            ClaimsException,
-            UnknownResponseException,
-            SendMessageException,
-            MultipartParseException,
-            IOException,
-            DeserializeException,
-            RejectionException,
-            UnexpectedPayloadException {
+    protected MessageTemplate<?> template() throws SendMessageException {
         //send ArtifactRequestMessage with settings:
         if (protocolType == null || operation == null) {
             final var errorMessage = String.format(
@@ -145,11 +145,9 @@ public class QueryRequestBuilder<T> extends IdsRequestBuilder<T>
             case MULTIPART:
                 switch (operation) {
                     case RECEIVE:
-                        //build and send artifact request message
-                        final var message = requestTemplateProvider
-                                .queryMessageTemplate(queryLanguage, queryScope, queryTarget)
-                                .buildMessage();
-                        return sendMultipart(target, message);
+                        //template of artifact request message
+                        return requestTemplateProvider
+                                .queryMessageTemplate(queryLanguage, queryScope, queryTarget);
                     default:
                         throw new UnsupportedOperationException("Unsupported Operation!");
                 }
@@ -158,6 +156,83 @@ public class QueryRequestBuilder<T> extends IdsRequestBuilder<T>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageContainer<T> execute(final URI target)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            UnknownResponseException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        return sendMultipart(target, template().buildMessage());
+    }
+
+    /**
+     * Send the query and read the SPARQL result (TSV or JSON) row by row from the response
+     * body, instead of receiving it as one String. Only supported for multipart.
+     * A RejectionMessage is always thrown as RejectionException, as it carries no result.
+     *
+     * @param target targetURI message will be sent to
+     * @return The result, must be closed after consuming the rows.
+     * @throws DapsTokenManagerException when DAT cannot be received from DAPS
+     * @throws ShaclValidatorException when Shacl Validation fails
+     * @throws SerializeException when the payload cannot be serialized
+     * @throws ClaimsException when DAT of response is not valid
+     * @throws SendMessageException when an IOException is thrown
+     * by the httpclient when sending the message
+     * @throws MultipartParseException when the response cannot be parsed as multipart
+     * @throws IOException when some other error happens while sending the message
+     * @throws DeserializeException when response cannot be deserialized
+     * @throws RejectionException when response is a RejectionMessage
+     */
+    public QueryResultStream executeStreaming(final URI target)
+            throws DapsTokenManagerException,
+            ShaclValidatorException,
+            SerializeException,
+            ClaimsException,
+            SendMessageException,
+            MultipartParseException,
+            IOException,
+            DeserializeException,
+            RejectionException {
+        if (protocolType != ProtocolType.MULTIPART || operation != Crud.RECEIVE) {
+            throw new SendMessageException(
+                    "Streaming query results is only supported for multipart query messages!");
+        }
+
+        final var message = template().buildMessage();
+        final var response = messageService.sendIdsMessageStreaming(
+                new GenericMessageAndPayload(message, optPayload.orElse(null)), target);
+
+        try {
+            final var header = response.getMessage();
+            final var payload = response.getPayload().orElse(InputStream.nullInputStream());
+
+            if (header instanceof RejectionMessage) {
+                throw new RejectionException(
+                        String.format("Message was Rejected! Reason: %s",
+                                      new String(payload.readAllBytes(), StandardCharsets.UTF_8)),
+                        ((RejectionMessage) header).getRejectionReason()
+                );
+            }
+
+            final var reader = QueryResultFormat.open(
+                    new InputStreamReader(payload, StandardCharsets.UTF_8));
+            return new QueryResultStream(header, reader, response);
+        } catch (RejectionException | IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
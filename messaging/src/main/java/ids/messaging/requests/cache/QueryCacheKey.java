@@ -0,0 +1,112 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.cache;
+
+import java.net.URI;
+
+import de.fraunhofer.iais.eis.QueryLanguage;
+import de.fraunhofer.iais.eis.QueryScope;
+import de.fraunhofer.iais.eis.QueryTarget;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Identifies a cached query result.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class QueryCacheKey {
+
+    /**
+     * Used as limit and offset of queries without pagination.
+     */
+    public static final int UNPAGED = -1;
+
+    /**
+     * The infrastructure component the query is sent to.
+     */
+    private final URI targetURI;
+
+    /**
+     * The query text, or the requested element for description requests.
+     */
+    private final String query;
+
+    /**
+     * The language of the query, null for description requests.
+     */
+    private final QueryLanguage queryLanguage;
+
+    /**
+     * The scope of the query, null for description requests.
+     */
+    private final QueryScope queryScope;
+
+    /**
+     * The target of the query, null for description requests.
+     */
+    private final QueryTarget queryTarget;
+
+    /**
+     * The limit of the query, {@link #UNPAGED} if not paginated.
+     */
+    private final int limit;
+
+    /**
+     * The offset of the query, {@link #UNPAGED} if not paginated.
+     */
+    private final int offset;
+
+    /**
+     * Create the key of an unpaginated query.
+     *
+     * @param targetURI The infrastructure component the query is sent to.
+     * @param query The query text.
+     * @param queryLanguage The language of the query.
+     * @param queryScope The scope of the query.
+     * @param queryTarget The target of the query.
+     * @return The key.
+     */
+    public static QueryCacheKey of(final URI targetURI,
+                                   final String query,
+                                   final QueryLanguage queryLanguage,
+                                   final QueryScope queryScope,
+                                   final QueryTarget queryTarget) {
+        return new QueryCacheKey(targetURI, query, queryLanguage, queryScope, queryTarget,
+                                 UNPAGED, UNPAGED);
+    }
+
+    /**
+     * Create the key of a description request.
+     *
+     * @param targetURI The infrastructure component the request is sent to.
+     * @param requestedElement The requested element, null for the self-description.
+     * @return The key.
+     */
+    public static QueryCacheKey description(final URI targetURI, final URI requestedElement) {
+        return new QueryCacheKey(targetURI,
+                                 requestedElement == null ? "" : requestedElement.toString(),
+                                 null, null, null, UNPAGED, UNPAGED);
+    }
+}
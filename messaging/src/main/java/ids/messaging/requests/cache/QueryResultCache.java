@@ -0,0 +1,251 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.cache;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+
+import de.fraunhofer.iais.eis.RejectionMessage;
+import ids.messaging.common.DeserializeException;
+import ids.messaging.common.SerializeException;
+import ids.messaging.core.daps.ClaimsException;
+import ids.messaging.core.daps.DapsTokenManagerException;
+import ids.messaging.protocol.http.SendMessageException;
+import ids.messaging.protocol.http.ShaclValidatorException;
+import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.parser.MultipartParseException;
+import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.exceptions.RejectionException;
+import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.util.cache.ExpiringCache;
+import ids.messaging.util.cache.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the responses to queries sent to infrastructure components (e.g. broker, ParIS,
+ * Vocol) for a configurable time. Concurrent identical queries are sent only once.
+ * Rejections and failed queries are never cached. Cached responses are shared between
+ * callers and must not be modified.
+ */
+@Slf4j
+@Component
+public class QueryResultCache {
+
+    /**
+     * Used to switch the query result cache on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.query.cache.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Maximum number of cached query results.
+     */
+    @Value("${messaging.query.cache.max.entries:1000}")
+    private int maxEntries;
+
+    /**
+     * Lifetime of a cached query result in seconds.
+     */
+    @Value("${messaging.query.cache.ttl.seconds:60}")
+    private long ttlSeconds;
+
+    /**
+     * The cached responses, created on first use.
+     */
+    private volatile ExpiringCache<QueryCacheKey, MessageContainer<?>> cache;
+
+    /**
+     * Coalesces identical queries in flight.
+     */
+    private final SingleFlight<QueryCacheKey, MessageContainer<?>> singleFlight =
+            new SingleFlight<>();
+
+    /**
+     * @return True if the cache is switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Get the cached response to a query, or send the query and cache its response. If the
+     * cache is switched off, the query is always sent.
+     *
+     * @param key Identifies the query.
+     * @param loader Sends the query.
+     * @param <T> Type of the expected payload.
+     * @return The response to the query.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws UnknownResponseException If the format of the answer is not known.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When a RejectionMessage arrives unexpectedly.
+     * @throws UnexpectedPayloadException When the payload cannot be used.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> MessageContainer<T> get(final QueryCacheKey key, final QueryLoader<T> loader)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        if (!isEnabled()) {
+            return loader.load();
+        }
+
+        final var currentCache = getCache();
+        final var cached = currentCache.get(key);
+
+        if (cached.isPresent()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Using cached query result. [code=(IMSMED0156), target=({})]",
+                          key.getTargetURI());
+            }
+
+            return (MessageContainer<T>) cached.get();
+        }
+
+        try {
+            return (MessageContainer<T>) singleFlight.execute(key, () -> {
+                final var response = loader.load();
+
+                if (isCacheable(response)) {
+                    currentCache.put(key, response);
+                }
+
+                return response;
+            });
+        } catch (IOException | DapsTokenManagerException | MultipartParseException
+                | ClaimsException | ShaclValidatorException | SerializeException
+                | UnknownResponseException | SendMessageException | DeserializeException
+                | RejectionException | UnexpectedPayloadException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for query result!");
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Remove the cached result of a query.
+     *
+     * @param key Identifies the query.
+     */
+    public void invalidate(final QueryCacheKey key) {
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Remove all cached results of queries sent to the given infrastructure component.
+     *
+     * @param targetURI The infrastructure component.
+     */
+    public void invalidateTarget(final URI targetURI) {
+        if (cache != null) {
+            cache.invalidateIf(key -> targetURI.equals(key.getTargetURI()));
+        }
+    }
+
+    /**
+     * Remove all cached results.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return Number of queries answered from the cache.
+     */
+    public long getHitCount() {
+        return cache == null ? 0 : cache.getHitCount();
+    }
+
+    /**
+     * @return Number of queries not found in the cache.
+     */
+    public long getMissCount() {
+        return cache == null ? 0 : cache.getMissCount();
+    }
+
+    /**
+     * @return Ratio of queries answered from the cache, 0 if there were none.
+     */
+    public double getHitRate() {
+        return cache == null ? 0 : cache.getHitRate();
+    }
+
+    /**
+     * @return Number of queries that waited for an identical query in flight.
+     */
+    public long getCoalescedCount() {
+        return singleFlight.getSharedCount();
+    }
+
+    /**
+     * @return Number of cached query results.
+     */
+    public int size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    private static boolean isCacheable(final MessageContainer<?> response) {
+        return response != null
+               && !(response.getUnderlyingMessage() instanceof RejectionMessage)
+               && response.getRejectionReason().isEmpty();
+    }
+
+    private ExpiringCache<QueryCacheKey, MessageContainer<?>> getCache() {
+        var current = cache;
+
+        if (current == null) {
+            synchronized (this) {
+                current = cache;
+                if (current == null) {
+                    current = new ExpiringCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+                    cache = current;
+                }
+            }
+        }
+
+        return current;
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.cache;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+import de.fraunhofer.iais.eis.ConnectorUpdateMessage;
+import de.fraunhofer.iais.eis.InfrastructureComponent;
+import de.fraunhofer.iais.eis.RejectionMessage;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.common.DeserializeException;
+import ids.messaging.common.SerializeException;
+import ids.messaging.core.daps.ClaimsException;
+import ids.messaging.core.daps.DapsTokenManagerException;
+import ids.messaging.protocol.http.SendMessageException;
+import ids.messaging.protocol.http.ShaclValidatorException;
+import ids.messaging.protocol.multipart.UnknownResponseException;
+import ids.messaging.protocol.multipart.parser.MultipartParseException;
+import ids.messaging.requests.MessageContainer;
+import ids.messaging.requests.exceptions.RejectionException;
+import ids.messaging.requests.exceptions.UnexpectedPayloadException;
+import ids.messaging.util.cache.ExpiringCache;
+import ids.messaging.util.cache.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the self-descriptions of remote connectors and infrastructure components, keyed by
+ * target URI and requested element. Entries are refreshed in the background before they
+ * expire. If an expired entry cannot be refreshed because the remote is not reachable,
+ * the stale entry is served for a configurable time. Cached responses are shared between
+ * callers and must not be modified.
+ */
+@Slf4j
+@Component
+public class SelfDescriptionCache implements DisposableBean {
+
+    /**
+     * Number of threads refreshing entries in the background.
+     */
+    private static final int REFRESH_THREADS = 2;
+
+    /**
+     * Used to switch the self-description cache on or off (default off).
+     */
+    @Value("#{new Boolean('${messaging.description.cache.enabled:false}')}")
+    private Boolean enabled;
+
+    /**
+     * Maximum number of cached self-descriptions.
+     */
+    @Value("${messaging.description.cache.max.entries:1000}")
+    private int maxEntries;
+
+    /**
+     * Lifetime of a cached self-description in seconds.
+     */
+    @Value("${messaging.description.cache.ttl.seconds:300}")
+    private long ttlSeconds;
+
+    /**
+     * Age in seconds after which a cached self-description is refreshed in the background.
+     */
+    @Value("${messaging.description.cache.refresh.seconds:240}")
+    private long refreshSeconds;
+
+    /**
+     * Time in seconds an expired self-description is served if it cannot be refreshed.
+     */
+    @Value("${messaging.description.cache.stale.seconds:3600}")
+    private long staleSeconds;
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    /**
+     * The cached self-descriptions, created on first use.
+     */
+    private volatile ExpiringCache<QueryCacheKey, CachedDescription> cache;
+
+    /**
+     * Executor refreshing entries in the background, created on first use.
+     */
+    private volatile ExecutorService refresher;
+
+    /**
+     * Coalesces identical requests in flight.
+     */
+    private final SingleFlight<QueryCacheKey, MessageContainer<?>> singleFlight =
+            new SingleFlight<>();
+
+    /**
+     * Keys currently refreshed in the background.
+     */
+    private final Set<QueryCacheKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Ids of the components described by the cached self-descriptions, per target URI.
+     */
+    private final ConcurrentHashMap<URI, URI> componentIds = new ConcurrentHashMap<>();
+
+    /**
+     * The infomodel serializer.
+     */
+    private final Serializer serializer = new Serializer();
+
+    /**
+     * @return True if the cache is switched on.
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Get the cached self-description, or request it and cache the response. If the cache is
+     * switched off, the self-description is always requested.
+     *
+     * @param target The connector or infrastructure component.
+     * @param requestedElement The requested element, null for the self-description.
+     * @param loader Sends the DescriptionRequestMessage.
+     * @param <T> Type of the expected payload.
+     * @return The response to the description request.
+     * @throws DapsTokenManagerException If no DAT for sending the message could be received.
+     * @throws ClaimsException If DAT of incoming message could not be validated.
+     * @throws MultipartParseException If response could not be parsed to header and payload.
+     * @throws IOException Other errors, which were not categorized.
+     * @throws ShaclValidatorException If the message does not pass the SHACL validation test.
+     * @throws SerializeException If there are problems with serializing.
+     * @throws UnknownResponseException If the format of the answer is not known.
+     * @throws SendMessageException If there is an error when sending the request.
+     * @throws DeserializeException If the deserialization of the received message fails.
+     * @throws RejectionException When a RejectionMessage arrives unexpectedly.
+     * @throws UnexpectedPayloadException When the payload cannot be used.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> MessageContainer<T> get(final URI target,
+                                       final URI requestedElement,
+                                       final QueryLoader<T> loader)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        if (!isEnabled()) {
+            return loader.load();
+        }
+
+        final var key = QueryCacheKey.description(target, requestedElement);
+        final var cached = getCache().get(key);
+
+        if (cached.isEmpty()) {
+            return load(key, loader);
+        }
+
+        final var entry = cached.get();
+        final var age = clock.getAsLong() - entry.loadedAt;
+
+        if (age < Duration.ofSeconds(ttlSeconds).toMillis()) {
+            if (age >= Duration.ofSeconds(refreshSeconds).toMillis()) {
+                refreshInBackground(key, loader);
+            }
+
+            return (MessageContainer<T>) entry.response;
+        }
+
+        try {
+            return load(key, loader);
+        } catch (IOException | SendMessageException | DapsTokenManagerException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Could not refresh self-description, using stale cached response."
+                         + " [code=(IMSMEW0060), target=({}), age=({}ms), reason=({})]",
+                         target, age, e.getMessage());
+            }
+
+            return (MessageContainer<T>) entry.response;
+        }
+    }
+
+    /**
+     * Get the parsed cached self-description of a target, stale or not, without sending a
+     * request.
+     *
+     * @param target The connector or infrastructure component.
+     * @return The cached self-description, empty if not cached or not parseable.
+     */
+    public Optional<InfrastructureComponent> getCachedDescription(final URI target) {
+        final var current = cache;
+
+        if (current == null) {
+            return Optional.empty();
+        }
+
+        return current.get(QueryCacheKey.description(target, null))
+                      .map(entry -> entry.component);
+    }
+
+    /**
+     * Remove the cached descriptions of an incoming ConnectorUpdateMessage's affected
+     * connector, falling back to its issuer connector.
+     *
+     * @param message The ConnectorUpdateMessage.
+     */
+    public void onConnectorUpdate(final ConnectorUpdateMessage message) {
+        final var connectorId = message.getAffectedConnector() != null
+                ? message.getAffectedConnector()
+                : message.getIssuerConnector();
+
+        if (connectorId != null) {
+            invalidateComponent(connectorId);
+        }
+    }
+
+    /**
+     * Remove all cached descriptions of the component with the given id.
+     *
+     * @param componentId The id of the connector or infrastructure component.
+     */
+    public void invalidateComponent(final URI componentId) {
+        componentIds.forEach((target, id) -> {
+            if (id.equals(componentId)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Invalidating cached self-description. [code=(IMSMED0164),"
+                              + " component=({}), target=({})]", componentId, target);
+                }
+
+                invalidateTarget(target);
+            }
+        });
+    }
+
+    /**
+     * Remove all cached descriptions requested from the given target.
+     *
+     * @param target The connector or infrastructure component.
+     */
+    public void invalidateTarget(final URI target) {
+        componentIds.remove(target);
+
+        if (cache != null) {
+            cache.invalidateIf(key -> target.equals(key.getTargetURI()));
+        }
+    }
+
+    /**
+     * Remove all cached descriptions.
+     */
+    public void invalidateAll() {
+        componentIds.clear();
+
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return Number of requests answered from the cache.
+     */
+    public long getHitCount() {
+        return cache == null ? 0 : cache.getHitCount();
+    }
+
+    /**
+     * @return Number of requests not found in the cache.
+     */
+    public long getMissCount() {
+        return cache == null ? 0 : cache.getMissCount();
+    }
+
+    /**
+     * @return Number of cached descriptions.
+     */
+    public int size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    /**
+     * Stop refreshing entries in the background.
+     */
+    @Override
+    public void destroy() {
+        final var current = refresher;
+
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> MessageContainer<T> load(final QueryCacheKey key, final QueryLoader<T> loader)
+            throws
+            IOException,
+            DapsTokenManagerException,
+            MultipartParseException,
+            ClaimsException,
+            ShaclValidatorException,
+            SerializeException,
+            UnknownResponseException,
+            SendMessageException,
+            DeserializeException,
+            RejectionException,
+            UnexpectedPayloadException {
+        final var currentCache = getCache();
+
+        try {
+            return (MessageContainer<T>) singleFlight.execute(key, () -> {
+                final var response = loader.load();
+
+                if (isCacheable(response)) {
+                    final var component = key.getQuery().isEmpty() ? parse(response) : null;
+                    if (component != null) {
+                        componentIds.put(key.getTargetURI(), component.getId());
+                    }
+
+                    currentCache.put(key, new CachedDescription(response, component,
+                                                                clock.getAsLong()));
+                }
+
+                return response;
+            });
+        } catch (IOException | DapsTokenManagerException | MultipartParseException
+                | ClaimsException | ShaclValidatorException | SerializeException
+                | UnknownResponseException | SendMessageException | DeserializeException
+                | RejectionException | UnexpectedPayloadException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for self-description!");
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void refreshInBackground(final QueryCacheKey key, final QueryLoader<?> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+
+        try {
+            getRefresher().execute(() -> {
+                try {
+                    load(key, loader);
+                } catch (Exception e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Background refresh of self-description failed."
+                                  + " [code=(IMSMED0163), target=({}), reason=({})]",
+                                  key.getTargetURI(), e.getMessage());
+                    }
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private InfrastructureComponent parse(final MessageContainer<?> response) {
+        final var payload = response.getReceivedPayload();
+
+        if (!(payload instanceof String)) {
+            return payload instanceof InfrastructureComponent
+                    ? (InfrastructureComponent) payload
+                    : null;
+        }
+
+        try {
+            return serializer.deserialize((String) payload, InfrastructureComponent.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isCacheable(final MessageContainer<?> response) {
+        return response != null
+               && !(response.getUnderlyingMessage() instanceof RejectionMessage)
+               && response.getRejectionReason().isEmpty();
+    }
+
+    private ExpiringCache<QueryCacheKey, CachedDescription> getCache() {
+        var current = cache;
+
+        if (current == null) {
+            synchronized (this) {
+                current = cache;
+                if (current == null) {
+                    current = new ExpiringCache<>(
+                            maxEntries,
+                            Duration.ofSeconds(ttlSeconds + staleSeconds),
+                            (key, entry) -> {
+                                if (entry.component != null) {
+                                    componentIds.remove(key.getTargetURI(),
+                                                        entry.component.getId());
+                                }
+                            });
+                    cache = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    private ExecutorService getRefresher() {
+        var current = refresher;
+
+        if (current == null) {
+            synchronized (this) {
+                current = refresher;
+                if (current == null) {
+                    current = Executors.newFixedThreadPool(REFRESH_THREADS, runnable -> {
+                        final var thread = new Thread(runnable, "ids-description-refresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    refresher = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * A cached description response.
+     */
+    private static final class CachedDescription {
+
+        /**
+         * The response.
+         */
+        private final MessageContainer<?> response;
+
+        /**
+         * The parsed self-description, null for requested elements or unparseable payloads.
+         */
+        private final InfrastructureComponent component;
+
+        /**
+         * Time the response was received in milliseconds.
+         */
+        private final long loadedAt;
+
+        private CachedDescription(final MessageContainer<?> response,
+                                  final InfrastructureComponent component,
+                                  final long loadedAt) {
+            this.response = response;
+            this.component = component;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
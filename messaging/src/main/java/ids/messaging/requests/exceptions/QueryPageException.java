@@ -0,0 +1,42 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.exceptions;
+
+/**
+ * Unchecked exception thrown by lazily paginated query results if a page could not be
+ * requested or parsed. The cause is the original exception.
+ */
+public class QueryPageException extends RuntimeException {
+
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor for the QueryPageException.
+     *
+     * @param message The exception message.
+     * @param cause The original exception.
+     */
+    public QueryPageException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.fanout;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Threads of fan-out requests, owned by whoever creates them: the executor running the
+ * requests and the scheduler enforcing the per-target timeouts.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class FanOutExecutors {
+
+    /**
+     * Executor running the requests, targets it rejects fail.
+     */
+    @NonNull
+    private final Executor executor;
+
+    /**
+     * Scheduler enforcing the per-target timeouts.
+     */
+    @NonNull
+    private final ScheduledExecutorService timer;
+}
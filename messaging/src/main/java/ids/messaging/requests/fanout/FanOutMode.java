@@ -0,0 +1,42 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.fanout;
+
+/**
+ * Completion modes of a fan-out request.
+ */
+public enum FanOutMode {
+
+    /**
+     * Complete as soon as one target answered successfully, cancel the remaining targets.
+     */
+    FIRST_SUCCESS,
+
+    /**
+     * Complete when every target answered or failed.
+     */
+    ALL,
+
+    /**
+     * Complete as soon as the configured number of targets answered successfully
+     * or the quorum can no longer be reached.
+     */
+    QUORUM
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.fanout;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Immutable options of a fan-out request: completion mode, concurrency cap and
+ * per-target timeout.
+ */
+@Getter
+public final class FanOutOptions {
+
+    /**
+     * Default number of targets contacted at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+    /**
+     * Default timeout per target.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The completion mode.
+     */
+    private final FanOutMode mode;
+
+    /**
+     * Number of successful targets required in QUORUM mode.
+     */
+    private final int quorum;
+
+    /**
+     * Maximum number of targets contacted at the same time.
+     */
+    private final int maxConcurrency;
+
+    /**
+     * Timeout per target.
+     */
+    private final Duration timeout;
+
+    private FanOutOptions(final FanOutMode mode,
+                          final int quorum,
+                          final int maxConcurrency,
+                          final Duration timeout) {
+        this.mode = mode;
+        this.quorum = quorum;
+        this.maxConcurrency = maxConcurrency;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Options waiting for the responses of all targets.
+     *
+     * @return The FanOutOptions.
+     */
+    public static FanOutOptions all() {
+        return new FanOutOptions(FanOutMode.ALL, 0, DEFAULT_MAX_CONCURRENCY, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Options completing on the first successful response.
+     *
+     * @return The FanOutOptions.
+     */
+    public static FanOutOptions firstSuccess() {
+        return new FanOutOptions(FanOutMode.FIRST_SUCCESS, 1,
+                                 DEFAULT_MAX_CONCURRENCY, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Options completing when the given number of targets answered successfully.
+     *
+     * @param quorum Number of required successful responses.
+     * @return The FanOutOptions.
+     */
+    public static FanOutOptions quorum(final int quorum) {
+        if (quorum < 1) {
+            throw new IllegalArgumentException("Quorum must be at least 1!");
+        }
+        return new FanOutOptions(FanOutMode.QUORUM, quorum,
+                                 DEFAULT_MAX_CONCURRENCY, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Copy of these options with another concurrency cap.
+     *
+     * @param maxConcurrency Maximum number of targets contacted at the same time.
+     * @return The FanOutOptions.
+     */
+    public FanOutOptions withMaxConcurrency(final int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1!");
+        }
+        return new FanOutOptions(mode, quorum, maxConcurrency, timeout);
+    }
+
+    /**
+     * Copy of these options with another per-target timeout.
+     *
+     * @param timeout Timeout per target.
+     * @return The FanOutOptions.
+     */
+    public FanOutOptions withTimeout(@NonNull final Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive!");
+        }
+        return new FanOutOptions(mode, quorum, maxConcurrency, timeout);
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.fanout;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import ids.messaging.requests.MessageContainer;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Running fan-out request. Results can be iterated in completion order while the request
+ * is still running; every target produces exactly one result, targets that were skipped or
+ * cancelled after completion produce a result with a {@link CancellationException}.
+ * Timed out and cancelled targets are interrupted, but keep their slot of the concurrency cap
+ * until their request returns, as blocking http calls do not react to interrupts.
+ *
+ * @param <T> Type of payload.
+ */
+public final class FanOutResult<T> implements Iterable<TargetResult<T>> {
+
+    /**
+     * The targets.
+     */
+    private final List<URI> targets;
+
+    /**
+     * The options.
+     */
+    @Getter
+    private final FanOutOptions options;
+
+    /**
+     * Sends the message to a single target.
+     */
+    private final TargetSender<T> sender;
+
+    /**
+     * Executor running the requests.
+     */
+    private final Executor executor;
+
+    /**
+     * Scheduler enforcing the per-target timeouts.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Thread running the request per target index, null if not running.
+     */
+    private final Thread[] workers;
+
+    /**
+     * Whether the request of the target at the index was launched.
+     */
+    private final boolean[] launched;
+
+    /**
+     * Running timeout per target index.
+     */
+    private final ScheduledFuture<?>[] timeouts;
+
+    /**
+     * Start time per target index, in nanoseconds.
+     */
+    private final long[] started;
+
+    /**
+     * Whether the target at the index produced its result.
+     */
+    private final boolean[] finished;
+
+    /**
+     * Results in completion order, guarded by this.
+     */
+    private final List<TargetResult<T>> results;
+
+    /**
+     * Completed with all results when the request is done.
+     */
+    private final CompletableFuture<List<TargetResult<T>>> completion =
+            new CompletableFuture<>();
+
+    /**
+     * Index of the next target to launch.
+     */
+    private int next;
+
+    /**
+     * Number of launched requests that did not return yet.
+     */
+    private int active;
+
+    /**
+     * Number of successful targets.
+     */
+    private int successes;
+
+    /**
+     * Number of failed targets.
+     */
+    private int failures;
+
+    /**
+     * Whether the completion condition was met or the request was cancelled.
+     */
+    private boolean done;
+
+    private FanOutResult(final List<URI> targets,
+                         final FanOutOptions options,
+                         final TargetSender<T> sender,
+                         final Executor executor,
+                         final ScheduledExecutorService timer) {
+        this.targets = targets;
+        this.options = options;
+        this.sender = sender;
+        this.executor = executor;
+        this.timer = timer;
+        this.workers = new Thread[targets.size()];
+        this.launched = new boolean[targets.size()];
+        this.timeouts = new ScheduledFuture<?>[targets.size()];
+        this.started = new long[targets.size()];
+        this.finished = new boolean[targets.size()];
+        this.results = new ArrayList<>(targets.size());
+    }
+
+    /**
+     * Send to the given targets concurrently.
+     *
+     * @param targets The targets.
+     * @param options The fan-out options.
+     * @param sender Sends the message to a single target.
+     * @param executor Executor running the requests, targets it rejects fail.
+     * @param timer Scheduler enforcing the per-target timeouts.
+     * @param <T> Type of payload.
+     * @return The running FanOutResult.
+     */
+    public static <T> FanOutResult<T> start(@NonNull final List<URI> targets,
+                                            @NonNull final FanOutOptions options,
+                                            @NonNull final TargetSender<T> sender,
+                                            @NonNull final Executor executor,
+                                            @NonNull final ScheduledExecutorService timer) {
+        if (options.getMode() == FanOutMode.QUORUM && options.getQuorum() > targets.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "Quorum of %d cannot be reached with %d targets!",
+                    options.getQuorum(), targets.size()));
+        }
+
+        final var result = new FanOutResult<>(List.copyOf(targets), options, sender,
+                                                executor, timer);
+        result.launch();
+        return result;
+    }
+
+    /**
+     * Future completed with all results, in completion order, when the request is done.
+     *
+     * @return The completion future.
+     */
+    public CompletableFuture<List<TargetResult<T>>> completion() {
+        return completion;
+    }
+
+    /**
+     * Wait until the request is done.
+     *
+     * @return All results in completion order.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public List<TargetResult<T>> await() throws InterruptedException {
+        synchronized (this) {
+            while (results.size() < targets.size()) {
+                wait();
+            }
+            return List.copyOf(results);
+        }
+    }
+
+    /**
+     * Check whether the completion condition of the mode was met, i.e. at least one success
+     * for FIRST_SUCCESS, the quorum for QUORUM and no failure for ALL.
+     *
+     * @return True if the fan-out succeeded.
+     */
+    public synchronized boolean isSatisfied() {
+        switch (options.getMode()) {
+            case FIRST_SUCCESS:
+                return successes > 0;
+            case QUORUM:
+                return successes >= options.getQuorum();
+            default:
+                return results.size() == targets.size() && failures == 0;
+        }
+    }
+
+    /**
+     * Cancel all targets that did not complete yet.
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            finish();
+        }
+        complete();
+    }
+
+    /**
+     * Iterate the results in completion order, blocking until the next result is available.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<TargetResult<T>> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < targets.size();
+            }
+
+            @Override
+            public TargetResult<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                synchronized (FanOutResult.this) {
+                    try {
+                        while (results.size() <= index) {
+                            FanOutResult.this.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("Interrupted while waiting for result!");
+                    }
+                    return results.get(index++);
+                }
+            }
+        };
+    }
+
+    private void launch() {
+        final boolean complete;
+        synchronized (this) {
+            fill();
+            complete = done;
+        }
+        if (complete) {
+            complete();
+        }
+    }
+
+    private void fill() {
+        if (targets.isEmpty()) {
+            done = true;
+            return;
+        }
+
+        final var timeout = options.getTimeout().toNanos();
+        while (!done && next < targets.size() && active < options.getMaxConcurrency()) {
+            final var index = next++;
+            started[index] = System.nanoTime();
+            launched[index] = true;
+            active++;
+
+            try {
+                executor.execute(() -> run(index));
+            } catch (RejectedExecutionException e) {
+                active--;
+                record(index, null, e);
+                continue;
+            }
+
+            timeouts[index] = timer.schedule(() -> timeout(index), timeout, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void run(final int index) {
+        MessageContainer<T> response = null;
+        Exception error = null;
+
+        if (begin(index)) {
+            try {
+                response = sender.send(targets.get(index));
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+
+        final boolean complete;
+        synchronized (this) {
+            workers[index] = null;
+            //clear an interrupt of a timeout or cancellation that arrived after the response
+            Thread.interrupted();
+            active--;
+
+            final var wasDone = done;
+            if (!finished[index]) {
+                record(index, response, error);
+            }
+            fill();
+            complete = !wasDone && done;
+        }
+        if (complete) {
+            complete();
+        }
+    }
+
+    private synchronized boolean begin(final int index) {
+        //timed out or cancelled while waiting for a thread
+        if (finished[index]) {
+            return false;
+        }
+        workers[index] = Thread.currentThread();
+        return true;
+    }
+
+    private void timeout(final int index) {
+        final boolean complete;
+        synchronized (this) {
+            if (finished[index]) {
+                return;
+            }
+
+            final var wasDone = done;
+            record(index, null, new TimeoutException(String.format(
+                    "No response from %s within %s!", targets.get(index), options.getTimeout())));
+            interrupt(index);
+            complete = !wasDone && done;
+        }
+        if (complete) {
+            complete();
+        }
+    }
+
+    /**
+     * Add the result of a target and finish the request if the completion condition is met.
+     * Must be called holding the lock.
+     */
+    private void record(final int index, final MessageContainer<T> response, final Exception e) {
+        add(index, response, e);
+        if (e == null) {
+            successes++;
+        } else {
+            failures++;
+        }
+
+        if (!done && reached()) {
+            finish();
+        }
+    }
+
+    private void interrupt(final int index) {
+        if (workers[index] != null) {
+            workers[index].interrupt();
+        }
+    }
+
+    private boolean reached() {
+        final var total = targets.size();
+        switch (options.getMode()) {
+            case FIRST_SUCCESS:
+                return successes > 0 || failures == total;
+            case QUORUM:
+                return successes >= options.getQuorum()
+                       || failures > total - options.getQuorum();
+            default:
+                return successes + failures == total;
+        }
+    }
+
+    private void finish() {
+        done = true;
+        for (var index = 0; index < targets.size(); index++) {
+            if (!finished[index]) {
+                interrupt(index);
+                add(index, null, new CancellationException(
+                        "Fan-out completed before target was answered!"));
+            }
+        }
+    }
+
+    private void add(final int index, final MessageContainer<T> response, final Exception e) {
+        finished[index] = true;
+        if (timeouts[index] != null) {
+            timeouts[index].cancel(false);
+        }
+        final var elapsed = launched[index]
+                ? Duration.ofNanos(System.nanoTime() - started[index])
+                : Duration.ZERO;
+        results.add(new TargetResult<>(targets.get(index), response, e, elapsed));
+        notifyAll();
+    }
+
+    private void complete() {
+        final List<TargetResult<T>> all;
+        synchronized (this) {
+            all = List.copyOf(results);
+        }
+        completion.complete(all);
+    }
+
+    /**
+     * Sends the message to a single target.
+     *
+     * @param <T> Type of payload.
+     */
+    @FunctionalInterface
+    public interface TargetSender<T> {
+
+        /**
+         * Send the message to the target.
+         *
+         * @param target The target URI.
+         * @return The response.
+         * @throws Exception If the message could not be sent or the response is not accepted.
+         */
+        MessageContainer<T> send(URI target) throws Exception;
+    }
+}
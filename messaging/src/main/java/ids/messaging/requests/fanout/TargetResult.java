@@ -0,0 +1,82 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.fanout;
+
+import java.net.URI;
+import java.time.Duration;
+
+import ids.messaging.requests.MessageContainer;
+import lombok.Getter;
+
+/**
+ * Outcome of a fan-out request for a single target.
+ *
+ * @param <T> Type of payload.
+ */
+@Getter
+public final class TargetResult<T> {
+
+    /**
+     * The target URI.
+     */
+    private final URI target;
+
+    /**
+     * The response, null if the request failed.
+     */
+    private final MessageContainer<T> response;
+
+    /**
+     * The error, null if the request succeeded.
+     */
+    private final Exception error;
+
+    /**
+     * Time between sending and completion.
+     */
+    private final Duration elapsed;
+
+    /**
+     * Create a new TargetResult.
+     *
+     * @param target The target URI.
+     * @param response The response, null if the request failed.
+     * @param error The error, null if the request succeeded.
+     * @param elapsed Time between sending and completion.
+     */
+    public TargetResult(final URI target,
+                        final MessageContainer<T> response,
+                        final Exception error,
+                        final Duration elapsed) {
+        this.target = target;
+        this.response = response;
+        this.error = error;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Check whether the target answered without error.
+     *
+     * @return True if a response was received.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the rows of a SPARQL result in JSON format (application/sparql-results+json) with a
+ * streaming parser, so that only the current binding is held in memory. The variables are
+ * taken from the head of the result, which is expected before the bindings.
+ */
+public class JsonResultReader implements QueryResultReader {
+
+    /**
+     * Factory for the streaming JSON parsers.
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * The parser positioned within the bindings array.
+     */
+    private final JsonParser parser;
+
+    /**
+     * The variables declared in the head of the result.
+     */
+    private final List<String> variables = new ArrayList<>();
+
+    /**
+     * The next row, null if not read yet.
+     */
+    private QueryResultRow next;
+
+    /**
+     * True once the bindings array is exhausted.
+     */
+    private boolean finished;
+
+    /**
+     * Create a JsonResultReader, reading the result up to the first binding.
+     *
+     * @param source The JSON result.
+     * @throws IOException If the result cannot be read or is no SPARQL JSON result.
+     */
+    public JsonResultReader(final Reader source) throws IOException {
+        this.parser = JSON_FACTORY.createParser(source);
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "SPARQL JSON result must be an object!");
+        }
+
+        this.finished = !moveToBindings();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getVariables() {
+        return List.copyOf(variables);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+
+        if (finished) {
+            return false;
+        }
+
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                finished = true;
+                return false;
+            }
+
+            next = parseBinding();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryResultRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final var row = next;
+        next = null;
+        return row;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        parser.close();
+    }
+
+    private boolean moveToBindings() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var field = parser.getCurrentName();
+            final var value = parser.nextToken();
+
+            if ("head".equals(field) && value == JsonToken.START_OBJECT) {
+                readHead();
+            } else if ("results".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final var resultField = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY
+                            && "bindings".equals(resultField)) {
+                        return true;
+                    }
+                    parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return false;
+    }
+
+    private void readHead() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var field = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && "vars".equals(field)) {
+                while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    variables.add(parser.getText());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private QueryResultRow parseBinding() throws IOException {
+        final var bindings = new HashMap<String, String>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var variable = parser.getCurrentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var field = parser.getCurrentName();
+                parser.nextToken();
+                if ("value".equals(field)) {
+                    bindings.put(variable, parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new QueryResultRow(bindings);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import ids.messaging.requests.exceptions.QueryPageException;
+
+/**
+ * Iterator over the rows of a paginated SPARQL query. Pages are requested on demand: once
+ * half of the current page has been consumed, the next page is requested in the background.
+ * Iteration stops after the first page with fewer rows than the page size. Rows are parsed
+ * one at a time, so at most two pages are held in memory.
+ */
+public class PagedQueryIterator implements Iterator<QueryResultRow>, AutoCloseable {
+
+    /**
+     * Requests a single page of the result.
+     */
+    @FunctionalInterface
+    public interface PageFetcher {
+        /**
+         * Request a page.
+         *
+         * @param limit The page size.
+         * @param offset The offset of the first row of the page.
+         * @return The page as SPARQL result in TSV or JSON format.
+         * @throws Exception If the page could not be requested.
+         */
+        String fetch(int limit, int offset) throws Exception;
+    }
+
+    /**
+     * Requests the pages.
+     */
+    private final PageFetcher fetcher;
+
+    /**
+     * The number of rows per page.
+     */
+    private final int pageSize;
+
+    /**
+     * Executor for requesting the next page in the background.
+     */
+    private final Executor executor;
+
+    /**
+     * Rows of the current page.
+     */
+    private QueryResultReader current;
+
+    /**
+     * Offset of the current page.
+     */
+    private int offset;
+
+    /**
+     * Rows consumed of the current page.
+     */
+    private int consumed;
+
+    /**
+     * The next page, null if not requested yet.
+     */
+    private CompletableFuture<String> prefetched;
+
+    /**
+     * True once the last page has been reached or the iterator was closed.
+     */
+    private boolean finished;
+
+    /**
+     * Create a PagedQueryIterator. The first page is requested on the first call of
+     * {@link #hasNext()}.
+     *
+     * @param fetcher Requests the pages.
+     * @param pageSize The number of rows per page.
+     * @param executor Executor for requesting the next page in the background.
+     */
+    public PagedQueryIterator(final PageFetcher fetcher,
+                              final int pageSize,
+                              final Executor executor) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive!");
+        }
+
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.offset = -pageSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (!finished) {
+            if (current != null && current.hasNext()) {
+                if (consumed >= pageSize / 2 && prefetched == null) {
+                    prefetched = request(offset + pageSize);
+                }
+                return true;
+            }
+
+            if (current != null && consumed < pageSize) {
+                close();
+                return false;
+            }
+
+            nextPage();
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryResultRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        consumed++;
+        return current.next();
+    }
+
+    /**
+     * Stop iterating and cancel a pending request of the next page.
+     */
+    @Override
+    public void close() {
+        finished = true;
+
+        if (prefetched != null) {
+            prefetched.cancel(true);
+            prefetched = null;
+        }
+    }
+
+    private void nextPage() {
+        final var page = prefetched != null ? prefetched : request(offset + pageSize);
+        prefetched = null;
+        offset += pageSize;
+        consumed = 0;
+
+        try {
+            current = QueryResultFormat.open(new StringReader(page.join()));
+        } catch (CompletionException e) {
+            close();
+            throw new QueryPageException("Could not request result page at offset "
+                                         + offset + "!", e.getCause());
+        } catch (IOException e) {
+            close();
+            throw new QueryPageException("Could not parse result page at offset "
+                                         + offset + "!", e);
+        }
+    }
+
+    private CompletableFuture<String> request(final int pageOffset) {
+        try {
+            return CompletableFuture.supplyAsync(() -> fetch(pageOffset), executor);
+        } catch (RejectedExecutionException e) {
+            //executor saturated or shut down, request the page on the calling thread
+            try {
+                return CompletableFuture.completedFuture(fetch(pageOffset));
+            } catch (CompletionException failure) {
+                return CompletableFuture.failedFuture(failure.getCause());
+            }
+        }
+    }
+
+    private String fetch(final int pageOffset) {
+        try {
+            return fetcher.fetch(pageSize, pageOffset);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * The SPARQL result formats that can be read incrementally.
+ */
+public enum QueryResultFormat {
+
+    /**
+     * SPARQL results in TSV format (text/tab-separated-values).
+     */
+    TSV,
+
+    /**
+     * SPARQL results in JSON format (application/sparql-results+json).
+     */
+    JSON;
+
+    /**
+     * Maximum number of leading whitespace characters skipped while detecting the format.
+     */
+    private static final int DETECTION_LIMIT = 1024;
+
+    /**
+     * Detect the format of the result from its first non-whitespace character, without
+     * consuming it: a JSON result starts with '{', everything else is read as TSV.
+     *
+     * @param source The result, must support mark and reset.
+     * @return The detected format.
+     * @throws IOException If the result cannot be read.
+     */
+    public static QueryResultFormat detect(final BufferedReader source) throws IOException {
+        source.mark(DETECTION_LIMIT);
+
+        try {
+            for (var i = 0; i < DETECTION_LIMIT; i++) {
+                final var c = source.read();
+                if (c < 0 || !Character.isWhitespace(c)) {
+                    return c == '{' ? JSON : TSV;
+                }
+            }
+
+            return TSV;
+        } finally {
+            source.reset();
+        }
+    }
+
+    /**
+     * Open a reader for a result, detecting its format.
+     *
+     * @param source The result.
+     * @return Reader over the rows of the result.
+     * @throws IOException If the beginning of the result cannot be read.
+     */
+    public static QueryResultReader open(final Reader source) throws IOException {
+        final var buffered = source instanceof BufferedReader
+                ? (BufferedReader) source
+                : new BufferedReader(source);
+
+        return detect(buffered).reader(buffered);
+    }
+
+    /**
+     * Open a reader for a result in this format.
+     *
+     * @param source The result.
+     * @return Reader over the rows of the result.
+     * @throws IOException If the beginning of the result cannot be read.
+     */
+    public QueryResultReader reader(final Reader source) throws IOException {
+        return this == JSON ? new JsonResultReader(source) : new TsvResultReader(source);
+    }
+}
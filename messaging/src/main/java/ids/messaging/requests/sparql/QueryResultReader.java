@@ -0,0 +1,36 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the rows of a SPARQL select result incrementally from its source. Errors while
+ * reading a row are thrown as {@link java.io.UncheckedIOException}.
+ */
+public interface QueryResultReader extends Iterator<QueryResultRow>, Closeable {
+
+    /**
+     * @return The variables of the result, in the order declared by the result.
+     */
+    List<String> getVariables();
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.util.Map;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A single row of a SPARQL SELECT result: the values bound to the query variables. URIs are
+ * given without angle brackets, literals as their unescaped lexical form.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class QueryResultRow {
+    /**
+     * The bound values by variable name (without leading question mark).
+     */
+    private final Map<String, String> bindings;
+
+    /**
+     * Create a QueryResultRow.
+     *
+     * @param bindings The bound values by variable name, unbound variables are absent.
+     */
+    public QueryResultRow(final Map<String, String> bindings) {
+        this.bindings = Map.copyOf(bindings);
+    }
+
+    /**
+     * Get the value bound to a variable.
+     *
+     * @param variable The variable name, with or without leading question mark.
+     * @return The value, null if the variable is unbound.
+     */
+    public String get(final String variable) {
+        return bindings.get(variable.startsWith("?") ? variable.substring(1) : variable);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import de.fraunhofer.iais.eis.Message;
+import lombok.Getter;
+
+/**
+ * The result of a SPARQL query whose rows are parsed while they are read from the response
+ * body. The rows can be consumed once, afterwards (or when stopping early) the result must be
+ * closed to release the connection.
+ */
+public class QueryResultStream implements Closeable {
+
+    /**
+     * The received response message header.
+     */
+    @Getter
+    private final Message underlyingMessage;
+
+    /**
+     * The reader over the result rows.
+     */
+    private final QueryResultReader reader;
+
+    /**
+     * The underlying response.
+     */
+    private final Closeable response;
+
+    /**
+     * Create a QueryResultStream.
+     *
+     * @param underlyingMessage The received response message header.
+     * @param reader The reader over the result rows.
+     * @param response The underlying response, closed together with the result.
+     */
+    public QueryResultStream(final Message underlyingMessage,
+                             final QueryResultReader reader,
+                             final Closeable response) {
+        this.underlyingMessage = underlyingMessage;
+        this.reader = reader;
+        this.response = response;
+    }
+
+    /**
+     * @return The variables of the result.
+     */
+    public List<String> getVariables() {
+        return reader.getVariables();
+    }
+
+    /**
+     * @return Iterator over the result rows, read errors are thrown as
+     * {@link UncheckedIOException}.
+     */
+    public Iterator<QueryResultRow> iterator() {
+        return reader;
+    }
+
+    /**
+     * @return Stream over the result rows, closing the stream closes the result.
+     */
+    public Stream<QueryResultRow> rows() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(reader,
+                                                    Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } finally {
+            response.close();
+        }
+    }
+}
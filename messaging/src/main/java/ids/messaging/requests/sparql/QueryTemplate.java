@@ -0,0 +1,332 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A query text compiled once into static segments and typed parameter slots, written as
+ * <code>${name:type}</code>. Rendering escapes every value for its slot type and writes the
+ * query into a buffer reused per thread. Slot types:
+ * <ul>
+ *     <li>string: contents of a SPARQL string literal, the quotes are part of the template</li>
+ *     <li>regex: contents of a SPARQL string literal used as regular expression, matching
+ *     the value literally</li>
+ *     <li>int: an integer</li>
+ *     <li>iri: an IRI, written with angle brackets</li>
+ * </ul>
+ * Instances are immutable and thread-safe.
+ */
+public final class QueryTemplate {
+
+    /**
+     * The types of parameter slots.
+     */
+    public enum ParameterType {
+        /**
+         * Contents of a SPARQL string literal.
+         */
+        STRING,
+
+        /**
+         * Contents of a SPARQL string literal used as regular expression.
+         */
+        REGEX,
+
+        /**
+         * An integer.
+         */
+        INT,
+
+        /**
+         * An IRI, written with angle brackets.
+         */
+        IRI
+    }
+
+    /**
+     * Matches a parameter slot.
+     */
+    private static final Pattern SLOT = Pattern.compile("\\$\\{([A-Za-z][A-Za-z0-9_]*):(\\w+)}");
+
+    /**
+     * Characters that are not allowed in IRIs.
+     */
+    private static final Pattern INVALID_IRI = Pattern.compile("[\\x00-\\x20<>\"{}|^`\\\\]");
+
+    /**
+     * Characters with a special meaning in regular expressions.
+     */
+    private static final String REGEX_SPECIAL = "\\.^$|?*+()[]{}";
+
+    /**
+     * Rendered queries larger than this do not keep their buffer.
+     */
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    /**
+     * The static segments, one more than slots.
+     */
+    private final String[] segments;
+
+    /**
+     * The parameter name of each slot.
+     */
+    private final String[] slotNames;
+
+    /**
+     * The parameter type of each slot.
+     */
+    private final ParameterType[] slotTypes;
+
+    /**
+     * The parameters and their types, in order of first appearance.
+     */
+    private final Map<String, ParameterType> parameters;
+
+    /**
+     * Length of all static segments.
+     */
+    private final int staticLength;
+
+    /**
+     * Render buffer per thread.
+     */
+    private final ThreadLocal<StringBuilder> buffer;
+
+    private QueryTemplate(final String[] segments,
+                          final String[] slotNames,
+                          final ParameterType[] slotTypes,
+                          final Map<String, ParameterType> parameters) {
+        this.segments = segments;
+        this.slotNames = slotNames;
+        this.slotTypes = slotTypes;
+        this.parameters = Collections.unmodifiableMap(parameters);
+
+        var length = 0;
+        for (final var segment : segments) {
+            length += segment.length();
+        }
+        this.staticLength = length;
+
+        final var initialCapacity = staticLength + staticLength / 2;
+        this.buffer = ThreadLocal.withInitial(() -> new StringBuilder(initialCapacity));
+    }
+
+    /**
+     * Compile a query template.
+     *
+     * @param template The query text with parameter slots.
+     * @return The compiled QueryTemplate.
+     * @throws IllegalArgumentException If a slot has an unknown type, or a parameter is used
+     * with different types.
+     */
+    public static QueryTemplate compile(final String template) {
+        final var segments = new ArrayList<String>();
+        final var names = new ArrayList<String>();
+        final var types = new ArrayList<ParameterType>();
+        final var parameters = new LinkedHashMap<String, ParameterType>();
+
+        final var matcher = SLOT.matcher(template);
+        var position = 0;
+        while (matcher.find()) {
+            final var name = matcher.group(1);
+            final var type = parseType(matcher.group(2));
+            final var previous = parameters.putIfAbsent(name, type);
+
+            if (previous != null && previous != type) {
+                throw new IllegalArgumentException(String.format(
+                        "Parameter %s is used as %s and %s!", name, previous, type));
+            }
+
+            segments.add(template.substring(position, matcher.start()));
+            names.add(name);
+            types.add(type);
+            position = matcher.end();
+        }
+        segments.add(template.substring(position));
+
+        return new QueryTemplate(segments.toArray(new String[0]),
+                                 names.toArray(new String[0]),
+                                 types.toArray(new ParameterType[0]),
+                                 parameters);
+    }
+
+    /**
+     * @return The parameters and their types, in order of first appearance.
+     */
+    public Map<String, ParameterType> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Render the query with the given parameter values.
+     *
+     * @param values The value of every parameter: a String for string and regex, an integral
+     * Number for int, and a URI or String for iri parameters.
+     * @return The query.
+     * @throws IllegalArgumentException If a parameter is missing or has an invalid value.
+     */
+    public String render(final Map<String, ?> values) {
+        final var query = buffer.get();
+        query.setLength(0);
+
+        for (var i = 0; i < slotNames.length; i++) {
+            query.append(segments[i]);
+
+            final var value = values.get(slotNames[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value for parameter "
+                                                   + slotNames[i] + "!");
+            }
+
+            appendValue(query, slotNames[i], slotTypes[i], value);
+        }
+        query.append(segments[slotNames.length]);
+
+        final var result = query.toString();
+
+        if (query.capacity() > MAX_RETAINED_BUFFER) {
+            buffer.remove();
+        }
+
+        return result;
+    }
+
+    /**
+     * Escape a value for use within a SPARQL string literal.
+     *
+     * @param value The value.
+     * @return The escaped value.
+     */
+    public static String escapeString(final String value) {
+        final var escaped = new StringBuilder(value.length());
+        appendString(escaped, value);
+        return escaped.toString();
+    }
+
+    /**
+     * Escape a value for use within a SPARQL string literal used as regular expression, so
+     * that the expression matches the value literally.
+     *
+     * @param value The value.
+     * @return The escaped value.
+     */
+    public static String escapeRegex(final String value) {
+        final var escaped = new StringBuilder(value.length());
+        appendRegex(escaped, value);
+        return escaped.toString();
+    }
+
+    private static void appendValue(final StringBuilder query,
+                                    final String name,
+                                    final ParameterType type,
+                                    final Object value) {
+        switch (type) {
+            case STRING:
+                appendString(query, expectString(name, value));
+                break;
+            case REGEX:
+                appendRegex(query, expectString(name, value));
+                break;
+            case INT:
+                if (!(value instanceof Integer || value instanceof Long
+                      || value instanceof Short || value instanceof Byte
+                      || value instanceof BigInteger)) {
+                    throw new IllegalArgumentException("Parameter " + name
+                                                       + " must be an integer!");
+                }
+                query.append(value);
+                break;
+            case IRI:
+                final var iri = value instanceof URI ? value.toString() : expectString(name, value);
+                if (INVALID_IRI.matcher(iri).find()) {
+                    throw new IllegalArgumentException("Parameter " + name
+                                                       + " is no valid IRI!");
+                }
+                query.append('<').append(iri).append('>');
+                break;
+            default:
+                throw new IllegalStateException("Unknown parameter type " + type + "!");
+        }
+    }
+
+    private static String expectString(final String name, final Object value) {
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a String!");
+        }
+
+        return (String) value;
+    }
+
+    private static void appendString(final StringBuilder query, final String value) {
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    query.append("\\\\");
+                    break;
+                case '"':
+                    query.append("\\\"");
+                    break;
+                case '\'':
+                    query.append("\\'");
+                    break;
+                case '\n':
+                    query.append("\\n");
+                    break;
+                case '\r':
+                    query.append("\\r");
+                    break;
+                case '\t':
+                    query.append("\\t");
+                    break;
+                default:
+                    query.append(c);
+            }
+        }
+    }
+
+    private static void appendRegex(final StringBuilder query, final String value) {
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if (REGEX_SPECIAL.indexOf(c) >= 0) {
+                //the regex escape itself must be escaped within the string literal
+                query.append("\\\\");
+            }
+            appendString(query, String.valueOf(c));
+        }
+    }
+
+    private static ParameterType parseType(final String type) {
+        try {
+            return ParameterType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown parameter type " + type + "!", e);
+        }
+    }
+}
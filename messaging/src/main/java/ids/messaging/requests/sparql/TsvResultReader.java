@@ -0,0 +1,228 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the rows of a SPARQL result in TSV format one line at a time, so that only the
+ * current row is held in memory.
+ */
+public class TsvResultReader implements QueryResultReader {
+
+    /**
+     * The source of the result.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * The variables of the result, in column order.
+     */
+    private final List<String> variables;
+
+    /**
+     * The next row, null if not read yet.
+     */
+    private QueryResultRow next;
+
+    /**
+     * True once the source is exhausted.
+     */
+    private boolean finished;
+
+    /**
+     * Create a TsvResultReader, reading the header line immediately.
+     *
+     * @param source The TSV result.
+     * @throws IOException If the header line cannot be read.
+     */
+    public TsvResultReader(final Reader source) throws IOException {
+        this.reader = source instanceof BufferedReader
+                ? (BufferedReader) source
+                : new BufferedReader(source);
+
+        final var header = reader.readLine();
+        if (header == null || header.isBlank()) {
+            this.variables = List.of();
+            this.finished = true;
+        } else {
+            this.variables = Arrays.stream(header.split("\t", -1))
+                                   .map(TsvResultReader::variableName)
+                                   .collect(Collectors.toUnmodifiableList());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+
+        if (finished) {
+            return false;
+        }
+
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isEmpty());
+
+            if (line == null) {
+                finished = true;
+                return false;
+            }
+
+            next = parseRow(line);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryResultRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final var row = next;
+        next = null;
+        return row;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+
+    private QueryResultRow parseRow(final String line) {
+        final var fields = line.split("\t", -1);
+        final var bindings = new HashMap<String, String>();
+
+        for (var i = 0; i < variables.size() && i < fields.length; i++) {
+            if (!fields[i].isEmpty()) {
+                bindings.put(variables.get(i), decodeTerm(fields[i]));
+            }
+        }
+
+        return new QueryResultRow(bindings);
+    }
+
+    private static String variableName(final String column) {
+        final var name = column.trim();
+        return name.startsWith("?") ? name.substring(1) : name;
+    }
+
+    /**
+     * Decode a term in SPARQL TSV syntax: URIs lose their angle brackets, literals their
+     * quotes, language tag or datatype and escapes. Other terms are returned unchanged.
+     *
+     * @param term The encoded term.
+     * @return The decoded value.
+     */
+    static String decodeTerm(final String term) {
+        if (term.length() >= 2 && term.charAt(0) == '<' && term.charAt(term.length() - 1) == '>') {
+            return term.substring(1, term.length() - 1);
+        }
+
+        if (term.charAt(0) == '"') {
+            final var end = term.lastIndexOf('"');
+            if (end > 0) {
+                return unescape(term, 1, end);
+            }
+        }
+
+        return term;
+    }
+
+    /**
+     * Resolve the string escapes of a literal.
+     *
+     * @param value The String containing the literal.
+     * @param start Start of the literal (inclusive).
+     * @param end End of the literal (exclusive).
+     * @return The unescaped literal.
+     */
+    static String unescape(final String value, final int start, final int end) {
+        if (value.indexOf('\\', start) < 0 || value.indexOf('\\', start) >= end) {
+            return value.substring(start, end);
+        }
+
+        final var result = new StringBuilder(end - start);
+        for (var i = start; i < end; i++) {
+            final var c = value.charAt(i);
+
+            if (c != '\\' || i + 1 >= end) {
+                result.append(c);
+                continue;
+            }
+
+            final var escaped = value.charAt(++i);
+            switch (escaped) {
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                default:
+                    result.append(escaped);
+            }
+        }
+
+        return result.toString();
+    }
+}
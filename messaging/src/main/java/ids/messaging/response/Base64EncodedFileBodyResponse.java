@@ -21,7 +21,8 @@ package ids.messaging.response;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Base64;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -31,13 +32,13 @@ import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
 import ids.messaging.common.SerializeException;
 import ids.messaging.protocol.multipart.parser.MultipartDatapart;
 import lombok.Getter;
-import org.apache.commons.io.FileUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
 /**
- * Utility class for returning files using Base64 encoding.
+ * Utility class for returning files using Base64 encoding. The file is not loaded into
+ * memory but encoded on the fly while the response is written.
  *
  * @param <T> a subclass of ResponseMessage or NotificationMessage
  */
@@ -49,9 +50,9 @@ public class Base64EncodedFileBodyResponse<T extends Message> implements Message
     private final T header;
 
     /**
-     * The payload of the response.
+     * The payload of the response, Base64 encoded while it is written.
      */
-    private final HttpEntity<byte[]> payload;
+    private final HttpEntity<StreamingPayload> streamingPayload;
 
     /**
      * Create a MessageResponse with a Payload containing a Base64 encoded File.
@@ -59,10 +60,8 @@ public class Base64EncodedFileBodyResponse<T extends Message> implements Message
      * @param header Header of the response (ResponseMessage or NotificationMessage).
      * @param file File that should be returned.
      * @param mediaType Mediatype of the file.
-     * @throws IOException If header cannot be serialized to json, or file cannot be parsed
-     * to base64 encoded string.
+     * @throws IOException If the file does not exist or is not readable.
      */
-    @SuppressWarnings(value = { "rawtypes", "unchecked" })
     public Base64EncodedFileBodyResponse(final T header, final File file, final MediaType mediaType)
             throws IOException {
         if (header instanceof RequestMessage) {
@@ -70,14 +69,33 @@ public class Base64EncodedFileBodyResponse<T extends Message> implements Message
                 + "using instances of ResponseMessage or NotificationMessage!");
         }
 
+        final var path = file.toPath();
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw new IOException("File is not readable: " + file);
+        }
+
         this.header = header;
 
-        final var payloadBytes = Base64.getEncoder().encode(FileUtils.readFileToByteArray(file));
         final var headers = new HttpHeaders();
 
         headers.setContentType(mediaType);
 
-        this.payload = new HttpEntity(payloadBytes, headers);
+        this.streamingPayload = new HttpEntity<>(StreamingPayload.base64(path), headers);
+    }
+
+    /**
+     * Get the payload Base64 encoded in memory.
+     *
+     * @return The Base64 encoded file with its headers.
+     * @deprecated Loads the complete file into memory, use {@link #getStreamingPayload()}.
+     */
+    @Deprecated
+    public HttpEntity<byte[]> getPayload() {
+        try (var in = streamingPayload.getBody().getInputStream()) {
+            return new HttpEntity<>(in.readAllBytes(), streamingPayload.getHeaders());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -88,8 +106,7 @@ public class Base64EncodedFileBodyResponse<T extends Message> implements Message
      * @param mediaType Mediatype of the file.
      * @param <T> Subtype of Message (ResponseMessage or NotificationMessage).
      * @return Instance of Base64EncodedFileBodyResponse using given parameters.
-     * @throws IOException If header cannot be serialized to json, or file cannot be parsed
-     * to base64 encoded string.
+     * @throws IOException If the file does not exist or is not readable.
      */
     public static <T extends Message> Base64EncodedFileBodyResponse<T> create(
             final T header, final File file, final MediaType mediaType)
@@ -107,7 +124,7 @@ public class Base64EncodedFileBodyResponse<T extends Message> implements Message
             final var multiMap = new LinkedHashMap<String, Object>();
             multiMap.put(MultipartDatapart.HEADER.toString(),
                          serializer.serialize(header));
-            multiMap.put(MultipartDatapart.PAYLOAD.toString(), payload);
+            multiMap.put(MultipartDatapart.PAYLOAD.toString(), streamingPayload);
 
             return multiMap;
         } catch (IOException ioException) {
@@ -0,0 +1,180 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * InputStream returning the Base64 encoding of another InputStream. The source is encoded
+ * on the fly in fixed-size chunks, so only one chunk is held in memory at a time.
+ */
+public final class Base64EncodingInputStream extends InputStream {
+
+    /**
+     * Number of source bytes encoded into one group of Base64 characters.
+     */
+    private static final int GROUP_BYTES = 3;
+
+    /**
+     * Number of Base64 characters of one group.
+     */
+    private static final int GROUP_CHARS = 4;
+
+    /**
+     * Size of a source chunk, a multiple of 3 so that only the last chunk is padded.
+     */
+    static final int CHUNK_SIZE = GROUP_BYTES * 16 * 1024;
+
+    /**
+     * The Base64 encoder.
+     */
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+
+    /**
+     * Mask to read a byte as unsigned value.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * The source stream.
+     */
+    private final InputStream source;
+
+    /**
+     * Buffer for a source chunk.
+     */
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    /**
+     * Buffer for an encoded chunk.
+     */
+    private final byte[] encoded = new byte[CHUNK_SIZE / GROUP_BYTES * GROUP_CHARS];
+
+    /**
+     * Position in the encoded chunk.
+     */
+    private int position;
+
+    /**
+     * Number of valid bytes in the encoded chunk.
+     */
+    private int limit;
+
+    /**
+     * True once the source is exhausted.
+     */
+    private boolean finished;
+
+    /**
+     * Create a Base64EncodingInputStream.
+     *
+     * @param source The stream to encode.
+     */
+    public Base64EncodingInputStream(final InputStream source) {
+        this.source = source;
+    }
+
+    /**
+     * Length of the Base64 encoding of some data.
+     *
+     * @param sourceLength Length of the data.
+     * @return Length of the encoding.
+     */
+    public static long encodedLength(final long sourceLength) {
+        return (sourceLength + GROUP_BYTES - 1) / GROUP_BYTES * GROUP_CHARS;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return encoded[position++] & BYTE_MASK;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!fill()) {
+            return -1;
+        }
+
+        final var count = Math.min(len, limit - position);
+        System.arraycopy(encoded, position, b, off, count);
+        position += count;
+
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+
+        if (finished) {
+            return false;
+        }
+
+        final var read = source.readNBytes(chunk, 0, chunk.length);
+
+        if (read < chunk.length) {
+            finished = true;
+        }
+
+        if (read == 0) {
+            return false;
+        }
+
+        position = 0;
+        limit = read == chunk.length
+                ? ENCODER.encode(chunk, encoded)
+                : ENCODER.encode(Arrays.copyOf(chunk, read), encoded);
+
+        return true;
+    }
+}
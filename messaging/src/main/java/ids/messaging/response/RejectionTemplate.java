@@ -0,0 +1,263 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.response;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.io.IOException;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
+import de.fraunhofer.iais.eis.RejectionMessageBuilder;
+import de.fraunhofer.iais.eis.RejectionReason;
+import de.fraunhofer.iais.eis.TokenFormat;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import lombok.Getter;
+
+/**
+ * A RejectionMessage that has been serialized once and is rendered by only patching the
+ * message id, the correlation message and the issued timestamp, so that rejecting a request
+ * does not require building and JSON-LD serializing a new infomodel message.
+ */
+public final class RejectionTemplate {
+
+    /**
+     * Prefix of the ids generated for rendered messages.
+     */
+    private static final String ID_PREFIX = "https://w3id.org/idsa/autogen/rejectionMessage/";
+
+    /**
+     * Sentinel UUID used as message id while serializing the template.
+     */
+    private static final String ID_SENTINEL = "00000000-0000-0000-0000-000000000000";
+
+    /**
+     * Sentinel URI used as correlation message while serializing the template.
+     */
+    private static final String CORRELATION_SENTINEL =
+            "https://INVALID/11111111-1111-1111-1111-111111111111";
+
+    /**
+     * Correlation message used if the rejected message id is unknown.
+     */
+    private static final String UNKNOWN_CORRELATION = "https://INVALID";
+
+    /**
+     * Start of the sentinel issued timestamp as it appears in the serialized template.
+     */
+    private static final String ISSUED_SENTINEL = "1970-01-01T00:00:00";
+
+    /**
+     * Format used for the rendered issued timestamp.
+     */
+    private static final DateTimeFormatter ISSUED_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    /**
+     * Slot index of the message id.
+     */
+    private static final int SLOT_ID = 0;
+
+    /**
+     * Slot index of the issued timestamp.
+     */
+    private static final int SLOT_ISSUED = 1;
+
+    /**
+     * Slot index of the correlation message.
+     */
+    private static final int SLOT_CORRELATION = 2;
+
+    /**
+     * Number of patched slots.
+     */
+    private static final int SLOT_COUNT = 3;
+
+    /**
+     * The header segments in between the patched slots (one more than slots).
+     */
+    private final String[] segments;
+
+    /**
+     * The slot that follows each segment, in order of appearance.
+     */
+    private final int[] slotOrder;
+
+    /**
+     * The rejection reason of this template.
+     */
+    @Getter
+    private final RejectionReason rejectionReason;
+
+    /**
+     * The connector id the template was built for.
+     */
+    @Getter
+    private final URI connectorId;
+
+    /**
+     * The outbound model version the template was built for.
+     */
+    @Getter
+    private final String modelVersion;
+
+    private RejectionTemplate(final String[] segments,
+                              final int[] slotOrder,
+                              final RejectionReason rejectionReason,
+                              final URI connectorId,
+                              final String modelVersion) {
+        this.segments = segments;
+        this.slotOrder = slotOrder;
+        this.rejectionReason = rejectionReason;
+        this.connectorId = connectorId;
+        this.modelVersion = modelVersion;
+    }
+
+    /**
+     * Build and serialize a new template.
+     *
+     * @param rejectionReason The rejection reason of the rendered messages.
+     * @param connectorId The id of the connector, used as issuer and sender agent.
+     * @param modelVersion The outbound model version of the connector.
+     * @param serializer The infomodel serializer.
+     * @return The RejectionTemplate.
+     * @throws IOException If the template message could not be serialized.
+     */
+    public static RejectionTemplate create(final RejectionReason rejectionReason,
+                                           final URI connectorId,
+                                           final String modelVersion,
+                                           final Serializer serializer)
+            throws IOException {
+        final var message = new RejectionMessageBuilder(URI.create(ID_PREFIX + ID_SENTINEL))
+                ._securityToken_(new DynamicAttributeTokenBuilder()
+                                         ._tokenFormat_(TokenFormat.JWT)
+                                         ._tokenValue_("rejected!")
+                                         .build())
+                ._correlationMessage_(URI.create(CORRELATION_SENTINEL))
+                ._senderAgent_(connectorId)
+                ._issuerConnector_(connectorId)
+                ._modelVersion_(modelVersion)
+                ._rejectionReason_(rejectionReason)
+                ._issued_(sentinelIssued())
+                .build();
+
+        final var serialized = serializer.serialize(message);
+
+        final var starts = new int[SLOT_COUNT];
+        final var ends = new int[SLOT_COUNT];
+        starts[SLOT_ID] = serialized.indexOf(ID_SENTINEL);
+        ends[SLOT_ID] = starts[SLOT_ID] + ID_SENTINEL.length();
+        starts[SLOT_CORRELATION] = serialized.indexOf(CORRELATION_SENTINEL);
+        ends[SLOT_CORRELATION] = starts[SLOT_CORRELATION] + CORRELATION_SENTINEL.length();
+        starts[SLOT_ISSUED] = serialized.indexOf(ISSUED_SENTINEL);
+        ends[SLOT_ISSUED] = serialized.indexOf('"', Math.max(starts[SLOT_ISSUED], 0));
+
+        for (var slot = 0; slot < SLOT_COUNT; slot++) {
+            if (starts[slot] < 0 || ends[slot] < 0) {
+                throw new IOException("Could not locate template slots in serialized message!");
+            }
+        }
+
+        final var slotOrder = IntStream.range(0, SLOT_COUNT)
+                                       .boxed()
+                                       .sorted(Comparator.comparingInt(slot -> starts[slot]))
+                                       .mapToInt(Integer::intValue)
+                                       .toArray();
+
+        final var segments = new String[SLOT_COUNT + 1];
+        var position = 0;
+        for (var i = 0; i < SLOT_COUNT; i++) {
+            segments[i] = serialized.substring(position, starts[slotOrder[i]]);
+            position = ends[slotOrder[i]];
+        }
+        segments[SLOT_COUNT] = serialized.substring(position);
+
+        return new RejectionTemplate(segments, slotOrder, rejectionReason,
+                                     connectorId, modelVersion);
+    }
+
+    /**
+     * Render the serialized header with a fresh message id and the current time as issued.
+     * The correlation message is set to https://INVALID.
+     *
+     * @return The serialized RejectionMessage header.
+     */
+    public String render() {
+        return render(null);
+    }
+
+    /**
+     * Render the serialized header with a fresh message id, the current time as issued
+     * and the given correlation message.
+     *
+     * @param correlationMessage ID of the rejected message, https://INVALID if null.
+     * @return The serialized RejectionMessage header.
+     */
+    public String render(final URI correlationMessage) {
+        final var values = new String[SLOT_COUNT];
+        values[SLOT_ID] = UUID.randomUUID().toString();
+        values[SLOT_ISSUED] = OffsetDateTime.now(ZoneOffset.UTC)
+                                            .truncatedTo(ChronoUnit.MILLIS)
+                                            .format(ISSUED_FORMAT);
+        values[SLOT_CORRELATION] = correlationMessage == null
+                ? UNKNOWN_CORRELATION
+                : correlationMessage.toString();
+
+        var length = 0;
+        for (var i = 0; i < SLOT_COUNT; i++) {
+            length += segments[i].length() + values[i].length();
+        }
+
+        final var header = new StringBuilder(length + segments[SLOT_COUNT].length());
+        for (var i = 0; i < SLOT_COUNT; i++) {
+            header.append(segments[i]).append(values[slotOrder[i]]);
+        }
+
+        return header.append(segments[SLOT_COUNT]).toString();
+    }
+
+    /**
+     * Check whether the template was built for the given connector configuration.
+     *
+     * @param id The current connector id.
+     * @param version The current outbound model version.
+     * @return True if the template can still be used.
+     */
+    public boolean matches(final URI id, final String version) {
+        return connectorId.equals(id) && modelVersion.equals(version);
+    }
+
+    private static XMLGregorianCalendar sentinelIssued() throws IOException {
+        try {
+            return DatatypeFactory.newInstance()
+                                  .newXMLGregorianCalendar("1970-01-01T00:00:00.000Z");
+        } catch (DatatypeConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.response;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.fraunhofer.iais.eis.RejectionReason;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.core.config.ConfigContainer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Provides cheap RejectionMessage responses for the current connector, based on
+ * {@link RejectionTemplate}s which are serialized once per RejectionReason and rebuilt
+ * if the connector id or outbound model version changes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RejectionTemplateProvider {
+
+    /**
+     * The ConfigContainer.
+     */
+    private final ConfigContainer configContainer;
+
+    /**
+     * The infomodel serializer.
+     */
+    private final Serializer serializer;
+
+    /**
+     * The templates per RejectionReason.
+     */
+    private final Map<RejectionReason, RejectionTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Create a rejection response from the pre-serialized template.
+     *
+     * @param rejectionReason RejectionReason (why the message was rejected).
+     * @param errorMessage Detailed error description.
+     * @return The rejection response, or an {@link ErrorResponse} with default header if
+     * the template could not be built.
+     */
+    public MessageResponse createResponse(final RejectionReason rejectionReason,
+                                          final String errorMessage) {
+        return createResponse(rejectionReason, errorMessage, null);
+    }
+
+    /**
+     * Create a rejection response from the pre-serialized template.
+     *
+     * @param rejectionReason RejectionReason (why the message was rejected).
+     * @param errorMessage Detailed error description.
+     * @param messageId ID of the message being rejected, may be null if unknown.
+     * @return The rejection response, or an {@link ErrorResponse} with default header if
+     * the template could not be built.
+     */
+    public MessageResponse createResponse(final RejectionReason rejectionReason,
+                                          final String errorMessage,
+                                          final URI messageId) {
+        final var connector = configContainer.getConnector();
+        final var connectorId = connector.getId();
+        final var modelVersion = connector.getOutboundModelVersion();
+
+        try {
+            final var template = getTemplate(rejectionReason, connectorId, modelVersion);
+            return new TemplatedRejectionResponse(template.render(messageId), errorMessage);
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Could not build rejection template, using default header instead!"
+                         + " [code=(IMSMEW0047), exception=({})]", e.getMessage());
+            }
+
+            return ErrorResponse.withDefaultHeader(rejectionReason, errorMessage,
+                                                   connectorId, modelVersion, messageId);
+        }
+    }
+
+    /**
+     * Discard all templates, they will be rebuilt on next use.
+     */
+    public void invalidate() {
+        templates.clear();
+    }
+
+    private RejectionTemplate getTemplate(final RejectionReason rejectionReason,
+                                          final URI connectorId,
+                                          final String modelVersion)
+            throws IOException {
+        final var template = templates.get(rejectionReason);
+
+        if (template != null && template.matches(connectorId, modelVersion)) {
+            return template;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Building rejection template. [code=(IMSMED0143), reason=({})]",
+                      rejectionReason);
+        }
+
+        final var created = RejectionTemplate.create(rejectionReason, connectorId,
+                                                     modelVersion, serializer);
+        templates.put(rejectionReason, created);
+
+        return created;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.RequestMessage;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.common.SerializeException;
+import ids.messaging.protocol.multipart.parser.MultipartDatapart;
+import lombok.Getter;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * MessageResponse streaming its payload from a file or an InputStream while the response is
+ * written, either as raw binary or Base64 encoded on the fly, so that large payloads are
+ * never loaded into memory.
+ *
+ * @param <T> a subclass of ResponseMessage or NotificationMessage
+ */
+@Getter
+public class StreamingFileBodyResponse<T extends Message> implements MessageResponse {
+    /**
+     * The header of the response.
+     */
+    private final T header;
+
+    /**
+     * The streamed payload of the response.
+     */
+    private final HttpEntity<StreamingPayload> payload;
+
+    /**
+     * Create a MessageResponse with a streamed payload.
+     *
+     * @param header Header of the response (ResponseMessage or NotificationMessage).
+     * @param streamingPayload The payload to stream.
+     * @param mediaType Mediatype of the payload.
+     */
+    public StreamingFileBodyResponse(final T header,
+                                     final StreamingPayload streamingPayload,
+                                     final MediaType mediaType) {
+        if (header instanceof RequestMessage) {
+            throw new IllegalStateException("Responses are only allowed "
+                + "using instances of ResponseMessage or NotificationMessage!");
+        }
+
+        this.header = header;
+
+        final var headers = new HttpHeaders();
+        headers.setContentType(mediaType);
+
+        this.payload = new HttpEntity<>(streamingPayload, headers);
+    }
+
+    /**
+     * Create a MessageResponse streaming a file as raw binary.
+     *
+     * @param header Header of the response (ResponseMessage or NotificationMessage).
+     * @param file File that should be returned.
+     * @param mediaType Mediatype of the file.
+     * @param <T> Subtype of Message (ResponseMessage or NotificationMessage).
+     * @return Instance of StreamingFileBodyResponse using given parameters.
+     * @throws IOException If the file is not readable.
+     */
+    public static <T extends Message> StreamingFileBodyResponse<T> raw(
+            final T header, final Path file, final MediaType mediaType)
+            throws IOException {
+        return new StreamingFileBodyResponse<>(header, StreamingPayload.raw(file), mediaType);
+    }
+
+    /**
+     * Create a MessageResponse streaming an InputStream as raw binary.
+     *
+     * @param header Header of the response (ResponseMessage or NotificationMessage).
+     * @param stream Stream that should be returned, closed after writing.
+     * @param length Length of the stream, -1 if unknown.
+     * @param mediaType Mediatype of the stream.
+     * @param <T> Subtype of Message (ResponseMessage or NotificationMessage).
+     * @return Instance of StreamingFileBodyResponse using given parameters.
+     */
+    public static <T extends Message> StreamingFileBodyResponse<T> raw(
+            final T header, final InputStream stream, final long length,
+            final MediaType mediaType) {
+        return new StreamingFileBodyResponse<>(header, StreamingPayload.raw(stream, length),
+                                               mediaType);
+    }
+
+    /**
+     * Create a MessageResponse streaming a file Base64 encoded.
+     *
+     * @param header Header of the response (ResponseMessage or NotificationMessage).
+     * @param file File that should be returned.
+     * @param mediaType Mediatype of the file.
+     * @param <T> Subtype of Message (ResponseMessage or NotificationMessage).
+     * @return Instance of StreamingFileBodyResponse using given parameters.
+     * @throws IOException If the file is not readable.
+     */
+    public static <T extends Message> StreamingFileBodyResponse<T> base64(
+            final T header, final Path file, final MediaType mediaType)
+            throws IOException {
+        return new StreamingFileBodyResponse<>(header, StreamingPayload.base64(file), mediaType);
+    }
+
+    /**
+     * Create a MessageResponse streaming an InputStream Base64 encoded.
+     *
+     * @param header Header of the response (ResponseMessage or NotificationMessage).
+     * @param stream Stream that should be returned, closed after writing.
+     * @param length Length of the stream before encoding, -1 if unknown.
+     * @param mediaType Mediatype of the stream.
+     * @param <T> Subtype of Message (ResponseMessage or NotificationMessage).
+     * @return Instance of StreamingFileBodyResponse using given parameters.
+     */
+    public static <T extends Message> StreamingFileBodyResponse<T> base64(
+            final T header, final InputStream stream, final long length,
+            final MediaType mediaType) {
+        return new StreamingFileBodyResponse<>(header, StreamingPayload.base64(stream, length),
+                                               mediaType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> createMultipartMap(final Serializer serializer)
+            throws SerializeException {
+        try {
+            final var multiMap = new LinkedHashMap<String, Object>();
+            multiMap.put(MultipartDatapart.HEADER.toString(),
+                         serializer.serialize(header));
+            multiMap.put(MultipartDatapart.PAYLOAD.toString(), payload);
+
+            return multiMap;
+        } catch (IOException ioException) {
+            throw new SerializeException(ioException);
+        }
+    }
+}
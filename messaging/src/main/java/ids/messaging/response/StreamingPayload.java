@@ -0,0 +1,230 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * A response payload that is streamed from a file or an InputStream instead of being held in
+ * memory, either as raw binary or Base64 encoded on the fly. Being a Spring Resource, it can
+ * be written by the default multipart converters via {@link #getInputStream()}; writers with
+ * direct access to the output stream should use {@link #writeTo(OutputStream)}, which uses
+ * {@link FileChannel#transferTo} for raw files.
+ */
+public final class StreamingPayload extends AbstractResource {
+
+    /**
+     * The file to stream, null if streaming an InputStream.
+     */
+    private final Path path;
+
+    /**
+     * The InputStream to stream, null if streaming a file.
+     */
+    private final InputStream stream;
+
+    /**
+     * Length of the source data, -1 if unknown.
+     */
+    private final long sourceLength;
+
+    /**
+     * True if the payload is Base64 encoded on the fly.
+     */
+    private final boolean base64;
+
+    private StreamingPayload(final Path path,
+                             final InputStream stream,
+                             final long sourceLength,
+                             final boolean base64) {
+        this.path = path;
+        this.stream = stream;
+        this.sourceLength = sourceLength;
+        this.base64 = base64;
+    }
+
+    /**
+     * Stream a file as raw binary.
+     *
+     * @param path The file.
+     * @return The payload.
+     * @throws IOException If the file is not readable.
+     */
+    public static StreamingPayload raw(final Path path) throws IOException {
+        return new StreamingPayload(path, null, Files.size(path), false);
+    }
+
+    /**
+     * Stream an InputStream as raw binary. The stream can only be written once.
+     *
+     * @param stream The InputStream, closed after writing.
+     * @param length Length of the stream, -1 if unknown.
+     * @return The payload.
+     */
+    public static StreamingPayload raw(final InputStream stream, final long length) {
+        return new StreamingPayload(null, stream, length, false);
+    }
+
+    /**
+     * Stream a file Base64 encoded.
+     *
+     * @param path The file.
+     * @return The payload.
+     * @throws IOException If the file is not readable.
+     */
+    public static StreamingPayload base64(final Path path) throws IOException {
+        return new StreamingPayload(path, null, Files.size(path), true);
+    }
+
+    /**
+     * Stream an InputStream Base64 encoded. The stream can only be written once.
+     *
+     * @param stream The InputStream, closed after writing.
+     * @param length Length of the stream before encoding, -1 if unknown.
+     * @return The payload.
+     */
+    public static StreamingPayload base64(final InputStream stream, final long length) {
+        return new StreamingPayload(null, stream, length, true);
+    }
+
+    /**
+     * @return True if the payload is Base64 encoded on the fly.
+     */
+    public boolean isBase64() {
+        return base64;
+    }
+
+    /**
+     * Write the payload to the given stream, which is not closed.
+     *
+     * @param out The output stream.
+     * @throws IOException If the payload cannot be read or written.
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        if (base64) {
+            try (var in = openSource();
+                 var encoder = Base64.getEncoder().wrap(CloseShieldOutputStream.wrap(out))) {
+                final var buffer = new byte[Base64EncodingInputStream.CHUNK_SIZE];
+                int read;
+                while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                    encoder.write(buffer, 0, read);
+                }
+            }
+        } else if (path != null) {
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                final var target = Channels.newChannel(out);
+                final var size = channel.size();
+                var position = 0L;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        } else {
+            try (var in = stream) {
+                in.transferTo(out);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        final var in = openSource();
+        return base64 ? new Base64EncodingInputStream(in) : in;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long contentLength() {
+        if (sourceLength < 0) {
+            return -1;
+        }
+        return base64 ? Base64EncodingInputStream.encodedLength(sourceLength) : sourceLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean exists() {
+        return path == null || Files.exists(path);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOpen() {
+        return stream != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFile() {
+        return path != null && !base64;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        final var source = path != null ? "file [" + path + "]" : "stream";
+        return base64 ? "Base64 encoded " + source : source;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object other) {
+        return this == other;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    private InputStream openSource() throws IOException {
+        return path != null ? Files.newInputStream(path) : stream;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import ids.messaging.protocol.multipart.parser.MultipartDatapart;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An implementation of MessageResponse carrying an already serialized RejectionMessage header,
+ * as rendered by a {@link RejectionTemplate}. Does not need the serializer.
+ */
+@Getter
+@AllArgsConstructor
+public class TemplatedRejectionResponse implements MessageResponse {
+    /**
+     * The serialized RejectionMessage header.
+     */
+    private final String header;
+
+    /**
+     * The error message.
+     */
+    private final String errorMessage;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> createMultipartMap(final Serializer serializer) {
+        final var multiMap = new LinkedHashMap<String, Object>();
+        multiMap.put(MultipartDatapart.HEADER.toString(), header);
+        multiMap.put(MultipartDatapart.PAYLOAD.toString(), errorMessage);
+
+        return multiMap;
+    }
+}
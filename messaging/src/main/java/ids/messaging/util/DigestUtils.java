@@ -0,0 +1,70 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utility for digests used as stable file names.
+ */
+public final class DigestUtils {
+
+    /**
+     * Hex digits of the digests.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Bits of a hex digit.
+     */
+    private static final int NIBBLE_BITS = 4;
+
+    /**
+     * Mask of a hex digit.
+     */
+    private static final int NIBBLE_MASK = 0xF;
+
+    private DigestUtils() { }
+
+    /**
+     * SHA-256 digest of the UTF-8 bytes of a String, as lower case hex.
+     *
+     * @param value The String.
+     * @return The hex digest.
+     */
+    public static String sha256Hex(final String value) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256")
+                                            .digest(value.getBytes(StandardCharsets.UTF_8));
+            final var hex = new char[digest.length * 2];
+
+            for (var i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[digest[i] >> NIBBLE_BITS & NIBBLE_MASK];
+                hex[i * 2 + 1] = HEX[digest[i] & NIBBLE_MASK];
+            }
+
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -24,9 +24,10 @@ package ids.messaging.util;
  */
 public final class FullTextQueryTemplate {
     /**
-     * Template for fulltext query search.
+     * Query selecting the literals of connectors, resources, representations and artifacts,
+     * up to the search filter.
      */
-    public static final String FULL_TEXT_QUERY = "PREFIX ids: <https://w3id.org/idsa/core/>\n"
+    private static final String QUERY_HEAD = "PREFIX ids: <https://w3id.org/idsa/core/>\n"
           + "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>\n"
           + "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n"
           + "PREFIX owl: <http://www.w3.org/2002/07/owl#>\n"
@@ -75,10 +76,12 @@ public final class FullTextQueryTemplate {
           + "\n"
           + "    ?internalUri ?predicate ?text .\n"
           + "    FILTER ( isLiteral(?text)) .\n"
-          + "\n"
-          + "    FILTER( REGEX(?text, \"%1$s\", \"i\") || REGEX(str(?uri), \"%1$s\", \"i\") )\n"
-          + "\n"
-          + "    # Get the Access Endpoint\n"
+          + "\n";
+
+    /**
+     * Remainder of the query after the search filter, without limit and offset.
+     */
+    private static final String QUERY_TAIL = "    # Get the Access Endpoint\n"
           + "    ?connector ids:hasDefaultEndpoint ?endpoint .\n"
           + "    ?endpoint ids:accessURL ?accessUrl .\n"
           + "\n"
@@ -94,7 +97,42 @@ public final class FullTextQueryTemplate {
           + "    BIND(?uri AS ?resultUri) # keep it non-breaking\n"
           + "    BIND(?text AS ?res) # keep it non-breaking\n"
           + "  }\n"
-          + "} LIMIT %2$d OFFSET %3$d\n";
+          + "}\n";
+
+    /**
+     * Template for fulltext query search. Arguments: search term, limit, offset.
+     *
+     * @deprecated The search term is inserted without escaping, use
+     * {@link #FULL_TEXT_QUERY_TEMPLATE} with {@link ids.messaging.requests.sparql.QueryTemplate}.
+     */
+    @Deprecated
+    public static final String FULL_TEXT_QUERY = QUERY_HEAD
+          + "    FILTER( REGEX(?text, \"%1$s\", \"i\") || REGEX(str(?uri), \"%1$s\", \"i\") )\n"
+          + "\n"
+          + QUERY_TAIL
+          + "LIMIT %2$d OFFSET %3$d\n";
+
+    /**
+     * Parameterized template for fulltext query search, to be compiled as
+     * {@link ids.messaging.requests.sparql.QueryTemplate}. The search term is matched
+     * literally. Parameters: term, limit, offset.
+     */
+    public static final String FULL_TEXT_QUERY_TEMPLATE = QUERY_HEAD
+          + "    FILTER( REGEX(?text, \"${term:regex}\", \"i\")"
+          + " || REGEX(str(?uri), \"${term:regex}\", \"i\") )\n"
+          + "\n"
+          + QUERY_TAIL
+          + "LIMIT ${limit:int} OFFSET ${offset:int}\n";
+
+    /**
+     * Template for querying the literals of the whole catalog, with the same result variables
+     * as the fulltext query search. The rows are ordered by all result variables, so that the
+     * pages are stable. Arguments: limit, offset.
+     */
+    public static final String CATALOG_QUERY = QUERY_HEAD
+          + QUERY_TAIL
+          + "ORDER BY ?internalUri ?res ?resultUri ?type ?accessUrl\n"
+          + "LIMIT %1$d OFFSET %2$d\n";
 
     private FullTextQueryTemplate() {
         // Nothing to do here.
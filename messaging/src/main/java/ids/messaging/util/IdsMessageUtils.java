@@ -33,11 +33,14 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import de.fraunhofer.iais.eis.ConfigurationModel;
 import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.Message;
 import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
 import lombok.extern.slf4j.Slf4j;
 
@@ -57,6 +60,11 @@ public final class IdsMessageUtils {
      */
     private static final Serializer SERIALIZER = new Serializer();
 
+    /**
+     * Simple names of the infomodel message types per implementing class.
+     */
+    private static final Map<Class<?>, String> MESSAGE_TYPE_NAMES = new ConcurrentHashMap<>();
+
     private IdsMessageUtils() {
         //Nothing to do here.
     }
@@ -183,4 +191,22 @@ public final class IdsMessageUtils {
     public static String buildSelfDeclaration(final Connector model) throws IOException {
         return SERIALIZER.serialize(model);
     }
+
+    /**
+     * Get the simple name of the infomodel message interface implemented by a message class,
+     * e.g. ArtifactRequestMessage for ArtifactRequestMessageImpl.
+     *
+     * @param messageClass The class of a message.
+     * @return The simple name of the message type.
+     */
+    public static String getMessageTypeName(final Class<?> messageClass) {
+        return MESSAGE_TYPE_NAMES.computeIfAbsent(messageClass, type -> {
+            for (final var iface : type.getInterfaces()) {
+                if (Message.class.isAssignableFrom(iface)) {
+                    return iface.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
 }
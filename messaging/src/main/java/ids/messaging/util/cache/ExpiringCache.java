@@ -0,0 +1,327 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.util.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A thread-safe cache bounded in size and entry lifetime. Once full, the least recently used
+ * entry is evicted. Expired entries are dropped when they are accessed or evicted.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values.
+ */
+public class ExpiringCache<K, V> {
+
+    /**
+     * Initial capacity of the backing map.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Load factor of the backing map.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Maximum number of entries.
+     */
+    private final int maxSize;
+
+    /**
+     * Default lifetime of an entry in milliseconds.
+     */
+    private final long ttlMillis;
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Entries in access order, guarded by this cache.
+     */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * Called for entries that are evicted, expired or invalidated, may be null.
+     */
+    private final BiConsumer<K, V> removalListener;
+
+    /**
+     * Number of cache hits.
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * Number of cache misses.
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Number of entries evicted because the cache was full.
+     */
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Create an ExpiringCache.
+     *
+     * @param maxSize Maximum number of entries.
+     * @param ttl Default lifetime of an entry.
+     */
+    public ExpiringCache(final int maxSize, final Duration ttl) {
+        this(maxSize, ttl, null);
+    }
+
+    /**
+     * Create an ExpiringCache with a removal listener.
+     *
+     * @param maxSize Maximum number of entries.
+     * @param ttl Default lifetime of an entry.
+     * @param removalListener Called for entries that are evicted, expired or invalidated.
+     */
+    public ExpiringCache(final int maxSize,
+                         final Duration ttl,
+                         final BiConsumer<K, V> removalListener) {
+        this(maxSize, ttl, removalListener, System::currentTimeMillis);
+    }
+
+    /**
+     * Create an ExpiringCache with a custom clock.
+     *
+     * @param maxSize Maximum number of entries.
+     * @param ttl Default lifetime of an entry.
+     * @param removalListener Called for entries that are evicted, expired or invalidated.
+     * @param clock Source of the current time in milliseconds.
+     */
+    ExpiringCache(final int maxSize,
+                  final Duration ttl,
+                  final BiConsumer<K, V> removalListener,
+                  final LongSupplier clock) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttl.toMillis();
+        this.removalListener = removalListener;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    }
+
+    /**
+     * Get a value from the cache.
+     *
+     * @param key The key.
+     * @return The value, empty if not cached or expired.
+     */
+    public Optional<V> get(final K key) {
+        V expired = null;
+        V value = null;
+
+        synchronized (this) {
+            final var entry = entries.get(key);
+
+            if (entry != null) {
+                if (entry.expiresAt > clock.getAsLong()) {
+                    value = entry.value;
+                } else {
+                    entries.remove(key);
+                    expired = entry.value;
+                }
+            }
+        }
+
+        if (expired != null) {
+            notifyRemoval(key, expired);
+        }
+
+        if (value == null) {
+            missCount.increment();
+            return Optional.empty();
+        }
+
+        hitCount.increment();
+        return Optional.of(value);
+    }
+
+    /**
+     * Put a value into the cache with the default lifetime.
+     *
+     * @param key The key.
+     * @param value The value.
+     */
+    public void put(final K key, final V value) {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * Put a value into the cache with a custom lifetime.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @param ttl The lifetime of the entry.
+     */
+    public void put(final K key, final V value, final Duration ttl) {
+        put(key, value, ttl.toMillis());
+    }
+
+    /**
+     * Remove a value from the cache.
+     *
+     * @param key The key.
+     */
+    public void invalidate(final K key) {
+        final Entry<V> removed;
+
+        synchronized (this) {
+            removed = entries.remove(key);
+        }
+
+        if (removed != null) {
+            notifyRemoval(key, removed.value);
+        }
+    }
+
+    /**
+     * Remove all values whose key matches the given predicate.
+     *
+     * @param predicate The predicate on the keys.
+     */
+    public void invalidateIf(final Predicate<K> predicate) {
+        final var removed = new ArrayList<Map.Entry<K, V>>();
+
+        synchronized (this) {
+            final var iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final var entry = iterator.next();
+                if (predicate.test(entry.getKey())) {
+                    removed.add(Map.entry(entry.getKey(), entry.getValue().value));
+                    iterator.remove();
+                }
+            }
+        }
+
+        removed.forEach(entry -> notifyRemoval(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Remove all values from the cache.
+     */
+    public void invalidateAll() {
+        invalidateIf(key -> true);
+    }
+
+    /**
+     * @return Number of entries currently in the cache, including expired ones not yet dropped.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Number of cache hits.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return Number of cache misses.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return Number of entries evicted because the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return Ratio of hits to all lookups, 0 if there were no lookups.
+     */
+    public double getHitRate() {
+        final var hits = hitCount.sum();
+        final var total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private void put(final K key, final V value, final long ttl) {
+        final List<Map.Entry<K, V>> removed = new ArrayList<>();
+
+        synchronized (this) {
+            final var now = clock.getAsLong();
+            final var previous = entries.put(key, new Entry<>(value, now + ttl));
+
+            if (previous != null && !Objects.equals(previous.value, value)) {
+                removed.add(Map.entry(key, previous.value));
+            }
+
+            final var iterator = entries.entrySet().iterator();
+            while (entries.size() > maxSize && iterator.hasNext()) {
+                final var eldest = iterator.next();
+                if (eldest.getValue().expiresAt > now) {
+                    evictionCount.increment();
+                }
+                removed.add(Map.entry(eldest.getKey(), eldest.getValue().value));
+                iterator.remove();
+            }
+        }
+
+        removed.forEach(entry -> notifyRemoval(entry.getKey(), entry.getValue()));
+    }
+
+    private void notifyRemoval(final K key, final V value) {
+        if (removalListener != null) {
+            removalListener.accept(key, value);
+        }
+    }
+
+    /**
+     * A cached value and its expiry.
+     *
+     * @param <V> Type of the value.
+     */
+    private static final class Entry<V> {
+        /**
+         * The value.
+         */
+        private final V value;
+
+        /**
+         * Time of expiry in milliseconds.
+         */
+        private final long expiresAt;
+
+        private Entry(final V value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
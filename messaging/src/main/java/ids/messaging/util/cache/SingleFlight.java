@@ -0,0 +1,123 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.util.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load, callers
+ * arriving while it is in flight wait for and share its result or exception. Nothing is
+ * kept once the load has finished.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values.
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Loads a value.
+     *
+     * @param <V> Type of the value.
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        /**
+         * Load the value.
+         *
+         * @return The value.
+         * @throws Exception If the value cannot be loaded.
+         */
+        V load() throws Exception;
+    }
+
+    /**
+     * Loads currently in flight.
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Number of calls that shared the load of another caller.
+     */
+    private final LongAdder sharedCount = new LongAdder();
+
+    /**
+     * Load the value for the key, or wait for the load already in flight for it.
+     *
+     * @param key The key.
+     * @param loader Loads the value if no load is in flight.
+     * @return The loaded value.
+     * @throws Exception The exception of the load, or InterruptedException if interrupted
+     * while waiting.
+     */
+    public V execute(final K key, final Loader<V> loader) throws Exception {
+        final var future = new CompletableFuture<V>();
+        final var existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            sharedCount.increment();
+            return await(existing);
+        }
+
+        try {
+            final var value = loader.load();
+            future.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * @return Number of loads currently in flight.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return Number of calls that shared the load of another caller.
+     */
+    public long getSharedCount() {
+        return sharedCount.sum();
+    }
+
+    private V await(final CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+
+import de.fraunhofer.iais.eis.ArtifactRequestMessage;
+import de.fraunhofer.iais.eis.DescriptionRequestMessage;
+import de.fraunhofer.iais.eis.Message;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PreDispatchingFilterChainTest {
+
+    @Test
+    void testChainPerMessageType() throws PreDispatchingFilterException {
+        final var chain = new PreDispatchingFilterChain();
+        final var artifact = Mockito.mock(ArtifactRequestMessage.class);
+        final var description = Mockito.mock(DescriptionRequestMessage.class);
+
+        chain.register(in -> PreDispatchingFilterResult.successResult());
+        chain.register(in -> PreDispatchingFilterResult.builder()
+                                                       .withSuccess(false)
+                                                       .withMessage("artifact")
+                                                       .build(),
+                       ArtifactRequestMessage.class);
+
+        final var artifactChain = chain.chainFor(artifact.getClass());
+        assertSame(artifactChain, chain.chainFor(artifact.getClass()));
+        assertEquals("artifact", artifactChain.process(artifact, Optional.empty())
+                                              .orElseThrow().getMessage());
+        assertTrue(chain.chainFor(description.getClass())
+                        .process(description, Optional.empty()).isEmpty());
+
+        final var statistics = chain.getStatistics();
+        assertEquals(2, statistics.get(0).getInvocations());
+        assertEquals(1, statistics.get(1).getRejections());
+    }
+
+    @Test
+    void testDuplicateMessageTypes() throws PreDispatchingFilterException {
+        final var chain = new PreDispatchingFilterChain();
+        final var artifact = Mockito.mock(ArtifactRequestMessage.class);
+
+        chain.register(in -> PreDispatchingFilterResult.builder()
+                                                       .withSuccess(false)
+                                                       .withMessage("artifact")
+                                                       .build(),
+                       ArtifactRequestMessage.class, ArtifactRequestMessage.class);
+
+        assertEquals("artifact", chain.chainFor(artifact.getClass())
+                                      .process(artifact, Optional.empty())
+                                      .orElseThrow().getMessage());
+    }
+
+    @Test
+    void testClaimsIndependentFiltersStartedEarly() throws PreDispatchingFilterException {
+        final var chain = new PreDispatchingFilterChain();
+        final var message = Mockito.mock(ArtifactRequestMessage.class);
+
+        chain.register(new PreDispatchingFilter() {
+            @Override
+            public PreDispatchingFilterResult process(final Message in) {
+                return PreDispatchingFilterResult.builder()
+                                                 .withSuccess(false)
+                                                 .withMessage("independent")
+                                                 .build();
+            }
+
+            @Override
+            public boolean dependsOnClaims() {
+                return false;
+            }
+        });
+        chain.register(in -> PreDispatchingFilterResult.builder()
+                                                       .withSuccess(false)
+                                                       .withMessage("dependent")
+                                                       .build());
+
+        final var compiled = chain.chainFor(message.getClass());
+        final var executor = Executors.newSingleThreadExecutor();
+        try {
+            final var started = compiled.startClaimsIndependent(message, executor);
+            assertEquals("independent", compiled.process(message, Optional.empty(), started)
+                                                .orElseThrow().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+
+        //the dependent filter comes after the failed one and is never run
+        assertEquals(0, chain.getStatistics().get(1).getInvocations());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.filter.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IssuerRateLimiterTest {
+
+    private static final String ISSUER = "https://connector.example";
+
+    private static final String OTHER = "https://other.example";
+
+    @Test
+    void testBucketsPerIssuerAndType() {
+        final var properties = new RateLimitProperties();
+        properties.setDefaults(new RateLimitProperties.Limit(1, 2));
+        properties.getPartners().put(OTHER, new RateLimitProperties.Limit(1, 5));
+        properties.getMessageTypes().put("ArtifactRequestMessage",
+                                         new RateLimitProperties.Limit(1, 1));
+        final var limiter = new IssuerRateLimiter(properties);
+
+        assertTrue(limiter.tryAcquire(ISSUER, "DescriptionRequestMessage", 0));
+        assertTrue(limiter.tryAcquire(ISSUER, "DescriptionRequestMessage", 0));
+        assertFalse(limiter.tryAcquire(ISSUER, "DescriptionRequestMessage", 0));
+
+        //refilled after one second
+        assertTrue(limiter.tryAcquire(ISSUER, "DescriptionRequestMessage",
+                                      TimeUnit.SECONDS.toNanos(1)));
+
+        //partner specific burst, message type limit on top
+        assertTrue(limiter.tryAcquire(OTHER, "ArtifactRequestMessage", 0));
+        assertFalse(limiter.tryAcquire(OTHER, "ArtifactRequestMessage", 0));
+        assertTrue(limiter.tryAcquire(OTHER, "DescriptionRequestMessage", 0));
+
+        final var stats = limiter.getStatistics(ISSUER).orElseThrow();
+        assertEquals(3, stats.getAllowed());
+        assertEquals(1, stats.getRejected());
+        assertEquals(2, limiter.getRejectedCount());
+    }
+
+    @Test
+    void testRejectedMessageKeepsTypeToken() {
+        final var properties = new RateLimitProperties();
+        properties.setDefaults(new RateLimitProperties.Limit(1, 1));
+        properties.getMessageTypes().put("ArtifactRequestMessage",
+                                         new RateLimitProperties.Limit(0.01, 1));
+        final var limiter = new IssuerRateLimiter(properties);
+
+        //issuer bucket empty, the type token must not be taken
+        assertTrue(limiter.tryAcquire(ISSUER, "DescriptionRequestMessage", 0));
+        assertFalse(limiter.tryAcquire(ISSUER, "ArtifactRequestMessage", 0));
+
+        //issuer bucket refilled, the type bucket would not be refilled yet
+        assertTrue(limiter.tryAcquire(ISSUER, "ArtifactRequestMessage",
+                                      TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    void testStoreIsBounded() {
+        final var properties = new RateLimitProperties();
+        properties.setStripes(2);
+        properties.setMaxBuckets(4);
+        final var limiter = new IssuerRateLimiter(properties);
+
+        for (var i = 0; i < 100; i++) {
+            limiter.tryAcquire("https://connector" + i, "DescriptionRequestMessage", 0);
+        }
+
+        assertTrue(limiter.getStatistics().size() <= 4);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.idempotency;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileIdempotencyStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testResponsesSurviveRestart() throws IOException {
+        final var store = new FileIdempotencyStore(directory, 10, Duration.ofMinutes(1));
+        store.put("issuer a", new CachedResponse("{header}", "payload"));
+        store.put("issuer b", new CachedResponse("{header}", new byte[] {1, 2, 3}));
+
+        final var restarted = new FileIdempotencyStore(directory, 10, Duration.ofMinutes(1));
+        assertEquals("payload", restarted.get("issuer a").orElseThrow().getPayload());
+        assertArrayEquals(new byte[] {1, 2, 3},
+                          (byte[]) restarted.get("issuer b").orElseThrow().getPayload());
+        assertTrue(restarted.get("issuer c").isEmpty());
+
+        restarted.clear();
+        assertTrue(restarted.get("issuer a").isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.dispatcher.lane;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import de.fraunhofer.iais.eis.ArtifactRequestMessage;
+import de.fraunhofer.iais.eis.DescriptionRequestMessage;
+import de.fraunhofer.iais.eis.RejectionReason;
+import ids.messaging.response.MessageResponse;
+import ids.messaging.response.RejectionTemplateProvider;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class ExecutionLanesTest {
+
+    @Test
+    void testLaneSelection() throws InterruptedException {
+        final var lanes = new ExecutionLanes(properties(1, 1),
+                                             Mockito.mock(RejectionTemplateProvider.class));
+        final var artifact = Mockito.mock(ArtifactRequestMessage.class);
+        final var description = Mockito.mock(DescriptionRequestMessage.class);
+
+        try {
+            final var lane = lanes.laneFor(artifact.getClass()).orElseThrow();
+            assertEquals("data", lane.getName());
+            assertTrue(lanes.laneFor(description.getClass()).isEmpty());
+
+            //mapped types are handled on the lane, others on the calling thread
+            final var response = Mockito.mock(MessageResponse.class);
+            final var caller = Thread.currentThread();
+            assertSame(response, lanes.execute(artifact, () -> {
+                assertTrue(lane.isCurrent());
+                return response;
+            }));
+            assertSame(response, lanes.execute(description, () -> {
+                assertSame(caller, Thread.currentThread());
+                return response;
+            }));
+            assertEquals(1, lane.getStatistics().getCompleted());
+        } finally {
+            lanes.destroy();
+        }
+    }
+
+    @Test
+    void testRejectionWhenLaneIsSaturated() throws InterruptedException {
+        final var templates = Mockito.mock(RejectionTemplateProvider.class);
+        final var rejection = Mockito.mock(MessageResponse.class);
+        Mockito.when(templates.createResponse(eq(RejectionReason.TEMPORARILY_NOT_AVAILABLE),
+                                              any(), any())).thenReturn(rejection);
+        final var lanes = new ExecutionLanes(properties(1, 1), templates);
+        final var artifact = Mockito.mock(ArtifactRequestMessage.class);
+        final var lane = lanes.laneFor(artifact.getClass()).orElseThrow();
+        final var release = new CountDownLatch(1);
+        final var finished = new CountDownLatch(2);
+
+        try {
+            //one message running, one queued
+            for (var i = 0; i < 2; i++) {
+                lane.submit(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    finished.countDown();
+                });
+            }
+
+            assertSame(rejection, lanes.execute(artifact, () -> null));
+            assertEquals(1, lane.getStatistics().getRejected());
+
+            release.countDown();
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+        } finally {
+            lanes.destroy();
+        }
+    }
+
+    private LaneProperties properties(final int threads, final int queueSize) {
+        final var lane = new LaneProperties.Lane();
+        lane.setThreads(threads);
+        lane.setQueueSize(queueSize);
+        lane.setMessageTypes(List.of("ArtifactRequestMessage"));
+
+        final var properties = new LaneProperties();
+        properties.setEnabled(true);
+        properties.getDefinitions().put("data", lane);
+        return properties;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.endpoint;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import ids.messaging.protocol.multipart.parser.MultipartParser;
+import ids.messaging.response.StreamingPayload;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdsMultipartHttpMessageConverterTest {
+
+    @Test
+    void testWritesParsableMultipartWithContentLength() throws Exception {
+        final var converter = new IdsMultipartHttpMessageConverter();
+        final var body = new IdsMultipartBody();
+        body.add("header", "{\"@type\" : \"ids:ResponseMessage\"}");
+        body.add("payload", "some payload");
+
+        final var output = new MockHttpOutputMessage();
+        converter.write(body, MediaType.MULTIPART_FORM_DATA, output);
+
+        final var written = output.getBodyAsBytes();
+        assertEquals(written.length, output.getHeaders().getContentLength());
+        assertEquals(converter.getBoundary(),
+                     output.getHeaders().getContentType().getParameter("boundary"));
+
+        final var parts = MultipartParser.stringToMultipart(
+                new String(written, StandardCharsets.UTF_8));
+        assertEquals("{\"@type\" : \"ids:ResponseMessage\"}", parts.get("header"));
+        assertEquals("some payload", parts.get("payload"));
+    }
+
+    @Test
+    void testStreamsPayloadOfUnknownLengthChunked() throws Exception {
+        final var converter = new IdsMultipartHttpMessageConverter();
+        final var data = "some streamed file content".getBytes(StandardCharsets.UTF_8);
+        final var body = new IdsMultipartBody();
+        body.add("header", "header");
+        body.add("payload", new HttpEntity<>(
+                StreamingPayload.base64(new ByteArrayInputStream(data), -1)));
+
+        final var output = new MockHttpOutputMessage();
+        converter.write(body, MediaType.MULTIPART_FORM_DATA, output);
+
+        assertEquals(-1, output.getHeaders().getContentLength());
+        assertNull(output.getHeaders().getFirst("Transfer-Encoding"));
+
+        final var parts = MultipartParser.stringToMultipart(output.getBodyAsString());
+        assertEquals(Base64.getEncoder().encodeToString(data), parts.get("payload"));
+        assertTrue(output.getBodyAsString().endsWith("--" + converter.getBoundary() + "--\r\n"));
+    }
+}
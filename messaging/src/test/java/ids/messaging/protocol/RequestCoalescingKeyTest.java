@@ -0,0 +1,85 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol;
+
+import java.net.URI;
+
+import de.fraunhofer.iais.eis.ArtifactRequestMessageBuilder;
+import de.fraunhofer.iais.eis.DescriptionRequestMessageBuilder;
+import de.fraunhofer.iais.eis.DynamicAttributeToken;
+import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.TokenFormat;
+import ids.messaging.util.IdsMessageUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RequestCoalescingKeyTest {
+
+    private static final URI CONNECTOR = URI.create("https://example.com/connector");
+
+    private static final URI TARGET = URI.create("https://example.com/api/ids/data");
+
+    private static final DynamicAttributeToken TOKEN = new DynamicAttributeTokenBuilder()
+            ._tokenFormat_(TokenFormat.JWT)
+            ._tokenValue_("token")
+            .build();
+
+    private static Message description(final URI requestedElement) {
+        return new DescriptionRequestMessageBuilder()
+                ._issued_(IdsMessageUtils.getGregorianNow())
+                ._issuerConnector_(CONNECTOR)
+                ._senderAgent_(CONNECTOR)
+                ._securityToken_(TOKEN)
+                ._modelVersion_("4.0.0")
+                ._requestedElement_(requestedElement)
+                .build();
+    }
+
+    @Test
+    void testDescriptionRequestsAreKeyedByTargetAndRequestedElement() {
+        final var element = URI.create("https://example.com/resource");
+
+        assertEquals(RequestCoalescingKey.of(description(element), "", TARGET),
+                     RequestCoalescingKey.of(description(element), "", TARGET));
+        assertNotEquals(RequestCoalescingKey.of(description(element), "", TARGET),
+                        RequestCoalescingKey.of(description(null), "", TARGET));
+        assertNotEquals(RequestCoalescingKey.of(description(element), "", TARGET),
+                        RequestCoalescingKey.of(description(element), "",
+                                                URI.create("https://example.org/ids")));
+    }
+
+    @Test
+    void testNonIdempotentRequestsAreNotCoalesced() {
+        final var message = new ArtifactRequestMessageBuilder()
+                ._issued_(IdsMessageUtils.getGregorianNow())
+                ._issuerConnector_(CONNECTOR)
+                ._senderAgent_(CONNECTOR)
+                ._securityToken_(TOKEN)
+                ._modelVersion_("4.0.0")
+                ._requestedArtifact_(URI.create("https://example.com/artifact"))
+                .build();
+
+        assertNull(RequestCoalescingKey.of(message, "", TARGET));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerRegistryTest {
+
+    private static final HttpUrl URL = HttpUrl.get("https://broker.example:8080/infrastructure");
+
+    private static final HttpUrl OTHER_URL = HttpUrl.get("https://broker.example:8081/");
+
+    private CircuitBreakerRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new CircuitBreakerRegistry();
+        ReflectionTestUtils.setField(registry, "enabled", true);
+        ReflectionTestUtils.setField(registry, "windowSize", 10);
+        ReflectionTestUtils.setField(registry, "minCalls", 4);
+        ReflectionTestUtils.setField(registry, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(registry, "slowCallRateThreshold", 100);
+        ReflectionTestUtils.setField(registry, "slowCallMillis", 5000L);
+        ReflectionTestUtils.setField(registry, "openMillis", 50L);
+        ReflectionTestUtils.setField(registry, "halfOpenProbes", 2);
+    }
+
+    private void record(final HttpUrl url, final boolean failure) throws Exception {
+        registry.acquire(url).complete(failure);
+    }
+
+    @Test
+    void testIdleBreakersAreEvictedPastMaxDestinations() throws Exception {
+        for (var port = 1; port <= 1100; port++) {
+            registry.acquire(HttpUrl.get("https://broker.example:" + port + "/"), 0L).cancel();
+        }
+        assertEquals(1100, registry.getStates().size());
+
+        registry.acquire(URL, TimeUnit.HOURS.toNanos(2)).cancel();
+        assertEquals(1, registry.getStates().size());
+        assertTrue(registry.getStates().containsKey(Destination.of(URL)));
+    }
+
+    @Test
+    void testOpensOnFailureRateAndFailsFast() throws Exception {
+        record(URL, false);
+        record(URL, true);
+        record(URL, false);
+        assertEquals(CircuitState.CLOSED, registry.getStates().get(Destination.of(URL)));
+
+        record(URL, true);
+        assertEquals(CircuitState.OPEN, registry.getStates().get(Destination.of(URL)));
+
+        final var exception = assertThrows(CircuitBreakerOpenException.class,
+                                           () -> registry.acquire(URL));
+        assertEquals(Destination.of(URL), exception.getDestination());
+        assertTrue(exception.getRetryAfter().toMillis() <= 50);
+
+        //other ports of the same host use their own breaker
+        record(OTHER_URL, false);
+        assertEquals(CircuitState.CLOSED, registry.getStates().get(Destination.of(OTHER_URL)));
+    }
+
+    @Test
+    void testHalfOpenProbesCloseBreaker() throws Exception {
+        for (var i = 0; i < 4; i++) {
+            record(URL, true);
+        }
+        Thread.sleep(60);
+        assertEquals(CircuitState.HALF_OPEN, registry.getStates().get(Destination.of(URL)));
+
+        final var first = registry.acquire(URL);
+        final var second = registry.acquire(URL);
+        assertThrows(CircuitBreakerOpenException.class, () -> registry.acquire(URL));
+
+        first.complete(false);
+        second.complete(false);
+        assertEquals(CircuitState.CLOSED, registry.getStates().get(Destination.of(URL)));
+    }
+
+    @Test
+    void testCancelledProbeIsReturned() throws Exception {
+        for (var i = 0; i < 4; i++) {
+            record(URL, true);
+        }
+        Thread.sleep(60);
+
+        registry.acquire(URL).cancel();
+        registry.acquire(URL).cancel();
+
+        record(URL, false);
+        record(URL, false);
+        assertEquals(CircuitState.CLOSED, registry.getStates().get(Destination.of(URL)));
+    }
+
+    @Test
+    void testFailedProbeReopensBreaker() throws Exception {
+        for (var i = 0; i < 4; i++) {
+            record(URL, true);
+        }
+        Thread.sleep(60);
+
+        record(URL, true);
+        assertEquals(CircuitState.OPEN, registry.getStates().get(Destination.of(URL)));
+        assertThrows(CircuitBreakerOpenException.class, () -> registry.acquire(URL));
+    }
+
+    @Test
+    void testOpensOnSlowCallRate() throws Exception {
+        ReflectionTestUtils.setField(registry, "slowCallMillis", 0L);
+
+        for (var i = 0; i < 4; i++) {
+            record(URL, false);
+        }
+
+        assertEquals(CircuitState.OPEN, registry.getStates().get(Destination.of(URL)));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+
+    private static final HttpUrl URL = HttpUrl.get("https://broker.example:8080/infrastructure");
+
+    private ConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new ConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "initialLimit", 2);
+        ReflectionTestUtils.setField(limiter, "minLimit", 1);
+        ReflectionTestUtils.setField(limiter, "maxLimit", 4);
+        ReflectionTestUtils.setField(limiter, "queueSize", 1);
+        ReflectionTestUtils.setField(limiter, "queueTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(limiter, "latencyTolerance", 2.0);
+        ReflectionTestUtils.setField(limiter, "backoffRatio", 0.5);
+    }
+
+    private ConcurrencyLimit limit() {
+        return limiter.getLimit(Destination.of(URL)).orElseThrow();
+    }
+
+    @Test
+    void testIdleLimitsAreEvictedPastMaxDestinations() throws Exception {
+        for (var port = 1; port <= 1100; port++) {
+            limiter.acquire(HttpUrl.get("https://broker.example:" + port + "/"), 0L).cancel();
+        }
+        assertEquals(1100, limiter.getLimits().size());
+
+        limiter.acquire(URL, TimeUnit.HOURS.toNanos(2)).cancel();
+        assertEquals(1, limiter.getLimits().size());
+    }
+
+    @Test
+    void testQueuesAndRejectsExcessRequests() throws Exception {
+        final var first = limiter.acquire(URL);
+        limiter.acquire(URL);
+
+        final var queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(URL);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limit().getQueueDepth() == 0) {
+            Thread.sleep(1);
+        }
+
+        final var exception = assertThrows(ConcurrencyLimitExceededException.class,
+                                           () -> limiter.acquire(URL));
+        assertEquals(2, exception.getLimit());
+
+        first.cancel();
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(0, limit().getQueueDepth());
+        assertEquals(2, limit().getInFlight());
+    }
+
+    @Test
+    void testLimitGrowsWhileUtilizedAndShrinksOnOverload() throws Exception {
+        //latency is not evaluated, only the overload signal
+        ReflectionTestUtils.setField(limiter, "latencyTolerance", 1e9);
+        limiter.acquire(URL).cancel();
+
+        for (var i = 0; i < 20; i++) {
+            final var permits = new ArrayList<ConcurrencyLimiter.Permit>();
+            final var current = limit().getLimit();
+            for (var j = 0; j < current; j++) {
+                permits.add(limiter.acquire(URL));
+            }
+            permits.forEach(permit -> permit.complete(false));
+        }
+        assertEquals(4, limit().getLimit());
+
+        Thread.sleep(10);
+        limiter.acquire(URL).complete(true);
+        assertEquals(2, limit().getLimit());
+        assertTrue(limiter.getLimits().containsKey(Destination.of(URL)));
+    }
+}
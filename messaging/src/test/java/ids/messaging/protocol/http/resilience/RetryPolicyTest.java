@@ -0,0 +1,177 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.protocol.http.resilience;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.fraunhofer.iais.eis.ArtifactRequestMessage;
+import de.fraunhofer.iais.eis.ContractRequestMessage;
+import de.fraunhofer.iais.eis.DescriptionRequestMessage;
+import de.fraunhofer.iais.eis.Message;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class RetryPolicyTest {
+
+    private final OkHttpClient client = new OkHttpClient();
+
+    private MockWebServer server;
+
+    private RetryPolicy policy;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        policy = new RetryPolicy();
+        ReflectionTestUtils.setField(policy, "enabled", true);
+        ReflectionTestUtils.setField(policy, "maxAttempts", 3);
+        ReflectionTestUtils.setField(policy, "initialBackoffMillis", 1L);
+        ReflectionTestUtils.setField(policy, "maxBackoffMillis", 5L);
+        ReflectionTestUtils.setField(policy, "budgetRatio", 0.1);
+        ReflectionTestUtils.setField(policy, "budgetReserve", 10);
+        ReflectionTestUtils.setField(policy, "hedgingEnabled", false);
+        ReflectionTestUtils.setField(policy, "hedgingQuantile", 0.95);
+        ReflectionTestUtils.setField(policy, "hedgingMinDelayMillis", 20L);
+        ReflectionTestUtils.setField(policy, "hedgingMinSamples", 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private Request request(final Class<? extends Message> type) {
+        return new Request.Builder()
+                .url(server.url("/api/ids/data"))
+                .post(RequestBody.create("message", null))
+                .tag(Message.class, mock(type))
+                .build();
+    }
+
+    @Test
+    void testIdempotentRequestIsRetriedOnUnavailable() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+
+        try (var response = policy.execute(client, request(DescriptionRequestMessage.class))) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, policy.getRetryCount());
+    }
+
+    @Test
+    void testCallExecutorRunsPerAttempt() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+        final var attempts = new AtomicInteger();
+
+        try (var response = policy.execute(client, request(DescriptionRequestMessage.class),
+                                           call -> {
+                                               attempts.incrementAndGet();
+                                               return call.execute();
+                                           })) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testOtherRequestsAreSentOnce() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        try (var response = policy.execute(client, request(ContractRequestMessage.class))) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void testRetryBudgetLimitsRetries() throws IOException {
+        ReflectionTestUtils.setField(policy, "budgetReserve", 1);
+        for (var i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+
+        policy.execute(client, request(DescriptionRequestMessage.class)).close();
+        policy.execute(client, request(DescriptionRequestMessage.class)).close();
+
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1, policy.getRetryCount());
+        assertTrue(policy.getBudgetExhaustedCount() > 0);
+    }
+
+    @Test
+    void testSlowRequestIsHedged() throws IOException {
+        ReflectionTestUtils.setField(policy, "hedgingEnabled", true);
+        server.enqueue(new MockResponse().setBody("seed"));
+        policy.execute(client, request(DescriptionRequestMessage.class)).close();
+
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(5, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("fast"));
+
+        final var started = System.nanoTime();
+        try (var response = policy.execute(client, request(DescriptionRequestMessage.class))) {
+            assertEquals("fast", response.body().string());
+        }
+
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 5);
+        assertEquals(1, policy.getHedgeCount());
+    }
+
+    @Test
+    void testConnectFailureIsRetried() throws IOException {
+        final var request = request(DescriptionRequestMessage.class);
+        server.shutdown();
+
+        assertThrows(ConnectException.class, () -> policy.execute(client, request));
+        assertEquals(2, policy.getRetryCount());
+    }
+
+    @Test
+    void testReadTimeoutIsNotRetried() {
+        final var timeoutClient = client.newBuilder()
+                                        .readTimeout(100, TimeUnit.MILLISECONDS)
+                                        .build();
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(1, TimeUnit.SECONDS));
+
+        assertThrows(SocketTimeoutException.class,
+                     () -> policy.execute(timeoutClient, request(ArtifactRequestMessage.class)));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, policy.getRetryCount());
+    }
+}
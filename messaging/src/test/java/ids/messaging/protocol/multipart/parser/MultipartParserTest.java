@@ -19,6 +19,9 @@
  */
 package ids.messaging.protocol.multipart.parser;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.MultipartBody;
 import okio.Buffer;
@@ -54,4 +57,18 @@ class MultipartParserTest {
         assertThrows(MultipartParseException.class, () -> MultipartParser.stringToMultipart("This is not Multipart.\nBut it has a linebreak."));
     }
 
+    @Test
+    void testStreamMultipart() throws Exception {
+        final var multipart = new MultipartBody.Builder().addFormDataPart("header", "value1").addFormDataPart("payload", "value2").build();
+        final Buffer buffer = new Buffer();
+        multipart.writeTo(buffer);
+
+        try (var parsed = StreamingMultipart.parse(buffer.inputStream())) {
+            assertEquals("value1", parsed.getHeader());
+            assertEquals("value2", new String(parsed.getPayload().orElseThrow().readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        assertThrows(MultipartParseException.class, () -> StreamingMultipart.parse(new ByteArrayInputStream("This is not Multipart.".getBytes(StandardCharsets.UTF_8))));
+    }
+
 }
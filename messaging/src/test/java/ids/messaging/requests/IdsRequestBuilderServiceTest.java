@@ -20,6 +20,7 @@
 package ids.messaging.requests;
 
 import java.net.URI;
+import java.util.HashSet;
 
 import de.fraunhofer.iais.eis.BaseConnectorBuilder;
 import de.fraunhofer.iais.eis.ConfigurationModel;
@@ -27,6 +28,7 @@ import de.fraunhofer.iais.eis.Connector;
 import de.fraunhofer.iais.eis.ConnectorDeployMode;
 import de.fraunhofer.iais.eis.ConnectorEndpointBuilder;
 import de.fraunhofer.iais.eis.DynamicAttributeToken;
+import de.fraunhofer.iais.eis.DescriptionRequestMessage;
 import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
 import de.fraunhofer.iais.eis.MessageProcessedNotificationMessage;
 import de.fraunhofer.iais.eis.MessageProcessedNotificationMessageBuilder;
@@ -43,11 +45,16 @@ import ids.messaging.core.daps.DapsTokenProvider;
 import ids.messaging.core.daps.DapsValidator;
 import ids.messaging.protocol.MessageService;
 import ids.messaging.protocol.http.IdsHttpService;
+import ids.messaging.protocol.http.SendMessageException;
+import ids.messaging.protocol.multipart.MessageAndPayload;
+import ids.messaging.protocol.multipart.mapping.GenericMessageAndPayload;
 import ids.messaging.requests.builder.IdsRequestBuilderService;
 import ids.messaging.util.IdsMessageUtils;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -57,6 +64,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = { IdsRequestBuilderServiceTest.TestContextConfiguration.class})
 @AutoConfigureMockMvc
@@ -190,4 +202,35 @@ class IdsRequestBuilderServiceTest {
                 .build();
     }
 
+    @Test
+    void testPreparedRequestBuildsFreshMessagePerCall() throws Exception {
+        Mockito.doReturn(new GenericMessageAndPayload(resultMessage, "description"))
+               .when(messageService).sendIdsMessage(any(), any());
+        final var prepared = requestBuilderService.newRequestExpectingType(String.class)
+                .subjectDescription()
+                .useMultipart()
+                .operationGet(null)
+                .prepare();
+        final var target = URI.create("https://example.com/api/ids/data");
+
+        assertEquals("description", prepared.execute(target).getReceivedPayload());
+        assertEquals("description", prepared.execute(target, "payload").getReceivedPayload());
+
+        final var captor = ArgumentCaptor.forClass(MessageAndPayload.class);
+        Mockito.verify(messageService, Mockito.times(2)).sendIdsMessage(captor.capture(), any());
+        final var ids = new HashSet<URI>();
+        for (final var sent : captor.getAllValues()) {
+            assertInstanceOf(DescriptionRequestMessage.class, sent.getMessage());
+            ids.add(((DescriptionRequestMessage) sent.getMessage()).getId());
+        }
+        assertEquals(2, ids.size());
+        assertEquals("payload", captor.getAllValues().get(1).getPayload().orElse(null));
+    }
+
+    @Test
+    void testPrepareWithoutSubjectFails() {
+        assertThrows(SendMessageException.class,
+                     () -> requestBuilderService.newRequest().prepare());
+    }
+
 }
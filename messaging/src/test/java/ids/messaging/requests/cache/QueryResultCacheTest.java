@@ -0,0 +1,133 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.cache;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.fraunhofer.iais.eis.QueryLanguage;
+import de.fraunhofer.iais.eis.QueryScope;
+import de.fraunhofer.iais.eis.QueryTarget;
+import de.fraunhofer.iais.eis.RejectionMessage;
+import de.fraunhofer.iais.eis.RejectionReason;
+import de.fraunhofer.iais.eis.ResultMessage;
+import ids.messaging.requests.MessageContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueryResultCacheTest {
+
+    private static final URI BROKER = URI.create("https://broker.example.com");
+
+    private QueryResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new QueryResultCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+    }
+
+    private static QueryCacheKey key(final String query) {
+        return QueryCacheKey.of(BROKER, query, QueryLanguage.SPARQL, QueryScope.ALL,
+                                QueryTarget.BROKER);
+    }
+
+    @Test
+    void testResultsAreCachedAndInvalidated() throws Exception {
+        final var calls = new AtomicInteger();
+        final var result = new MessageContainer<>(mock(ResultMessage.class), "rows");
+        final QueryLoader<String> loader = () -> {
+            calls.incrementAndGet();
+            return result;
+        };
+
+        assertSame(result, cache.get(key("q"), loader));
+        assertSame(result, cache.get(key("q"), loader));
+        assertEquals(1, calls.get());
+        assertEquals(0.5, cache.getHitRate());
+
+        cache.get(key("other"), loader);
+        assertEquals(2, calls.get());
+
+        cache.invalidateTarget(BROKER);
+        cache.get(key("q"), loader);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testRejectionsAreNotCached() throws Exception {
+        final var calls = new AtomicInteger();
+        final var rejection = mock(RejectionMessage.class);
+        when(rejection.getRejectionReason()).thenReturn(RejectionReason.TEMPORARILY_NOT_AVAILABLE);
+        final QueryLoader<String> loader = () -> {
+            calls.incrementAndGet();
+            return new MessageContainer<>(rejection, "busy");
+        };
+
+        cache.get(key("q"), loader);
+        cache.get(key("q"), loader);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testConcurrentQueriesAreSentOnce() throws Exception {
+        final var calls = new AtomicInteger();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var result = new MessageContainer<>(mock(ResultMessage.class), "rows");
+        final QueryLoader<String> loader = () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            release.await();
+            return result;
+        };
+
+        final var executor = Executors.newFixedThreadPool(2);
+        try {
+            final var first = executor.submit(() -> cache.get(key("q"), loader));
+            started.await();
+            final var second = executor.submit(() -> cache.get(key("q"), loader));
+
+            while (cache.getCoalescedCount() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertSame(result, first.get(1, TimeUnit.SECONDS));
+            assertSame(result, second.get(1, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
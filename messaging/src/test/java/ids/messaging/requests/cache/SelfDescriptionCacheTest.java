@@ -0,0 +1,117 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.cache;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import de.fraunhofer.iais.eis.DescriptionResponseMessage;
+import ids.messaging.protocol.http.SendMessageException;
+import ids.messaging.requests.MessageContainer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class SelfDescriptionCacheTest {
+
+    private static final URI CONNECTOR = URI.create("https://connector.example.com/api/ids/data");
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private SelfDescriptionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SelfDescriptionCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "refreshSeconds", 240L);
+        ReflectionTestUtils.setField(cache, "staleSeconds", 3600L);
+        ReflectionTestUtils.setField(cache, "clock", (LongSupplier) now::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.destroy();
+    }
+
+    @Test
+    void testDescriptionsAreCachedPerRequestedElement() throws Exception {
+        final var calls = new AtomicInteger();
+        final var response = new MessageContainer<>(mock(DescriptionResponseMessage.class), "{}");
+        final QueryLoader<String> loader = () -> {
+            calls.incrementAndGet();
+            return response;
+        };
+
+        assertSame(response, cache.get(CONNECTOR, null, loader));
+        assertSame(response, cache.get(CONNECTOR, null, loader));
+        assertEquals(1, calls.get());
+
+        cache.get(CONNECTOR, URI.create("https://connector.example.com/resource"), loader);
+        assertEquals(2, calls.get());
+
+        cache.invalidateTarget(CONNECTOR);
+        cache.get(CONNECTOR, null, loader);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testStaleDescriptionIsServedWhileRemoteIsDown() throws Exception {
+        final var response = new MessageContainer<>(mock(DescriptionResponseMessage.class), "{}");
+        final QueryLoader<String> failing = () -> {
+            throw new SendMessageException("connection refused");
+        };
+
+        cache.get(CONNECTOR, null, () -> response);
+
+        now.addAndGet(600_000L);
+        assertSame(response, cache.get(CONNECTOR, null, failing));
+
+        now.addAndGet(3_600_000L);
+        assertThrows(SendMessageException.class, () -> cache.get(CONNECTOR, null, failing));
+    }
+
+    @Test
+    void testDisabledCacheAlwaysRequests() throws Exception {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        final var calls = new AtomicInteger();
+        final QueryLoader<String> loader = () -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new IOException("unreachable");
+            }
+            return new MessageContainer<>(mock(DescriptionResponseMessage.class), "{}");
+        };
+
+        cache.get(CONNECTOR, null, loader);
+        assertThrows(IOException.class, () -> cache.get(CONNECTOR, null, loader));
+        assertEquals(0, cache.size());
+    }
+}
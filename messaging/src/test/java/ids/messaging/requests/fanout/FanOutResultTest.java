@@ -0,0 +1,187 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.fanout;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutResultTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    private static List<URI> targets(final int count) {
+        final var targets = new ArrayList<URI>();
+        for (var i = 0; i < count; i++) {
+            targets.add(URI.create("https://example.com/" + i));
+        }
+        return targets;
+    }
+
+    @Test
+    void testAllRespectsConcurrencyCap() throws Exception {
+        final var inFlight = new AtomicInteger();
+        final var maxInFlight = new AtomicInteger();
+        final var result = FanOutResult.<String>start(
+                targets(10), FanOutOptions.all().withMaxConcurrency(3), target -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    inFlight.decrementAndGet();
+                    return null;
+                }, executor, timer);
+
+        final var results = result.completion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(10, results.size());
+        assertTrue(results.stream().allMatch(TargetResult::isSuccess));
+        assertTrue(maxInFlight.get() <= 3);
+        assertTrue(result.isSatisfied());
+    }
+
+    @Test
+    void testFirstSuccessCancelsRemainingTargets() throws Exception {
+        final var block = new CountDownLatch(1);
+        final var result = FanOutResult.<String>start(
+                targets(4), FanOutOptions.firstSuccess(), target -> {
+                    if (!target.getPath().equals("/2")) {
+                        block.await();
+                    }
+                    return null;
+                }, executor, timer);
+
+        final var results = result.await();
+        block.countDown();
+
+        assertEquals(4, results.size());
+        assertEquals(URI.create("https://example.com/2"), results.get(0).getTarget());
+        assertTrue(results.get(0).isSuccess());
+        results.subList(1, 4).forEach(r -> assertInstanceOf(CancellationException.class,
+                                                             r.getError()));
+    }
+
+    @Test
+    void testQuorumFailsEarly() throws Exception {
+        final var result = FanOutResult.<String>start(
+                targets(3), FanOutOptions.quorum(2).withMaxConcurrency(1), target -> {
+                    throw new IOException("unreachable");
+                }, executor, timer);
+
+        final var results = result.await();
+
+        assertFalse(result.isSatisfied());
+        assertEquals(3, results.size());
+        assertInstanceOf(IOException.class, results.get(0).getError());
+        assertInstanceOf(IOException.class, results.get(1).getError());
+        assertInstanceOf(CancellationException.class, results.get(2).getError());
+    }
+
+    @Test
+    void testTimeoutAndIterationInCompletionOrder() {
+        final var result = FanOutResult.<String>start(
+                targets(2), FanOutOptions.all().withTimeout(Duration.ofMillis(50)), target -> {
+                    if (target.getPath().equals("/0")) {
+                        Thread.sleep(10_000);
+                    }
+                    return null;
+                }, executor, timer);
+
+        final var order = new ArrayList<TargetResult<String>>();
+        result.forEach(order::add);
+
+        assertEquals(URI.create("https://example.com/1"), order.get(0).getTarget());
+        assertInstanceOf(TimeoutException.class, order.get(1).getError());
+    }
+
+    @Test
+    void testTimedOutTargetKeepsSlotUntilReturned() throws Exception {
+        final var returned = new AtomicLong();
+        final var launched = new AtomicLong();
+        final var result = FanOutResult.<String>start(
+                targets(2), FanOutOptions.all().withMaxConcurrency(1)
+                                         .withTimeout(Duration.ofMillis(50)), target -> {
+                    if (target.getPath().equals("/0")) {
+                        //like a blocking http call, ignore the interrupt of the timeout
+                        final var end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+                        while (System.nanoTime() < end) {
+                            try {
+                                Thread.sleep(10);
+                            } catch (InterruptedException e) {
+                                //keep running
+                            }
+                        }
+                        returned.set(System.nanoTime());
+                    } else {
+                        launched.set(System.nanoTime());
+                    }
+                    return null;
+                }, executor, timer);
+
+        final var results = result.completion().get(5, TimeUnit.SECONDS);
+
+        assertInstanceOf(TimeoutException.class, results.get(0).getError());
+        assertTrue(results.get(1).isSuccess());
+        assertTrue(launched.get() >= returned.get());
+    }
+
+    @Test
+    void testTimeoutsOfAnsweredTargetsAreCancelled() throws Exception {
+        timer.setRemoveOnCancelPolicy(true);
+        final var result = FanOutResult.<String>start(
+                targets(5), FanOutOptions.all(), target -> null, executor, timer);
+
+        result.completion().get(5, TimeUnit.SECONDS);
+
+        assertTrue(timer.getQueue().isEmpty());
+    }
+
+    @Test
+    void testRejectsUnreachableQuorum() {
+        assertThrows(IllegalArgumentException.class, () -> FanOutResult.<String>start(
+                targets(1), FanOutOptions.quorum(2), target -> null, executor, timer));
+    }
+}
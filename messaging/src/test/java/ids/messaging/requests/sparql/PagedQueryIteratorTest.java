@@ -0,0 +1,128 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+import ids.messaging.requests.exceptions.QueryPageException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PagedQueryIteratorTest {
+
+    private static String page(final int from, final int to) {
+        final var page = new StringBuilder("?resultUri\t?type\n");
+        for (var i = from; i < to; i++) {
+            page.append("<https://example.com/").append(i).append(">\t\"res\"@en\n");
+        }
+        return page.toString();
+    }
+
+    @Test
+    void testIteratesAllPagesAndStopsAtShortPage() {
+        final var offsets = new CopyOnWriteArrayList<Integer>();
+        final var iterator = new PagedQueryIterator((limit, offset) -> {
+            offsets.add(offset);
+            return page(offset, Math.min(offset + limit, 23));
+        }, 10, Runnable::run);
+
+        final var ids = new ArrayList<String>();
+        iterator.forEachRemaining(row -> ids.add(row.get("resultUri")));
+
+        assertEquals(23, ids.size());
+        assertEquals("https://example.com/0", ids.get(0));
+        assertEquals("https://example.com/22", ids.get(22));
+        assertEquals(List.of(0, 10, 20), offsets);
+    }
+
+    @Test
+    void testRejectedPageIsRequestedSynchronously() {
+        final var iterator = new PagedQueryIterator(
+                (limit, offset) -> page(offset, Math.min(offset + limit, 15)), 10,
+                task -> {
+                    throw new RejectedExecutionException("saturated");
+                });
+
+        final var ids = new ArrayList<String>();
+        iterator.forEachRemaining(row -> ids.add(row.get("resultUri")));
+
+        assertEquals(15, ids.size());
+    }
+
+    @Test
+    void testFailingPageIsReported() {
+        final var iterator = new PagedQueryIterator((limit, offset) -> {
+            if (offset > 0) {
+                throw new IOException("broker unavailable");
+            }
+            return page(0, limit);
+        }, 4, Runnable::run);
+
+        for (var i = 0; i < 4; i++) {
+            iterator.next();
+        }
+        assertThrows(QueryPageException.class, iterator::hasNext);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testTsvTermsAreDecoded() throws IOException {
+        final var reader = new TsvResultReader(new StringReader(
+                "?a\t?b\t?c\n<https://example.com>\t\"tab\\there\"@de\t\"5\"^^<http://int>\n"));
+
+        final var row = reader.next();
+        assertEquals("https://example.com", row.get("?a"));
+        assertEquals("tab\there", row.get("b"));
+        assertEquals("5", row.get("c"));
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void testJsonResultIsDetectedAndStreamed() throws IOException {
+        final var json = "  {\"head\": {\"vars\": [\"resultUri\", \"type\"], \"link\": []},\n"
+                + "\"results\": {\"bindings\": [\n"
+                + "{\"resultUri\": {\"type\": \"uri\", \"value\": \"https://example.com/0\"},"
+                + " \"type\": {\"type\": \"literal\", \"xml:lang\": \"en\", \"value\": \"res\"}},\n"
+                + "{\"resultUri\": {\"type\": \"uri\", \"value\": \"https://example.com/1\"}}\n"
+                + "]}}";
+
+        try (var reader = QueryResultFormat.open(new StringReader(json))) {
+            assertEquals(List.of("resultUri", "type"), reader.getVariables());
+
+            final var first = reader.next();
+            assertEquals("https://example.com/0", first.get("resultUri"));
+            assertEquals("res", first.get("type"));
+
+            final var second = reader.next();
+            assertEquals("https://example.com/1", second.get("resultUri"));
+            assertNull(second.get("type"));
+            assertFalse(reader.hasNext());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.requests.sparql;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import ids.messaging.util.FullTextQueryTemplate;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryTemplateTest {
+
+    @Test
+    void testRendersTypedParameters() {
+        final var template = QueryTemplate.compile(
+                "SELECT * { ${s:iri} ?p \"${o:string}\" } LIMIT ${limit:int} OFFSET ${limit:int}");
+
+        assertEquals(QueryTemplate.ParameterType.IRI, template.getParameters().get("s"));
+        assertEquals("SELECT * { <https://example.com/a> ?p \"say \\\"hi\\\"\\n\" }"
+                     + " LIMIT 5 OFFSET 5",
+                     template.render(Map.of("s", URI.create("https://example.com/a"),
+                                            "o", "say \"hi\"\n",
+                                            "limit", 5)));
+    }
+
+    @Test
+    void testEscapesRegexToMatchLiterally() {
+        final var escaped = QueryTemplate.escapeRegex("a.b(c)\"");
+
+        assertEquals("a\\\\.b\\\\(c\\\\)\\\"", escaped);
+
+        //as seen by the SPARQL engine after unescaping the string literal
+        final var pattern = Pattern.compile(escaped.replace("\\\\", "\\").replace("\\\"", "\""));
+        assertTrue(pattern.matcher("xa.b(c)\"").find());
+        assertFalse(pattern.matcher("axb(c)\"").find());
+    }
+
+    @Test
+    void testFullTextQueryTemplate() {
+        final var template = QueryTemplate.compile(FullTextQueryTemplate.FULL_TEXT_QUERY_TEMPLATE);
+        final var query = template.render(Map.of("term", "x\") } #", "limit", 50, "offset", 0));
+
+        assertTrue(query.contains("REGEX(?text, \"x\\\"\\\\) \\\\} #\", \"i\")"));
+        assertTrue(query.endsWith("LIMIT 50 OFFSET 0\n"));
+    }
+
+    @Test
+    void testRejectsInvalidParameters() {
+        final var template = QueryTemplate.compile("ASK { ${s:iri} ?p ${n:int} }");
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> template.render(Map.of("s", "https://example.com/a")));
+        assertThrows(IllegalArgumentException.class,
+                     () -> template.render(Map.of("s", "https://x> } DROP ALL {<", "n", 1)));
+        assertThrows(IllegalArgumentException.class,
+                     () -> template.render(Map.of("s", "https://example.com/a", "n", "1")));
+        assertThrows(IllegalArgumentException.class,
+                     () -> QueryTemplate.compile("ASK { ${s:bool} }"));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.response;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Base64EncodingInputStreamTest {
+
+    @Test
+    void testEncodingMatchesBase64Encoder() throws IOException {
+        final var random = new Random(42);
+        for (final var size : new int[] {0, 1, 2, 3, Base64EncodingInputStream.CHUNK_SIZE,
+                Base64EncodingInputStream.CHUNK_SIZE * 2 + 1}) {
+            final var data = new byte[size];
+            random.nextBytes(data);
+
+            final var expected = Base64.getEncoder().encode(data);
+            try (var in = new Base64EncodingInputStream(new ByteArrayInputStream(data))) {
+                assertArrayEquals(expected, in.readAllBytes());
+            }
+            assertEquals(expected.length, Base64EncodingInputStream.encodedLength(size));
+        }
+    }
+
+    @Test
+    void testStreamingPayloadWritesFile() throws IOException {
+        final var file = Files.createTempFile("payload", "bin");
+        final var data = new byte[Base64EncodingInputStream.CHUNK_SIZE + 7];
+        new Random(7).nextBytes(data);
+        Files.write(file, data);
+
+        final var raw = new ByteArrayOutputStream();
+        StreamingPayload.raw(file).writeTo(raw);
+        assertArrayEquals(data, raw.toByteArray());
+
+        final var encoded = new ByteArrayOutputStream();
+        final var base64 = StreamingPayload.base64(file);
+        base64.writeTo(encoded);
+        assertArrayEquals(Base64.getEncoder().encode(data), encoded.toByteArray());
+        assertEquals(encoded.size(), base64.contentLength());
+
+        Files.delete(file);
+    }
+}
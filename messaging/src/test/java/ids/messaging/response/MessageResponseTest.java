@@ -22,6 +22,9 @@ package ids.messaging.response;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
 
 import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
 import de.fraunhofer.iais.eis.RejectionReason;
@@ -37,6 +40,8 @@ import ids.messaging.util.IdsMessageUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -57,6 +62,19 @@ class MessageResponseTest {
         final var fileRes = Base64EncodedFileBodyResponse.create(buildResponseMessage(), File.createTempFile("temp","file"), MediaType.IMAGE_JPEG);
         assertNotNull(fileRes.createMultipartMap(new Serializer()));
         assertThrows(IllegalStateException.class, () -> Base64EncodedFileBodyResponse.create(buildRequestMessage(), File.createTempFile("temp","file"), MediaType.IMAGE_JPEG));
+        assertThrows(IOException.class, () -> Base64EncodedFileBodyResponse.create(buildResponseMessage(), new File("does-not-exist"), MediaType.IMAGE_JPEG));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testBase64FilePayload() throws IOException {
+        final var file = File.createTempFile("temp", "file");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "file content".getBytes(StandardCharsets.UTF_8));
+
+        final var fileRes = Base64EncodedFileBodyResponse.create(buildResponseMessage(), file, MediaType.IMAGE_JPEG);
+        assertArrayEquals(Base64.getEncoder().encode("file content".getBytes(StandardCharsets.UTF_8)), fileRes.getPayload().getBody());
+        assertEquals(MediaType.IMAGE_JPEG, fileRes.getPayload().getHeaders().getContentType());
     }
 
     private RequestMessage buildRequestMessage() {
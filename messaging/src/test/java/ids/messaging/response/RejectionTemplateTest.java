@@ -0,0 +1,56 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.response;
+
+import java.io.IOException;
+import java.net.URI;
+
+import de.fraunhofer.iais.eis.RejectionMessage;
+import de.fraunhofer.iais.eis.RejectionReason;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RejectionTemplateTest {
+
+    @Test
+    void testRenderedHeaderIsValidRejection() throws IOException {
+        final var serializer = new Serializer();
+        final var connectorId = URI.create("http://example.org#connector");
+        final var template = RejectionTemplate.create(RejectionReason.TEMPORARILY_NOT_AVAILABLE,
+                                                      connectorId, "4.2.7", serializer);
+
+        final var correlation = URI.create("https://w3id.org/idsa/autogen/message/42");
+        final var first = serializer.deserialize(template.render(correlation),
+                                                 RejectionMessage.class);
+        final var second = serializer.deserialize(template.render(), RejectionMessage.class);
+
+        assertEquals(RejectionReason.TEMPORARILY_NOT_AVAILABLE, first.getRejectionReason());
+        assertEquals(connectorId, first.getIssuerConnector());
+        assertEquals(correlation, first.getCorrelationMessage());
+        assertEquals(URI.create("https://INVALID"), second.getCorrelationMessage());
+        assertNotEquals(first.getId(), second.getId());
+        assertTrue(first.getIssued().getYear() > 1970);
+        assertTrue(template.matches(connectorId, "4.2.7"));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright Fraunhofer Institute for Software and Systems Engineering
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *  Contributors:
+ *       sovity GmbH
+ *
+ */
+package ids.messaging.util.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringCacheTest {
+
+    @Test
+    void testSizeAndTtlBounds() {
+        final var time = new AtomicLong();
+        final var removed = new ArrayList<String>();
+        final var cache = new ExpiringCache<String, String>(
+                2, Duration.ofMillis(100), (key, value) -> removed.add(key), time::get);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a").orElseThrow());
+
+        //b is least recently used and gets evicted
+        cache.put("c", "3");
+        assertTrue(cache.get("b").isEmpty());
+        assertEquals(1, cache.getEvictionCount());
+
+        time.set(100);
+        assertTrue(cache.get("a").isEmpty());
+
+        cache.put("d", "4", Duration.ofSeconds(1));
+        cache.invalidateIf("d"::equals);
+
+        assertEquals(List.of("b", "a", "d"), removed);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+}
@@ -37,6 +37,7 @@ import ids.messaging.protocol.multipart.parser.MultipartParseException;
 import ids.messaging.requests.InfrastructureService;
 import ids.messaging.requests.MessageContainer;
 import ids.messaging.requests.builder.IdsRequestBuilderService;
+import ids.messaging.requests.cache.QueryCacheKey;
 import ids.messaging.requests.exceptions.RejectionException;
 import ids.messaging.requests.exceptions.UnexpectedPayloadException;
 import lombok.extern.slf4j.Slf4j;
@@ -146,13 +147,15 @@ public class ParisService extends InfrastructureService
             SendMessageException,
             UnexpectedPayloadException,
             DeserializeException {
-        logBuildingHeader();
-        return idsRequestBuilderService
-                .newRequest()
-                .subjectDescription()
-                .useMultipart()
-                .operationGet(participantUri)
-                .execute(parisURI);
+        return cachedQuery(QueryCacheKey.description(parisURI, participantUri), () -> {
+            logBuildingHeader();
+            return idsRequestBuilderService
+                    .newRequest()
+                    .subjectDescription()
+                    .useMultipart()
+                    .operationGet(participantUri)
+                    .execute(parisURI);
+        });
 
     }
 }